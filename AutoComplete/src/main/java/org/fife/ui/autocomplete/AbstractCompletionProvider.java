@@ -8,7 +8,9 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.text.JTextComponent;
 
@@ -17,7 +19,23 @@ import javax.swing.text.JTextComponent;
  * A base class for completion providers.  {@link Completion}s are kept in
  * a sorted list.  To get the list of completions that match a given input,
  * a binary search is done to find the first matching completion, then all
- * succeeding completions that also match are also returned.
+ * succeeding completions that also match are also returned.<p>
+ *
+ * Providers with very large numbers of completions can also be given a
+ * {@link CompletionIndex}, such as a {@link PrefixTreeCompletionIndex}, via
+ * {@link #setCompletionIndex(CompletionIndex)}.  The index is kept in sync
+ * with the sorted list and is used for all lookups.<p>
+ *
+ * By default, completions match if their input text starts with the text
+ * being typed.  A {@link CompletionMatcher}, such as a
+ * {@link FuzzyCompletionMatcher}, can be set via
+ * {@link #setCompletionMatcher(CompletionMatcher)} for looser matching; its
+ * scores are then used to rank the completions.<p>
+ *
+ * When adding many completions from several sources, wrap the additions in
+ * {@link #beginBatchUpdate()} and {@link #commitBatchUpdate()}.  Completions
+ * added during a batch are sorted once and merged into the list when the
+ * batch is committed, rather than re-sorting the list on every addition.
  *
  * @author Robert Futrell
  * @version 1.0
@@ -36,6 +54,36 @@ public abstract class AbstractCompletionProvider
 	 */
 	protected CaseInsensitiveComparator comparator;
 
+	/**
+	 * An optional index used to look up completions, or <code>null</code>
+	 * if lookups should be done against {@link #completions} directly.
+	 */
+	private CompletionIndex completionIndex;
+
+	/**
+	 * The matcher used to find completions, or <code>null</code> to only
+	 * match completions starting with the entered text.
+	 */
+	private CompletionMatcher completionMatcher;
+
+	/**
+	 * Used to quickly rule out completions when a matcher is set.  This is
+	 * created lazily, and discarded whenever the completions change.
+	 */
+	private CharMaskFilter charMaskFilter;
+
+	/**
+	 * The number of calls to {@link #beginBatchUpdate()} that haven't yet
+	 * been matched by a call to {@link #commitBatchUpdate()}.
+	 */
+	private int batchDepth;
+
+	/**
+	 * Completions added during the current batch update, in the order they
+	 * were added.
+	 */
+	private List<Completion> pendingCompletions;
+
 
 	/**
 	 * Constructor.
@@ -44,44 +92,74 @@ public abstract class AbstractCompletionProvider
 		comparator = new CaseInsensitiveComparator();
 		clearParameterizedCompletionParams();
 		completions = new ArrayList<>();
+		pendingCompletions = new ArrayList<>();
 	}
 
 
 	/**
 	 * Adds a single completion to this provider.  If you are adding multiple
 	 * completions to this provider, for efficiency reasons please consider
-	 * using {@link #addCompletions(List)} instead.
+	 * using {@link #addCompletions(List)} or a batch update instead.
 	 *
 	 * @param c The completion to add.
 	 * @throws IllegalArgumentException If the completion's provider isn't
 	 *         this {@code CompletionProvider}.
 	 * @see #addCompletions(List)
+	 * @see #beginBatchUpdate()
 	 * @see #removeCompletion(Completion)
 	 * @see #clear()
 	 */
 	public void addCompletion(Completion c) {
-		checkProviderAndAdd(c);
-		Collections.sort(completions);
+		if (batchDepth>0) {
+			checkProviderAndAdd(c);
+			return;
+		}
+		checkProvider(c);
+		// The list is already sorted, so just insert into the right place.
+		completions.add(SortedRuns.upperBound(completions, c), c);
+		if (completionIndex!=null) {
+			completionIndex.add(c);
+		}
+		completionsChanged();
 	}
 
 
 	/**
-	 * Adds {@link Completion}s to this provider.
+	 * Adds {@link Completion}s to this provider.  If the completions are
+	 * already sorted, they are merged into this provider's completions
+	 * without sorting.
 	 *
 	 * @param completions The completions to add.  This cannot be
 	 *        <code>null</code>.
 	 * @throws IllegalArgumentException If a completion's provider isn't
 	 *         this {@code CompletionProvider}.
 	 * @see #addCompletion(Completion)
+	 * @see #beginBatchUpdate()
 	 * @see #removeCompletion(Completion)
 	 * @see #clear()
 	 */
 	public void addCompletions(List<Completion> completions) {
-		//this.completions.addAll(completions);
 		for (Completion c : completions) {
-			checkProviderAndAdd(c);
+			checkProvider(c);
+		}
+		addSortedOrPending(completions);
+	}
+
+
+	/**
+	 * Adds completions that have already been checked to belong to this
+	 * provider.  During a batch update they are queued until the batch is
+	 * committed; otherwise they are merged into the sorted list now.
+	 *
+	 * @param toAdd The completions to add.
+	 */
+	private void addSortedOrPending(List<Completion> toAdd) {
+		if (batchDepth>0) {
+			pendingCompletions.addAll(toAdd);
+		}
+		else {
+			mergeCompletions(toAdd);
 		}
-		Collections.sort(this.completions);
 	}
 
 
@@ -93,23 +171,75 @@ public abstract class AbstractCompletionProvider
 	 */
 	protected void addWordCompletions(String[] words) {
 		int count = words==null ? 0 : words.length;
+		List<Completion> toAdd = new ArrayList<>(count);
 		for (int i=0; i<count; i++) {
-			completions.add(new BasicCompletion(this, words[i]));
+			toAdd.add(new BasicCompletion(this, words[i]));
 		}
-		Collections.sort(completions);
+		addSortedOrPending(toAdd);
 	}
 
 
 	/**
-	 * Adds a completion to this provider.
+	 * Starts a batch update.  Until the matching call to
+	 * {@link #commitBatchUpdate()}, completions added to this provider are
+	 * queued rather than sorted into its list, so they will not be returned
+	 * by lookups.  Batch updates may be nested; the completions are only
+	 * added when the outermost batch is committed.<p>
 	 *
-	 * @param c The completion to add.
+	 * Use this when adding completions from many sources, or one at a time,
+	 * to avoid sorting this provider's completions on every addition:
+	 *
+	 * <pre>
+	 * provider.beginBatchUpdate();
+	 * try {
+	 *    for (CompletionSource source : sources) {
+	 *       source.addCompletionsTo(provider);
+	 *    }
+	 * } finally {
+	 *    provider.commitBatchUpdate();
+	 * }
+	 * </pre>
+	 *
+	 * @see #commitBatchUpdate()
+	 * @see #isBatchUpdating()
 	 */
-	protected void checkProviderAndAdd(Completion c) {
+	public void beginBatchUpdate() {
+		batchDepth++;
+	}
+
+
+	/**
+	 * Verifies that a completion belongs to this provider.
+	 *
+	 * @param c The completion.
+	 * @throws IllegalArgumentException If the completion's provider isn't
+	 *         this {@code CompletionProvider}.
+	 */
+	void checkProvider(Completion c) {
 		if (c.getProvider()!=this) {
 			throw new IllegalArgumentException("Invalid CompletionProvider");
 		}
+	}
+
+
+	/**
+	 * Adds a completion to this provider.  Outside of a batch update, this
+	 * method appends the completion to {@link #completions} without sorting
+	 * it; callers are responsible for re-sorting the list afterward.
+	 *
+	 * @param c The completion to add.
+	 */
+	protected void checkProviderAndAdd(Completion c) {
+		checkProvider(c);
+		if (batchDepth>0) {
+			pendingCompletions.add(c);
+			return;
+		}
 		completions.add(c);
+		if (completionIndex!=null) {
+			completionIndex.add(c);
+		}
+		completionsChanged();
 	}
 
 
@@ -123,6 +253,41 @@ public abstract class AbstractCompletionProvider
 	 */
 	public void clear() {
 		completions.clear();
+		pendingCompletions.clear();
+		if (completionIndex!=null) {
+			completionIndex.clear();
+		}
+		completionsChanged();
+	}
+
+
+	/**
+	 * Ends a batch update started with {@link #beginBatchUpdate()}.  If this
+	 * ends the outermost batch, all completions added during the batch are
+	 * sorted once (unless they were added in sorted order) and merged into
+	 * this provider's completions in a single pass.
+	 *
+	 * @throws IllegalStateException If there is no batch update in progress.
+	 * @see #beginBatchUpdate()
+	 */
+	public void commitBatchUpdate() {
+		if (batchDepth==0) {
+			throw new IllegalStateException("No batch update in progress");
+		}
+		if (--batchDepth==0 && !pendingCompletions.isEmpty()) {
+			List<Completion> toAdd = pendingCompletions;
+			pendingCompletions = new ArrayList<>();
+			mergeCompletions(toAdd);
+		}
+	}
+
+
+	/**
+	 * Called whenever completions are added to or removed from this provider.
+	 */
+	private void completionsChanged() {
+		clearRefinementCache();
+		charMaskFilter = null;
 	}
 
 
@@ -137,6 +302,11 @@ public abstract class AbstractCompletionProvider
 	@SuppressWarnings("unchecked")
 	public List<Completion> getCompletionByInputText(String inputText) {
 
+		if (completionIndex!=null) {
+			List<Completion> matches = completionIndex.getByInputText(inputText);
+			return matches.isEmpty() ? null : matches;
+		}
+
 		// Find any entry that matches this input text (there may be > 1).
 		int end = Collections.binarySearch(completions, inputText, comparator);
 		if (end<0) {
@@ -158,53 +328,208 @@ public abstract class AbstractCompletionProvider
 	}
 
 
+	/**
+	 * Returns the index used to look up completions, if any.
+	 *
+	 * @return The index, or <code>null</code> if lookups are done against
+	 *         the sorted list of completions directly.
+	 * @see #setCompletionIndex(CompletionIndex)
+	 */
+	public CompletionIndex getCompletionIndex() {
+		return completionIndex;
+	}
+
+
+	/**
+	 * Returns the comparator used to rank completions for some entered text.
+	 * This is safe to call off the EDT.
+	 *
+	 * @param text The entered text.  This may be <code>null</code>.
+	 * @return The comparator.
+	 * @see #getCompletionComparator(JTextComponent)
+	 */
+	Comparator<Completion> createRankingComparator(String text) {
+
+		Comparator<Completion> byRelevance = super.getCompletionComparator(null);
+		CompletionMatcher matcher = completionMatcher;
+		if (matcher==null || text==null || text.isEmpty()) {
+			return byRelevance;
+		}
+
+		// Each completion's score is computed at most once per sort.
+		Map<Completion, Integer> scores = new IdentityHashMap<>();
+		Comparator<Completion> byScore = Comparator.comparingInt(c ->
+				-scores.computeIfAbsent(c,
+						c2 -> matcher.match(text, c2.getInputText())));
+		return byScore.thenComparing(byRelevance);
+
+	}
+
+
 	@Override
+	protected Comparator<Completion> getCompletionComparator(JTextComponent comp) {
+		return createRankingComparator(completionMatcher==null ? null :
+				getAlreadyEnteredText(comp));
+	}
+
+
+	/**
+	 * Returns the matcher used to find completions, if any.
+	 *
+	 * @return The matcher, or <code>null</code> if only completions starting
+	 *         with the entered text are returned.
+	 * @see #setCompletionMatcher(CompletionMatcher)
+	 */
+	public CompletionMatcher getCompletionMatcher() {
+		return completionMatcher;
+	}
+
+
+	/**
+	 * Returns the completions in this provider whose input text starts with
+	 * the specified prefix, ignoring case.  Unlike
+	 * {@link #getCompletions(JTextComponent)}, this method does not copy
+	 * the matching completions or consult the parent provider; it returns a
+	 * view into this provider's storage, so its cost does not depend on the
+	 * number of matches.
+	 *
+	 * @param prefix The prefix to search for.
+	 * @return A read-only view of the matching completions.  This is only
+	 *         valid until this provider is next modified.
+	 * @see #getCompletionByInputText(String)
+	 */
 	@SuppressWarnings("unchecked")
-	protected List<Completion> getCompletionsImpl(JTextComponent comp) {
+	public List<Completion> getCompletionsByPrefix(String prefix) {
 
-		List<Completion> retVal = new ArrayList<>();
-		String text = getAlreadyEnteredText(comp);
+		if (completionIndex!=null) {
+			return completionIndex.getByPrefix(prefix);
+		}
 
-		if (text!=null) {
+		int start = Collections.binarySearch(completions, prefix, comparator);
+		if (start<0) { // No exact match
+			start = -start - 1;
+		}
+		else {
+			// If there are several overloads for the function being
+			// completed, Collections.binarySearch() will return the index
+			// of one of those overloads, but we must return all of them,
+			// so search backward until we find the first one.
+			while (start>0 &&
+					comparator.compare(completions.get(start-1), prefix)==0) {
+				start--;
+			}
+		}
 
-			int index = Collections.binarySearch(completions, text, comparator);
-			if (index<0) { // No exact match
-				index = -index - 1;
+		// All matches are contiguous, so binary search for the end of them
+		// too rather than walking through them.
+		int low = start;
+		int high = completions.size();
+		while (low<high) {
+			int mid = (low + high) >>> 1;
+			if (Util.startsWithIgnoreCase(completions.get(mid).getInputText(), prefix)) {
+				low = mid + 1;
 			}
 			else {
-				// If there are several overloads for the function being
-				// completed, Collections.binarySearch() will return the index
-				// of one of those overloads, but we must return all of them,
-				// so search backward until we find the first one.
-				int pos = index - 1;
-				while (pos>=0 &&
-						comparator.compare(completions.get(pos), text)==0) {
-					retVal.add(completions.get(pos));
-					pos--;
-				}
+				high = mid;
 			}
+		}
+
+		return Collections.unmodifiableList(completions.subList(start, low));
+
+	}
+
+
+	@Override
+	protected List<Completion> getCompletionsImpl(JTextComponent comp) {
+		String text = getAlreadyEnteredText(comp);
+		if (text==null) {
+			return new ArrayList<>();
+		}
+		if (completionMatcher!=null && !text.isEmpty()) {
+			return getMatchingCompletions(text);
+		}
+		// Only copied if a subclass or a merge with the parent's
+		// completions needs to modify it; a lazy sort just reads it.
+		return new LazyCopyList<>(getCompletionsByPrefix(text));
+	}
+
+
+	/**
+	 * Returns the completions the completion matcher matches against some
+	 * entered text.
+	 *
+	 * @param text The entered text.  This should not be empty.
+	 * @return The matching completions, in alphabetical order.
+	 */
+	private List<Completion> getMatchingCompletions(String text) {
+		if (charMaskFilter==null) {
+			charMaskFilter = new CharMaskFilter(completions);
+		}
+		return charMaskFilter.getMatches(text, completionMatcher);
+	}
+
+
+	/**
+	 * Returns whether a batch update is in progress.
+	 *
+	 * @return Whether a batch update is in progress.
+	 * @see #beginBatchUpdate()
+	 */
+	public boolean isBatchUpdating() {
+		return batchDepth>0;
+	}
 
-			while (index<completions.size()) {
-				Completion c = completions.get(index);
-				if (Util.startsWithIgnoreCase(c.getInputText(), text)) {
-					retVal.add(c);
-					index++;
-				}
-				else {
-					break;
-				}
-			}
 
+	@Override
+	protected boolean isRefinementMatch(Completion c, String text) {
+		if (completionMatcher==null) {
+			return super.isRefinementMatch(c, text);
+		}
+		return completionMatcher.match(text, c.getInputText())!=
+				CompletionMatcher.NO_MATCH;
+	}
+
+
+	/**
+	 * Merges completions into {@link #completions}, keeping it sorted.  This
+	 * is linear in the total number of completions if <code>toAdd</code> is
+	 * already sorted.
+	 *
+	 * @param toAdd The completions to add.
+	 */
+	private void mergeCompletions(List<Completion> toAdd) {
+
+		if (toAdd.isEmpty()) {
+			return;
 		}
 
-		return retVal;
+		List<Completion> sorted = toAdd;
+		if (!SortedRuns.isSorted(sorted, null)) {
+			sorted = new ArrayList<>(toAdd);
+			Collections.sort(sorted);
+		}
+
+		if (completions.isEmpty()) {
+			completions.addAll(sorted);
+		}
+		else {
+			List<Completion> merged = SortedRuns.merge(completions, sorted, null);
+			completions.clear();
+			completions.addAll(merged);
+		}
+
+		if (completionIndex!=null) {
+			completionIndex.addAll(sorted);
+		}
+		completionsChanged();
 
 	}
 
 
 	/**
 	 * Removes the specified completion from this provider.  This method
-	 * will not remove completions from the parent provider, if there is one.
+	 * will not remove completions from the parent provider, if there is one,
+	 * or completions added during a batch update that hasn't been committed.
 	 *
 	 * @param c The completion to remove.
 	 * @return <code>true</code> if this provider contained the specified
@@ -220,10 +545,52 @@ public abstract class AbstractCompletionProvider
 			return false;
 		}
 		completions.remove(index);
+		if (completionIndex!=null) {
+			completionIndex.remove(c);
+		}
+		completionsChanged();
 		return true;
 	}
 
 
+	/**
+	 * Sets the matcher used to find completions.  When a matcher is set,
+	 * {@link #getCompletions(JTextComponent)} returns all completions it
+	 * matches against the entered text, sorted by their match score, then
+	 * by relevance, then alphabetically.  Completions are prefiltered with a
+	 * bitmask of the characters in their input text, so the matcher is only
+	 * called for completions containing every character typed.
+	 *
+	 * @param matcher The matcher, or <code>null</code> to only return
+	 *        completions starting with the entered text.
+	 * @see #getCompletionMatcher()
+	 */
+	public void setCompletionMatcher(CompletionMatcher matcher) {
+		completionMatcher = matcher;
+		clearRefinementCache();
+	}
+
+
+	/**
+	 * Sets the index used to look up completions.  The index is cleared and
+	 * populated with this provider's current completions, and is kept in sync
+	 * as completions are added and removed.  Subclasses that modify
+	 * {@link #completions} directly should call this method again afterward
+	 * to re-synchronize the index.
+	 *
+	 * @param index The index to use, or <code>null</code> to do lookups
+	 *        against the sorted list of completions directly.
+	 * @see #getCompletionIndex()
+	 */
+	public void setCompletionIndex(CompletionIndex index) {
+		completionIndex = index;
+		if (index!=null) {
+			index.clear();
+			index.addAll(completions);
+		}
+	}
+
+
 	/**
 	 * A comparator that compares the input text of a {@link Completion}
 	 * against a String lexicographically, ignoring case.
@@ -0,0 +1,183 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Picks the auto-activation delay from how fast the user is typing and how
+ * long the completion provider takes to respond.<p>
+ *
+ * A query fired in the middle of a burst of typing is wasted, since its
+ * results are stale by the time they are displayed.  For a fast provider
+ * that waste is negligible, so the popup can appear almost immediately.  For
+ * a slow one, it's better to wait until the user has actually paused, which
+ * is taken to be a gap of 1.5 times their usual time between keystrokes.
+ * The delay is the shorter of that pause and twice the provider's usual
+ * latency, kept within a floor and ceiling.<p>
+ *
+ * Both averages are exponentially weighted, so they follow changes in
+ * typing speed or provider load.  Gaps longer than a second aren't counted
+ * as typing.  This class should only be used on the EDT.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see AutoCompletion#setAdaptiveAutoActivationEnabled(boolean)
+ */
+final class AdaptiveActivationDelay {
+
+	private int floor;
+	private int ceiling;
+
+	private long lastKeyTime;
+
+	/**
+	 * The average time between keystrokes, in milliseconds, or
+	 * <code>-1</code> if not yet known.
+	 */
+	private double typingGap;
+
+	/**
+	 * The average time to compute completions, in milliseconds, or
+	 * <code>-1</code> if not yet known.
+	 */
+	private double latency;
+
+	/**
+	 * The weight of a new sample in the averages.
+	 */
+	private static final double SAMPLE_WEIGHT = 0.3;
+
+	/**
+	 * The longest gap between keystrokes considered part of typing, in
+	 * milliseconds.
+	 */
+	private static final long MAX_TYPING_GAP = 1000;
+
+	private static final double PAUSE_FACTOR = 1.5;
+
+	private static final double LATENCY_FACTOR = 2;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param floor The minimum delay, in milliseconds.
+	 * @param ceiling The maximum delay, in milliseconds.
+	 */
+	AdaptiveActivationDelay(int floor, int ceiling) {
+		setBounds(floor, ceiling);
+		reset();
+	}
+
+
+	/**
+	 * Returns the average of a sample and the previous average.
+	 *
+	 * @param average The previous average, or <code>-1</code> if there is
+	 *        none.
+	 * @param sample The new sample.
+	 * @return The new average.
+	 */
+	private static double average(double average, double sample) {
+		return average<0 ? sample :
+				average + SAMPLE_WEIGHT*(sample - average);
+	}
+
+
+	/**
+	 * Records how long it took to compute completions.
+	 *
+	 * @param nanos The time taken, in nanoseconds.
+	 */
+	void completionsComputed(long nanos) {
+		latency = average(latency, nanos / (double)TimeUnit.MILLISECONDS.toNanos(1));
+	}
+
+
+	/**
+	 * Returns the maximum delay.
+	 *
+	 * @return The maximum delay, in milliseconds.
+	 * @see #getFloor()
+	 */
+	int getCeiling() {
+		return ceiling;
+	}
+
+
+	/**
+	 * Returns the delay to use for the next auto-activation.
+	 *
+	 * @param defaultDelay The delay to assume is a pause in typing until the
+	 *        user's typing speed is known, in milliseconds.
+	 * @return The delay, in milliseconds.
+	 */
+	int getDelay(int defaultDelay) {
+		double pause = typingGap<0 ? defaultDelay : typingGap*PAUSE_FACTOR;
+		double delay = latency<0 ? pause : Math.min(pause, latency*LATENCY_FACTOR);
+		return Math.max(floor, Math.min(ceiling, (int)Math.round(delay)));
+	}
+
+
+	/**
+	 * Returns the minimum delay.
+	 *
+	 * @return The minimum delay, in milliseconds.
+	 * @see #getCeiling()
+	 */
+	int getFloor() {
+		return floor;
+	}
+
+
+	/**
+	 * Records that the user typed a character.
+	 *
+	 * @param nanos The time the character was typed, as returned by
+	 *        {@link System#nanoTime()}.
+	 */
+	void keyTyped(long nanos) {
+		if (lastKeyTime!=0) {
+			long gap = TimeUnit.NANOSECONDS.toMillis(nanos - lastKeyTime);
+			if (gap<=MAX_TYPING_GAP) {
+				typingGap = average(typingGap, gap);
+			}
+		}
+		lastKeyTime = nanos;
+	}
+
+
+	/**
+	 * Forgets the measured typing speed and latency, for example when a new
+	 * completion provider is installed.
+	 */
+	void reset() {
+		lastKeyTime = 0;
+		typingGap = -1;
+		latency = -1;
+	}
+
+
+	/**
+	 * Sets the range the delay is kept in.
+	 *
+	 * @param floor The minimum delay, in milliseconds.
+	 * @param ceiling The maximum delay, in milliseconds.
+	 * @throws IllegalArgumentException If <code>floor</code> is negative or
+	 *         greater than <code>ceiling</code>.
+	 */
+	void setBounds(int floor, int ceiling) {
+		if (floor<0 || floor>ceiling) {
+			throw new IllegalArgumentException("Invalid delay bounds: " +
+					floor + ", " + ceiling);
+		}
+		this.floor = floor;
+		this.ceiling = ceiling;
+	}
+
+
+}
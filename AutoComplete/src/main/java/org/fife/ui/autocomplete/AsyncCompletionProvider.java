@@ -0,0 +1,49 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.List;
+
+
+/**
+ * A completion provider that can compute completions off the Event
+ * Dispatch Thread.  When {@link AutoCompletion#setAsyncCompletionEnabled(boolean)
+ * asynchronous completion} is enabled and the installed provider implements
+ * this interface, {@link AutoCompletion} snapshots the caret context on the
+ * EDT, calls {@link #getCompletions(CompletionContext)} on a background
+ * thread, and displays the results back on the EDT, discarding them if the
+ * caret has moved in the meantime.<p>
+ *
+ * Implementations must be safe to call from a thread other than the EDT,
+ * and must not access the text component directly.  If the user keeps
+ * typing, the pending request is cancelled: its context's
+ * {@link CompletionContext#isCancelled()} starts returning
+ * <code>true</code> and the computing thread is interrupted.  Long-running
+ * implementations should check for either and return early; whatever they
+ * return for a cancelled context is ignored.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see CompletionContext
+ */
+public interface AsyncCompletionProvider extends CompletionProvider {
+
+
+	/**
+	 * Gets the possible completions for a snapshot of a text component's
+	 * state.  This is called on a background thread when asynchronous
+	 * completion is enabled, and on the EDT otherwise.
+	 *
+	 * @param context The state of the text component when completions
+	 *        were requested.
+	 * @return The list of {@link Completion}s.  If no completions are
+	 *         available, or the context was cancelled, this method may
+	 *         return an empty list or <code>null</code>.
+	 */
+	@Override
+	List<Completion> getCompletions(CompletionContext context);
+
+
+}
@@ -0,0 +1,250 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import javax.swing.Timer;
+import javax.swing.event.CaretEvent;
+import javax.swing.event.CaretListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.Document;
+import javax.swing.text.JTextComponent;
+
+
+/**
+ * Listens for events in the text component to auto-activate the code
+ * completion popup.  Each character typed restarts a timer, so a burst of
+ * typing triggers at most one query, when the timer finally fires.<p>
+ *
+ * The timer's delay is either fixed, or picked for each keystroke by an
+ * {@link AdaptiveActivationDelay} from the user's typing speed and the
+ * provider's latency.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+class AutoActivationListener extends FocusAdapter implements
+		DocumentListener, CaretListener, ActionListener, PropertyChangeListener {
+
+	private AutoCompletion ac;
+	private Timer timer;
+	private boolean justInserted;
+
+	/**
+	 * The delay when adaptive delays are disabled, and until the user's
+	 * typing speed is known when they're enabled.
+	 */
+	private int delay;
+
+	/**
+	 * Picks the delay when adaptive delays are enabled.
+	 */
+	private AdaptiveActivationDelay adaptiveDelay;
+
+	private boolean adaptiveDelayEnabled;
+
+	/**
+	 * The default minimum adaptive delay, in milliseconds.
+	 */
+	static final int DEFAULT_DELAY_FLOOR = 50;
+
+	/**
+	 * The default maximum adaptive delay, in milliseconds.
+	 */
+	static final int DEFAULT_DELAY_CEILING = 800;
+
+
+	AutoActivationListener(AutoCompletion ac) {
+		this.ac = ac;
+		delay = 200;
+		timer = new Timer(delay, this);
+		timer.setRepeats(false);
+		adaptiveDelay = new AdaptiveActivationDelay(DEFAULT_DELAY_FLOOR,
+				DEFAULT_DELAY_CEILING);
+	}
+
+
+	@Override
+	public void actionPerformed(ActionEvent e) {
+		ac.doCompletion();
+	}
+
+
+	public void addTo(JTextComponent tc) {
+		tc.addFocusListener(this);
+		tc.getDocument().addDocumentListener(this);
+		tc.addPropertyChangeListener(AutoCompletion.DOCUMENT_CHANGED_PROPERTY, this);
+		tc.addCaretListener(this);
+	}
+
+
+	@Override
+	public void caretUpdate(CaretEvent e) {
+		if (justInserted) {
+			justInserted = false;
+		}
+		else {
+			timer.stop();
+		}
+	}
+
+
+	@Override
+	public void changedUpdate(DocumentEvent e) {
+		// Ignore
+	}
+
+
+	/**
+	 * Records how long it took to compute completions.
+	 *
+	 * @param nanos The time taken, in nanoseconds.
+	 */
+	void completionsComputed(long nanos) {
+		adaptiveDelay.completionsComputed(nanos);
+	}
+
+
+	@Override
+	public void focusLost(FocusEvent e) {
+		timer.stop();
+		// hideChildWindows(); Other listener will do this
+	}
+
+
+	/**
+	 * Returns the object picking the delay when adaptive delays are enabled.
+	 *
+	 * @return The object picking the delay.
+	 */
+	AdaptiveActivationDelay getAdaptiveDelay() {
+		return adaptiveDelay;
+	}
+
+
+	/**
+	 * Returns the fixed delay.
+	 *
+	 * @return The delay, in milliseconds.
+	 * @see #setDelay(int)
+	 */
+	int getDelay() {
+		return delay;
+	}
+
+
+	/**
+	 * Returns whether the delay is picked from the user's typing speed and
+	 * the provider's latency.
+	 *
+	 * @return Whether adaptive delays are enabled.
+	 */
+	boolean isAdaptiveDelayEnabled() {
+		return adaptiveDelayEnabled;
+	}
+
+
+	@Override
+	public void insertUpdate(DocumentEvent e) {
+		justInserted = false;
+		JTextComponent textComponent = ac.getTextComponent();
+		if (ac.isAutoCompleteEnabled() && ac.isAutoActivationEnabled() &&
+				e.getLength() == 1) {
+			if (textComponent != null &&
+					ac.getCompletionProvider().isAutoActivateOkay(textComponent)) {
+				adaptiveDelay.keyTyped(System.nanoTime());
+				if (adaptiveDelayEnabled) {
+					timer.setInitialDelay(adaptiveDelay.getDelay(delay));
+				}
+				timer.restart();
+				justInserted = true;
+			}
+			else {
+				timer.stop();
+			}
+		}
+		else {
+			timer.stop();
+		}
+	}
+
+
+	@Override
+	public void propertyChange(PropertyChangeEvent e) {
+
+		String name = e.getPropertyName();
+
+		if (AutoCompletion.DOCUMENT_CHANGED_PROPERTY.equals(name)) {
+			// The document switched out from under us
+			Document old = (Document)e.getOldValue();
+			if (old != null) {
+				old.removeDocumentListener(this);
+			}
+			Document newDoc = (Document)e.getNewValue();
+			if (newDoc != null) {
+				newDoc.addDocumentListener(this);
+			}
+		}
+
+	}
+
+
+	public void removeFrom(JTextComponent tc) {
+		tc.removeFocusListener(this);
+		tc.getDocument().removeDocumentListener(this);
+		tc.removePropertyChangeListener(AutoCompletion.DOCUMENT_CHANGED_PROPERTY, this);
+		tc.removeCaretListener(this);
+		timer.stop();
+		justInserted = false;
+	}
+
+
+	@Override
+	public void removeUpdate(DocumentEvent e) {
+		timer.stop();
+	}
+
+
+	/**
+	 * Forgets the measured typing speed and provider latency.
+	 */
+	void resetAdaptiveDelay() {
+		adaptiveDelay.reset();
+	}
+
+
+	/**
+	 * Toggles whether the delay is picked from the user's typing speed and
+	 * the provider's latency.
+	 *
+	 * @param enabled Whether adaptive delays are enabled.
+	 */
+	void setAdaptiveDelayEnabled(boolean enabled) {
+		adaptiveDelayEnabled = enabled;
+		timer.stop();
+		timer.setInitialDelay(delay);
+	}
+
+
+	/**
+	 * Sets the fixed delay.
+	 *
+	 * @param delay The delay, in milliseconds.
+	 * @see #getDelay()
+	 */
+	void setDelay(int delay) {
+		this.delay = delay;
+		timer.stop();
+		timer.setInitialDelay(delay);
+	}
+
+
+}
@@ -32,6 +32,8 @@ import javax.swing.border.AbstractBorder;
 import javax.swing.border.Border;
 import javax.swing.event.HyperlinkEvent;
 import javax.swing.event.HyperlinkListener;
+import javax.swing.text.html.HTMLDocument;
+import javax.swing.text.html.HTMLEditorKit;
 
 import org.fife.ui.rsyntaxtextarea.PopupWindowDecorator;
 
@@ -99,6 +101,11 @@ class AutoCompleteDescWindow extends JWindow implements HyperlinkListener,
 	 */
 	private TimerAction timerAction;
 
+	/**
+	 * The parsed summaries of recently displayed completions.
+	 */
+	private SummaryCache summaryCache;
+
 	/**
 	 * The resource bundle for this window.
 	 */
@@ -112,6 +119,11 @@ class AutoCompleteDescWindow extends JWindow implements HyperlinkListener,
 	 */
 	private static final int INITIAL_TIMER_DELAY			= 120;
 
+	/**
+	 * The maximum number of parsed summaries to cache.
+	 */
+	private static final int MAX_CACHED_SUMMARIES		= 32;
+
 	/**
 	 * The resource bundle name.
 	 */
@@ -141,6 +153,11 @@ class AutoCompleteDescWindow extends JWindow implements HyperlinkListener,
 		descArea = new JEditorPane("text/html", null);
 		TipUtil.tweakTipEditorPane(descArea);
 		descArea.addHyperlinkListener(this);
+		// Parsed summaries share the style sheet tweaked for the tip look
+		summaryCache = new SummaryCache((HTMLEditorKit)descArea.getEditorKit(),
+				((HTMLDocument)descArea.getDocument()).getStyleSheet(),
+				"<html><em>" + getString("NoDescAvailable") + "</em>",
+				MAX_CACHED_SUMMARIES);
 		scrollPane = new JScrollPane(descArea);
 		Border b = BorderFactory.createEmptyBorder();
 		descArea.setBackground(ac.getDescWindowColor());
@@ -390,6 +407,17 @@ class AutoCompleteDescWindow extends JWindow implements HyperlinkListener,
 	}
 
 
+	/**
+	 * Starts computing a completion's description on a background thread,
+	 * so it can be displayed without delay if it is selected.
+	 *
+	 * @param item The completion.
+	 */
+	void prefetchDescriptionFor(Completion item) {
+		summaryCache.prefetch(item, ac.getCompletionExecutor());
+	}
+
+
 	/**
 	 * Enables or disables the back and forward actions as appropriate.
 	 */
@@ -450,6 +478,17 @@ class AutoCompleteDescWindow extends JWindow implements HyperlinkListener,
 	protected void setDescriptionFor(Completion item, String anchor,
 									boolean addToHistory) {
 		timer.stop();
+		// Already-parsed descriptions are cheap enough to show right away.
+		boolean ready = item!=null && summaryCache.getIfReady(item)!=null;
+		CompletionMetrics metrics = ac.getMetrics();
+		if (item!=null && metrics.isEnabled()) {
+			metrics.cacheAccessed(CompletionMetricsListener.Cache.DESCRIPTIONS,
+					ready);
+		}
+		if (ready) {
+			setDisplayedDesc(item, anchor, addToHistory);
+			return;
+		}
 		timerAction.setCompletion(item, anchor, addToHistory);
 		timer.start();
 	}
@@ -458,11 +497,24 @@ class AutoCompleteDescWindow extends JWindow implements HyperlinkListener,
 	private void setDisplayedDesc(Completion completion, final String anchor,
 									boolean addToHistory) {
 
-		String desc = completion==null ? null : completion.getSummary();
-		if (desc==null) {
-			desc = "<html><em>" + getString("NoDescAvailable") + "</em>";
+		CompletionEvents.DescriptionDisplay event =
+				CompletionEvents.descriptionDisplay();
+		event.begin();
+		boolean cached = event.isEnabled() &&
+				summaryCache.getIfReady(completion)!=null;
+		CompletionMetrics metrics = ac.getMetrics();
+		long start = metrics.isEnabled() ? System.nanoTime() : 0;
+		HTMLDocument desc = summaryCache.get(completion);
+		descArea.setDocument(desc);
+		if (start!=0) {
+			metrics.phaseCompleted(CompletionMetricsListener.Phase.DESCRIPTION,
+					completion==null ? null : completion.getProvider(),
+					System.nanoTime() - start, -1);
+		}
+		if (event.shouldCommit()) {
+			event.commit(CompletionEvents.classOf(
+					completion==null ? null : completion.getProvider()), cached);
 		}
-		descArea.setText(desc);
 		if (anchor!=null) {
 			SwingUtilities.invokeLater(() -> descArea.scrollToReference(anchor));
 		}
@@ -484,6 +536,7 @@ class AutoCompleteDescWindow extends JWindow implements HyperlinkListener,
 	public void setVisible(boolean visible) {
 		if (!visible) {
 			clearHistory();
+			summaryCache.clear();
 		}
 		super.setVisible(visible);
 	}
@@ -512,19 +565,20 @@ class AutoCompleteDescWindow extends JWindow implements HyperlinkListener,
 		scrollPane.setBackground(descArea.getBackground());
 		scrollPane.getViewport().setBackground(descArea.getBackground());
 		((JPanel)getContentPane()).setBorder(TipUtil.getToolTipBorder());
+		summaryCache.clear();
 	}
 
 
 	/**
-	 * A completion and its cached summary text.
+	 * A completion and its parsed summary.
 	 */
 	private static class HistoryEntry {
 
 		private Completion completion;
-		private String summary;
+		private HTMLDocument summary;
 		private String anchor;
 
-		HistoryEntry(Completion completion, String summary,
+		HistoryEntry(Completion completion, HTMLDocument summary,
 									String anchor) {
 			this.completion = completion;
 			this.summary = summary;
@@ -589,7 +643,7 @@ class AutoCompleteDescWindow extends JWindow implements HyperlinkListener,
 		public void actionPerformed(ActionEvent e) {
 			if (historyPos>0) {
 				HistoryEntry pair = history.get(--historyPos);
-				descArea.setText(pair.summary);
+				descArea.setDocument(pair.summary);
 				if (pair.anchor!=null) {
 					//System.out.println("Scrolling to: " + pair.anchor);
 					descArea.scrollToReference(pair.anchor);
@@ -621,7 +675,7 @@ class AutoCompleteDescWindow extends JWindow implements HyperlinkListener,
 		public void actionPerformed(ActionEvent e) {
 			if (history!=null && historyPos<history.size()-1) {
 				HistoryEntry pair = history.get(++historyPos);
-				descArea.setText(pair.summary);
+				descArea.setDocument(pair.summary);
 				if (pair.anchor!=null) {
 					//System.out.println("Scrolling to: " + pair.anchor);
 					descArea.scrollToReference(pair.anchor);
@@ -20,6 +20,7 @@ import javax.swing.JScrollPane;
 import javax.swing.JWindow;
 import javax.swing.KeyStroke;
 import javax.swing.ListCellRenderer;
+import javax.swing.ListModel;
 import javax.swing.SwingUtilities;
 import javax.swing.event.CaretEvent;
 import javax.swing.event.CaretListener;
@@ -120,6 +121,12 @@ class AutoCompletePopupWindow extends JWindow implements CaretListener,
 	 */
 	private static final int VERTICAL_SPACE			= 1;
 
+	/**
+	 * How many completions on each side of the selected one to compute
+	 * descriptions for in the background.
+	 */
+	private static final int PREFETCH_RADIUS		= 2;
+
 	/**
 	 * The class name of the Substance List UI.
 	 */
@@ -142,7 +149,7 @@ class AutoCompletePopupWindow extends JWindow implements CaretListener,
 		model = new CompletionListModel();
 		list = new PopupList(model);
 
-		list.setCellRenderer(new DelegatingCellRenderer());
+		list.setCellRenderer(new DelegatingCellRenderer(ac.getMetrics()));
 		list.addListSelectionListener(this);
 		list.addMouseListener(this);
 
@@ -531,6 +538,23 @@ class AutoCompletePopupWindow extends JWindow implements CaretListener,
 	}
 
 
+	/**
+	 * Starts computing the descriptions of the selected completion and
+	 * those around it in the background, if asynchronous completion is
+	 * enabled.
+	 */
+	private void prefetchDescriptions() {
+		if (descWindow!=null && ac.isAsyncCompletionEnabled()) {
+			ListModel<Completion> model = list.getModel();
+			int index = list.getSelectedIndex();
+			int end = Math.min(index + PREFETCH_RADIUS, model.getSize() - 1);
+			for (int i=Math.max(0, index-PREFETCH_RADIUS); i<=end; i++) {
+				descWindow.prefetchDescriptionFor(model.getElementAt(i));
+			}
+		}
+	}
+
+
 	/**
 	 * Selects the first item in the completion list.
 	 *
@@ -630,13 +654,23 @@ class AutoCompletePopupWindow extends JWindow implements CaretListener,
 
 	/**
 	 * Sets the completions to display in the choices list.  The first
-	 * completion is selected.
+	 * completion is selected.  Completions streamed from a
+	 * {@link StreamingCompletionProvider} are only read as they are
+	 * displayed.
 	 *
 	 * @param completions The completions to display.
 	 */
 	public void setCompletions(List<Completion> completions) {
+		CompletionMetrics metrics = ac.getMetrics();
+		long start = metrics.isEnabled() ? System.nanoTime() : 0;
 		model.setContents(completions);
 		selectFirstItem();
+		if (start!=0) {
+			metrics.phaseCompleted(CompletionMetricsListener.Phase.MODEL_UPDATE,
+					ac.getCompletionProvider(), System.nanoTime() - start,
+					model.getSize());
+			list.modelUpdateTime = start;
+		}
 	}
 
 
@@ -751,6 +785,9 @@ class AutoCompletePopupWindow extends JWindow implements CaretListener,
 
 		if (visible!=isVisible()) {
 
+			CompletionMetrics metrics = ac.getMetrics();
+			long start = visible && metrics.isEnabled() ? System.nanoTime() : 0;
+
 			if (visible) {
 				installKeyBindings();
 				lastLine = ac.getLineOfCaret();
@@ -766,6 +803,7 @@ class AutoCompletePopupWindow extends JWindow implements CaretListener,
 					Completion c = list.getSelectedValue();
 					if (c!=null) {
 						descWindow.setDescriptionFor(c);
+						prefetchDescriptions();
 					}
 				}
 			}
@@ -788,6 +826,7 @@ class AutoCompletePopupWindow extends JWindow implements CaretListener,
 			if (!visible) { // Do after super.setVisible(false)
 				lastSelection = list.getSelectedValue();
 				model.clear();
+				((DelegatingCellRenderer)list.getCellRenderer()).clearRowCaches();
 			}
 			else {
 				list.repaint(); // https://github.com/bobbylight/AutoComplete/issues/70
@@ -800,6 +839,12 @@ class AutoCompletePopupWindow extends JWindow implements CaretListener,
 				descWindow.setVisible(visible && ac.getShowDescWindow());
 			}
 
+			if (start!=0) {
+				metrics.phaseCompleted(CompletionMetricsListener.Phase.POPUP_SHOW,
+						ac.getCompletionProvider(), System.nanoTime() - start,
+						model.getSize());
+			}
+
 		}
 
 	}
@@ -871,6 +916,7 @@ class AutoCompletePopupWindow extends JWindow implements CaretListener,
 			if (value!=null && descWindow!=null) {
 				descWindow.setDescriptionFor(value);
 				positionDescWindow();
+				prefetchDescriptions();
 			}
 		}
 	}
@@ -1051,10 +1097,28 @@ class AutoCompletePopupWindow extends JWindow implements CaretListener,
 	 */
 	private class PopupList extends JList<Completion> {
 
+		/**
+		 * When the model was last updated, if it hasn't been painted since
+		 * and metrics are enabled; otherwise, <code>0</code>.
+		 */
+		private long modelUpdateTime;
+
 		PopupList(CompletionListModel model) {
 			super(model);
 		}
 
+		@Override
+		protected void paintComponent(Graphics g) {
+			super.paintComponent(g);
+			if (modelUpdateTime!=0) {
+				ac.getMetrics().phaseCompleted(
+						CompletionMetricsListener.Phase.FIRST_PAINT,
+						ac.getCompletionProvider(),
+						System.nanoTime() - modelUpdateTime, getModel().getSize());
+				modelUpdateTime = 0;
+			}
+		}
+
 		@Override
 		public void setUI(ListUI ui) {
 			if (Util.getUseSubstanceRenderers() &&
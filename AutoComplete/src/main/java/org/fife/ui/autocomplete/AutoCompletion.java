@@ -10,6 +10,7 @@ import java.awt.geom.Rectangle2D;
 import java.beans.*;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
 import javax.swing.*;
 import javax.swing.event.*;
 import javax.swing.text.*;
@@ -49,11 +50,6 @@ public class AutoCompletion {
 	 */
 	private JTextComponent textComponent;
 
-	/**
-	 * The parent window of {@link #textComponent}.
-	 */
-	private Window parentWindow;
-
 	/**
 	 * The popup window containing completion choices.
 	 */
@@ -177,14 +173,8 @@ public class AutoCompletion {
 	private Action oldParenAction;
 
 	/**
-	 * Listens for events in the parent window that affect the visibility of the
-	 * popup windows.
-	 */
-	private ParentWindowListener parentWindowListener;
-
-	/**
-	 * Listens for events from the text component that affect the visibility of
-	 * the popup windows.
+	 * Listens for events from the text component and its parent window that
+	 * affect the visibility of the popup windows.
 	 */
 	private TextComponentListener textComponentListener;
 
@@ -210,6 +200,11 @@ public class AutoCompletion {
 	 */
 	private EventListenerList listeners;
 
+	/**
+	 * Reports timings to any registered {@link CompletionMetricsListener}s.
+	 */
+	private CompletionMetrics metrics;
+
 	/**
 	 * Whether the popup should be hidden when user types a space (or any
 	 * character that resets the completion list to "all completions"). Defaults
@@ -224,6 +219,11 @@ public class AutoCompletion {
 	 */
 	private boolean hideOnCompletionProviderChange;
 
+	/**
+	 * Gets completions from the provider, possibly asynchronously.
+	 */
+	private final CompletionQueryRunner queryRunner = new CompletionQueryRunner(this);
+
 	/**
 	 * The key used in the input map for the AutoComplete action.
 	 */
@@ -249,7 +249,7 @@ public class AutoCompletion {
 	/**
 	 * Fired by {@code JTextComponent}s when their {@code Document} changes.
 	 */
-	private static final String DOCUMENT_CHANGED_PROPERTY = "document";
+	static final String DOCUMENT_CHANGED_PROPERTY = "document";
 
 
 	/**
@@ -272,12 +272,12 @@ public class AutoCompletion {
 		setHideOnCompletionProviderChange(true);
 		setHideOnNoText(true);
 		setParameterDescriptionTruncateThreshold(300);
-		parentWindowListener = new ParentWindowListener();
-		textComponentListener = new TextComponentListener();
-		autoActivationListener = new AutoActivationListener();
+		textComponentListener = new TextComponentListener(this);
+		autoActivationListener = new AutoActivationListener(this);
 		lafListener = new LookAndFeelChangeListener();
-		popupWindowListener = new PopupWindowListener();
+		popupWindowListener = new PopupWindowListener(this);
 		listeners = new EventListenerList();
+		metrics = new CompletionMetrics();
 
 	}
 
@@ -293,6 +293,36 @@ public class AutoCompletion {
 	}
 
 
+	/**
+	 * Adds a listener notified of how long looking up and displaying
+	 * completions takes.  Timings are only measured while a listener is
+	 * registered.
+	 *
+	 * @param l The listener to add.
+	 * @see #removeCompletionMetricsListener(CompletionMetricsListener)
+	 * @see HistogramMetricsListener
+	 */
+	public void addCompletionMetricsListener(CompletionMetricsListener l) {
+		metrics.addListener(l);
+	}
+
+
+	/**
+	 * Called when completions have been computed for the caret position.
+	 *
+	 * @param completions The completions.  This may be <code>null</code>.
+	 * @param textLen The length of the text already entered at the caret.
+	 * @param latency How long the provider took, in nanoseconds.
+	 * @return Whether the popup window was updated successfully.
+	 * @see CompletionQueryRunner
+	 */
+	boolean completionsComputed(List<Completion> completions, int textLen,
+			long latency) {
+		autoActivationListener.completionsComputed(latency);
+		return updatePopupWindow(completions, textLen);
+	}
+
+
 	/**
 	 * Displays the popup window. Hosting applications can call this method to
 	 * programmatically begin an auto-completion operation.
@@ -327,15 +357,53 @@ public class AutoCompletion {
 	}
 
 
+	/**
+	 * Returns the executor used to compute completions asynchronously.
+	 *
+	 * @return The executor.
+	 * @see #setCompletionExecutor(ExecutorService)
+	 */
+	ExecutorService getCompletionExecutor() {
+		return queryRunner.getExecutor();
+	}
+
+
 	/**
 	 * Returns the delay between when the user types a character and when the
 	 * code completion popup should automatically appear (if applicable).
 	 *
 	 * @return The delay, in milliseconds.
 	 * @see #setAutoActivationDelay(int)
+	 * @see #isAdaptiveAutoActivationEnabled()
 	 */
 	public int getAutoActivationDelay() {
-		return autoActivationListener.timer.getDelay();
+		return autoActivationListener.getDelay();
+	}
+
+
+	/**
+	 * Returns the longest delay picked when adaptive auto-activation is
+	 * enabled.
+	 *
+	 * @return The maximum delay, in milliseconds.
+	 * @see #getAutoActivationDelayFloor()
+	 * @see #setAutoActivationDelayBounds(int, int)
+	 */
+	public int getAutoActivationDelayCeiling() {
+		return autoActivationListener.getAdaptiveDelay().getCeiling();
+	}
+
+
+	/**
+	 * Returns the shortest delay picked when adaptive auto-activation is
+	 * enabled.
+	 *
+	 * @return The minimum delay, in milliseconds.
+	 * @see #getAutoActivationDelayCeiling()
+	 * @see #setAutoActivationDelayBounds(int, int)
+	 */
+	public int getAutoActivationDelayFloor() {
+		return autoActivationListener.getAdaptiveDelay().getFloor();
 	}
 
 
@@ -575,6 +643,7 @@ public class AutoCompletion {
 	 * @return Whether the popup window was visible.
 	 */
 	protected boolean hidePopupWindow() {
+		queryRunner.cancel();
 		if (popupWindow != null) {
 			if (popupWindow.isVisible()) {
 				setPopupVisible(false);
@@ -728,6 +797,30 @@ public class AutoCompletion {
 	}
 
 
+	/**
+	 * Returns whether the auto-activation delay adapts to the user's typing
+	 * speed and the completion provider's latency.
+	 *
+	 * @return Whether adaptive auto-activation is enabled.
+	 * @see #setAdaptiveAutoActivationEnabled(boolean)
+	 */
+	public boolean isAdaptiveAutoActivationEnabled() {
+		return autoActivationListener.isAdaptiveDelayEnabled();
+	}
+
+
+	/**
+	 * Returns whether completions are computed on a background thread when
+	 * the completion provider supports it.
+	 *
+	 * @return Whether asynchronous completion is enabled.
+	 * @see #setAsyncCompletionEnabled(boolean)
+	 */
+	public boolean isAsyncCompletionEnabled() {
+		return queryRunner.isAsyncEnabled();
+	}
+
+
 	/**
 	 * Returns whether auto-activation is enabled (that is, whether the
 	 * completion popup will automatically appear after a delay when the user
@@ -802,6 +895,11 @@ public class AutoCompletion {
 		return popupWindow != null && popupWindow.isVisible();
 	}
 
+	// Returns where to report timings.
+	CompletionMetrics getMetrics() {
+		return metrics;
+	}
+
 	// Returns the completion popup window, or null if not created yet.
 	AutoCompletePopupWindow getPopupWindow() {
 		return popupWindow;
@@ -814,14 +912,24 @@ public class AutoCompletion {
 	 * popup is visible, it is hidden. If there are some completions and the
 	 * popup is hidden, it is made visible and made to display the completions.
 	 * If there are some completions and the popup is visible, its list is
-	 * updated to the current set of completions.
+	 * updated to the current set of completions.<p>
+	 *
+	 * If asynchronous completion is enabled and the provider supports it,
+	 * the completions are computed on a background thread and the popup
+	 * window is updated later, on the EDT.
 	 *
 	 * @return The current line number of the caret.
+	 * @see #setAsyncCompletionEnabled(boolean)
 	 */
 	protected int refreshPopupWindow() {
 
-		// A return value of null => don't suggest completions
-		String text = provider.getAlreadyEnteredText(textComponent);
+		// Any pending asynchronous request is for an older caret position.
+		queryRunner.cancel();
+
+		// Providers share this snapshot rather than each re-reading the
+		// document.  A null entered text => don't suggest completions.
+		CompletionContext context = metrics.createContext(textComponent, provider);
+		String text = context.getAlreadyEnteredText();
 		if (text == null && !isPopupVisible()) {
 			return getLineOfCaret();
 		}
@@ -838,58 +946,8 @@ public class AutoCompletion {
 			}
 		}
 
-		final List<Completion> completions = provider
-				.getCompletions(textComponent);
-		int count = completions==null ? 0 : completions.size();
-
-		if (count > 1 || (count == 1 && (isPopupVisible() || textLen == 0)) ||
-				(count == 1 && !getAutoCompleteSingleChoices())) {
-
-			if (popupWindow == null) {
-				popupWindow = new AutoCompletePopupWindow(parentWindow, this);
-				popupWindowListener.install(popupWindow);
-				// Completion is usually done for code, which is always done
-				// LTR, so make completion stuff RTL only if text component is
-				// also RTL.
-				popupWindow
-					.applyComponentOrientation(getTextComponentOrientation());
-				if (renderer != null) {
-					popupWindow.setListCellRenderer(renderer);
-				}
-				if (preferredChoicesWindowSize != null) {
-					popupWindow.setSize(preferredChoicesWindowSize);
-				}
-				if (preferredDescWindowSize != null) {
-					popupWindow
-							.setDescriptionWindowSize(preferredDescWindowSize);
-				}
-			}
-
-			popupWindow.setCompletions(completions);
-
-			if (!popupWindow.isVisible()) {
-				Rectangle2D r;
-				try {
-					r = textComponent.modelToView2D(textComponent.getCaretPosition());
-				} catch (BadLocationException ble) {
-					ble.printStackTrace();
-					return -1;
-				}
-				Point p = new Point((int)r.getX(), (int)r.getY());
-				SwingUtilities.convertPointToScreen(p, textComponent);
-				Rectangle r2 = new Rectangle(p.x, p.y, (int)r.getWidth(), (int)r.getHeight());
-				popupWindow.setLocationRelativeTo(r2);
-				setPopupVisible(true);
-			}
-
-		}
-
-		else if (count == 1) { // !isPopupVisible && autoCompleteSingleChoices
-			SwingUtilities.invokeLater(() -> insertCompletion(completions.get(0)));
-		}
-
-		else {
-			hidePopupWindow();
+		if (!queryRunner.run(provider, context, textLen)) {
+			return -1;
 		}
 
 		return getLineOfCaret();
@@ -908,17 +966,85 @@ public class AutoCompletion {
 	}
 
 
+	/**
+	 * Removes a listener notified of completion timings.
+	 *
+	 * @param l The listener to remove.
+	 * @see #addCompletionMetricsListener(CompletionMetricsListener)
+	 */
+	public void removeCompletionMetricsListener(CompletionMetricsListener l) {
+		metrics.removeListener(l);
+	}
+
+
+	/**
+	 * Toggles whether the auto-activation delay adapts to the user's typing
+	 * speed and the completion provider's latency.  When enabled, the delay
+	 * is picked each time a character is typed: short enough that a fast
+	 * provider's completions appear almost immediately, but long enough that
+	 * a slow provider is only queried once the user pauses.  The delay stays
+	 * within the bounds set by
+	 * {@link #setAutoActivationDelayBounds(int, int)}, and the fixed delay
+	 * is used until the user's typing speed is known.
+	 *
+	 * @param enabled Whether adaptive auto-activation is enabled.
+	 * @see #isAdaptiveAutoActivationEnabled()
+	 * @see #setAutoActivationDelay(int)
+	 */
+	public void setAdaptiveAutoActivationEnabled(boolean enabled) {
+		autoActivationListener.setAdaptiveDelayEnabled(enabled);
+	}
+
+
+	/**
+	 * Toggles whether completions are computed on a background thread.
+	 * This only has an effect when the completion provider implements
+	 * {@link AsyncCompletionProvider}; other providers are always called
+	 * on the EDT.  When enabled, the popup window is updated once the
+	 * provider returns, unless the user has moved the caret or typed more
+	 * in the meantime, in which case the results are discarded and the
+	 * provider's request is cancelled.<p>
+	 *
+	 * When enabled, the descriptions of the completions next to the
+	 * selected one are also computed in the background, so they can be
+	 * shown without delay as the selection moves.  In that case,
+	 * {@link Completion#getSummary()} must be thread-safe.
+	 *
+	 * @param enabled Whether asynchronous completion is enabled.
+	 * @see #isAsyncCompletionEnabled()
+	 * @see #setCompletionExecutor(ExecutorService)
+	 */
+	public void setAsyncCompletionEnabled(boolean enabled) {
+		queryRunner.setAsyncEnabled(enabled);
+	}
+
+
 	/**
 	 * Sets the delay between when the user types a character and when the code
 	 * completion popup should automatically appear (if applicable).
 	 *
 	 * @param ms The delay, in milliseconds. This should be greater than zero.
 	 * @see #getAutoActivationDelay()
+	 * @see #setAdaptiveAutoActivationEnabled(boolean)
 	 */
 	public void setAutoActivationDelay(int ms) {
-		ms = Math.max(0, ms);
-		autoActivationListener.timer.stop();
-		autoActivationListener.timer.setInitialDelay(ms);
+		autoActivationListener.setDelay(Math.max(0, ms));
+	}
+
+
+	/**
+	 * Sets the range of delays picked when adaptive auto-activation is
+	 * enabled.  The defaults are 50 and 800 milliseconds.
+	 *
+	 * @param floor The minimum delay, in milliseconds.
+	 * @param ceiling The maximum delay, in milliseconds.
+	 * @throws IllegalArgumentException If <code>floor</code> is negative or
+	 *         greater than <code>ceiling</code>.
+	 * @see #getAutoActivationDelayFloor()
+	 * @see #getAutoActivationDelayCeiling()
+	 */
+	public void setAutoActivationDelayBounds(int floor, int ceiling) {
+		autoActivationListener.getAdaptiveDelay().setBounds(floor, ceiling);
 	}
 
 
@@ -971,6 +1097,19 @@ public class AutoCompletion {
 	}
 
 
+	/**
+	 * Sets the executor used to compute completions when asynchronous
+	 * completion is enabled.  The executor is not shut down by this class.
+	 *
+	 * @param executor The executor, or <code>null</code> to use a shared
+	 *        default executor backed by daemon threads.
+	 * @see #setAsyncCompletionEnabled(boolean)
+	 */
+	public void setCompletionExecutor(ExecutorService executor) {
+		queryRunner.setExecutor(executor);
+	}
+
+
 	/**
 	 * Sets the completion provider being used.
 	 *
@@ -980,7 +1119,11 @@ public class AutoCompletion {
 	 *         <code>null</code>.
 	 */
 	public void setCompletionProvider(CompletionProvider provider) {
+		queryRunner.cancel();
 		this.provider = Objects.requireNonNull(provider, "provider cannot be null");
+		if (autoActivationListener != null) { // null when called from constructor
+			autoActivationListener.resetAdaptiveDelay();
+		}
 		if (isHideOnCompletionProviderChange()) {
 			hidePopupWindow(); // In case new choices should be displayed.
 		}
@@ -1219,7 +1362,8 @@ public class AutoCompletion {
 			}
 		}
 
-		pcc = new ParameterizedCompletionContext(parentWindow, this, pc);
+		pcc = new ParameterizedCompletionContext(
+				textComponentListener.getParentWindow(), this, pc);
 		pcc.activate();
 
 	}
@@ -1235,6 +1379,7 @@ public class AutoCompletion {
 
 		if (textComponent != null) {
 
+			queryRunner.cancel();
 			hidePopupWindow(); // Unregisters listeners, actions, etc.
 
 			uninstallTriggerKey();
@@ -1250,9 +1395,6 @@ public class AutoCompletion {
 			}
 
 			textComponentListener.removeFrom(textComponent);
-			if (parentWindow != null) {
-				parentWindowListener.removeFrom(parentWindow);
-			}
 
 			if (isAutoActivationEnabled()) {
 				autoActivationListener.removeFrom(textComponent);
@@ -1303,118 +1445,86 @@ public class AutoCompletion {
 
 
 	/**
-	 * Sets the maximum number of characters that the {@link ParameterizedCompletionDescriptionToolTip}
-	 * will attempt to display on one line before truncating to a short-form representation.
+	 * Updates the popup window to display a list of completions.  If there
+	 * are none, the popup is hidden; if there is just one, it may be
+	 * inserted directly instead.
 	 *
-	 * @param truncateThreshold The number of characters before truncation occurs.
-	 * @see #getParameterDescriptionTruncateThreshold()
+	 * @param completions The completions.  This may be <code>null</code>.
+	 * @param textLen The length of the text already entered at the caret.
+	 * @return Whether the update was successful.
 	 */
-	public void setParameterDescriptionTruncateThreshold(int truncateThreshold) {
-		this.parameterDescriptionTruncateThreshold = truncateThreshold;
-	}
-
+	private boolean updatePopupWindow(List<Completion> completions, int textLen) {
 
-	/**
-	 * Listens for events in the text component to auto-activate the code
-	 * completion popup.
-	 */
-	private class AutoActivationListener extends FocusAdapter implements
-			DocumentListener, CaretListener, ActionListener, PropertyChangeListener {
-
-		private Timer timer;
-		private boolean justInserted;
-
-		AutoActivationListener() {
-			timer = new Timer(200, this);
-			timer.setRepeats(false);
-		}
-
-		@Override
-		public void actionPerformed(ActionEvent e) {
-			doCompletion();
-		}
-
-		public void addTo(JTextComponent tc) {
-			tc.addFocusListener(this);
-			tc.getDocument().addDocumentListener(this);
-			tc.addPropertyChangeListener(DOCUMENT_CHANGED_PROPERTY, this);
-			tc.addCaretListener(this);
-		}
-
-		@Override
-		public void caretUpdate(CaretEvent e) {
-			if (justInserted) {
-				justInserted = false;
-			}
-			else {
-				timer.stop();
-			}
-		}
-
-		@Override
-		public void changedUpdate(DocumentEvent e) {
-			// Ignore
-		}
+		int count = completions==null ? 0 : completions.size();
 
-		@Override
-		public void focusLost(FocusEvent e) {
-			timer.stop();
-			// hideChildWindows(); Other listener will do this
-		}
+		if (count > 1 || (count == 1 && (isPopupVisible() || textLen == 0)) ||
+				(count == 1 && !getAutoCompleteSingleChoices())) {
 
-		@Override
-		public void insertUpdate(DocumentEvent e) {
-			justInserted = false;
-			if (isAutoCompleteEnabled() && isAutoActivationEnabled() &&
-					e.getLength() == 1) {
-				if (textComponent != null && provider.isAutoActivateOkay(textComponent)) {
-					timer.restart();
-					justInserted = true;
+			if (popupWindow == null) {
+				popupWindow = new AutoCompletePopupWindow(
+						textComponentListener.getParentWindow(), this);
+				popupWindowListener.install(popupWindow);
+				// Completion is usually done for code, which is always done
+				// LTR, so make completion stuff RTL only if text component is
+				// also RTL.
+				popupWindow
+					.applyComponentOrientation(getTextComponentOrientation());
+				if (renderer != null) {
+					popupWindow.setListCellRenderer(renderer);
 				}
-				else {
-					timer.stop();
+				if (preferredChoicesWindowSize != null) {
+					popupWindow.setSize(preferredChoicesWindowSize);
+				}
+				if (preferredDescWindowSize != null) {
+					popupWindow
+							.setDescriptionWindowSize(preferredDescWindowSize);
 				}
 			}
-			else {
-				timer.stop();
-			}
-		}
-
-		@Override
-		public void propertyChange(PropertyChangeEvent e) {
 
-			String name = e.getPropertyName();
+			popupWindow.setCompletions(completions);
 
-			if (DOCUMENT_CHANGED_PROPERTY.equals(name)) {
-				// The document switched out from under us
-				Document old = (Document)e.getOldValue();
-				if (old != null) {
-					old.removeDocumentListener(this);
-				}
-				Document newDoc = (Document)e.getNewValue();
-				if (newDoc != null) {
-					newDoc.addDocumentListener(this);
+			if (!popupWindow.isVisible()) {
+				Rectangle2D r;
+				try {
+					r = textComponent.modelToView2D(textComponent.getCaretPosition());
+				} catch (BadLocationException ble) {
+					ble.printStackTrace();
+					return false;
 				}
+				Point p = new Point((int)r.getX(), (int)r.getY());
+				SwingUtilities.convertPointToScreen(p, textComponent);
+				Rectangle r2 = new Rectangle(p.x, p.y, (int)r.getWidth(), (int)r.getHeight());
+				popupWindow.setLocationRelativeTo(r2);
+				setPopupVisible(true);
 			}
 
 		}
 
-		public void removeFrom(JTextComponent tc) {
-			tc.removeFocusListener(this);
-			tc.getDocument().removeDocumentListener(this);
-			tc.removePropertyChangeListener(DOCUMENT_CHANGED_PROPERTY, this);
-			tc.removeCaretListener(this);
-			timer.stop();
-			justInserted = false;
+		else if (count == 1) { // !isPopupVisible && autoCompleteSingleChoices
+			SwingUtilities.invokeLater(() -> insertCompletion(completions.get(0)));
 		}
 
-		@Override
-		public void removeUpdate(DocumentEvent e) {
-			timer.stop();
+		else {
+			hidePopupWindow();
 		}
 
+		return true;
+
 	}
 
+
+	/**
+	 * Sets the maximum number of characters that the {@link ParameterizedCompletionDescriptionToolTip}
+	 * will attempt to display on one line before truncating to a short-form representation.
+	 *
+	 * @param truncateThreshold The number of characters before truncation occurs.
+	 * @see #getParameterDescriptionTruncateThreshold()
+	 */
+	public void setParameterDescriptionTruncateThreshold(int truncateThreshold) {
+		this.parameterDescriptionTruncateThreshold = truncateThreshold;
+	}
+
+
 	/**
 	 * The <code>Action</code> that displays the popup window if auto-completionn is enabled.
 	 */
@@ -1488,128 +1598,5 @@ public class AutoCompletion {
 
 	}
 
-	/**
-	 * Listens for events in the parent window of the text component with
-	 * auto-completion enabled.
-	 */
-	private final class ParentWindowListener extends ComponentAdapter implements WindowFocusListener {
-
-		public void addTo(Window w) {
-			w.addComponentListener(this);
-			w.addWindowFocusListener(this);
-		}
-
-		@Override
-		public void componentHidden(ComponentEvent e) {
-			hideChildWindows();
-		}
-
-		@Override
-		public void componentMoved(ComponentEvent e) {
-			hideChildWindows();
-		}
-
-		@Override
-		public void componentResized(ComponentEvent e) {
-			hideChildWindows();
-		}
-
-		public void removeFrom(Window w) {
-			hideChildWindows();
-			w.removeComponentListener(this);
-			w.removeWindowFocusListener(this);
-		}
-
-		@Override
-		public void windowGainedFocus(WindowEvent e) {
-		}
-
-		@Override
-		public void windowLostFocus(WindowEvent e) {
-			hideChildWindows();
-		}
-
-	}
-
-
-	/**
-	 * Listens for events from the popup window.
-	 */
-	private final class PopupWindowListener extends ComponentAdapter {
-
-		@Override
-		public void componentHidden(ComponentEvent e) {
-			fireAutoCompletionEvent(AutoCompletionEvent.Type.POPUP_HIDDEN);
-		}
-
-		@Override
-		public void componentShown(ComponentEvent e) {
-			fireAutoCompletionEvent(AutoCompletionEvent.Type.POPUP_SHOWN);
-		}
-
-		public void install(AutoCompletePopupWindow popupWindow) {
-			popupWindow.addComponentListener(this);
-		}
-
-		public void uninstall(AutoCompletePopupWindow popupWindow) {
-			if (popupWindow!=null) {
-				popupWindow.removeComponentListener(this);
-			}
-		}
-
-	}
-
-
-	/**
-	 * Listens for events from the text component we're installed on.
-	 */
-	private final class TextComponentListener extends FocusAdapter implements HierarchyListener {
-
-		void addTo(JTextComponent tc) {
-			tc.addFocusListener(this);
-			tc.addHierarchyListener(this);
-		}
-
-		/**
-		 * Hide the auto-completion windows when the text component loses focus.
-		 */
-		@Override
-		public void focusLost(FocusEvent e) {
-			hideChildWindows();
-		}
-
-		/**
-		 * Called when the component hierarchy for our text component changes.
-		 * When the text component is added to a new {@link Window}, this method
-		 * registers listeners on that <code>Window</code>.
-		 *
-		 * @param e The event.
-		 */
-		@Override
-		public void hierarchyChanged(HierarchyEvent e) {
-
-			// NOTE: e many be null as we call this method at other times.
-			// System.out.println("Hierarchy changed! " + e);
-
-			Window oldParentWindow = parentWindow;
-			parentWindow = SwingUtilities.getWindowAncestor(textComponent);
-			if (parentWindow != oldParentWindow) {
-				if (oldParentWindow != null) {
-					parentWindowListener.removeFrom(oldParentWindow);
-				}
-				if (parentWindow != null) {
-					parentWindowListener.addTo(parentWindow);
-				}
-			}
-
-		}
-
-		public void removeFrom(JTextComponent tc) {
-			tc.removeFocusListener(this);
-			tc.removeHierarchyListener(this);
-		}
-
-	}
-
 
 }
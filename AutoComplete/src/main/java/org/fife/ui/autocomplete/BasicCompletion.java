@@ -20,8 +20,13 @@ package org.fife.ui.autocomplete;
 public class BasicCompletion extends AbstractCompletion {
 
 	private final String replacementText;
-	private String shortDesc;
-	private String summary;
+
+	/**
+	 * The short description and summary.  These are usually strings, but
+	 * may be read lazily if this completion was loaded from XML.
+	 */
+	private CharSequence shortDesc;
+	private CharSequence summary;
 
 
 	/**
@@ -82,13 +87,13 @@ public class BasicCompletion extends AbstractCompletion {
 	 * @see #setShortDescription(String)
 	 */
 	public String getShortDescription() {
-		return shortDesc;
+		return shortDesc==null ? null : shortDesc.toString();
 	}
 
 
 	@Override
 	public String getSummary() {
-		return summary;
+		return summary==null ? null : summary.toString();
 	}
 
 
@@ -103,6 +108,30 @@ public class BasicCompletion extends AbstractCompletion {
 	}
 
 
+	/**
+	 * Sets the short description of this completion to text that is only
+	 * computed when it's needed.
+	 *
+	 * @param shortDesc The short description.
+	 * @see DescriptionStore
+	 */
+	void setLazyShortDescription(CharSequence shortDesc) {
+		this.shortDesc = shortDesc;
+	}
+
+
+	/**
+	 * Sets the summary of this completion to text that is only computed
+	 * when it's needed.
+	 *
+	 * @param summary The summary.
+	 * @see DescriptionStore
+	 */
+	void setLazySummary(CharSequence summary) {
+		this.summary = summary;
+	}
+
+
 	/**
 	 * Sets the summary for this completion.
 	 *
@@ -126,6 +155,7 @@ public class BasicCompletion extends AbstractCompletion {
 	 */
 	@Override
 	public String toString() {
+		String shortDesc = getShortDescription();
 		if (shortDesc==null) {
 			return getInputText();
 		}
@@ -0,0 +1,442 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import javax.swing.text.JTextComponent;
+
+
+/**
+ * A completion provider whose completions come from a binary catalog
+ * created by {@link CompletionCatalogCompiler}.  The catalog is
+ * memory-mapped, and completions are only created from it when they are
+ * looked up, so this provider is ready almost immediately no matter how
+ * large the catalog is, and only the completions actually used take up
+ * space on the heap.  This makes it a drop-in replacement for a
+ * {@link DefaultCompletionProvider} loaded with
+ * {@link DefaultCompletionProvider#loadFromXML(File) loadFromXML()} for
+ * large APIs.<p>
+ *
+ * Completions can still be added to this provider; they are kept in memory
+ * and offered alongside those in the catalog.  Completions in the catalog
+ * itself can't be removed.<p>
+ *
+ * Completions are looked up by binary searching the catalog.  When only the
+ * catalog's completions match the entered text, they are streamed into the
+ * completion popup via {@link #getCompletionCursor(JTextComponent)}, so
+ * only those scrolled into view are ever created.  With a
+ * {@link CompletionMatcher}, completions whose input text doesn't contain
+ * every character typed are ruled out without being read from the catalog.
+ * When completions added to this provider are offered too, they are merged
+ * with the catalog's by input text, so the catalog's are still only
+ * created as they are accessed.<p>
+ *
+ * Each entry in the catalog is only ever represented by one completion at a
+ * time: as long as a completion created from it is still in use, the same
+ * instance is returned each time it is looked up, so completions can be
+ * compared and cached by identity.  The most recently used completions are
+ * also kept after they're no longer in use elsewhere.<p>
+ *
+ * Like most of this library, this class should only be used on the EDT.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see CompletionCatalogCompiler
+ */
+public class CatalogCompletionProvider extends DefaultCompletionProvider
+		implements StreamingCompletionProvider {
+
+	private final CompletionCatalog catalog;
+
+	/**
+	 * The class loader to load custom function completion classes with.
+	 */
+	private final ClassLoader completionCL;
+
+	/**
+	 * The completions created from the catalog, by index, for as long as
+	 * they are reachable elsewhere.
+	 */
+	private final Map<Integer, DecodedRef> decoded;
+
+	/**
+	 * Where the references in {@link #decoded} are queued once their
+	 * completions have been collected.
+	 */
+	private final ReferenceQueue<Completion> collected;
+
+	/**
+	 * The completions most recently looked up, by index, so they aren't
+	 * collected and created again when they're only referenced here.
+	 */
+	private final Map<Integer, Completion> recent;
+
+	/**
+	 * The maximum number of completions kept in {@link #recent}.
+	 */
+	private static final int MAX_RECENT = 4096;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param catalogFile The catalog file.
+	 * @throws IOException If an IO error occurs, or the file is not a
+	 *         completion catalog.
+	 */
+	public CatalogCompletionProvider(File catalogFile) throws IOException {
+		this(catalogFile, null);
+	}
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param catalogFile The catalog file.
+	 * @param cl The class loader to use when loading any custom
+	 *        {@link FunctionCompletion} class named in the catalog.  This
+	 *        may be <code>null</code> if the default is to be used.
+	 * @throws IOException If an IO error occurs, or the file is not a
+	 *         completion catalog.
+	 */
+	public CatalogCompletionProvider(File catalogFile, ClassLoader cl)
+			throws IOException {
+
+		catalog = CompletionCatalog.map(catalogFile.toPath());
+		completionCL = cl;
+		decoded = new HashMap<>();
+		collected = new ReferenceQueue<>();
+		recent = new LinkedHashMap<Integer, Completion>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, Completion> eldest) {
+				return size()>MAX_RECENT;
+			}
+		};
+
+		char startChar = catalog.getParamStartChar();
+		if (startChar != 0) {
+			char endChar = catalog.getParamEndChar();
+			String sep = catalog.getParamSeparator();
+			// Sanity check.  Note endChar can be null
+			if (sep != null && sep.length() > 0) {
+				setParameterizedCompletionParams(startChar, sep, endChar);
+			}
+		}
+
+	}
+
+
+	/**
+	 * Returns a completion from the catalog, creating it if necessary.
+	 *
+	 * @param index The index of the completion in the catalog.
+	 * @return The completion.
+	 */
+	private Completion getCatalogCompletion(int index) {
+
+		Reference<? extends Completion> ref;
+		while ((ref = collected.poll())!=null) {
+			DecodedRef stale = (DecodedRef)ref;
+			decoded.remove(stale.index, stale);
+		}
+
+		DecodedRef existing = decoded.get(index);
+		Completion c = existing==null ? null : existing.get();
+		if (c==null) {
+			c = catalog.decode(index, this, completionCL);
+			decoded.put(index, new DecodedRef(index, c, collected));
+		}
+		recent.put(index, c);
+		return c;
+
+	}
+
+
+	/**
+	 * Returns the number of completions in the catalog.
+	 *
+	 * @return The number of completions in the catalog.  This does not
+	 *         include completions added to this provider.
+	 */
+	public int getCatalogSize() {
+		return catalog.getEntryCount();
+	}
+
+
+	@Override
+	public List<Completion> getCompletionByInputText(String inputText) {
+
+		List<Completion> added = super.getCompletionByInputText(inputText);
+		int start = catalog.lowerBound(inputText);
+		int end = catalog.getRangeEnd(start, inputText, true);
+		if (start==end) {
+			return added;
+		}
+
+		return added==null ? new CatalogRange(start, end) :
+				merge(start, end, added);
+
+	}
+
+
+	/**
+	 * Returns a cursor over the completions in the catalog starting with the
+	 * entered text, in alphabetical order.  This is only possible when no
+	 * other completions need to be sorted in with them; otherwise,
+	 * <code>null</code> is returned, and
+	 * {@link #getCompletions(JTextComponent)} should be called instead.
+	 *
+	 * @param comp The text component.
+	 * @return The cursor, or <code>null</code>.
+	 */
+	@Override
+	public CompletionCursor getCompletionCursor(JTextComponent comp) {
+
+		if (!completions.isEmpty() || getParent()!=null ||
+				getCompletionMatcher()!=null) {
+			return null;
+		}
+
+		String text = getAlreadyEnteredText(comp);
+		if (text==null) {
+			return null;
+		}
+		int start = catalog.lowerBound(text);
+		return new CatalogCursor(start, catalog.getRangeEnd(start, text, false));
+
+	}
+
+
+	/**
+	 * Returns the completions in this provider whose input text starts with
+	 * the specified prefix, ignoring case.  Completions in the catalog are
+	 * only created as they are accessed.
+	 *
+	 * @param prefix The prefix to search for.
+	 * @return A read-only list of the matching completions.
+	 */
+	@Override
+	public List<Completion> getCompletionsByPrefix(String prefix) {
+
+		List<Completion> added = super.getCompletionsByPrefix(prefix);
+		int start = catalog.lowerBound(prefix);
+		int end = catalog.getRangeEnd(start, prefix, false);
+		if (added.isEmpty()) {
+			return new CatalogRange(start, end);
+		}
+		return start==end ? added : merge(start, end, added);
+
+	}
+
+
+	@Override
+	protected List<Completion> getCompletionsImpl(JTextComponent comp) {
+
+		// Without a matcher, this is all matches by prefix, including the
+		// catalog's, via getCompletionsByPrefix().  With one, it's only the
+		// matching completions added to this provider.
+		List<Completion> matches = super.getCompletionsImpl(comp);
+		CompletionMatcher matcher = getCompletionMatcher();
+		String text = matcher==null ? null : getAlreadyEnteredText(comp);
+		if (text==null || text.isEmpty()) {
+			return matches;
+		}
+
+		// Entries missing any of the typed characters can't match, so only
+		// the input text of the rest needs to be read from the catalog
+		int addedCount = matches.size();
+		int[] entries = new int[addedCount + 16];
+		for (int i=0; i<addedCount; i++) {
+			entries[i] = -i - 1;
+		}
+		int entryCount = addedCount;
+		long textMask = CharMaskFilter.getMask(text);
+		int count = catalog.getEntryCount();
+		for (int i=0; i<count; i++) {
+			if ((catalog.getCharMask(i) & textMask)==textMask &&
+					matcher.match(text, catalog.getInputText(i))!=
+					CompletionMatcher.NO_MATCH) {
+				if (entryCount==entries.length) {
+					entries = Arrays.copyOf(entries, entryCount*2);
+				}
+				entries[entryCount++] = i;
+			}
+		}
+		return new LazyCopyList<>(new CatalogList(
+				Arrays.copyOf(entries, entryCount), matches));
+
+	}
+
+
+	/**
+	 * Merges a range of the catalog with completions added to this
+	 * provider, by input text.  The catalog's completions are not created.
+	 *
+	 * @param start The start of the range, inclusive.
+	 * @param end The end of the range, exclusive.
+	 * @param added The added completions, sorted.
+	 * @return A read-only view of the merged completions.
+	 */
+	private List<Completion> merge(int start, int end, List<Completion> added) {
+
+		int addedCount = added.size();
+		int[] entries = new int[end - start + addedCount];
+		int i = start;
+		int j = 0;
+		int k = 0;
+
+		while (i<end && j<addedCount) {
+			String inputText = added.get(j).getInputText();
+			if (String.CASE_INSENSITIVE_ORDER.compare(
+					catalog.getInputText(i), inputText)<=0) {
+				entries[k++] = i++;
+			}
+			else {
+				entries[k++] = -(j++) - 1;
+			}
+		}
+		while (i<end) {
+			entries[k++] = i++;
+		}
+		while (j<addedCount) {
+			entries[k++] = -(j++) - 1;
+		}
+
+		return new CatalogList(entries, added);
+
+	}
+
+
+	/**
+	 * A read-only view of completions in the catalog and completions added
+	 * to this provider.  Completions in the catalog are only created as
+	 * they are accessed.
+	 */
+	private final class CatalogList extends AbstractList<Completion>
+			implements RandomAccess {
+
+		/**
+		 * The index in the catalog of each completion, or for an added
+		 * completion, <code>-1 - </code> its index in {@link #added}.
+		 */
+		private final int[] entries;
+
+		private final List<Completion> added;
+
+		CatalogList(int[] entries, List<Completion> added) {
+			this.entries = entries;
+			this.added = added;
+		}
+
+		@Override
+		public Completion get(int index) {
+			int entry = entries[index];
+			return entry>=0 ? getCatalogCompletion(entry) :
+					added.get(-entry - 1);
+		}
+
+		@Override
+		public int size() {
+			return entries.length;
+		}
+
+	}
+
+
+	/**
+	 * A read-only view of a range of completions in the catalog.
+	 */
+	private final class CatalogRange extends AbstractList<Completion>
+			implements RandomAccess {
+
+		private final int start;
+		private final int end;
+
+		CatalogRange(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public Completion get(int index) {
+			if (index<0 || index>=size()) {
+				throw new IndexOutOfBoundsException("Index: " + index +
+						", Size: " + size());
+			}
+			return getCatalogCompletion(start + index);
+		}
+
+		@Override
+		public int size() {
+			return end - start;
+		}
+
+	}
+
+
+	/**
+	 * Streams a range of completions in the catalog.
+	 */
+	private final class CatalogCursor implements CompletionCursor {
+
+		private int next;
+		private final int end;
+
+		CatalogCursor(int start, int end) {
+			this.next = start;
+			this.end = end;
+		}
+
+		@Override
+		public int getEstimatedSize() {
+			return end - next;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next<end;
+		}
+
+		@Override
+		public Completion next() {
+			if (next>=end) {
+				throw new NoSuchElementException();
+			}
+			return getCatalogCompletion(next++);
+		}
+
+	}
+
+
+	/**
+	 * A reference to a completion created from the catalog, which
+	 * remembers its index for removal from {@link #decoded}.
+	 */
+	private static final class DecodedRef extends WeakReference<Completion> {
+
+		private final int index;
+
+		DecodedRef(int index, Completion completion,
+				ReferenceQueue<Completion> queue) {
+			super(completion, queue);
+			this.index = index;
+		}
+
+	}
+
+
+}
@@ -0,0 +1,122 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * A prefilter for {@link CompletionMatcher}s.  Each completion's input text
+ * is summarized as a 64-bit mask of the (case-folded) characters it
+ * contains.  Since a matcher only matches input text containing every
+ * character of the typed text, any completion whose mask is missing a bit
+ * from the typed text's mask can be skipped without calling the matcher.
+ * Checking the masks is a tight loop over a primitive array, so this stays
+ * fast for very large numbers of completions.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class CharMaskFilter {
+
+	private final List<Completion> completions;
+	private final long[] masks;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param completions The completions to filter.  This list should not
+	 *        be modified while this filter is in use.
+	 */
+	CharMaskFilter(List<Completion> completions) {
+		this.completions = completions;
+		int count = completions.size();
+		masks = new long[count];
+		for (int i=0; i<count; i++) {
+			masks[i] = getMask(completions.get(i).getInputText());
+		}
+	}
+
+
+	/**
+	 * Returns the bit used for a character in a mask.  ASCII letters, digits
+	 * and underscores get their own bits; all other characters share the
+	 * remaining ones.
+	 *
+	 * @param ch The character.
+	 * @return The bit.
+	 */
+	private static long getBit(char ch) {
+		ch = Util.foldCase(ch);
+		int bit;
+		if (ch>='a' && ch<='z') {
+			bit = ch - 'a';
+		}
+		else if (ch>='0' && ch<='9') {
+			bit = 26 + ch - '0';
+		}
+		else if (ch=='_') {
+			bit = 36;
+		}
+		else {
+			bit = 37 + ch % 27;
+		}
+		return 1L << bit;
+	}
+
+
+	/**
+	 * Returns the mask for some text.
+	 *
+	 * @param text The text.
+	 * @return The mask.
+	 */
+	static long getMask(String text) {
+		long mask = 0;
+		for (int i=0; i<text.length(); i++) {
+			mask |= getBit(text.charAt(i));
+		}
+		return mask;
+	}
+
+
+	/**
+	 * Returns whether this filter was created for a list.
+	 *
+	 * @param completions The list.
+	 * @return Whether this filter was created for that exact list.
+	 */
+	boolean isFor(List<Completion> completions) {
+		return this.completions==completions;
+	}
+
+
+	/**
+	 * Returns the completions matching some typed text, in the order they
+	 * are in the list this filter was created with.
+	 *
+	 * @param pattern The typed text.  This should not be empty.
+	 * @param matcher The matcher to call on each completion that isn't
+	 *        ruled out by its mask.
+	 * @return The matching completions.
+	 */
+	List<Completion> getMatches(String pattern, CompletionMatcher matcher) {
+		long patternMask = getMask(pattern);
+		List<Completion> matches = new ArrayList<>();
+		for (int i=0; i<masks.length; i++) {
+			if ((masks[i] & patternMask)==patternMask) {
+				Completion c = completions.get(i);
+				if (matcher.match(pattern, c.getInputText())!=CompletionMatcher.NO_MATCH) {
+					matches.add(c);
+				}
+			}
+		}
+		return matches;
+	}
+
+
+}
@@ -0,0 +1,303 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Reads completions from a binary catalog created by
+ * {@link CompletionCatalogCompiler}.  Completions are decoded from the
+ * catalog only when asked for, so opening even a huge catalog is cheap.<p>
+ *
+ * A catalog is laid out as follows.  All numbers are big-endian, and all
+ * strings are referenced by their byte offset from the start of the
+ * catalog, or <code>-1</code> for <code>null</code>:
+ *
+ * <pre>
+ * header:  int magic, int version, char paramStartChar, char paramEndChar,
+ *          int paramSeparator, int functionCompletionType, int entryCount
+ * index:   int[entryCount] entry offsets, sorted by input text, ignoring
+ *          case
+ * masks:   long[entryCount] the characters in each entry's input text, as
+ *          computed by <code>CharMaskFilter.getMask()</code>, in index
+ *          order
+ * entries: byte kind, int name, int type, int definedIn, int desc,
+ *          int returnValDesc, short paramCount, then for each parameter
+ *          int type, int name, int desc, byte endParam
+ * strings: int length, then that many bytes of UTF-8
+ * </pre>
+ *
+ * Each string is stored only once, however many entries use it.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class CompletionCatalog {
+
+	static final int MAGIC = 0x41434354; // "ACCT"
+	static final int VERSION = 2;
+
+	static final int HEADER_SIZE = 24;
+	static final int ENTRY_SIZE = 23;
+	static final int PARAM_SIZE = 13;
+	static final int NO_STRING = -1;
+
+	static final byte KIND_OTHER = 0;
+	static final byte KIND_VARIABLE = 1;
+	static final byte KIND_FUNCTION = 2;
+	static final byte KIND_TAG = 3;
+
+	private final ByteBuffer buffer;
+	private final int entryCount;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param buffer The catalog's contents.
+	 * @throws IOException If the buffer does not contain a catalog.
+	 */
+	CompletionCatalog(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if (buffer.limit()<HEADER_SIZE || buffer.getInt(0)!=MAGIC) {
+			throw new IOException("Not a completion catalog");
+		}
+		if (buffer.getInt(4)!=VERSION) {
+			throw new IOException("Unsupported completion catalog version: " +
+					buffer.getInt(4));
+		}
+		entryCount = buffer.getInt(20);
+		if (entryCount<0 ||
+				HEADER_SIZE + 12L*entryCount>buffer.limit()) {
+			throw new IOException("Truncated completion catalog");
+		}
+	}
+
+
+	/**
+	 * Decodes a completion.
+	 *
+	 * @param index The index of the completion in the catalog.
+	 * @param provider The provider of the completion.
+	 * @param cl The class loader to load custom function completion classes
+	 *        with.  This may be <code>null</code>.
+	 * @return The completion.
+	 */
+	Completion decode(int index, CompletionProvider provider, ClassLoader cl) {
+
+		int offs = getEntryOffset(index);
+		byte kind = buffer.get(offs);
+		String name = getString(buffer.getInt(offs + 1));
+		String type = getString(buffer.getInt(offs + 5));
+		String definedIn = getString(buffer.getInt(offs + 9));
+		String desc = getString(buffer.getInt(offs + 13));
+		String returnValDesc = getString(buffer.getInt(offs + 17));
+		int paramCount = buffer.getChar(offs + 21);
+
+		List<ParameterizedCompletion.Parameter> params =
+				new ArrayList<>(paramCount);
+		offs += ENTRY_SIZE;
+		for (int i=0; i<paramCount; i++) {
+			ParameterizedCompletion.Parameter param =
+				new ParameterizedCompletion.Parameter(
+					getString(buffer.getInt(offs)),
+					getString(buffer.getInt(offs + 4)),
+					buffer.get(offs + 12)!=0);
+			param.setDescription(getString(buffer.getInt(offs + 8)));
+			params.add(param);
+			offs += PARAM_SIZE;
+		}
+
+		switch (kind) {
+			case KIND_FUNCTION:
+				FunctionCompletion fc = CompletionXMLParser.createFunctionCompletion(
+						getFunctionCompletionType(), cl, provider, name, type);
+				fc.setShortDescription(desc);
+				fc.setParams(params);
+				fc.setDefinedIn(definedIn);
+				fc.setReturnValueDescription(returnValDesc);
+				return fc;
+			case KIND_VARIABLE:
+				VariableCompletion vc = new VariableCompletion(provider, name, type);
+				vc.setShortDescription(desc);
+				vc.setDefinedIn(definedIn);
+				return vc;
+			case KIND_TAG:
+				MarkupTagCompletion mc = new MarkupTagCompletion(provider, name);
+				mc.setDescription(desc);
+				mc.setAttributes(params);
+				mc.setDefinedIn(definedIn);
+				return mc;
+			case KIND_OTHER:
+				BasicCompletion bc = new BasicCompletion(provider, name);
+				bc.setSummary(desc);
+				return bc;
+			default:
+				throw new IllegalStateException("Unknown completion kind: " + kind);
+		}
+
+	}
+
+
+	/**
+	 * Returns the number of completions in the catalog.
+	 *
+	 * @return The number of completions.
+	 */
+	int getEntryCount() {
+		return entryCount;
+	}
+
+
+	/**
+	 * Returns the mask of the characters in a completion's input text, as
+	 * computed by {@link CharMaskFilter#getMask(String)}.  This allows
+	 * ruling out completions for a {@link CompletionMatcher} without
+	 * decoding their input text.
+	 *
+	 * @param index The index of the completion in the catalog.
+	 * @return The mask.
+	 */
+	long getCharMask(int index) {
+		return buffer.getLong(HEADER_SIZE + 4*entryCount + 8*index);
+	}
+
+
+	private int getEntryOffset(int index) {
+		return buffer.getInt(HEADER_SIZE + 4*index);
+	}
+
+
+	/**
+	 * Returns the custom class to use for function completions.
+	 *
+	 * @return The fully qualified class name, or <code>null</code> if
+	 *         {@link FunctionCompletion} should be used.
+	 */
+	String getFunctionCompletionType() {
+		return getString(buffer.getInt(16));
+	}
+
+
+	/**
+	 * Returns the input text of a completion, without decoding the rest of
+	 * it.
+	 *
+	 * @param index The index of the completion in the catalog.
+	 * @return The input text.
+	 */
+	String getInputText(int index) {
+		return getString(buffer.getInt(getEntryOffset(index) + 1));
+	}
+
+
+	char getParamEndChar() {
+		return buffer.getChar(10);
+	}
+
+
+	String getParamSeparator() {
+		return getString(buffer.getInt(12));
+	}
+
+
+	char getParamStartChar() {
+		return buffer.getChar(8);
+	}
+
+
+	/**
+	 * Returns the end of the range of completions whose input text starts
+	 * with, or equals, some text, ignoring case.
+	 *
+	 * @param start The start of the range, as returned by
+	 *        {@link #lowerBound(String)}.
+	 * @param text The text.
+	 * @param exact Whether the input text must equal <code>text</code>,
+	 *        rather than start with it.
+	 * @return The end of the range, exclusive.
+	 */
+	int getRangeEnd(int start, String text, boolean exact) {
+		int low = start;
+		int high = entryCount;
+		while (low<high) {
+			int mid = (low + high) >>> 1;
+			String inputText = getInputText(mid);
+			boolean matches = exact ?
+					String.CASE_INSENSITIVE_ORDER.compare(inputText, text)==0 :
+					Util.startsWithIgnoreCase(inputText, text);
+			if (matches) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+
+	private String getString(int offs) {
+		if (offs==NO_STRING) {
+			return null;
+		}
+		byte[] bytes = new byte[buffer.getInt(offs)];
+		ByteBuffer dup = buffer.duplicate();
+		dup.position(offs + 4);
+		dup.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+
+	/**
+	 * Returns the index of the first completion whose input text is not less
+	 * than some text, ignoring case.
+	 *
+	 * @param text The text.
+	 * @return The index, which may be the number of completions.
+	 */
+	int lowerBound(String text) {
+		int low = 0;
+		int high = entryCount;
+		while (low<high) {
+			int mid = (low + high) >>> 1;
+			if (String.CASE_INSENSITIVE_ORDER.compare(getInputText(mid), text)<0) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+
+	/**
+	 * Memory-maps a catalog file.  The file is not read until completions
+	 * are decoded from it, and pages of it not used are never loaded.
+	 *
+	 * @param path The catalog file.
+	 * @return The catalog.
+	 * @throws IOException If an IO error occurs, or the file is not a
+	 *         catalog.
+	 */
+	static CompletionCatalog map(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			// The mapping stays valid after the channel is closed.
+			return new CompletionCatalog(channel.map(
+					FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+
+}
@@ -0,0 +1,290 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import org.xml.sax.SAXException;
+
+
+/**
+ * Compiles completion XML, as loaded by
+ * {@link DefaultCompletionProvider#loadFromXML(InputStream)}, into a binary
+ * catalog that a {@link CatalogCompletionProvider} can open almost
+ * instantly.  Loading XML parses and validates the entire file and creates
+ * every completion up front, which can take seconds for large APIs; a
+ * catalog is memory-mapped instead, and only the completions actually used
+ * are ever created.<p>
+ *
+ * Catalogs are meant to be compiled as part of a build, either by calling
+ * {@link #compile(File, File)} or by running this class:
+ *
+ * <pre>
+ * java org.fife.ui.autocomplete.CompletionCatalogCompiler c.xml c.catalog
+ * </pre>
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see CatalogCompletionProvider
+ */
+public final class CompletionCatalogCompiler {
+
+
+	private CompletionCatalogCompiler() {
+	}
+
+
+	/**
+	 * Compiles completion XML into a catalog.
+	 *
+	 * @param xml The XML file.  This should validate against
+	 *        <code>CompletionXml.dtd</code>.
+	 * @param catalog The catalog file to create.  If it already exists, it
+	 *        is overwritten.
+	 * @throws IOException If an IO error occurs, or the XML is invalid.
+	 */
+	public static void compile(File xml, File catalog) throws IOException {
+		try (InputStream in = Files.newInputStream(xml.toPath());
+				OutputStream out = Files.newOutputStream(catalog.toPath())) {
+			compile(in, out);
+		}
+	}
+
+
+	/**
+	 * Compiles completion XML into a catalog.  Neither stream is closed.
+	 *
+	 * @param xml The XML to read.  This should validate against
+	 *        <code>CompletionXml.dtd</code>.
+	 * @param out The stream to write the catalog to.
+	 * @throws IOException If an IO error occurs, or the XML is invalid.
+	 */
+	public static void compile(InputStream xml, OutputStream out)
+			throws IOException {
+
+		DefaultCompletionProvider provider = new DefaultCompletionProvider();
+		CompletionXMLParser handler = new CompletionXMLParser(provider);
+		SAXParserFactory factory = SAXParserFactory.newInstance();
+		factory.setValidating(true);
+		try {
+			SAXParser saxParser = factory.newSAXParser();
+			saxParser.parse(new BufferedInputStream(xml), handler);
+		} catch (SAXException | ParserConfigurationException e) {
+			throw new IOException(e.toString());
+		}
+
+		List<Completion> completions = new ArrayList<>(handler.getCompletions());
+		Collections.sort(completions);
+		// The catalog is binary searched by input text, so it must be sorted
+		// by exactly that.  This is stable, so overloads stay in order.
+		@SuppressWarnings("unchecked")
+		Comparator<Completion> byInputText =
+				new AbstractCompletionProvider.CaseInsensitiveComparator();
+		completions.sort(byInputText);
+
+		List<Entry> entries = new ArrayList<>(completions.size());
+		for (Completion c : completions) {
+			entries.add(new Entry(c));
+		}
+
+		// Strings go after the entries, so the size of the entries is needed
+		// to know where each string will be.
+		long entriesStart = CompletionCatalog.HEADER_SIZE + 12L*entries.size();
+		long stringsStart = entriesStart;
+		for (Entry entry : entries) {
+			stringsStart += entry.getSize();
+		}
+		StringTable strings = new StringTable(stringsStart);
+
+		DataOutputStream dout = new DataOutputStream(new BufferedOutputStream(out));
+		dout.writeInt(CompletionCatalog.MAGIC);
+		dout.writeInt(CompletionCatalog.VERSION);
+		dout.writeChar(handler.getParamStartChar());
+		dout.writeChar(handler.getParamEndChar());
+		dout.writeInt(strings.add(handler.getParamSeparator()));
+		dout.writeInt(strings.add(handler.getFunctionCompletionType()));
+		dout.writeInt(entries.size());
+
+		long offs = entriesStart;
+		for (Entry entry : entries) {
+			dout.writeInt((int)offs);
+			offs += entry.getSize();
+		}
+		for (Entry entry : entries) {
+			dout.writeLong(CharMaskFilter.getMask(entry.name));
+		}
+		for (Entry entry : entries) {
+			entry.write(dout, strings);
+		}
+		strings.write(dout);
+		dout.flush();
+
+	}
+
+
+	/**
+	 * Compiles completion XML into a catalog.
+	 *
+	 * @param args The XML file and the catalog file to create.
+	 * @throws IOException If an IO error occurs, or the XML is invalid.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length!=2) {
+			System.err.println("Usage: java " +
+					CompletionCatalogCompiler.class.getName() +
+					" <input.xml> <output.catalog>");
+			System.exit(1);
+		}
+		compile(new File(args[0]), new File(args[1]));
+	}
+
+
+	/**
+	 * The data of a completion to write to a catalog.
+	 */
+	private static final class Entry {
+
+		private final byte kind;
+		private final String name;
+		private final String type;
+		private final String definedIn;
+		private final String desc;
+		private final String returnValDesc;
+		private final List<? extends ParameterizedCompletion.Parameter> params;
+
+		Entry(Completion c) {
+			name = c.getInputText();
+			if (c instanceof FunctionCompletion) {
+				FunctionCompletion fc = (FunctionCompletion)c;
+				kind = CompletionCatalog.KIND_FUNCTION;
+				type = fc.getType();
+				definedIn = fc.getDefinedIn();
+				desc = fc.getShortDescription();
+				returnValDesc = fc.getReturnValueDescription();
+				List<ParameterizedCompletion.Parameter> list = new ArrayList<>();
+				for (int i=0; i<fc.getParamCount(); i++) {
+					list.add(fc.getParam(i));
+				}
+				params = list;
+			}
+			else if (c instanceof VariableCompletion) {
+				VariableCompletion vc = (VariableCompletion)c;
+				kind = CompletionCatalog.KIND_VARIABLE;
+				type = vc.getType();
+				definedIn = vc.getDefinedIn();
+				desc = vc.getShortDescription();
+				returnValDesc = null;
+				params = Collections.emptyList();
+			}
+			else if (c instanceof MarkupTagCompletion) {
+				MarkupTagCompletion mc = (MarkupTagCompletion)c;
+				kind = CompletionCatalog.KIND_TAG;
+				type = null;
+				definedIn = mc.getDefinedIn();
+				desc = mc.getDescription();
+				returnValDesc = null;
+				params = mc.getAttributes()==null ? Collections.emptyList() :
+						mc.getAttributes();
+			}
+			else {
+				kind = CompletionCatalog.KIND_OTHER;
+				type = null;
+				definedIn = null;
+				desc = c.getSummary();
+				returnValDesc = null;
+				params = Collections.emptyList();
+			}
+		}
+
+		int getSize() {
+			return CompletionCatalog.ENTRY_SIZE +
+					params.size()*CompletionCatalog.PARAM_SIZE;
+		}
+
+		void write(DataOutputStream out, StringTable strings)
+				throws IOException {
+			out.writeByte(kind);
+			out.writeInt(strings.add(name));
+			out.writeInt(strings.add(type));
+			out.writeInt(strings.add(definedIn));
+			out.writeInt(strings.add(desc));
+			out.writeInt(strings.add(returnValDesc));
+			out.writeChar(params.size());
+			for (ParameterizedCompletion.Parameter param : params) {
+				out.writeInt(strings.add(param.getType()));
+				out.writeInt(strings.add(param.getName()));
+				out.writeInt(strings.add(param.getDescription()));
+				out.writeByte(param.isEndParam() ? 1 : 0);
+			}
+		}
+
+	}
+
+
+	/**
+	 * The strings to write to a catalog.  Each distinct string is written
+	 * only once.
+	 */
+	private static final class StringTable {
+
+		private final Map<String, Integer> offsets;
+		private long size;
+
+		StringTable(long start) {
+			offsets = new LinkedHashMap<>();
+			size = start;
+		}
+
+		/**
+		 * Adds a string to this table, if it isn't already in it.
+		 *
+		 * @param str The string.  This may be <code>null</code>.
+		 * @return The offset of the string in the catalog.
+		 * @throws IOException If the catalog would be too large.
+		 */
+		int add(String str) throws IOException {
+			if (str==null) {
+				return CompletionCatalog.NO_STRING;
+			}
+			Integer offs = offsets.get(str);
+			if (offs==null) {
+				if (size>Integer.MAX_VALUE) {
+					throw new IOException("Completion catalog too large");
+				}
+				offs = (int)size;
+				offsets.put(str, offs);
+				size += 4 + str.getBytes(StandardCharsets.UTF_8).length;
+			}
+			return offs;
+		}
+
+		void write(DataOutputStream out) throws IOException {
+			for (String str : offsets.keySet()) {
+				byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+		}
+
+	}
+
+
+}
@@ -8,18 +8,26 @@ import org.fife.ui.rsyntaxtextarea.HtmlUtil;
 
 import java.awt.Color;
 import java.awt.Component;
+import java.awt.Dimension;
 import java.awt.Font;
+import java.awt.FontMetrics;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Insets;
 import java.awt.Rectangle;
 import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 
 import javax.swing.DefaultListCellRenderer;
 import javax.swing.Icon;
 import javax.swing.ImageIcon;
 import javax.swing.JList;
 import javax.swing.SwingUtilities;
+import javax.swing.plaf.basic.BasicGraphicsUtils;
 import javax.swing.plaf.basic.BasicHTML;
 import javax.swing.text.View;
 
@@ -37,6 +45,23 @@ import javax.swing.text.View;
  *    <li>{@link TemplateCompletion}s</li>
  * </ul>
  *
+ * Since parsing HTML is slow, the text prepared for recently rendered
+ * completions, and the HTML views created for it, are cached.  The cache
+ * is keyed by completion identity and the state the rendering depends on
+ * (the list, selection, focus, font and foreground color), and is cleared
+ * when this renderer's settings change or the completion popup is hidden.
+ * If a completion changes in a way that affects how it is rendered, call
+ * {@link #clearRowCache()}.  Subclasses whose <code>prepareForXXX()</code>
+ * methods depend on anything else, such as the row index, should disable
+ * the cache with {@link #setRowCachingEnabled(boolean)}.<p>
+ *
+ * Alternatively, HTML can be avoided altogether by calling
+ * {@link #setHtmlRenderingEnabled(boolean)}.  The standard completion types
+ * are then drawn directly as runs of differently colored text, which looks
+ * the same but is much faster to lay out and paint.  This is not suitable
+ * for subclasses that customize the HTML prepared for completions, since
+ * the <code>prepareForXXX()</code> methods are not called in this mode.
+ *
  * @author Robert Futrell
  * @version 1.0
  */
@@ -65,6 +90,11 @@ public class CompletionCellRenderer extends DefaultListCellRenderer {
 	 */
 	private String typeColor;
 
+	/**
+	 * {@link #typeColor}, as a color.
+	 */
+	private Color typeForeground;
+
 	/**
 	 * During rendering, whether the item being rendered is selected.
 	 */
@@ -81,6 +111,27 @@ public class CompletionCellRenderer extends DefaultListCellRenderer {
 	 */
 	private String paramColor;
 
+	/**
+	 * {@link #paramColor}, as a color.
+	 */
+	private Color paramForeground;
+
+	/**
+	 * Whether completions are rendered as HTML.
+	 */
+	private boolean htmlRenderingEnabled;
+
+	/**
+	 * During rendering, the completion being drawn as styled text, or
+	 * <code>null</code> if it is rendered as HTML.
+	 */
+	private Completion styledCompletion;
+
+	/**
+	 * Used in preferred size calculations.
+	 */
+	private final Insets insets = new Insets(0, 0, 0, 0);
+
 	/**
 	 * An icon to use when no appropriate icon is found.
 	 */
@@ -105,6 +156,43 @@ public class CompletionCellRenderer extends DefaultListCellRenderer {
 	 */
 	private static final String PREFIX = "<html><nobr>";
 
+	/**
+	 * Strings for the ASCII characters, so drawing parameter list
+	 * delimiters as styled text doesn't allocate.
+	 */
+	private static final String[] ASCII_STRINGS = new String[128];
+
+	static {
+		for (int i=0; i<ASCII_STRINGS.length; i++) {
+			ASCII_STRINGS[i] = String.valueOf((char)i);
+		}
+	}
+
+	/**
+	 * The maximum number of rendered rows to cache.
+	 */
+	private static final int MAX_CACHED_ROWS = 256;
+
+	/**
+	 * The text, icons and HTML views of recently rendered rows, least
+	 * recently used first.  This is <code>null</code> while the superclass
+	 * constructor runs.
+	 */
+	private Map<RowKey, RenderedRow> rowCache;
+
+	/**
+	 * Whether {@link #rowCache} is used.
+	 */
+	private boolean rowCachingEnabled;
+
+	/**
+	 * Whether {@link #getListCellRendererComponent(JList, Object, int,
+	 * boolean, boolean)} is preparing this renderer.  While it is, the HTML
+	 * view isn't re-created every time the text, font or foreground changes;
+	 * it is installed once at the end.
+	 */
+	private boolean preparingRow;
+
 
 	/**
 	 * Constructor.
@@ -177,6 +265,18 @@ public class CompletionCellRenderer extends DefaultListCellRenderer {
 	}
 
 
+	/**
+	 * Clears the cache of rendered rows.  This should be called if
+	 * completions that may have been rendered change in a way that affects
+	 * how they are rendered, for example, if a function's parameters change.
+	 */
+	public void clearRowCache() {
+		if (rowCache!=null) {
+			rowCache.clear();
+		}
+	}
+
+
 	/**
 	 * Creates the icon to use if no icon is found for a specific completion.
 	 * The default implementation returns a 16x16 empty icon.
@@ -229,6 +329,155 @@ public class CompletionCellRenderer extends DefaultListCellRenderer {
 	}
 
 
+	/**
+	 * Draws a run of text in a single color.
+	 *
+	 * @param g The graphics context to draw with, or <code>null</code> to
+	 *        only measure the text.
+	 * @param fm The metrics of the font being drawn with.
+	 * @param text The text to draw.  If this is <code>null</code>, nothing
+	 *        is drawn.
+	 * @param color The color to draw with.
+	 * @param x The x-coordinate to start drawing at.
+	 * @param y The baseline to draw on.
+	 * @return The x-coordinate just past the drawn text.
+	 */
+	private int drawRun(Graphics g, FontMetrics fm, String text, Color color,
+			int x, int y) {
+		if (text==null) {
+			return x;
+		}
+		if (g!=null) {
+			g.setColor(color);
+			BasicGraphicsUtils.drawString(this, (Graphics2D)g, text, x, y);
+		}
+		return x + (int)BasicGraphicsUtils.getStringWidth(this, fm, text);
+	}
+
+
+	/**
+	 * Draws a completion as runs of styled text that look like the HTML it
+	 * would otherwise be rendered as.
+	 *
+	 * @param g The graphics context to draw with, or <code>null</code> to
+	 *        only measure the text.
+	 * @param fm The metrics of the font being drawn with.
+	 * @param c The completion to draw.
+	 * @param x The x-coordinate to start drawing at.
+	 * @param y The baseline to draw on.
+	 * @return The x-coordinate just past the drawn text.
+	 * @see #setHtmlRenderingEnabled(boolean)
+	 */
+	private int drawStyledText(Graphics g, FontMetrics fm, Completion c,
+			int x, int y) {
+
+		Color fg = getForeground();
+		Color paramFg = selected ? fg : paramForeground;
+		Color typeFg = selected ? fg : typeForeground;
+
+		if (c instanceof FunctionCompletion) {
+
+			FunctionCompletion fc = (FunctionCompletion)c;
+			x = drawRun(g, fm, fc.getName(), fg, x, y);
+
+			CompletionProvider provider = fc.getProvider();
+			char paramListStart = provider.getParameterListStart();
+			if (paramListStart!=0) { // 0 => no start char
+				x = drawRun(g, fm, charToString(paramListStart), fg, x, y);
+			}
+
+			int paramCount = fc.getParamCount();
+			for (int i=0; i<paramCount; i++) {
+				FunctionCompletion.Parameter param = fc.getParam(i);
+				String type = param.getType();
+				String name = param.getName();
+				if (type!=null) {
+					x = drawRun(g, fm, type, paramFg, x, y);
+					if (name!=null) {
+						x = drawRun(g, fm, " ", fg, x, y);
+					}
+				}
+				x = drawRun(g, fm, name, fg, x, y);
+				if (i<paramCount-1) {
+					x = drawRun(g, fm, provider.getParameterListSeparator(),
+							fg, x, y);
+				}
+			}
+
+			char paramListEnd = provider.getParameterListEnd();
+			if (paramListEnd!=0) { // 0 => No parameter list end char
+				x = drawRun(g, fm, charToString(paramListEnd), fg, x, y);
+			}
+			return drawTypeIfNecessary(g, fm, fc, typeFg, x, y);
+
+		}
+
+		else if (c instanceof VariableCompletion) {
+			VariableCompletion vc = (VariableCompletion)c;
+			x = drawRun(g, fm, vc.getName(), fg, x, y);
+			return drawTypeIfNecessary(g, fm, vc, typeFg, x, y);
+		}
+
+		else if (c instanceof MarkupTagCompletion) {
+			return drawRun(g, fm, ((MarkupTagCompletion)c).getName(), fg, x, y);
+		}
+
+		x = drawRun(g, fm, c.getInputText(), fg, x, y);
+		String definition = null;
+		if (c instanceof TemplateCompletion) {
+			definition = ((TemplateCompletion)c).getShortDescription();
+		}
+		else if (c instanceof BasicCompletion) {
+			definition = ((BasicCompletion)c).getShortDescription();
+		}
+		if (definition!=null) {
+			x = drawRun(g, fm, " - ", fg, x, y);
+			x = drawRun(g, fm, definition, typeFg, x, y);
+		}
+		return x;
+
+	}
+
+
+	/**
+	 * Draws a variable or function completion's type if
+	 * {@link #getShowTypes()} is {@code true}.
+	 *
+	 * @param g The graphics context to draw with, or <code>null</code> to
+	 *        only measure the text.
+	 * @param fm The metrics of the font being drawn with.
+	 * @param vc The completion.
+	 * @param typeFg The color to draw the type with.
+	 * @param x The x-coordinate to start drawing at.
+	 * @param y The baseline to draw on.
+	 * @return The x-coordinate just past the drawn text.
+	 */
+	private int drawTypeIfNecessary(Graphics g, FontMetrics fm,
+			VariableCompletion vc, Color typeFg, int x, int y) {
+		if (getShowTypes() && vc.getType()!=null) {
+			x = drawRun(g, fm, " : ", getForeground(), x, y);
+			x = drawRun(g, fm, vc.getType(), typeFg, x, y);
+		}
+		return x;
+	}
+
+
+	/**
+	 * Overridden so that, while a row is being prepared, changing the text,
+	 * font or foreground doesn't re-create the HTML view each time.
+	 */
+	@Override
+	protected void firePropertyChange(String propertyName, Object oldValue,
+			Object newValue) {
+		if (preparingRow && ("text".equals(propertyName) ||
+				"font".equals(propertyName) ||
+				"foreground".equals(propertyName))) {
+			return;
+		}
+		super.firePropertyChange(propertyName, oldValue, newValue);
+	}
+
+
 	/**
 	 * Returns the background color to use on alternating lines.
 	 *
@@ -313,34 +562,11 @@ public class CompletionCellRenderer extends DefaultListCellRenderer {
 	public Component getListCellRendererComponent(JList list, Object value,
 						int index, boolean selected, boolean hasFocus) {
 
-		super.getListCellRendererComponent(list,value,index,selected,hasFocus);
-		if (font!=null) {
-			setFont(font); // Overrides super's setFont(list.getFont()).
-		}
-		this.selected = selected;
-		this.realBG = altBG!=null && (index&1)==1 ? altBG : list.getBackground();
-
-		Completion c = (Completion)value;
-		setIcon(c.getIcon());
-
-		if (c instanceof FunctionCompletion) {
-			FunctionCompletion fc = (FunctionCompletion)value;
-			prepareForFunctionCompletion(list, fc, index, selected, hasFocus);
-		}
-		else if (c instanceof VariableCompletion) {
-			VariableCompletion vc = (VariableCompletion)value;
-			prepareForVariableCompletion(list, vc, index, selected, hasFocus);
-		}
-		else if (c instanceof TemplateCompletion) {
-			TemplateCompletion tc = (TemplateCompletion)value;
-			prepareForTemplateCompletion(list, tc, index, selected, hasFocus);
-		}
-		else if (c instanceof MarkupTagCompletion) {
-			MarkupTagCompletion mtc = (MarkupTagCompletion)value;
-			prepareForMarkupTagCompletion(list, mtc, index, selected, hasFocus);
-		}
-		else {
-			prepareForOtherCompletion(list, c, index, selected, hasFocus);
+		preparingRow = true;
+		try {
+			prepareRow(list, (Completion)value, index, selected, hasFocus);
+		} finally {
+			preparingRow = false;
 		}
 
 		// A delegate renderer might do its own alternate row striping
@@ -362,6 +588,34 @@ public class CompletionCellRenderer extends DefaultListCellRenderer {
 	}
 
 
+	/**
+	 * Overridden to measure the styled text when completions aren't rendered
+	 * as HTML.
+	 *
+	 * @return The preferred size.
+	 * @see #setHtmlRenderingEnabled(boolean)
+	 */
+	@Override
+	public Dimension getPreferredSize() {
+
+		Completion c = styledCompletion;
+		if (c==null || isPreferredSizeSet()) {
+			return super.getPreferredSize();
+		}
+
+		FontMetrics fm = getFontMetrics(getFont());
+		Icon icon = getIcon();
+		int iconW = icon!=null ? icon.getIconWidth() + getIconTextGap() : 0;
+		int iconH = icon!=null ? icon.getIconHeight() : 0;
+		getInsets(insets);
+		int w = insets.left + iconW + drawStyledText(null, fm, c, 0, 0) +
+				insets.right;
+		int h = insets.top + Math.max(fm.getHeight(), iconH) + insets.bottom;
+		return new Dimension(w, h);
+
+	}
+
+
 	/**
 	 * Returns whether the types of fields and return types of methods are
 	 * shown in the completion text.
@@ -378,8 +632,40 @@ public class CompletionCellRenderer extends DefaultListCellRenderer {
 		//setDisplayFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
 		setShowTypes(true);
 		typeColor = createTypeColor();
+		typeForeground = Color.decode(typeColor);
 		paramColor = createParamColor();
+		paramForeground = Color.decode(paramColor);
+		htmlRenderingEnabled = true;
 		paintTextR = new Rectangle();
+		rowCachingEnabled = true;
+		rowCache = new LinkedHashMap<RowKey, RenderedRow>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<RowKey, RenderedRow> eldest) {
+				return size()>MAX_CACHED_ROWS;
+			}
+		};
+	}
+
+
+	/**
+	 * Returns whether completions are rendered as HTML.
+	 *
+	 * @return Whether completions are rendered as HTML.
+	 * @see #setHtmlRenderingEnabled(boolean)
+	 */
+	public boolean isHtmlRenderingEnabled() {
+		return htmlRenderingEnabled;
+	}
+
+
+	/**
+	 * Returns whether the renderings of recently rendered rows are cached.
+	 *
+	 * @return Whether rows are cached.
+	 * @see #setRowCachingEnabled(boolean)
+	 */
+	protected boolean isRowCachingEnabled() {
+		return rowCachingEnabled;
 	}
 
 
@@ -407,6 +693,13 @@ public class CompletionCellRenderer extends DefaultListCellRenderer {
 			icon.paintIcon(this, g, 0, (getHeight() - icon.getIconHeight()) / 2);
 		}
 
+		if (styledCompletion != null) {
+			FontMetrics fm = g.getFontMetrics();
+			int y = (getHeight() - fm.getHeight()) / 2 + fm.getAscent();
+			drawStyledText(g, fm, styledCompletion, iconW + 3, y);
+			return;
+		}
+
 		String text = getText();
 		if (text != null) {
 			paintTextR.setBounds(iconW,0, getWidth()-iconW,getHeight());
@@ -431,6 +724,81 @@ public class CompletionCellRenderer extends DefaultListCellRenderer {
 	}
 
 
+	/**
+	 * Prepares this renderer to display a completion, using the cached
+	 * rendering of it if there is one.
+	 *
+	 * @param list The list of choices being rendered.
+	 * @param c The completion to render.
+	 * @param index The index into <code>list</code> being rendered.
+	 * @param selected Whether the item is selected.
+	 * @param hasFocus Whether the item has focus.
+	 */
+	private void prepareRow(JList<?> list, Completion c, int index,
+			boolean selected, boolean hasFocus) {
+
+		// When drawing styled text, the label's text is only used for
+		// accessibility and by delegate renderers.
+		super.getListCellRendererComponent(list,
+				htmlRenderingEnabled ? c : c.getInputText(), index, selected,
+				hasFocus);
+		if (font!=null) {
+			setFont(font); // Overrides super's setFont(list.getFont()).
+		}
+		this.selected = selected;
+		this.realBG = altBG!=null && (index&1)==1 ? altBG : list.getBackground();
+
+		if (!htmlRenderingEnabled) {
+			styledCompletion = c;
+			setIcon(c.getIcon());
+			putClientProperty(BasicHTML.propertyKey, null);
+			return;
+		}
+		styledCompletion = null;
+
+		RowKey key = rowCachingEnabled ? new RowKey(list, c, selected,
+				hasFocus, getFont(), getForeground()) : null;
+		RenderedRow row = key==null ? null : rowCache.get(key);
+		if (row!=null) {
+			setText(row.text);
+			setIcon(row.icon);
+			putClientProperty(BasicHTML.propertyKey, row.view);
+			return;
+		}
+
+		setIcon(c.getIcon());
+
+		if (c instanceof FunctionCompletion) {
+			FunctionCompletion fc = (FunctionCompletion)c;
+			prepareForFunctionCompletion(list, fc, index, selected, hasFocus);
+		}
+		else if (c instanceof VariableCompletion) {
+			VariableCompletion vc = (VariableCompletion)c;
+			prepareForVariableCompletion(list, vc, index, selected, hasFocus);
+		}
+		else if (c instanceof TemplateCompletion) {
+			TemplateCompletion tc = (TemplateCompletion)c;
+			prepareForTemplateCompletion(list, tc, index, selected, hasFocus);
+		}
+		else if (c instanceof MarkupTagCompletion) {
+			MarkupTagCompletion mtc = (MarkupTagCompletion)c;
+			prepareForMarkupTagCompletion(list, mtc, index, selected, hasFocus);
+		}
+		else {
+			prepareForOtherCompletion(list, c, index, selected, hasFocus);
+		}
+
+		String text = getText();
+		View view = BasicHTML.isHTMLString(text) ?
+				BasicHTML.createHTMLView(this, text) : null;
+		putClientProperty(BasicHTML.propertyKey, view);
+		if (key!=null) {
+			rowCache.put(key, new RenderedRow(text, getIcon(), view));
+		}
+
+	}
+
+
 	/**
 	 * Prepares this renderer to display a function completion.
 	 *
@@ -614,6 +982,41 @@ public class CompletionCellRenderer extends DefaultListCellRenderer {
 	 */
 	public void setDisplayFont(Font font) {
 		this.font = font;
+		clearRowCache();
+	}
+
+
+	/**
+	 * Sets whether completions are rendered as HTML.  If this is
+	 * <code>false</code>, the standard completion types are drawn directly
+	 * as runs of styled text instead.  This looks the same, but is much
+	 * faster, since no HTML is parsed or laid out.  However, the
+	 * <code>prepareForXXX()</code> methods are not called, so subclasses
+	 * customizing those should leave this enabled.
+	 *
+	 * @param enabled Whether to render completions as HTML.  The default is
+	 *        <code>true</code>.
+	 * @see #isHtmlRenderingEnabled()
+	 */
+	public void setHtmlRenderingEnabled(boolean enabled) {
+		htmlRenderingEnabled = enabled;
+		clearRowCache();
+	}
+
+
+	/**
+	 * Toggles whether the renderings of recently rendered rows are cached.
+	 * Subclasses overriding the <code>prepareForXXX()</code> methods should
+	 * disable this if what they prepare depends on anything besides the
+	 * completion, the list, and whether the row is selected or focused.
+	 *
+	 * @param enabled Whether to cache rows.  The default is
+	 *        <code>true</code>.
+	 * @see #isRowCachingEnabled()
+	 */
+	protected void setRowCachingEnabled(boolean enabled) {
+		rowCachingEnabled = enabled;
+		clearRowCache();
 	}
 
 
@@ -654,6 +1057,8 @@ public class CompletionCellRenderer extends DefaultListCellRenderer {
 	public void setParamColor(Color color) {
 		if (color!=null) {
 			paramColor = HtmlUtil.getHexString(color);
+			paramForeground = color;
+			clearRowCache();
 		}
 	}
 
@@ -667,6 +1072,7 @@ public class CompletionCellRenderer extends DefaultListCellRenderer {
 	 */
 	public void setShowTypes(boolean show) {
 		this.showTypes = show;
+		clearRowCache();
 	}
 
 
@@ -683,10 +1089,24 @@ public class CompletionCellRenderer extends DefaultListCellRenderer {
 	public void setTypeColor(Color color) {
 		if (color!=null) {
 			typeColor = HtmlUtil.getHexString(color);
+			typeForeground = color;
+			clearRowCache();
 		}
 	}
 
 
+	/**
+	 * Returns a character as a string, without allocating for ASCII
+	 * characters.
+	 *
+	 * @param ch The character.
+	 * @return The string.
+	 */
+	private static String charToString(char ch) {
+		return ch<ASCII_STRINGS.length ? ASCII_STRINGS[ch] : String.valueOf(ch);
+	}
+
+
 	/**
 	 * Overridden to update our delegate, if necessary.
 	 */
@@ -697,6 +1117,69 @@ public class CompletionCellRenderer extends DefaultListCellRenderer {
 			SwingUtilities.updateComponentTreeUI(delegate);
 		}
 		paramColor = createParamColor();
+		paramForeground = Color.decode(paramColor);
+		clearRowCache();
+	}
+
+
+	/**
+	 * Identifies a rendered row.  Completions are compared by identity,
+	 * since equal completions may still be rendered differently.
+	 */
+	private static final class RowKey {
+
+		private final JList<?> list;
+		private final Completion completion;
+		private final boolean selected;
+		private final boolean hasFocus;
+		private final Font font;
+		private final Color foreground;
+
+		RowKey(JList<?> list, Completion completion, boolean selected,
+				boolean hasFocus, Font font, Color foreground) {
+			this.list = list;
+			this.completion = completion;
+			this.selected = selected;
+			this.hasFocus = hasFocus;
+			this.font = font;
+			this.foreground = foreground;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof RowKey)) {
+				return false;
+			}
+			RowKey other = (RowKey)obj;
+			return completion==other.completion && list==other.list &&
+					selected==other.selected && hasFocus==other.hasFocus &&
+					Objects.equals(font, other.font) &&
+					Objects.equals(foreground, other.foreground);
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(completion)*31 + (selected ? 1 : 0);
+		}
+
+	}
+
+
+	/**
+	 * The cached rendering of a row.
+	 */
+	private static final class RenderedRow {
+
+		private final String text;
+		private final Icon icon;
+		private final View view;
+
+		RenderedRow(String text, Icon icon, View view) {
+			this.text = text;
+			this.icon = icon;
+			this.view = view;
+		}
+
 	}
 
 
@@ -0,0 +1,442 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.JTextComponent;
+
+import org.fife.ui.rsyntaxtextarea.RSyntaxDocument;
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+import org.fife.ui.rsyntaxtextarea.Token;
+
+
+/**
+ * A snapshot of the state of a text component at the moment completions
+ * were requested.  {@link AutoCompletion} creates one of these on the
+ * Event Dispatch Thread each time it refreshes its completions, and passes
+ * it to {@link CompletionProvider#getCompletions(CompletionContext)}.  The
+ * caret line and the token at the caret are only read from the document
+ * once, however many providers are chained together.<p>
+ *
+ * An {@link AsyncCompletionProvider} is handed its context on a background
+ * thread.  Since the text component itself must only be accessed on the
+ * EDT, providers should get everything they need about the caret from this
+ * object instead.<p>
+ *
+ * A context is also a cancellation token.  If the user keeps typing before
+ * completions are computed, the context is cancelled; long-running providers
+ * should check {@link #isCancelled()} periodically and give up early.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see AsyncCompletionProvider
+ */
+public final class CompletionContext {
+
+	private final JTextComponent textComponent;
+	private final Document document;
+	private final int caretPosition;
+	private final int line;
+	private final long documentVersion;
+	private final String textBeforeCaret;
+	private final boolean caretAtEndOfLine;
+	private int tokenType;
+	private boolean tokenTypeComputed;
+	private final CompletionProvider provider;
+	private final String alreadyEnteredText;
+	private volatile boolean cancelled;
+
+	/**
+	 * Where to report timings, or <code>null</code> if no one is listening.
+	 * Set before this context is handed to any provider.
+	 */
+	private CompletionMetrics metrics;
+
+
+	/**
+	 * Creates a snapshot of a text component's state, without any entered
+	 * text.  This must be called on the EDT.
+	 *
+	 * @param textComponent The text component.
+	 */
+	CompletionContext(JTextComponent textComponent) {
+		this(textComponent, null);
+	}
+
+
+	/**
+	 * Creates a snapshot of a text component's state.  This must be called
+	 * on the EDT.
+	 *
+	 * @param textComponent The text component.
+	 * @param provider The provider whose idea of the text already entered
+	 *        before the caret should be remembered.  This may be
+	 *        <code>null</code>.
+	 */
+	CompletionContext(JTextComponent textComponent, CompletionProvider provider) {
+		this(textComponent, provider, false);
+	}
+
+
+	/**
+	 * Creates a snapshot of a text component's state.  This must be called
+	 * on the EDT.
+	 *
+	 * @param textComponent The text component.
+	 * @param provider The provider whose idea of the text already entered
+	 *        before the caret should be remembered.  This may be
+	 *        <code>null</code>.
+	 * @param lazy Whether to compute the token type at the caret only when
+	 *        it is asked for.
+	 */
+	private CompletionContext(JTextComponent textComponent,
+			CompletionProvider provider, boolean lazy) {
+
+		this.textComponent = textComponent;
+		this.document = textComponent.getDocument();
+		this.caretPosition = textComponent.getCaretPosition();
+		this.documentVersion = getDocumentVersion(document);
+
+		Element root = document.getDefaultRootElement();
+		this.line = root.getElementIndex(caretPosition);
+		Element elem = root.getElement(line);
+		int start = elem.getStartOffset();
+		String text;
+		try {
+			text = document.getText(start, caretPosition - start);
+		} catch (BadLocationException ble) {
+			ble.printStackTrace();
+			text = "";
+		}
+		this.textBeforeCaret = text;
+		// Every line but the last ends in a newline.
+		int end = Math.min(elem.getEndOffset(), document.getLength() + 1) - 1;
+		this.caretAtEndOfLine = caretPosition>=end;
+		if (!lazy) {
+			getTokenType();
+		}
+
+		// Done last, since the provider may use this context to compute it.
+		this.provider = provider;
+		this.alreadyEnteredText = provider==null ? null :
+				getAlreadyEnteredText(provider, this);
+
+	}
+
+
+	/**
+	 * Cancels this context.  Any completions computed for it will be
+	 * discarded.
+	 *
+	 * @see #isCancelled()
+	 */
+	void cancel() {
+		cancelled = true;
+	}
+
+
+	/**
+	 * Returns the type of the token at a position in a text component.
+	 *
+	 * @param comp The text component.
+	 * @param line The line containing the position.
+	 * @param dot The position.
+	 * @return The token type.
+	 * @see #getTokenType()
+	 */
+	private static int computeTokenType(JTextComponent comp, int line, int dot) {
+
+		if (!(comp instanceof RSyntaxTextArea) ||
+				!(comp.getDocument() instanceof RSyntaxDocument)) {
+			return Token.NULL;
+		}
+
+		RSyntaxDocument doc = (RSyntaxDocument)comp.getDocument();
+		return TokenTypeCache.get(doc).getTokenType(doc, line, dot);
+
+	}
+
+
+	/**
+	 * Creates a snapshot of a text component's state that only computes the
+	 * token type at the caret when it is first asked for.  Since that reads
+	 * the text component, the snapshot must only be used on the EDT.
+	 *
+	 * @param textComponent The text component.
+	 * @param provider The provider whose idea of the text already entered
+	 *        before the caret should be remembered.  This may be
+	 *        <code>null</code>.
+	 * @return The snapshot.
+	 */
+	static CompletionContext createLazily(JTextComponent textComponent,
+			CompletionProvider provider) {
+		return new CompletionContext(textComponent, provider, true);
+	}
+
+
+	/**
+	 * Returns the text a provider considers already entered before the
+	 * caret.  Providers based on {@link CompletionProviderBase} compute it
+	 * from the context being created instead of reading the document again.
+	 *
+	 * @param provider The provider.
+	 * @param context The context being created.
+	 * @return The text.
+	 */
+	private static String getAlreadyEnteredText(CompletionProvider provider,
+			CompletionContext context) {
+		if (provider instanceof CompletionProviderBase) {
+			return ((CompletionProviderBase)provider).
+					getAlreadyEnteredText(context);
+		}
+		return provider.getAlreadyEnteredText(context.getTextComponent());
+	}
+
+
+	/**
+	 * Returns the text already entered before the caret.
+	 *
+	 * @return The text.  A value of <code>null</code> means nothing should
+	 *         be auto-completed; an empty string means all possible choices
+	 *         are valid.
+	 */
+	public String getAlreadyEnteredText() {
+		return alreadyEnteredText;
+	}
+
+
+	/**
+	 * Returns the caret position when this snapshot was taken.
+	 *
+	 * @return The caret position.
+	 */
+	public int getCaretPosition() {
+		return caretPosition;
+	}
+
+
+	/**
+	 * Returns the version of a document.  The version starts at zero the
+	 * first time it is asked for, and is incremented by every later change
+	 * to the document.  The document keeps the counter in one of its
+	 * properties, so it is installed only once and goes away with the
+	 * document.
+	 *
+	 * @param doc The document.
+	 * @return The document's version.
+	 */
+	static long getDocumentVersion(Document doc) {
+		Object counter = doc.getProperty(VersionCounter.class);
+		if (!(counter instanceof VersionCounter)) {
+			synchronized (VersionCounter.class) {
+				counter = doc.getProperty(VersionCounter.class);
+				if (!(counter instanceof VersionCounter)) {
+					counter = new VersionCounter();
+					doc.addDocumentListener((VersionCounter)counter);
+					doc.putProperty(VersionCounter.class, counter);
+				}
+			}
+		}
+		return ((VersionCounter)counter).version.get();
+	}
+
+
+	/**
+	 * Returns the document being edited.  Implementations reading its
+	 * content off the EDT should do so under the document's read lock, if
+	 * it is an {@code AbstractDocument}.
+	 *
+	 * @return The document.
+	 */
+	public Document getDocument() {
+		return document;
+	}
+
+
+	/**
+	 * Returns the version of the document when this snapshot was taken.
+	 * Two snapshots of the same document with the same version saw the same
+	 * document content.
+	 *
+	 * @return The document version.
+	 */
+	public long getDocumentVersion() {
+		return documentVersion;
+	}
+
+
+	/**
+	 * Returns the line the caret was on when this snapshot was taken.
+	 *
+	 * @return The 0-based line index.
+	 */
+	public int getLine() {
+		return line;
+	}
+
+
+	/**
+	 * Returns where to report the timings of work done for this context.
+	 *
+	 * @return Where to report timings, or <code>null</code> if they aren't
+	 *         being measured.
+	 */
+	CompletionMetrics getMetrics() {
+		return metrics;
+	}
+
+
+	/**
+	 * Returns the provider the already-entered text was computed for.
+	 *
+	 * @return The provider, or <code>null</code> if none.
+	 * @see #getAlreadyEnteredText()
+	 */
+	CompletionProvider getProvider() {
+		return provider;
+	}
+
+
+	/**
+	 * Returns the text on the caret's line before the caret.  Providers
+	 * looking backward from the caret should use this rather than reading
+	 * the document again.
+	 *
+	 * @return The text.
+	 */
+	public String getTextBeforeCaret() {
+		return textBeforeCaret;
+	}
+
+
+	/**
+	 * Returns the text component.  This should only be used to identify the
+	 * component, or on the EDT.
+	 *
+	 * @return The text component.
+	 */
+	public JTextComponent getTextComponent() {
+		return textComponent;
+	}
+
+
+	/**
+	 * Returns the type of the token at the caret, if the text component is
+	 * an {@code RSyntaxTextArea}.  At the end of a line, this is the type of
+	 * the line's last token, which may continue onto the next line.
+	 *
+	 * @return The token type, as defined in RSyntaxTextArea's
+	 *         {@code TokenTypes}.  This is {@code Token.NULL} if the
+	 *         caret is at the very beginning of a token, or if the text
+	 *         component does not tokenize its text.
+	 * @see #isCaretAtEndOfLine()
+	 */
+	public int getTokenType() {
+		if (!tokenTypeComputed) {
+			// Only reached on the EDT, since contexts handed to other
+			// threads are prepared first.
+			long hits = TokenTypeCache.getHitCount();
+			long misses = TokenTypeCache.getMissCount();
+			tokenType = computeTokenType(textComponent, line, caretPosition);
+			tokenTypeComputed = true;
+			if (metrics!=null) {
+				metrics.tokenTypeComputed(hits, misses);
+			}
+		}
+		return tokenType;
+	}
+
+
+	/**
+	 * Returns whether this context has been cancelled, i.e. whether
+	 * completions computed for it will be discarded.
+	 *
+	 * @return Whether this context has been cancelled.
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+
+	/**
+	 * Returns whether the caret was at the end of its line.
+	 *
+	 * @return Whether the caret was at the end of its line.
+	 */
+	public boolean isCaretAtEndOfLine() {
+		return caretAtEndOfLine;
+	}
+
+
+	/**
+	 * Returns whether this snapshot still describes the text component,
+	 * i.e. whether the caret and document are unchanged since it was taken.
+	 * This must be called on the EDT.
+	 *
+	 * @param comp The text component completion is currently installed on.
+	 * @return Whether this snapshot is still current.
+	 */
+	boolean isCurrent(JTextComponent comp) {
+		return !cancelled && comp==textComponent &&
+				comp.getDocument()==document &&
+				comp.getCaretPosition()==caretPosition &&
+				getDocumentVersion(document)==documentVersion;
+	}
+
+
+	/**
+	 * Computes the parts of this snapshot that are otherwise computed only
+	 * when asked for, so that it can be handed to a background thread.  This
+	 * must be called on the EDT, before the context is handed off.
+	 *
+	 * @see #createLazily(JTextComponent, CompletionProvider)
+	 */
+	void prepareForBackgroundThread() {
+		getTokenType();
+	}
+
+
+	/**
+	 * Sets where to report the timings of work done for this context.
+	 *
+	 * @param metrics Where to report timings.
+	 * @see #getMetrics()
+	 */
+	void setMetrics(CompletionMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+
+	/**
+	 * Counts the changes made to a document.
+	 */
+	private static final class VersionCounter implements DocumentListener {
+
+		private final AtomicLong version = new AtomicLong();
+
+		@Override
+		public void changedUpdate(DocumentEvent e) {
+			// Attribute changes don't change the text.
+		}
+
+		@Override
+		public void insertUpdate(DocumentEvent e) {
+			version.incrementAndGet();
+		}
+
+		@Override
+		public void removeUpdate(DocumentEvent e) {
+			version.incrementAndGet();
+		}
+
+	}
+
+
+}
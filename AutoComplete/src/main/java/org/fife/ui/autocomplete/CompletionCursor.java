@@ -0,0 +1,38 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.Iterator;
+
+
+/**
+ * Iterates over completions that are found or ranked on demand, such as
+ * results streamed from a database or a large index.  Completions should be
+ * returned in the order they are to be displayed.  The completion popup
+ * only pulls completions from the cursor as rows are displayed, so showing
+ * the first screenful of a huge result set doesn't require computing the
+ * rest of it.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see StreamingCompletionProvider
+ */
+public interface CompletionCursor extends Iterator<Completion> {
+
+
+	/**
+	 * Returns an estimate of the total number of completions this cursor
+	 * will return.  This is reported as the number of completions found
+	 * until they have all been read.  The completion popup itself only lists
+	 * completions that have been read, and reads more as the user scrolls to
+	 * the end of them.
+	 *
+	 * @return The estimated number of completions.  This may be
+	 *         <code>0</code> if no estimate is available.
+	 */
+	int getEstimatedSize();
+
+
+}
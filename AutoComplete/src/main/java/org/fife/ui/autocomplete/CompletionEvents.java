@@ -0,0 +1,231 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+
+/**
+ * JDK Flight Recorder events emitted while completions are looked up and
+ * displayed.  These let the completion pipeline be profiled alongside the
+ * rest of an application, e.g. with
+ * <code>-XX:StartFlightRecording</code>, without registering a
+ * {@link CompletionMetricsListener}.<p>
+ *
+ * The events themselves are defined in {@link JfrCompletionEvents}, which
+ * is only loaded if the <code>jdk.jfr</code> module is present, so this
+ * library still works on runtimes without it.  Otherwise, the methods here
+ * return an event that records nothing.<p>
+ *
+ * Events should be used as follows, so that only an allocation the JIT can
+ * eliminate and a flag check are done when they aren't being recorded:
+ *
+ * <pre>
+ * CompletionEvents.Refresh event = CompletionEvents.refresh();
+ * event.begin();
+ * ...
+ * if (event.shouldCommit()) {
+ *     event.commit(providerClass, prefixLength, resultCount);
+ * }
+ * </pre>
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class CompletionEvents {
+
+	/**
+	 * Whether the <code>jdk.jfr</code> module is present.
+	 */
+	private static final boolean JFR_AVAILABLE =
+			ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+	/**
+	 * The event returned when JFR isn't available.
+	 */
+	private static final NoOpEvent NO_OP = new NoOpEvent();
+
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private CompletionEvents() {
+	}
+
+
+	/**
+	 * Returns the class of a provider, for recording in an event.
+	 *
+	 * @param provider The provider.  This may be <code>null</code>.
+	 * @return The provider's class, or <code>null</code> if it is
+	 *         <code>null</code>.
+	 */
+	static Class<?> classOf(CompletionProvider provider) {
+		return provider==null ? null : provider.getClass();
+	}
+
+
+	/**
+	 * Returns a new event for displaying a completion's description.
+	 *
+	 * @return The event.
+	 */
+	static DescriptionDisplay descriptionDisplay() {
+		return JFR_AVAILABLE ? JfrCompletionEvents.descriptionDisplay() : NO_OP;
+	}
+
+
+	/**
+	 * Returns a new event for loading completions from XML.
+	 *
+	 * @return The event.
+	 */
+	static LoadXml loadXml() {
+		return JFR_AVAILABLE ? JfrCompletionEvents.loadXml() : NO_OP;
+	}
+
+
+	/**
+	 * Returns a new event for starting parameter assistance.
+	 *
+	 * @return The event.
+	 */
+	static ParameterAssistance parameterAssistance() {
+		return JFR_AVAILABLE ? JfrCompletionEvents.parameterAssistance() : NO_OP;
+	}
+
+
+	/**
+	 * Returns a new event for looking up a single provider's completions.
+	 *
+	 * @return The event.
+	 */
+	static ProviderQuery providerQuery() {
+		return JFR_AVAILABLE ? JfrCompletionEvents.providerQuery() : NO_OP;
+	}
+
+
+	/**
+	 * Returns a new event for refreshing the completion popup.
+	 *
+	 * @return The event.
+	 */
+	static Refresh refresh() {
+		return JFR_AVAILABLE ? JfrCompletionEvents.refresh() : NO_OP;
+	}
+
+
+	/**
+	 * An event being timed.  The methods match those of
+	 * {@code jdk.jfr.Event}.
+	 */
+	interface TimedEvent {
+
+		void begin();
+
+		boolean isEnabled();
+
+		boolean shouldCommit();
+
+	}
+
+
+	/**
+	 * Displaying a completion's description.
+	 */
+	interface DescriptionDisplay extends TimedEvent {
+
+		void commit(Class<?> providerClass, boolean cached);
+
+	}
+
+
+	/**
+	 * Loading completions from XML.
+	 */
+	interface LoadXml extends TimedEvent {
+
+		void commit(Class<?> providerClass, int resultCount,
+				long deduplicatedBytes);
+
+	}
+
+
+	/**
+	 * Starting parameter assistance for a parameterized completion.
+	 */
+	interface ParameterAssistance extends TimedEvent {
+
+		void commit(Class<?> providerClass, int parameterCount);
+
+	}
+
+
+	/**
+	 * Looking up the completions of a single provider in the parent chain,
+	 * including its parent's.
+	 */
+	interface ProviderQuery extends TimedEvent {
+
+		void commit(Class<?> providerClass, int prefixLength, int resultCount);
+
+	}
+
+
+	/**
+	 * Refreshing the completion popup after the text or caret changed.
+	 */
+	interface Refresh extends TimedEvent {
+
+		void commit(Class<?> providerClass, int prefixLength, int resultCount);
+
+	}
+
+
+	/**
+	 * An event that is never recorded.
+	 */
+	private static final class NoOpEvent implements DescriptionDisplay,
+			LoadXml, ParameterAssistance, ProviderQuery, Refresh {
+
+		@Override
+		public void begin() {
+			// Do nothing
+		}
+
+		@Override
+		public void commit(Class<?> providerClass, boolean cached) {
+			// Do nothing
+		}
+
+		@Override
+		public void commit(Class<?> providerClass, int parameterCount) {
+			// Do nothing
+		}
+
+		@Override
+		public void commit(Class<?> providerClass, int prefixLength,
+				int resultCount) {
+			// Do nothing
+		}
+
+		@Override
+		public void commit(Class<?> providerClass, int resultCount,
+				long deduplicatedBytes) {
+			// Do nothing
+		}
+
+		@Override
+		public boolean isEnabled() {
+			return false;
+		}
+
+		@Override
+		public boolean shouldCommit() {
+			return false;
+		}
+
+	}
+
+
+}
@@ -0,0 +1,98 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.Collection;
+import java.util.List;
+
+
+/**
+ * A searchable index of {@link Completion}s, keyed by their input text
+ * (ignoring case).  An {@link AbstractCompletionProvider} can be given an
+ * index via {@link AbstractCompletionProvider#setCompletionIndex(CompletionIndex)}
+ * to speed up finding the completions matching the text being typed.<p>
+ *
+ * Lookups return read-only <em>views</em> into the index rather than copies,
+ * so a lookup's cost does not depend on how many completions match.  A view
+ * is only valid until the index is next modified.<p>
+ *
+ * Implementations are not required to be thread-safe.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see PrefixTreeCompletionIndex
+ */
+public interface CompletionIndex {
+
+
+	/**
+	 * Adds a completion to this index.
+	 *
+	 * @param c The completion to add.
+	 * @see #addAll(Collection)
+	 * @see #remove(Completion)
+	 */
+	void add(Completion c);
+
+
+	/**
+	 * Adds several completions to this index.
+	 *
+	 * @param completions The completions to add.
+	 * @see #add(Completion)
+	 */
+	void addAll(Collection<? extends Completion> completions);
+
+
+	/**
+	 * Removes all completions from this index.
+	 */
+	void clear();
+
+
+	/**
+	 * Returns the completions whose input text equals the specified text,
+	 * ignoring case.
+	 *
+	 * @param inputText The text to search for.
+	 * @return A read-only view of the matching completions.  This will be
+	 *         empty, not <code>null</code>, if there are no matches.
+	 * @see #getByPrefix(String)
+	 */
+	List<Completion> getByInputText(String inputText);
+
+
+	/**
+	 * Returns the completions whose input text starts with the specified
+	 * prefix, ignoring case.
+	 *
+	 * @param prefix The prefix to search for.  An empty string matches all
+	 *        completions.
+	 * @return A read-only view of the matching completions.  This will be
+	 *         empty, not <code>null</code>, if there are no matches.
+	 * @see #getByInputText(String)
+	 */
+	List<Completion> getByPrefix(String prefix);
+
+
+	/**
+	 * Removes a completion from this index.
+	 *
+	 * @param c The completion to remove.
+	 * @return Whether the completion was in this index.
+	 * @see #add(Completion)
+	 */
+	boolean remove(Completion c);
+
+
+	/**
+	 * Returns the number of completions in this index.
+	 *
+	 * @return The number of completions.
+	 */
+	int size();
+
+
+}
@@ -9,6 +9,7 @@ import java.util.Collection;
 import java.util.List;
 
 import javax.swing.AbstractListModel;
+import javax.swing.SwingUtilities;
 
 
 /**
@@ -22,9 +23,32 @@ import javax.swing.AbstractListModel;
 class CompletionListModel extends AbstractListModel<Completion> {
 
 	/**
-	 * Container for items in this model.
+	 * Container for items in this model.  This is either a private copy of
+	 * the contents, or a read-only {@link LazySortedList} or
+	 * {@link CursorCompletionList}, which is used directly so that it is
+	 * only sorted or read as far as it is displayed.
 	 */
-	private final List<Completion> delegate;
+	private List<Completion> delegate;
+
+	/**
+	 * The size last reported to listeners.  For a {@link CursorCompletionList}
+	 * this is the number of completions read so far, and grows as the last
+	 * of them is displayed.
+	 */
+	private int size;
+
+	/**
+	 * Whether reading more completions from a {@link CursorCompletionList}
+	 * has been scheduled.
+	 */
+	private boolean readPending;
+
+	/**
+	 * The number of completions read from a {@link CursorCompletionList} at
+	 * a time.  This is more than fit in the popup window, so that a page's
+	 * worth is available to scroll through.
+	 */
+	static final int CURSOR_PAGE_SIZE = 50;
 
 
 	/**
@@ -42,8 +66,9 @@ class CompletionListModel extends AbstractListModel<Completion> {
 	 * @see #setContents(Collection)
 	 */
 	public void clear() {
-		int end = delegate.size()-1;
-		delegate.clear();
+		int end = size-1;
+		delegate = new ArrayList<>();
+		size = 0;
 		if (end >= 0) {
 			fireIntervalRemoved(this, 0, end);
 		}
@@ -52,13 +77,52 @@ class CompletionListModel extends AbstractListModel<Completion> {
 
 	@Override
 	public Completion getElementAt(int index) {
+		// Read more completions once the last one read is displayed
+		if (index==size-1 && delegate instanceof CursorCompletionList) {
+			scheduleRead((CursorCompletionList)delegate);
+		}
 		return delegate.get(index);
 	}
 
 
 	@Override
 	public int getSize() {
-		return delegate.size();
+		return size;
+	}
+
+
+	/**
+	 * Reads the next page of completions from a {@link CursorCompletionList},
+	 * and adds them to this model.
+	 *
+	 * @param list The list to read from.
+	 */
+	private void readPage(CursorCompletionList list) {
+		readPending = false;
+		if (list!=delegate) {
+			return; // Contents replaced since this was scheduled
+		}
+		list.materialize(size + CURSOR_PAGE_SIZE - 1);
+		int oldSize = size;
+		size = list.getMaterializedCount();
+		if (size>oldSize) {
+			fireIntervalAdded(this, oldSize, size-1);
+		}
+	}
+
+
+	/**
+	 * Schedules reading the next page of completions from a
+	 * {@link CursorCompletionList}.  This is deferred since the model is
+	 * read while the list is being painted.
+	 *
+	 * @param list The list to read from.
+	 */
+	private void scheduleRead(CursorCompletionList list) {
+		if (!readPending && !list.isExhausted()) {
+			readPending = true;
+			SwingUtilities.invokeLater(() -> readPage(list));
+		}
 	}
 
 
@@ -69,9 +133,26 @@ class CompletionListModel extends AbstractListModel<Completion> {
 	 */
 	public void setContents(Collection<Completion> contents) {
 		clear();
-		int count = contents.size();
+		int count;
+		if (contents instanceof CursorCompletionList) {
+			// Only the completions read so far are displayed, so the model
+			// never contains rows that turn out not to exist
+			CursorCompletionList list = (CursorCompletionList)contents;
+			list.materialize(CURSOR_PAGE_SIZE - 1);
+			count = list.getMaterializedCount();
+			delegate = list;
+		}
+		else {
+			count = contents.size();
+			if (contents instanceof LazySortedList) {
+				delegate = (List<Completion>)contents;
+			}
+			else {
+				delegate.addAll(contents);
+			}
+		}
 		if (count>0) {
-			delegate.addAll(contents);
+			size = count;
 			fireIntervalAdded(this, 0, count-1); // endpoints included (!)
 		}
 	}
@@ -0,0 +1,46 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+
+/**
+ * Decides whether a completion matches the text the user has typed, and how
+ * good of a match it is.  By default, {@link AbstractCompletionProvider}
+ * only returns completions whose input text starts with the typed text; it
+ * can be given a matcher via
+ * {@link AbstractCompletionProvider#setCompletionMatcher(CompletionMatcher)}
+ * to support looser matching, such as "camel case" or substring matching.<p>
+ *
+ * A matcher must only match input text that contains every character of the
+ * typed text, ignoring case.  This lets providers cheaply rule out most
+ * completions before calling the matcher at all.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see FuzzyCompletionMatcher
+ */
+public interface CompletionMatcher {
+
+	/**
+	 * Returned by {@link #match(String, String)} when the input text does
+	 * not match.
+	 */
+	int NO_MATCH = -1;
+
+
+	/**
+	 * Returns whether, and how well, a completion's input text matches the
+	 * text the user has typed.
+	 *
+	 * @param pattern The text the user has typed.  This will not be empty.
+	 * @param inputText The completion's input text.
+	 * @return {@link #NO_MATCH} if the input text does not match, otherwise
+	 *         a non-negative score.  Completions with higher scores are
+	 *         displayed first.
+	 */
+	int match(String pattern, String inputText);
+
+
+}
@@ -0,0 +1,169 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.Arrays;
+import javax.swing.text.JTextComponent;
+
+import org.fife.ui.autocomplete.CompletionMetricsListener.Cache;
+import org.fife.ui.autocomplete.CompletionMetricsListener.Phase;
+
+
+/**
+ * Passes measurements on to an {@link AutoCompletion}'s
+ * {@link CompletionMetricsListener}s.  Code taking measurements should check
+ * {@link #isEnabled()} first, so nothing is timed when no one is listening.
+ * <p>
+ *
+ * Listeners are kept in an array that is replaced when they change, so
+ * measurements can be reported from any thread without locking.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class CompletionMetrics {
+
+	private volatile CompletionMetricsListener[] listeners;
+
+	private static final CompletionMetricsListener[] NO_LISTENERS = {};
+
+
+	/**
+	 * Constructor.
+	 */
+	CompletionMetrics() {
+		listeners = NO_LISTENERS;
+	}
+
+
+	/**
+	 * Adds a listener.
+	 *
+	 * @param l The listener to add.
+	 * @see #removeListener(CompletionMetricsListener)
+	 */
+	synchronized void addListener(CompletionMetricsListener l) {
+		CompletionMetricsListener[] newListeners =
+				Arrays.copyOf(listeners, listeners.length + 1);
+		newListeners[listeners.length] = l;
+		listeners = newListeners;
+	}
+
+
+	/**
+	 * Reports that a cache was consulted.
+	 *
+	 * @param cache The cache.
+	 * @param hit Whether the cache had what was looked up.
+	 */
+	void cacheAccessed(Cache cache, boolean hit) {
+		for (CompletionMetricsListener l : listeners) {
+			l.cacheAccessed(cache, hit);
+		}
+	}
+
+
+	/**
+	 * Creates a snapshot of a text component's state, timing it if metrics
+	 * are enabled.  The returned context reports the timings of the
+	 * providers it is passed to.  The token type at the caret is only
+	 * computed if a provider asks for it, so the context must be prepared
+	 * before it is handed to a background thread.
+	 *
+	 * @param comp The text component.
+	 * @param provider The completion provider.
+	 * @return The snapshot.
+	 * @see CompletionContext#prepareForBackgroundThread()
+	 */
+	CompletionContext createContext(JTextComponent comp,
+			CompletionProvider provider) {
+
+		if (!isEnabled()) {
+			return CompletionContext.createLazily(comp, provider);
+		}
+
+		long start = System.nanoTime();
+		CompletionContext context = CompletionContext.createLazily(comp, provider);
+		long time = System.nanoTime() - start;
+
+		String text = context.getAlreadyEnteredText();
+		phaseCompleted(Phase.CONTEXT, provider, time,
+				text==null ? -1 : text.length());
+
+		context.setMetrics(this);
+		return context;
+
+	}
+
+
+	/**
+	 * Returns whether any listeners are registered.
+	 *
+	 * @return Whether measurements should be taken.
+	 */
+	boolean isEnabled() {
+		return listeners.length>0;
+	}
+
+
+	/**
+	 * Reports that a phase of looking up or displaying completions
+	 * completed.
+	 *
+	 * @param phase The phase.
+	 * @param provider The provider the work was done for.
+	 * @param nanos How long the phase took, in nanoseconds.
+	 * @param count The number of completions involved, or <code>-1</code>
+	 *        if this doesn't apply to the phase.
+	 */
+	void phaseCompleted(Phase phase, CompletionProvider provider, long nanos,
+			int count) {
+		for (CompletionMetricsListener l : listeners) {
+			l.phaseCompleted(phase, provider, nanos, count);
+		}
+	}
+
+
+	/**
+	 * Removes a listener.
+	 *
+	 * @param l The listener to remove.
+	 * @see #addListener(CompletionMetricsListener)
+	 */
+	synchronized void removeListener(CompletionMetricsListener l) {
+		for (int i=0; i<listeners.length; i++) {
+			if (listeners[i]==l) {
+				CompletionMetricsListener[] newListeners =
+						new CompletionMetricsListener[listeners.length - 1];
+				System.arraycopy(listeners, 0, newListeners, 0, i);
+				System.arraycopy(listeners, i+1, newListeners, i,
+						newListeners.length - i);
+				listeners = newListeners;
+				return;
+			}
+		}
+	}
+
+
+	/**
+	 * Reports whether the token type cache was hit when a context computed
+	 * the token type at the caret.
+	 *
+	 * @param hits The cache's hit count before the token type was computed.
+	 * @param misses The cache's miss count before the token type was
+	 *        computed.
+	 * @see TokenTypeCache#getHitCount()
+	 */
+	void tokenTypeComputed(long hits, long misses) {
+		if (TokenTypeCache.getHitCount()>hits) {
+			cacheAccessed(Cache.TOKEN_TYPES, true);
+		}
+		else if (TokenTypeCache.getMissCount()>misses) {
+			cacheAccessed(Cache.TOKEN_TYPES, false);
+		}
+	}
+
+
+}
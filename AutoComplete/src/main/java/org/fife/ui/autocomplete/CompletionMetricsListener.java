@@ -0,0 +1,141 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.EventListener;
+
+
+/**
+ * Receives timings and other measurements of the work an
+ * {@link AutoCompletion} does to look up and display completions.  This
+ * allows applications to monitor auto-completion performance in production,
+ * for example by recording the timings in a {@link HistogramMetricsListener}.
+ * <p>
+ *
+ * Measurements are only taken while at least one listener is registered.
+ * Since completions may be computed on a background thread (see
+ * {@link AutoCompletion#setAsyncCompletionEnabled(boolean)}), listeners may
+ * be called on any thread, and must be thread-safe.  They are called while
+ * completions are being looked up, so they should also be fast.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see AutoCompletion#addCompletionMetricsListener(CompletionMetricsListener)
+ */
+public interface CompletionMetricsListener extends EventListener {
+
+
+	/**
+	 * Called when a cache is consulted.
+	 *
+	 * @param cache The cache.
+	 * @param hit Whether the cache had what was looked up.
+	 */
+	void cacheAccessed(Cache cache, boolean hit);
+
+
+	/**
+	 * Called when a phase of looking up or displaying completions completes.
+	 *
+	 * @param phase The phase.
+	 * @param provider The provider the work was done for.  For
+	 *        {@link Phase#PROVIDER} and {@link Phase#SORT}, this is the
+	 *        individual provider in the parent chain; for {@link Phase#RENDERER}
+	 *        and {@link Phase#DESCRIPTION}, the provider of the completion.
+	 *        Otherwise, it's the {@code AutoCompletion}'s provider.
+	 * @param nanos How long the phase took, in nanoseconds.
+	 * @param count The number of completions involved, or <code>-1</code> if
+	 *        this doesn't apply to the phase.
+	 */
+	void phaseCompleted(Phase phase, CompletionProvider provider, long nanos,
+						int count);
+
+
+	/**
+	 * The caches whose hit rates are reported.
+	 */
+	enum Cache {
+
+		/**
+		 * The tokens of the caret's line, used to find the type of the
+		 * token at the caret.
+		 */
+		TOKEN_TYPES,
+
+		/**
+		 * The previous completions of a provider with incremental refinement
+		 * enabled.
+		 */
+		REFINEMENT,
+
+		/**
+		 * The parsed descriptions in the description window.
+		 */
+		DESCRIPTIONS
+
+	}
+
+
+	/**
+	 * The phases of looking up and displaying completions that are timed.
+	 */
+	enum Phase {
+
+		/**
+		 * Taking a snapshot of the text component's state, including the
+		 * text entered so far.  The count is the length of that text.
+		 */
+		CONTEXT,
+
+		/**
+		 * Looking up the completions, including those of all parent
+		 * providers.
+		 */
+		QUERY,
+
+		/**
+		 * Looking up the completions of a single provider in the parent
+		 * chain, not including its parent's.
+		 */
+		PROVIDER,
+
+		/**
+		 * Sorting a provider's completions and merging them with its
+		 * parent's.
+		 */
+		SORT,
+
+		/**
+		 * Updating the completion list with new completions.
+		 */
+		MODEL_UPDATE,
+
+		/**
+		 * Showing the popup window, and the description window if it's
+		 * enabled.
+		 */
+		POPUP_SHOW,
+
+		/**
+		 * The time from updating the completion list until it is next
+		 * painted.
+		 */
+		FIRST_PAINT,
+
+		/**
+		 * Preparing the renderer for a single row of the completion list.
+		 */
+		RENDERER,
+
+		/**
+		 * Displaying a completion's description, including computing and
+		 * parsing it if necessary.
+		 */
+		DESCRIPTION
+
+	}
+
+
+}
@@ -58,6 +58,25 @@ public interface CompletionProvider {
 	List<Completion> getCompletions(JTextComponent comp);
 
 
+	/**
+	 * Gets the possible completions for a snapshot of a text component's
+	 * state.  {@link AutoCompletion} calls this method rather than
+	 * {@link #getCompletions(JTextComponent)}, so that all providers in a
+	 * chain share one snapshot of the caret context.  Providers passing the
+	 * request on to other providers should pass the context along.<p>
+	 *
+	 * The default implementation simply calls
+	 * {@link #getCompletions(JTextComponent)}.
+	 *
+	 * @param context The state of the text component.
+	 * @return The list of {@link Completion}s.  If no completions are
+	 *         available, this method should return an empty list.
+	 */
+	default List<Completion> getCompletions(CompletionContext context) {
+		return getCompletions(context.getTextComponent());
+	}
+
+
 	/**
 	 * Returns the completions that have been entered at the specified visual
 	 * location.  This can be used for tool tips when the user hovers the
@@ -4,10 +4,14 @@
  */
 package org.fife.ui.autocomplete;
 
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import javax.swing.ListCellRenderer;
+import javax.swing.SwingUtilities;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.Document;
 import javax.swing.text.JTextComponent;
@@ -17,7 +21,16 @@ import javax.swing.text.Segment;
 /**
  * A base class for all standard completion providers.  This class implements
  * functionality that should be sharable across all {@code CompletionProvider}
- * implementations.
+ * implementations.<p>
+ *
+ * Providers whose completions are chosen purely by the text before the caret
+ * can enable <em>incremental refinement</em> via
+ * {@link #setIncrementalRefinementEnabled(boolean)}.  When enabled, if the
+ * user types more of the same word, the new completions are computed by
+ * filtering the previous results rather than by querying this provider (and
+ * its parent) again.  Refinement is only done on the EDT; lookups on other
+ * threads, such as those for an {@link AsyncCompletionProvider}, always do
+ * a full query and leave the remembered results alone.
  *
  * @author Robert Futrell
  * @version 1.0
@@ -66,6 +79,32 @@ public abstract class CompletionProviderBase implements CompletionProvider {
 	 */
 	private ParameterChoicesProvider paramChoicesProvider;
 
+	/**
+	 * Whether completions should be computed by filtering the previous
+	 * results, when possible.
+	 */
+	private boolean incrementalRefinementEnabled;
+
+	/**
+	 * How many completions there must be before they are sorted lazily, or
+	 * <code>0</code> to always sort them fully.
+	 */
+	private int lazySortingThreshold;
+
+	/**
+	 * The last completions computed on the EDT, or <code>null</code> if
+	 * there are none to refine.  This is replaced as a whole so that
+	 * {@link #clearRefinementCache()} can be called from any thread.
+	 */
+	private volatile RefinementState lastRefinement;
+
+	/**
+	 * The caret context completions are currently being computed for on
+	 * each thread, if any.  This is per-thread so a context used on a
+	 * background thread is never seen by the EDT, and vice versa.
+	 */
+	private final ThreadLocal<CompletionContext> context = new ThreadLocal<>();
+
 	/**
 	 * A segment to use for fast char access.
 	 */
@@ -99,36 +138,253 @@ public abstract class CompletionProviderBase implements CompletionProvider {
 	}
 
 
+	/**
+	 * Returns whether the previous completions can be filtered to get the
+	 * completions for the current caret position.
+	 *
+	 * @param last The previous completions, or <code>null</code> if there
+	 *        are none.
+	 * @param doc The current document.
+	 * @param line The current caret line.
+	 * @param text The text currently entered at the caret.
+	 * @return Whether the previous completions can be refined.
+	 */
+	private static boolean canRefine(RefinementState last, Document doc,
+			int line, String text) {
+		return last!=null && doc==last.document && line==last.line &&
+				text.length()>=last.enteredText.length() &&
+				Util.startsWithIgnoreCase(text, last.enteredText);
+	}
+
+
+	/**
+	 * Discards the results remembered for incremental refinement, so the
+	 * next call to {@link #getCompletions(JTextComponent)} does a full query.
+	 * This is called automatically when this provider's parent changes;
+	 * subclasses should call it whenever the set of completions they can
+	 * return changes.
+	 *
+	 * @see #setIncrementalRefinementEnabled(boolean)
+	 */
+	public void clearRefinementCache() {
+		lastRefinement = null;
+	}
+
+
+	/**
+	 * Returns the text just before the caret that could be the start of
+	 * something auto-completable, as of when a context was created.  While
+	 * this method runs, {@link #getCompletionContext(JTextComponent)}
+	 * returns the context.
+	 *
+	 * @param context The context.
+	 * @return The text.
+	 * @see #getAlreadyEnteredText(JTextComponent)
+	 */
+	String getAlreadyEnteredText(CompletionContext context) {
+		CompletionContext prev = setCompletionContext(context);
+		try {
+			return getAlreadyEnteredText(context.getTextComponent());
+		} finally {
+			setCompletionContext(prev);
+		}
+	}
+
+
+	/**
+	 * Returns the snapshot of a text component's state that completions are
+	 * currently being computed for.  Subclasses looking at the text before
+	 * the caret, or at the token type there, should check for one before
+	 * reading the document themselves.
+	 *
+	 * @param comp The text component.
+	 * @return The snapshot, or <code>null</code> if completions are not
+	 *         being computed for that component on the calling thread.
+	 * @see #getCompletions(CompletionContext)
+	 */
+	protected CompletionContext getCompletionContext(JTextComponent comp) {
+		CompletionContext context = this.context.get();
+		return context!=null && context.getTextComponent()==comp ? context :
+				null;
+	}
+
+
+	/**
+	 * {@inheritDoc}<p>
+	 *
+	 * This implementation takes a snapshot of the text component's state
+	 * and passes it to {@link #getCompletions(CompletionContext)}.  Parts
+	 * of the snapshot that are costly to compute, such as the token type
+	 * at the caret, are only computed if a provider asks for them.
+	 */
 	@Override
 	public List<Completion> getCompletions(JTextComponent comp) {
+		return getCompletionsFor(CompletionContext.createLazily(comp, this));
+	}
 
-		List<Completion> completions = getCompletionsImpl(comp);
-		if (parent!=null) {
-			List<Completion> parentCompletions = parent.getCompletions(comp);
-			if (parentCompletions!=null) {
-				completions.addAll(parentCompletions);
-				Collections.sort(completions);
+
+	/**
+	 * {@inheritDoc}<p>
+	 *
+	 * This implementation makes the context available to
+	 * {@link #getCompletionContext(JTextComponent)} while
+	 * {@link #getCompletionsImpl(JTextComponent)} runs, and passes it on to
+	 * the parent provider.
+	 */
+	@Override
+	public List<Completion> getCompletions(CompletionContext context) {
+		return getCompletionsFor(context);
+	}
+
+
+	/**
+	 * Gets the completions for a snapshot of a text component's state.
+	 *
+	 * @param context The snapshot.
+	 * @return The completions, sorted as by
+	 *         {@link #sortCompletions(List, JTextComponent)}.
+	 */
+	private List<Completion> getCompletionsFor(CompletionContext context) {
+		CompletionEvents.ProviderQuery event = CompletionEvents.providerQuery();
+		event.begin();
+		CompletionContext prev = setCompletionContext(context);
+		List<Completion> completions = null;
+		try {
+			completions = getCompletionsInContext(context);
+			return completions;
+		} finally {
+			setCompletionContext(prev);
+			if (event.shouldCommit()) {
+				String text = context.getAlreadyEnteredText();
+				event.commit(getClass(), text==null ? -1 : text.length(),
+						completions==null ? 0 : completions.size());
 			}
 		}
+	}
+
+
+	/**
+	 * Does the work of {@link #getCompletionsFor(CompletionContext)}, once
+	 * the context has been made current.
+	 *
+	 * @param context The snapshot.
+	 * @return The completions.
+	 */
+	private List<Completion> getCompletionsInContext(CompletionContext context) {
+
+		if (!incrementalRefinementEnabled ||
+				!SwingUtilities.isEventDispatchThread()) {
+			return getCompletionsNoRefinement(context);
+		}
 
-		// NOTE: We can't sort by relevance prior to this; we need to have
-		// things alphabetical, so we can easily narrow down completions to
-		// those starting with what was already typed.
-		if (/*sortByRelevance*/true) {
-			completions.sort(SORT_BY_RELEVANCE_COMPARATOR);
+		JTextComponent comp = context.getTextComponent();
+		String text = context.getProvider()==this ?
+				context.getAlreadyEnteredText() : getAlreadyEnteredText(comp);
+		if (text==null) {
+			clearRefinementCache();
+			return getCompletionsNoRefinement(context);
+		}
+		Document doc = context.getDocument();
+		int line = context.getLine();
+
+		RefinementState last = lastRefinement;
+		boolean refine = canRefine(last, doc, line, text);
+		CompletionMetrics metrics = context.getMetrics();
+		if (metrics!=null) {
+			metrics.cacheAccessed(CompletionMetricsListener.Cache.REFINEMENT, refine);
 		}
 
-		return completions;
+		List<Completion> sorted;
+		if (refine) {
+			long start = metrics!=null ? System.nanoTime() : 0;
+			List<Completion> completions = new ArrayList<>(last.completions.size());
+			for (Completion c : last.completions) {
+				if (isRefinementMatch(c, text)) {
+					completions.add(c);
+				}
+			}
+			// If the previous results were fully sorted, filtering them
+			// usually keeps them sorted, and re-sorting them is linear.
+			sorted = sortCompletions(completions, comp);
+			if (metrics!=null) {
+				metrics.phaseCompleted(CompletionMetricsListener.Phase.PROVIDER,
+						this, System.nanoTime() - start, sorted.size());
+			}
+		}
+		else {
+			sorted = getCompletionsNoRefinement(context);
+		}
+
+		lastRefinement = new RefinementState(doc, line, text,
+				new ArrayList<>(LazySortedList.inAnyOrder(sorted)));
+		return sorted;
+
+	}
+
+
+	/**
+	 * Returns the comparator used to sort the completions returned from
+	 * {@link #getCompletions(JTextComponent)} into the order they should be
+	 * displayed.  The default implementation sorts them by relevance, then
+	 * alphabetically.
+	 *
+	 * @param comp The text component completions are being returned for.
+	 * @return The comparator.
+	 * @see Completion#getRelevance()
+	 */
+	protected Comparator<Completion> getCompletionComparator(JTextComponent comp) {
+		return SORT_BY_RELEVANCE_COMPARATOR;
+	}
+
+
+	/**
+	 * Queries this provider and its parent for the completions at the caret
+	 * position.  Only this provider's own completions are sorted; the
+	 * parent's are already in display order, so the two are merged in
+	 * linear time.  Completions returned by both are only returned once.
+	 *
+	 * @param context The snapshot of the text component's state.
+	 * @return The completions, sorted as by
+	 *         {@link #sortCompletions(List, JTextComponent)}.
+	 */
+	private List<Completion> getCompletionsNoRefinement(CompletionContext context) {
+
+		JTextComponent comp = context.getTextComponent();
+		CompletionMetrics metrics = context.getMetrics();
+		long start = metrics!=null ? System.nanoTime() : 0;
+		List<Completion> completions = getCompletionsImpl(comp);
+		if (metrics!=null) {
+			long time = System.nanoTime() - start;
+			metrics.phaseCompleted(CompletionMetricsListener.Phase.PROVIDER,
+					this, time, completions.size());
+		}
+
+		List<Completion> parentCompletions = parent==null ||
+				context.isCancelled() ? null : parent.getCompletions(context);
+		start = metrics!=null ? System.nanoTime() : 0;
+		List<Completion> sorted = sortAndMerge(completions, parentCompletions,
+				comp);
+		if (metrics!=null) {
+			long time = System.nanoTime() - start;
+			metrics.phaseCompleted(CompletionMetricsListener.Phase.SORT,
+					this, time, sorted.size());
+		}
+		return sorted;
 
 	}
 
 
 	/**
-	 * Does the dirty work of creating a list of completions.
+	 * Does the dirty work of creating a list of completions.  The returned
+	 * list may be sorted in place, so it must be modifiable.  If it is a
+	 * view of a larger list, consider wrapping it so it is only copied if
+	 * it's actually modified, since lazily sorted completions are never
+	 * modified.
 	 *
 	 * @param comp The text component to look in.
 	 * @return The list of possible completions, or an empty list if there
 	 *         are none.
+	 * @see #setLazySortingThreshold(int)
 	 */
 	protected abstract List<Completion> getCompletionsImpl(JTextComponent comp);
 
@@ -169,6 +425,60 @@ public abstract class CompletionProviderBase implements CompletionProvider {
 	}
 
 
+	/**
+	 * Returns how many completions there must be before they are sorted
+	 * lazily.
+	 *
+	 * @return The threshold, or a value of <code>0</code> or less if
+	 *         completions are always fully sorted.
+	 * @see #setLazySortingThreshold(int)
+	 */
+	public int getLazySortingThreshold() {
+		return lazySortingThreshold;
+	}
+
+
+	/**
+	 * Returns whether completions are computed by filtering the previous
+	 * results when the user types more of the same word.
+	 *
+	 * @return Whether incremental refinement is enabled.
+	 * @see #setIncrementalRefinementEnabled(boolean)
+	 */
+	public boolean isIncrementalRefinementEnabled() {
+		return incrementalRefinementEnabled;
+	}
+
+
+	/**
+	 * Returns whether a completion from the previous results should still
+	 * be returned after the user has typed more text.  The default
+	 * implementation checks whether the completion's input text starts with
+	 * the entered text, ignoring case, which matches how
+	 * {@link AbstractCompletionProvider} finds completions.  Subclasses that
+	 * match completions differently should override this method.
+	 *
+	 * @param c A completion from the previous results.
+	 * @param text The text now entered at the caret.
+	 * @return Whether the completion should still be returned.
+	 * @see #setIncrementalRefinementEnabled(boolean)
+	 */
+	protected boolean isRefinementMatch(Completion c, String text) {
+		return Util.startsWithIgnoreCase(c.getInputText(), text);
+	}
+
+
+	/**
+	 * Returns whether some number of completions will be sorted lazily.
+	 *
+	 * @param count The number of completions.
+	 * @return Whether they will be sorted lazily.
+	 */
+	private boolean isSortedLazily(int count) {
+		return lazySortingThreshold>0 && count>=lazySortingThreshold;
+	}
+
+
 	@Override
 	public boolean isAutoActivateOkay(JTextComponent tc) {
 		Document doc = tc.getDocument();
@@ -184,6 +494,106 @@ public abstract class CompletionProviderBase implements CompletionProvider {
 	}
 
 
+	/**
+	 * Sorts a provider's completions and merges them with its parent's.
+	 *
+	 * @param completions The provider's completions.
+	 * @param parentCompletions The parent's completions, which are usually
+	 *        already sorted.  This may be <code>null</code>.
+	 * @param comp The text component.
+	 * @return The sorted completions.
+	 */
+	private List<Completion> sortAndMerge(List<Completion> completions,
+			List<Completion> parentCompletions, JTextComponent comp) {
+
+		if (parentCompletions==null || parentCompletions.isEmpty()) {
+			return sortCompletions(completions, comp);
+		}
+
+		Comparator<Completion> comparator = getCompletionComparator(comp);
+		if (isSortedLazily(completions.size() + parentCompletions.size())) {
+			// Sorting everything here would defeat the purpose.
+			Set<Completion> distinct = new LinkedHashSet<>(completions);
+			distinct.addAll(LazySortedList.inAnyOrder(parentCompletions));
+			return new LazySortedList<>(distinct, comparator);
+		}
+
+		completions.sort(comparator);
+		if (!SortedRuns.isSorted(parentCompletions, comparator)) {
+			// The parent orders its completions differently.
+			parentCompletions = new ArrayList<>(parentCompletions);
+			parentCompletions.sort(comparator);
+		}
+		return SortedRuns.mergeDistinct(
+				Arrays.asList(completions, parentCompletions), comparator);
+
+	}
+
+
+	/**
+	 * Sorts completions into the order they should be displayed, as defined
+	 * by {@link #getCompletionComparator(JTextComponent)}.
+	 *
+	 * @param completions The completions to sort.
+	 * @param comp The text component completions are being returned for.
+	 * @return The sorted completions.  This is either
+	 *         <code>completions</code>, sorted in place, or a lazily sorted
+	 *         copy of it.
+	 * @see #setLazySortingThreshold(int)
+	 */
+	private List<Completion> sortCompletions(List<Completion> completions,
+			JTextComponent comp) {
+		Comparator<Completion> comparator = getCompletionComparator(comp);
+		if (isSortedLazily(completions.size())) {
+			return new LazySortedList<>(completions, comparator);
+		}
+		completions.sort(comparator);
+		return completions;
+	}
+
+
+	/**
+	 * Sets the context completions are being computed for on the calling
+	 * thread.
+	 *
+	 * @param context The context, or <code>null</code> for none.
+	 * @return The previous context, or <code>null</code> if there was none.
+	 * @see #getCompletionContext(JTextComponent)
+	 */
+	private CompletionContext setCompletionContext(CompletionContext context) {
+		CompletionContext prev = this.context.get();
+		if (context!=null) {
+			this.context.set(context);
+		}
+		else {
+			this.context.remove();
+		}
+		return prev;
+	}
+
+
+	/**
+	 * Toggles incremental refinement.  When enabled, and the text entered at
+	 * the caret extends the text from the previous request on the same line
+	 * of the same document, the completions are computed by filtering the
+	 * previous results with {@link #isRefinementMatch(Completion, String)},
+	 * so the work done per keystroke is proportional to the number of
+	 * completions being displayed.  Any other request does a full query.<p>
+	 *
+	 * This should only be enabled if the completions this provider (and its
+	 * parent) return for some text are always a subset of those returned for
+	 * any prefix of it.  It is disabled by default.
+	 *
+	 * @param enabled Whether incremental refinement is enabled.
+	 * @see #isIncrementalRefinementEnabled()
+	 * @see #clearRefinementCache()
+	 */
+	public void setIncrementalRefinementEnabled(boolean enabled) {
+		incrementalRefinementEnabled = enabled;
+		clearRefinementCache();
+	}
+
+
 	/**
 	 * Sets the characters that auto-activation should occur after.  A Java
 	 * completion provider, for example, might want to set <code>others</code>
@@ -214,6 +624,22 @@ public abstract class CompletionProviderBase implements CompletionProvider {
 	}
 
 
+	/**
+	 * Sets how many completions there must be before they are sorted
+	 * lazily.  A lazily sorted list only sorts as far as it is accessed, so
+	 * displaying the first screenful of a huge number of completions costs
+	 * little more than finding them.  Lazily sorted lists are read-only.
+	 *
+	 * @param threshold The minimum number of completions to sort lazily.
+	 *        A value of <code>0</code> or less, the default, means
+	 *        completions are always fully sorted.
+	 * @see #getLazySortingThreshold()
+	 */
+	public void setLazySortingThreshold(int threshold) {
+		lazySortingThreshold = threshold;
+	}
+
+
 	@Override
 	public void setListCellRenderer(ListCellRenderer<Object> r) {
 		listCellRenderer = r;
@@ -241,6 +667,29 @@ public abstract class CompletionProviderBase implements CompletionProvider {
 	@Override
 	public void setParent(CompletionProvider parent) {
 		this.parent = parent;
+		clearRefinementCache();
+	}
+
+
+	/**
+	 * The completions computed for a caret position, remembered for
+	 * incremental refinement.
+	 */
+	private static final class RefinementState {
+
+		private final Document document;
+		private final int line;
+		private final String enteredText;
+		private final List<Completion> completions;
+
+		RefinementState(Document document, int line, String enteredText,
+				List<Completion> completions) {
+			this.document = document;
+			this.line = line;
+			this.enteredText = enteredText;
+			this.completions = completions;
+		}
+
 	}
 
 
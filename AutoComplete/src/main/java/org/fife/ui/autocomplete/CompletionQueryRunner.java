@@ -0,0 +1,283 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.swing.SwingUtilities;
+
+
+/**
+ * Gets completions from the provider of an {@link AutoCompletion}, and hands
+ * them back to it to display.  If asynchronous completion is enabled and the
+ * provider supports it, completions are computed on a background thread, and
+ * handed back on the EDT unless a newer request has been made in the
+ * meantime.  Either way, how long the provider took is reported to any
+ * {@link CompletionMetricsListener}s.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see AutoCompletion#setAsyncCompletionEnabled(boolean)
+ */
+final class CompletionQueryRunner {
+
+	private final AutoCompletion ac;
+
+	/**
+	 * Whether completions from an {@link AsyncCompletionProvider} should be
+	 * computed on a background thread.
+	 */
+	private boolean asyncEnabled;
+
+	/**
+	 * The executor used to compute completions asynchronously, or
+	 * <code>null</code> to use a shared default.
+	 */
+	private ExecutorService executor;
+
+	/**
+	 * The context of the asynchronous completion request in progress, or
+	 * <code>null</code> if there is none.
+	 */
+	private CompletionContext pendingContext;
+
+	/**
+	 * The asynchronous completion request in progress, or <code>null</code>
+	 * if there is none.
+	 */
+	private Future<?> pendingQuery;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param ac The auto-completion to get completions for.
+	 */
+	CompletionQueryRunner(AutoCompletion ac) {
+		this.ac = ac;
+	}
+
+
+	/**
+	 * Cancels the asynchronous completion request in progress, if any.  Its
+	 * results will not be displayed.
+	 */
+	void cancel() {
+		if (pendingContext != null) {
+			pendingContext.cancel();
+			pendingQuery.cancel(true);
+			pendingContext = null;
+			pendingQuery = null;
+		}
+	}
+
+
+	private void commitRefreshEvent(CompletionEvents.Refresh event,
+			CompletionProvider provider, int textLen, List<Completion> completions) {
+		if (event.shouldCommit()) {
+			event.commit(CompletionEvents.classOf(provider), textLen,
+					completions==null ? -1 : completions.size());
+		}
+	}
+
+
+	/**
+	 * Returns the executor used to compute completions asynchronously.
+	 *
+	 * @return The executor.
+	 * @see #setExecutor(ExecutorService)
+	 */
+	ExecutorService getExecutor() {
+		return executor != null ? executor : DefaultExecutor.INSTANCE;
+	}
+
+
+	/**
+	 * Returns whether completions are computed on a background thread when
+	 * the completion provider supports it.
+	 *
+	 * @return Whether asynchronous completion is enabled.
+	 * @see #setAsyncEnabled(boolean)
+	 */
+	boolean isAsyncEnabled() {
+		return asyncEnabled;
+	}
+
+
+	/**
+	 * Returns the completions for a caret position.  If the provider can
+	 * stream its completions, they are read lazily.
+	 *
+	 * @param provider The provider to get completions from.
+	 * @param context The state of the text component.
+	 * @return The completions.
+	 * @see StreamingCompletionProvider
+	 */
+	private static List<Completion> query(CompletionProvider provider,
+			CompletionContext context) {
+		if (provider instanceof StreamingCompletionProvider) {
+			CompletionCursor cursor = ((StreamingCompletionProvider)provider)
+					.getCompletionCursor(context.getTextComponent());
+			if (cursor != null) {
+				return new CursorCompletionList(cursor);
+			}
+		}
+		return provider.getCompletions(context);
+	}
+
+
+	/**
+	 * Reports how long the provider took to compute completions.
+	 *
+	 * @param provider The provider.
+	 * @param nanos How long the provider took.
+	 * @param completions The completions it returned.
+	 */
+	private void reportQueryTime(CompletionProvider provider, long nanos,
+			List<Completion> completions) {
+		CompletionMetrics metrics = ac.getMetrics();
+		if (metrics.isEnabled()) {
+			metrics.phaseCompleted(CompletionMetricsListener.Phase.QUERY,
+					provider, nanos, completions==null ? 0 : completions.size());
+		}
+	}
+
+
+	/**
+	 * Gets completions for a caret position, and hands them to
+	 * {@link AutoCompletion#completionsComputed(List, int, long)}.  Any
+	 * asynchronous request already in progress is cancelled.
+	 *
+	 * @param provider The provider to get completions from.
+	 * @param context The state of the text component.
+	 * @param textLen The length of the text already entered at the caret.
+	 * @return Whether the popup window was updated successfully.  This is
+	 *         always <code>true</code> if the completions are computed
+	 *         asynchronously.
+	 */
+	boolean run(CompletionProvider provider, CompletionContext context,
+			int textLen) {
+
+		cancel();
+		CompletionEvents.Refresh event = CompletionEvents.refresh();
+		event.begin();
+
+		if (asyncEnabled && provider instanceof AsyncCompletionProvider) {
+			runAsync((AsyncCompletionProvider)provider, context, textLen);
+			commitRefreshEvent(event, provider, textLen, null);
+			return true;
+		}
+
+		// Providers only refine their previous results while the popup is
+		// open, i.e. while the user is typing a single word.
+		if (!ac.isPopupVisible() && provider instanceof CompletionProviderBase) {
+			((CompletionProviderBase)provider).clearRefinementCache();
+		}
+
+		long start = System.nanoTime();
+		List<Completion> completions = query(provider, context);
+		long latency = System.nanoTime() - start;
+		reportQueryTime(provider, latency, completions);
+		boolean updated = ac.completionsComputed(completions, textLen, latency);
+		commitRefreshEvent(event, provider, textLen, completions);
+		return updated;
+
+	}
+
+
+	/**
+	 * Computes completions on a background thread, then hands them back on
+	 * the EDT if the caret hasn't moved in the meantime.
+	 *
+	 * @param provider The provider to get completions from.
+	 * @param context The state of the text component.
+	 * @param textLen The length of the text already entered at the caret.
+	 */
+	private void runAsync(AsyncCompletionProvider provider,
+			CompletionContext context, int textLen) {
+
+		// The context is only fully computed now that it's leaving the EDT
+		context.prepareForBackgroundThread();
+		pendingContext = context;
+
+		pendingQuery = getExecutor().submit(() -> {
+			long start = System.nanoTime();
+			List<Completion> completions;
+			try {
+				completions = provider.getCompletions(context);
+			} catch (RuntimeException re) {
+				if (!context.isCancelled()) {
+					re.printStackTrace();
+				}
+				return;
+			}
+			long latency = System.nanoTime() - start;
+			if (!context.isCancelled()) {
+				SwingUtilities.invokeLater(() -> {
+					// A newer request, or caret movement, makes these stale
+					if (context == pendingContext &&
+							context.isCurrent(ac.getTextComponent())) {
+						pendingContext = null;
+						pendingQuery = null;
+						reportQueryTime(provider, latency, completions);
+						ac.completionsComputed(completions, textLen, latency);
+					}
+				});
+			}
+		});
+
+	}
+
+
+	/**
+	 * Toggles whether completions are computed on a background thread.
+	 *
+	 * @param enabled Whether asynchronous completion is enabled.
+	 * @see #isAsyncEnabled()
+	 */
+	void setAsyncEnabled(boolean enabled) {
+		asyncEnabled = enabled;
+		if (!enabled) {
+			cancel();
+		}
+	}
+
+
+	/**
+	 * Sets the executor used to compute completions asynchronously.
+	 *
+	 * @param executor The executor, or <code>null</code> to use a shared
+	 *        default executor backed by daemon threads.
+	 * @see #getExecutor()
+	 */
+	void setExecutor(ExecutorService executor) {
+		cancel();
+		this.executor = executor;
+	}
+
+
+	/**
+	 * Lazily creates the executor shared by all instances for computing
+	 * completions asynchronously.
+	 */
+	private static final class DefaultExecutor {
+
+		private static final ExecutorService INSTANCE =
+				Executors.newCachedThreadPool(r -> {
+					Thread t = new Thread(r, "AutoCompletion-Worker");
+					t.setDaemon(true);
+					return t;
+				});
+
+		private DefaultExecutor() {
+			// Do nothing
+		}
+
+	}
+
+
+}
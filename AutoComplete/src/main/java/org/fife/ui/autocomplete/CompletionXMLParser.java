@@ -4,6 +4,7 @@
  */
 package org.fife.ui.autocomplete;
 
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.List;
@@ -40,6 +41,30 @@ public class CompletionXMLParser extends DefaultHandler {
 	 */
 	private ClassLoader completionCL;
 
+	/**
+	 * Shares the strings and parameters that repeat throughout the XML.
+	 */
+	private final InternTable internTable;
+
+	/**
+	 * Where descriptions are kept if they are loaded lazily, or
+	 * <code>null</code> if they are kept in memory.
+	 */
+	private DescriptionStore descriptionStore;
+
+	/**
+	 * Whether {@link #descriptionStore} was created by this parser, rather
+	 * than shared with it, and so should be disposed by it.
+	 */
+	private boolean ownsDescriptionStore;
+
+	private boolean lazyDescriptions;
+
+	/**
+	 * Whether identical parameters are shared by the completions using them.
+	 */
+	private boolean sharedParameters;
+
 
 	private String name;
 	private String type;
@@ -102,7 +127,24 @@ public class CompletionXMLParser extends DefaultHandler {
 	 * @see #reset(CompletionProvider)
 	 */
 	public CompletionXMLParser(CompletionProvider provider, ClassLoader cl) {
+		this(provider, cl, new InternTable());
+	}
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param provider The provider to get completions for.
+	 * @param cl The class loader to use, if necessary, when loading classes
+	 *        from the XML.  This may be <code>null</code>.
+	 * @param internTable Shares strings and parameters among the completions
+	 *        parsed.  Passing the same table to several parsers shares them
+	 *        among all of their completions.
+	 */
+	CompletionXMLParser(CompletionProvider provider, ClassLoader cl,
+						InternTable internTable) {
 		this.provider = provider;
+		this.internTable = internTable;
 		this.completionCL = cl;
 		if (completionCL==null) {
 			// May also be null, but that's okay.
@@ -137,16 +179,63 @@ public class CompletionXMLParser extends DefaultHandler {
 
 	private FunctionCompletion createFunctionCompletion() {
 
+		FunctionCompletion fc = createFunctionCompletion(funcCompletionType,
+				completionCL, provider, name, returnType);
+
+		if (desc.length()>0) {
+			if (descriptionStore!=null) {
+				fc.setLazyShortDescription(descriptionStore.add(desc.toString()));
+			}
+			else {
+				fc.setShortDescription(desc.toString());
+			}
+			desc.setLength(0);
+		}
+		fc.setParams(params);
+		fc.setDefinedIn(definedIn);
+		if (returnValDesc.length()>0) {
+			if (descriptionStore!=null) {
+				fc.setLazyReturnValueDescription(
+						descriptionStore.add(returnValDesc.toString()));
+			}
+			else {
+				fc.setReturnValueDescription(returnValDesc.toString());
+			}
+			returnValDesc.setLength(0);
+		}
+
+		return fc;
+
+	}
+
+
+	/**
+	 * Creates a function completion, possibly of a custom type.
+	 *
+	 * @param className The class of the completion, or <code>null</code> for
+	 *        a plain {@link FunctionCompletion}.  This class should extend
+	 *        {@code FunctionCompletion}.
+	 * @param cl The class loader to load <code>className</code> with.  This
+	 *        may be <code>null</code>.
+	 * @param provider The provider of the completion.
+	 * @param name The name of the function.
+	 * @param returnType The return type of the function.
+	 * @return The completion.  If the custom class can't be instantiated, a
+	 *         plain {@code FunctionCompletion} is returned.
+	 */
+	static FunctionCompletion createFunctionCompletion(String className,
+			ClassLoader cl, CompletionProvider provider, String name,
+			String returnType) {
+
 		FunctionCompletion fc = null;
-		if (funcCompletionType!=null) {
+		if (className!=null) {
 			try {
 				Class<?> clazz;
-				if (completionCL!=null) {
-					clazz = Class.forName(funcCompletionType, true,
-											completionCL);
+				if (cl!=null) {
+					clazz = Class.forName(className, true, cl);
 				}
 				else {
-					clazz = Class.forName(funcCompletionType);
+					clazz = Class.forName(className);
 				}
 				Constructor<?> c = clazz.getDeclaredConstructor(
 						CompletionProvider.class, String.class, String.class);
@@ -162,18 +251,6 @@ public class CompletionXMLParser extends DefaultHandler {
 		if (fc==null) { // Fallback if completion failed for some reason
 			fc = new FunctionCompletion(provider, name, returnType);
 		}
-
-		if (desc.length()>0) {
-			fc.setShortDescription(desc.toString());
-			desc.setLength(0);
-		}
-		fc.setParams(params);
-		fc.setDefinedIn(definedIn);
-		if (returnValDesc.length()>0) {
-			fc.setReturnValueDescription(returnValDesc.toString());
-			returnValDesc.setLength(0);
-		}
-
 		return fc;
 
 	}
@@ -182,7 +259,12 @@ public class CompletionXMLParser extends DefaultHandler {
 	private BasicCompletion createOtherCompletion() {
 		BasicCompletion bc = new BasicCompletion(provider, name);
 		if (desc.length()>0) {
-			bc.setSummary(desc.toString());
+			if (descriptionStore!=null) {
+				bc.setLazySummary(descriptionStore.add(desc.toString()));
+			}
+			else {
+				bc.setSummary(desc.toString());
+			}
 			desc.setLength(0);
 		}
 		return bc;
@@ -193,7 +275,12 @@ public class CompletionXMLParser extends DefaultHandler {
 		MarkupTagCompletion mc = new MarkupTagCompletion(provider,
 				name);
 		if (desc.length()>0) {
-			mc.setDescription(desc.toString());
+			if (descriptionStore!=null) {
+				mc.setLazyDescription(descriptionStore.add(desc.toString()));
+			}
+			else {
+				mc.setDescription(desc.toString());
+			}
 			desc.setLength(0);
 		}
 		mc.setAttributes(params);
@@ -206,7 +293,12 @@ public class CompletionXMLParser extends DefaultHandler {
 		VariableCompletion vc = new VariableCompletion(provider,
 				name, returnType);
 		if (desc.length()>0) {
-			vc.setShortDescription(desc.toString());
+			if (descriptionStore!=null) {
+				vc.setLazyShortDescription(descriptionStore.add(desc.toString()));
+			}
+			else {
+				vc.setShortDescription(desc.toString());
+			}
 			desc.setLength(0);
 		}
 		vc.setDefinedIn(definedIn);
@@ -214,6 +306,36 @@ public class CompletionXMLParser extends DefaultHandler {
 	}
 
 
+	/**
+	 * Deletes the temporary file descriptions are kept in, if this parser
+	 * created it.  A store shared with this parser is left alone.
+	 */
+	private void disposeDescriptionStore() {
+		if (ownsDescriptionStore) {
+			descriptionStore.dispose();
+			ownsDescriptionStore = false;
+		}
+	}
+
+
+	/**
+	 * Called when the document has been parsed.  If descriptions are loaded
+	 * lazily, this writes them out.
+	 *
+	 * @throws SAXException If the descriptions can't be written.
+	 */
+	@Override
+	public void endDocument() throws SAXException {
+		if (descriptionStore!=null) {
+			try {
+				descriptionStore.flush();
+			} catch (IOException ioe) {
+				throw new SAXException(ioe);
+			}
+		}
+	}
+
+
 	/**
 	 * Called when an element is closed.
 	 */
@@ -255,13 +377,14 @@ public class CompletionXMLParser extends DefaultHandler {
 						gettingParams = false;
 					}
 					else if ("param".equals(qName)) {
-						FunctionCompletion.Parameter param =
-							new FunctionCompletion.Parameter(paramType, paramName, endParam);
+						String pDesc = null;
 						if (paramDesc.length()>0) {
-							param.setDescription(paramDesc.toString());
+							pDesc = paramDesc.toString();
 							paramDesc.setLength(0);
 						}
-						params.add(param);
+						params.add(internTable.getParameter(paramType,
+								paramName, endParam, pDesc, descriptionStore,
+								sharedParameters));
 						inParam = false;
 					}
 					else if (inParam) {
@@ -301,6 +424,31 @@ public class CompletionXMLParser extends DefaultHandler {
 	}
 
 
+	/**
+	 * Returns an estimate of the memory saved by sharing the strings and
+	 * parameters that repeat throughout the XML, rather than creating a
+	 * copy of them for each completion.
+	 *
+	 * @return The estimated number of bytes saved.  If several parsers
+	 *         share strings, this is the total for all of them.
+	 */
+	public long getDeduplicatedBytes() {
+		return internTable.getBytesSaved();
+	}
+
+
+	/**
+	 * Returns the custom class to use for function completions, if one was
+	 * specified.
+	 *
+	 * @return The fully qualified class name, or <code>null</code> if none
+	 *         was specified.
+	 */
+	public String getFunctionCompletionType() {
+		return funcCompletionType;
+	}
+
+
 	/**
 	 * Returns the parameter end character specified.
 	 *
@@ -336,6 +484,29 @@ public class CompletionXMLParser extends DefaultHandler {
 	}
 
 
+	/**
+	 * Returns whether descriptions are loaded lazily.
+	 *
+	 * @return Whether descriptions are loaded lazily.
+	 * @see #setLazyDescriptionsEnabled(boolean)
+	 */
+	public boolean isLazyDescriptionsEnabled() {
+		return lazyDescriptions;
+	}
+
+
+	/**
+	 * Returns whether identical parameters are shared by the completions
+	 * using them.
+	 *
+	 * @return Whether parameters are shared.
+	 * @see #setSharedParametersEnabled(boolean)
+	 */
+	public boolean isSharedParametersEnabled() {
+		return sharedParameters;
+	}
+
+
 	/**
 	 * Resets this parser to grab more completions.
 	 *
@@ -372,6 +543,82 @@ public class CompletionXMLParser extends DefaultHandler {
 	}
 
 
+	/**
+	 * Sets where descriptions are kept, and enables loading them lazily.
+	 * Several parsers can share a store.
+	 *
+	 * @param store The store.
+	 */
+	void setDescriptionStore(DescriptionStore store) {
+		disposeDescriptionStore();
+		descriptionStore = store;
+		lazyDescriptions = true;
+	}
+
+
+	/**
+	 * Toggles whether descriptions are loaded lazily.  If enabled, the
+	 * descriptions of completions and their parameters are written to a
+	 * temporary file as they are parsed, rather than kept in memory, and are
+	 * only read back when they're displayed.  The most recently displayed
+	 * descriptions are cached.  This greatly reduces the memory used by
+	 * completions loaded from XML with lots of documentation, at the cost
+	 * of a file read the first time a description is displayed.<p>
+	 *
+	 * This should be called before parsing.  It is disabled by default.
+	 * Disabling it deletes the temporary file created by this parser, if
+	 * any, so descriptions of completions already parsed will be empty.
+	 *
+	 * @param enabled Whether to load descriptions lazily.
+	 * @see #isLazyDescriptionsEnabled()
+	 */
+	public void setLazyDescriptionsEnabled(boolean enabled) {
+		lazyDescriptions = enabled;
+		if (!enabled) {
+			disposeDescriptionStore();
+			descriptionStore = null;
+		}
+	}
+
+
+	/**
+	 * Toggles whether parameters with the same type, name and description
+	 * are shared by all the completions using them.  This greatly reduces
+	 * the memory used by completions for APIs that repeat the same
+	 * parameters many times.  However, changing a shared parameter's
+	 * description with
+	 * {@link ParameterizedCompletion.Parameter#setDescription(String)}
+	 * changes it for every completion using it.<p>
+	 *
+	 * This should be called before parsing.  It is disabled by default.
+	 *
+	 * @param enabled Whether to share parameters.
+	 * @see #isSharedParametersEnabled()
+	 */
+	public void setSharedParametersEnabled(boolean enabled) {
+		sharedParameters = enabled;
+	}
+
+
+	/**
+	 * Called when parsing starts.  If descriptions are loaded lazily, this
+	 * creates the file to keep them in.
+	 *
+	 * @throws SAXException If the file can't be created.
+	 */
+	@Override
+	public void startDocument() throws SAXException {
+		if (lazyDescriptions && descriptionStore==null) {
+			try {
+				descriptionStore = new DescriptionStore();
+				ownsDescriptionStore = true;
+			} catch (IOException ioe) {
+				throw new SAXException(ioe);
+			}
+		}
+	}
+
+
 	/**
 	 * Called when an element starts.
 	 */
@@ -385,9 +632,9 @@ public class CompletionXMLParser extends DefaultHandler {
 			if ("keyword".equals(qName)) {
 				name = attrs.getValue("name");
 				type = attrs.getValue("type");
-				returnType = attrs.getValue("returnType");
+				returnType = internTable.intern(attrs.getValue("returnType"));
 				params.clear();
-				definedIn = attrs.getValue("definedIn");
+				definedIn = internTable.intern(attrs.getValue("definedIn"));
 				inKeyword = true;
 			}
 			else if (inKeyword) {
@@ -399,8 +646,8 @@ public class CompletionXMLParser extends DefaultHandler {
 				}
 				else if (gettingParams) {
 					if ("param".equals(qName)) {
-						paramName = attrs.getValue("name");
-						paramType = attrs.getValue("type");
+						paramName = internTable.intern(attrs.getValue("name"));
+						paramType = internTable.intern(attrs.getValue("type"));
 						endParam = Boolean.parseBoolean(attrs.getValue("endParam"));
 						inParam = true;
 					}
@@ -0,0 +1,428 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.swing.text.JTextComponent;
+
+
+/**
+ * A {@link DefaultCompletionProvider} whose completions can be added and
+ * removed from any thread while they are being looked up on others, for
+ * example by a language server updating completions in the background while
+ * the user types.<p>
+ *
+ * Completions are kept in an immutable, sorted snapshot.  Readers never
+ * block; they look up completions in whatever snapshot is current when they
+ * start.  Writers build a new snapshot and publish it atomically through an
+ * {@code AtomicReference}, retrying if another writer published first.  This
+ * gives the following guarantees:
+ *
+ * <ul>
+ *    <li>A reader sees either all or none of the completions added or
+ *        removed by a single call, such as {@link #addCompletions(List)}.</li>
+ *    <li>Everything a writer did before publishing, including constructing
+ *        and configuring its completions, is visible to every reader that
+ *        sees the new snapshot.</li>
+ *    <li>Lists returned by lookups are never modified afterward.</li>
+ * </ul>
+ *
+ * Since writes copy the snapshot, add completions in bulk where possible.
+ * The completions themselves are not copied, so they should not be modified
+ * after being added.<p>
+ *
+ * This provider also implements {@link AsyncCompletionProvider}, so
+ * {@link AutoCompletion} can look up its completions off the EDT.  If it
+ * has a parent provider, the parent is queried on the same thread, so it
+ * must also be safe to call off the EDT.<p>
+ *
+ * Some features of the parent class are not thread-safe, so this provider
+ * ignores them:
+ *
+ * <ul>
+ *    <li>Completion indexes; see {@link #setCompletionIndex(CompletionIndex)}.</li>
+ *    <li>Incremental refinement; see
+ *        {@link #setIncrementalRefinementEnabled(boolean)}.</li>
+ *    <li>Batch updates; see {@link #beginBatchUpdate()}.  Each call to
+ *        {@link #addCompletions(List)} is already published at once.</li>
+ * </ul>
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+public class ConcurrentCompletionProvider extends DefaultCompletionProvider
+		implements AsyncCompletionProvider {
+
+	/**
+	 * The current completions, sorted, in an unmodifiable list.  The
+	 * inherited {@link #completions} list is not used.
+	 */
+	private final AtomicReference<List<Completion>> snapshot;
+
+	/**
+	 * Prefilters the current snapshot for the completion matcher, if it has
+	 * been needed since the snapshot was published.  Filters are immutable,
+	 * so this is replaced rather than updated.
+	 */
+	private volatile CharMaskFilter charMaskFilter;
+
+
+	/**
+	 * Constructor.  The returned provider will not be aware of any completions.
+	 *
+	 * @see #addCompletion(Completion)
+	 */
+	public ConcurrentCompletionProvider() {
+		snapshot = new AtomicReference<>(Collections.emptyList());
+	}
+
+
+	/**
+	 * Creates a completion provider that provides completion for a simple
+	 * list of words.
+	 *
+	 * @param words The words to offer as completion suggestions.  If this is
+	 *        <code>null</code>, no completions will be known.
+	 * @see BasicCompletion
+	 */
+	public ConcurrentCompletionProvider(String[] words) {
+		this();
+		addWordCompletions(words);
+	}
+
+
+	/**
+	 * Adds a single completion to this provider.  This may be called from
+	 * any thread.
+	 *
+	 * @param c The completion to add.
+	 * @throws IllegalArgumentException If the completion's provider isn't
+	 *         this {@code CompletionProvider}.
+	 * @see #addCompletions(List)
+	 * @see #removeCompletion(Completion)
+	 */
+	@Override
+	public void addCompletion(Completion c) {
+		checkProvider(c);
+		List<Completion> cur;
+		List<Completion> next;
+		do {
+			cur = snapshot.get();
+			List<Completion> copy = new ArrayList<>(cur.size() + 1);
+			copy.addAll(cur);
+			copy.add(SortedRuns.upperBound(cur, c), c);
+			next = freeze(copy);
+		} while (!snapshot.compareAndSet(cur, next));
+	}
+
+
+	/**
+	 * Adds {@link Completion}s to this provider.  All of the completions
+	 * become visible to readers at once.  This may be called from any
+	 * thread.
+	 *
+	 * @param completions The completions to add.  This cannot be
+	 *        <code>null</code>.
+	 * @throws IllegalArgumentException If a completion's provider isn't
+	 *         this {@code CompletionProvider}.
+	 * @see #addCompletion(Completion)
+	 * @see #removeCompletion(Completion)
+	 */
+	@Override
+	public void addCompletions(List<Completion> completions) {
+
+		List<Completion> sorted = new ArrayList<>(completions);
+		for (Completion c : sorted) {
+			checkProvider(c);
+		}
+		if (sorted.isEmpty()) {
+			return;
+		}
+		if (!SortedRuns.isSorted(sorted, null)) {
+			Collections.sort(sorted);
+		}
+
+		List<Completion> cur;
+		List<Completion> next;
+		do {
+			cur = snapshot.get();
+			next = freeze(SortedRuns.merge(cur, sorted, null));
+		} while (!snapshot.compareAndSet(cur, next));
+
+	}
+
+
+	/**
+	 * Does nothing.  Each call to {@link #addCompletions(List)} is published
+	 * to readers at once, so there is nothing to batch, and completions
+	 * added after this call are visible immediately.
+	 *
+	 * @see #commitBatchUpdate()
+	 */
+	@Override
+	public void beginBatchUpdate() {
+		// Do nothing
+	}
+
+
+	@Override
+	protected void addWordCompletions(String[] words) {
+		int count = words==null ? 0 : words.length;
+		List<Completion> toAdd = new ArrayList<>(count);
+		for (int i=0; i<count; i++) {
+			toAdd.add(new BasicCompletion(this, words[i]));
+		}
+		addCompletions(toAdd);
+	}
+
+
+	/**
+	 * Adds a completion to this provider.  Unlike in the parent class, the
+	 * completion is immediately visible to lookups.
+	 *
+	 * @param c The completion to add.
+	 */
+	@Override
+	protected void checkProviderAndAdd(Completion c) {
+		addCompletion(c);
+	}
+
+
+	/**
+	 * Removes all completions from this provider.  This may be called from
+	 * any thread.
+	 */
+	@Override
+	public void clear() {
+		snapshot.set(Collections.emptyList());
+		disposeDescriptionStore();
+	}
+
+
+	/**
+	 * Does nothing, since batch updates are ignored.
+	 *
+	 * @see #beginBatchUpdate()
+	 */
+	@Override
+	public void commitBatchUpdate() {
+		// Do nothing
+	}
+
+
+	/**
+	 * Returns an unmodifiable view of a list that will no longer be
+	 * modified.
+	 *
+	 * @param list The list.
+	 * @return The view.
+	 */
+	private static List<Completion> freeze(List<Completion> list) {
+		return Collections.unmodifiableList(list);
+	}
+
+
+	/**
+	 * Returns the range of a snapshot whose input text starts with a
+	 * prefix, or equals it.
+	 *
+	 * @param list The snapshot.
+	 * @param text The prefix or input text.
+	 * @param exact Whether to find completions whose input text equals
+	 *        <code>text</code>, rather than starts with it.
+	 * @return The range.
+	 */
+	@SuppressWarnings("unchecked")
+	private List<Completion> findRange(List<Completion> list, String text,
+			boolean exact) {
+
+		int start = Collections.binarySearch(list, text, comparator);
+		if (start<0) {
+			if (exact) {
+				return Collections.emptyList();
+			}
+			start = -start - 1;
+		}
+		else {
+			while (start>0 && comparator.compare(list.get(start-1), text)==0) {
+				start--;
+			}
+		}
+
+		int low = start;
+		int high = list.size();
+		while (low<high) {
+			int mid = (low + high) >>> 1;
+			String inputText = list.get(mid).getInputText();
+			boolean matches = exact ?
+					String.CASE_INSENSITIVE_ORDER.compare(inputText, text)==0 :
+					Util.startsWithIgnoreCase(inputText, text);
+			if (matches) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+
+		return list.subList(start, low);
+
+	}
+
+
+	/**
+	 * Returns a list of {@code Completion}s in this provider with the
+	 * specified input text.  This may be called from any thread.
+	 *
+	 * @param inputText The input text to search for.
+	 * @return A list of {@link Completion}s, or <code>null</code> if there
+	 *         are no matching {@code Completion}s.  This list is never
+	 *         modified.
+	 */
+	@Override
+	public List<Completion> getCompletionByInputText(String inputText) {
+		List<Completion> matches = findRange(snapshot.get(), inputText, true);
+		return matches.isEmpty() ? null : matches;
+	}
+
+
+	/**
+	 * Returns the completions in this provider whose input text starts with
+	 * the specified prefix, ignoring case.  This may be called from any
+	 * thread.
+	 *
+	 * @param prefix The prefix to search for.
+	 * @return A read-only list of the matching completions.  Unlike in the
+	 *         parent class, this list is never modified, even if this
+	 *         provider is.
+	 */
+	@Override
+	public List<Completion> getCompletionsByPrefix(String prefix) {
+		return findRange(snapshot.get(), prefix, false);
+	}
+
+
+	/**
+	 * Returns the completions for a snapshot of a text component's state.
+	 * This may be called from any thread.  The entered text is taken from
+	 * the snapshot rather than the document.  The parent provider, if any,
+	 * is queried on the calling thread, so it must be safe to call from
+	 * that thread too.  An {@link AsyncCompletionProvider} parent always
+	 * is.
+	 *
+	 * @param context The state of the text component.
+	 * @return The completions.
+	 */
+	@Override
+	public List<Completion> getCompletions(CompletionContext context) {
+		return super.getCompletions(context);
+	}
+
+
+	@Override
+	protected List<Completion> getCompletionsImpl(JTextComponent comp) {
+		// Called with the context current, so this doesn't read the document.
+		String text = getAlreadyEnteredText(comp);
+		return text==null ? new ArrayList<>() : getMatchingCompletions(text);
+	}
+
+
+	/**
+	 * Returns the completions matching some entered text, in alphabetical
+	 * order.
+	 *
+	 * @param text The entered text.
+	 * @return The matching completions, in a list the caller may modify.
+	 */
+	private List<Completion> getMatchingCompletions(String text) {
+
+		List<Completion> list = snapshot.get();
+		CompletionMatcher matcher = getCompletionMatcher();
+		if (matcher==null || text.isEmpty()) {
+			return new LazyCopyList<>(findRange(list, text, false));
+		}
+
+		CharMaskFilter filter = charMaskFilter;
+		if (filter==null || !filter.isFor(list)) {
+			// Racing threads may each build one; any of them is correct.
+			filter = new CharMaskFilter(list);
+			charMaskFilter = filter;
+		}
+		return filter.getMatches(text, matcher);
+
+	}
+
+
+	/**
+	 * Returns all completions in this provider.  This may be called from
+	 * any thread.
+	 *
+	 * @return An unmodifiable, sorted snapshot of the completions.  This
+	 *         list is never modified, even if this provider is.
+	 */
+	public List<Completion> getSnapshot() {
+		return snapshot.get();
+	}
+
+
+	/**
+	 * Removes the specified completion from this provider.  This may be
+	 * called from any thread.
+	 *
+	 * @param c The completion to remove.
+	 * @return <code>true</code> if this provider contained the specified
+	 *         completion.
+	 * @see #addCompletion(Completion)
+	 */
+	@Override
+	public boolean removeCompletion(Completion c) {
+		List<Completion> cur;
+		List<Completion> next;
+		do {
+			cur = snapshot.get();
+			int index = Collections.binarySearch(cur, c);
+			if (index<0) {
+				return false;
+			}
+			List<Completion> copy = new ArrayList<>(cur);
+			copy.remove(index);
+			next = freeze(copy);
+		} while (!snapshot.compareAndSet(cur, next));
+		return true;
+	}
+
+
+	/**
+	 * Completion indexes are not thread-safe, so this provider doesn't use
+	 * one.  This method does nothing, and {@link #getCompletionIndex()}
+	 * always returns <code>null</code>.
+	 *
+	 * @param index Ignored.
+	 */
+	@Override
+	public void setCompletionIndex(CompletionIndex index) {
+		// Do nothing
+	}
+
+
+	/**
+	 * Incremental refinement can't see concurrent updates, so this provider
+	 * doesn't support it.  This method does nothing, and
+	 * {@link #isIncrementalRefinementEnabled()} always returns
+	 * <code>false</code>.
+	 *
+	 * @param enabled Ignored.
+	 */
+	@Override
+	public void setIncrementalRefinementEnabled(boolean enabled) {
+		// Do nothing
+	}
+
+
+}
@@ -0,0 +1,105 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * A read-only list of the completions returned by a
+ * {@link CompletionCursor}.  Completions are only read from the cursor when
+ * they are accessed.  Until the cursor is exhausted, the size of this list
+ * is an estimate; however, it always reports at least one completion more
+ * than have been read if there are more to read, and the first two
+ * completions are read up front, so whether there are zero, one or several
+ * completions is always accurate.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class CursorCompletionList extends AbstractList<Completion> {
+
+	private final CompletionCursor cursor;
+	private final List<Completion> materialized;
+	private final int estimatedSize;
+	private boolean exhausted;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param cursor The cursor to read completions from.
+	 */
+	CursorCompletionList(CompletionCursor cursor) {
+		this.cursor = cursor;
+		materialized = new ArrayList<>();
+		estimatedSize = cursor.getEstimatedSize();
+		materialize(1);
+	}
+
+
+	@Override
+	public Completion get(int index) {
+		if (!materialize(index)) {
+			throw new IndexOutOfBoundsException("Index: " + index +
+					", Size: " + materialized.size());
+		}
+		return materialized.get(index);
+	}
+
+
+	/**
+	 * Returns the number of completions read from the cursor so far.
+	 *
+	 * @return The number of completions read.
+	 */
+	int getMaterializedCount() {
+		return materialized.size();
+	}
+
+
+	/**
+	 * Returns whether all completions have been read from the cursor.
+	 *
+	 * @return Whether the cursor is exhausted.
+	 */
+	boolean isExhausted() {
+		return exhausted;
+	}
+
+
+	/**
+	 * Reads completions from the cursor until one at the specified index
+	 * has been read, or the cursor is exhausted.
+	 *
+	 * @param index The index.
+	 * @return Whether there is a completion at that index.
+	 */
+	boolean materialize(int index) {
+		while (materialized.size()<=index && !exhausted) {
+			if (cursor.hasNext()) {
+				materialized.add(cursor.next());
+			}
+			else {
+				exhausted = true;
+			}
+		}
+		return index<materialized.size();
+	}
+
+
+	@Override
+	public int size() {
+		int count = materialized.size();
+		if (exhausted) {
+			return count;
+		}
+		return Math.max(estimatedSize, count + 1);
+	}
+
+
+}
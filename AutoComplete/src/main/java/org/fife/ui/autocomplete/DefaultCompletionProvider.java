@@ -10,8 +10,14 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.Document;
 import javax.swing.text.Element;
@@ -53,6 +59,26 @@ public class DefaultCompletionProvider extends AbstractCompletionProvider {
 	 */
 	private List<Completion> lastParameterizedCompletionsAt;
 
+	/**
+	 * Shares strings and parameters among all completions loaded from XML,
+	 * or <code>null</code> if none have been loaded.
+	 */
+	private InternTable internTable;
+
+	/**
+	 * Where the descriptions of completions loaded from XML are kept, if
+	 * they are loaded lazily.  This is created the first time it's needed.
+	 */
+	private DescriptionStore descriptionStore;
+
+	private boolean lazyDescriptions;
+
+	/**
+	 * Whether identical parameters of completions loaded from XML are
+	 * shared.
+	 */
+	private boolean sharedParameters;
+
 	/**
 	 * Constructor.  The returned provider will not be aware of any completions.
 	 *
@@ -77,18 +103,59 @@ public class DefaultCompletionProvider extends AbstractCompletionProvider {
 	}
 
 
+	/**
+	 * {@inheritDoc}<p>
+	 *
+	 * This also deletes the temporary file holding the descriptions of
+	 * completions loaded lazily from XML, if any.
+	 *
+	 * @see #setLazyDescriptionsEnabled(boolean)
+	 */
+	@Override
+	public void clear() {
+		super.clear();
+		disposeDescriptionStore();
+	}
+
+
+	/**
+	 * Deletes the temporary file holding the descriptions of completions
+	 * loaded lazily from XML, if there is one.  This should only be called
+	 * once those completions are no longer used.
+	 */
+	void disposeDescriptionStore() {
+		if (descriptionStore!=null) {
+			descriptionStore.dispose();
+			descriptionStore = null;
+		}
+	}
+
+
 	/**
 	 * Returns the text just before the current caret position that could be
 	 * the start of something auto-completable.<p>
 	 *
 	 * This method returns all characters before the caret that are matched
-	 * by  {@link #isValidChar(char)}.
+	 * by  {@link #isValidChar(char)}.  If completions are being computed
+	 * for a {@link CompletionContext}, the text is taken from it rather than
+	 * from the document.
 	 * <p>
 	 * {@inheritDoc}
 	 */
 	@Override
 	public String getAlreadyEnteredText(JTextComponent comp) {
 
+		CompletionContext context = getCompletionContext(comp);
+		if (context!=null) {
+			String line = context.getTextBeforeCaret();
+			int end = line.length();
+			int start = end;
+			while (start>0 && isValidChar(line.charAt(start - 1))) {
+				start--;
+			}
+			return start==end ? EMPTY_STRING : line.substring(start);
+		}
+
 		Document doc = comp.getDocument();
 
 		int dot = comp.getCaretPosition();
@@ -258,7 +325,31 @@ public class DefaultCompletionProvider extends AbstractCompletionProvider {
 	 * @return Whether the character is valid.
 	 */
 	protected boolean isValidChar(char ch) {
-		return Character.isLetterOrDigit(ch) || ch=='_';
+		return Util.isWordChar(ch);
+	}
+
+
+	/**
+	 * Returns whether the descriptions of completions loaded from XML are
+	 * loaded lazily.
+	 *
+	 * @return Whether descriptions are loaded lazily.
+	 * @see #setLazyDescriptionsEnabled(boolean)
+	 */
+	public boolean isLazyDescriptionsEnabled() {
+		return lazyDescriptions;
+	}
+
+
+	/**
+	 * Returns whether identical parameters of completions loaded from XML
+	 * are shared.
+	 *
+	 * @return Whether parameters are shared.
+	 * @see #setSharedParametersEnabled(boolean)
+	 */
+	public boolean isSharedParametersEnabled() {
+		return sharedParameters;
 	}
 
 
@@ -295,8 +386,189 @@ public class DefaultCompletionProvider extends AbstractCompletionProvider {
 	 *
 	 * @param resource A resource the current ClassLoader can get to.
 	 * @throws IOException If an IO error occurs.
+	 * @see #loadFromXML(List)
 	 */
 	public void loadFromXML(String resource) throws IOException {
+		try (InputStream in = openResource(resource)) {
+			loadFromXML(in);
+		}
+	}
+
+
+	/**
+	 * Loads completions from an XML input stream.  The XML should validate
+	 * against <code>CompletionXml.dtd</code>.<p>
+	 *
+	 * Types and parameter names that repeat are interned, so they are
+	 * shared among all completions loaded into this provider.  Parameters
+	 * themselves are only shared if
+	 * {@link #setSharedParametersEnabled(boolean)} has been called with
+	 * <code>true</code>.
+	 *
+	 * @param in The input stream to read from.
+	 * @param cl The class loader to use when loading any extra classes defined
+	 *        in the XML, such as custom {@link FunctionCompletion}s.  This
+	 *        may be <code>null</code> if the default is to be used, or if no
+	 *        custom completions are defined in the XML.
+	 * @throws IOException If an IO error occurs.
+	 */
+	public void loadFromXML(InputStream in, ClassLoader cl) throws IOException {
+
+		CompletionEvents.LoadXml event = CompletionEvents.loadXml();
+		event.begin();
+		CompletionXMLParser handler = createXMLParser(cl);
+		long savedBefore = handler.getDeduplicatedBytes();
+		parseXML(in, handler);
+		List<Completion> completions = handler.getCompletions();
+		addCompletions(completions);
+		if (event.shouldCommit()) {
+			event.commit(getClass(), completions.size(),
+					handler.getDeduplicatedBytes() - savedBefore);
+		}
+		setParameterizedCompletionParams(handler);
+
+	}
+
+
+	/**
+	 * Loads completions from several XML files at once.  This is much faster
+	 * than loading them one at a time: the files are parsed in parallel
+	 * on the common fork-join pool, and the completions from all of them are
+	 * added to this provider in a single pass.  Each file should validate
+	 * against <code>CompletionXml.dtd</code>.<p>
+	 *
+	 * The completions are added in the same order as if each file were
+	 * loaded in turn with {@link #loadFromXML(String)}.  If any file can't be
+	 * loaded, no completions are added.
+	 *
+	 * @param resources The resources to load.  Each is either a resource
+	 *        the current ClassLoader can get to, or a file.
+	 * @return Statistics about each file loaded, in the same order as
+	 *         <code>resources</code>.
+	 * @throws IOException If an IO error occurs.
+	 * @see #loadFromXML(List, ClassLoader, ForkJoinPool)
+	 */
+	public List<XMLLoadResult> loadFromXML(List<String> resources)
+			throws IOException {
+		return loadFromXML(resources, null, ForkJoinPool.commonPool());
+	}
+
+
+	/**
+	 * Loads completions from several XML files at once.  This is much faster
+	 * than loading them one at a time: the files are parsed in parallel,
+	 * and the completions from all of them are added to this provider in a
+	 * single pass.  Each file should validate against
+	 * <code>CompletionXml.dtd</code>.<p>
+	 *
+	 * The completions are added in the same order as if each file were
+	 * loaded in turn with {@link #loadFromXML(String)}.  If any file can't be
+	 * loaded, no completions are added.
+	 *
+	 * @param resources The resources to load.  Each is either a resource
+	 *        the current ClassLoader can get to, or a file.
+	 * @param cl The class loader to use when loading any extra classes defined
+	 *        in the XML, such as custom {@link FunctionCompletion}s.  This
+	 *        may be <code>null</code> if the default is to be used, or if no
+	 *        custom completions are defined in the XML.
+	 * @param pool The pool to parse the files on.
+	 * @return Statistics about each file loaded, in the same order as
+	 *         <code>resources</code>.
+	 * @throws IOException If an IO error occurs.
+	 * @see #loadFromXML(List)
+	 */
+	public List<XMLLoadResult> loadFromXML(List<String> resources,
+			ClassLoader cl, ForkJoinPool pool) throws IOException {
+
+		List<CompletionXMLParser> handlers = new ArrayList<>(resources.size());
+		List<ForkJoinTask<XMLLoadResult>> tasks = new ArrayList<>(resources.size());
+		for (String resource : resources) {
+			CompletionXMLParser handler = createXMLParser(cl);
+			handlers.add(handler);
+			tasks.add(pool.submit(() -> parseXML(resource, handler)));
+		}
+
+		// Wait for every file, even if one fails, so none are still being
+		// parsed when we return
+		List<XMLLoadResult> results = new ArrayList<>(tasks.size());
+		IOException error = null;
+		boolean interrupted = false;
+		for (ForkJoinTask<XMLLoadResult> task : tasks) {
+			try {
+				while (true) {
+					try {
+						results.add(task.get());
+						break;
+					} catch (InterruptedException ie) {
+						interrupted = true;
+					}
+				}
+			} catch (ExecutionException ee) {
+				Throwable cause = ee.getCause();
+				IOException ioe = cause instanceof IOException ?
+						(IOException)cause : new IOException(cause);
+				if (error==null) {
+					error = ioe;
+				}
+				else {
+					error.addSuppressed(ioe);
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (error!=null) {
+			throw error;
+		}
+
+		List<List<Completion>> runs = new ArrayList<>(handlers.size());
+		for (CompletionXMLParser handler : handlers) {
+			runs.add(handler.getCompletions());
+		}
+		addCompletions(SortedRuns.mergeAll(runs, Comparator.naturalOrder()));
+		for (CompletionXMLParser handler : handlers) {
+			setParameterizedCompletionParams(handler);
+		}
+		return results;
+
+	}
+
+
+	/**
+	 * Returns a parser for loading completions from XML into this provider.
+	 *
+	 * @param cl The class loader to use when loading any extra classes
+	 *        defined in the XML.  This may be <code>null</code>.
+	 * @return The parser.
+	 * @throws IOException If an IO error occurs.
+	 */
+	private CompletionXMLParser createXMLParser(ClassLoader cl)
+			throws IOException {
+		if (internTable==null) {
+			internTable = new InternTable();
+		}
+		CompletionXMLParser handler = new CompletionXMLParser(this, cl,
+				internTable);
+		handler.setSharedParametersEnabled(sharedParameters);
+		if (lazyDescriptions) {
+			if (descriptionStore==null) {
+				descriptionStore = new DescriptionStore();
+			}
+			handler.setDescriptionStore(descriptionStore);
+		}
+		return handler;
+	}
+
+
+	/**
+	 * Opens a resource, or a file if no such resource exists.
+	 *
+	 * @param resource The resource or file.
+	 * @return An input stream for it.
+	 * @throws IOException If it doesn't exist or an IO error occurs.
+	 */
+	private InputStream openResource(String resource) throws IOException {
 		ClassLoader cl = getClass().getClassLoader();
 		InputStream in = cl.getResourceAsStream(resource);
 		if (in==null) {
@@ -308,46 +580,113 @@ public class DefaultCompletionProvider extends AbstractCompletionProvider {
 				throw new IOException("No such resource: " + resource);
 			}
 		}
-		try (BufferedInputStream bin = new BufferedInputStream(in)) {
-			loadFromXML(bin);
-		}
+		return in;
 	}
 
 
 	/**
-	 * Loads completions from an XML input stream.  The XML should validate
-	 * against <code>CompletionXml.dtd</code>.
+	 * Parses XML.  The input stream is closed when parsing completes.
 	 *
 	 * @param in The input stream to read from.
-	 * @param cl The class loader to use when loading any extra classes defined
-	 *        in the XML, such as custom {@link FunctionCompletion}s.  This
-	 *        may be <code>null</code> if the default is to be used, or if no
-	 *        custom completions are defined in the XML.
+	 * @param handler The parser to parse the XML with.
 	 * @throws IOException If an IO error occurs.
 	 */
-	public void loadFromXML(InputStream in, ClassLoader cl) throws IOException {
-
+	private static void parseXML(InputStream in, CompletionXMLParser handler)
+			throws IOException {
 		SAXParserFactory factory = SAXParserFactory.newInstance();
 		factory.setValidating(true);
-		CompletionXMLParser handler = new CompletionXMLParser(this, cl);
 		try (BufferedInputStream bin = new BufferedInputStream(in)) {
 			SAXParser saxParser = factory.newSAXParser();
 			saxParser.parse(bin, handler);
-			List<Completion> completions = handler.getCompletions();
-			addCompletions(completions);
-			char startChar = handler.getParamStartChar();
-			if (startChar != 0) {
-				char endChar = handler.getParamEndChar();
-				String sep = handler.getParamSeparator();
-				// Sanity check.  Note endChar can be null
-				if (sep != null && sep.length() > 0) {
-					setParameterizedCompletionParams(startChar, sep, endChar);
-				}
-			}
 		} catch (SAXException | ParserConfigurationException e) {
 			throw new IOException(e.toString());
 		}
+	}
+
+
+	/**
+	 * Parses one of several XML files being loaded at once, and sorts its
+	 * completions.  This is called off of the EDT, so it can't touch any
+	 * state of this provider.
+	 *
+	 * @param resource The resource or file to parse.
+	 * @param handler The parser to parse the XML with.
+	 * @return Statistics about the file.
+	 * @throws IOException If an IO error occurs.
+	 */
+	private XMLLoadResult parseXML(String resource, CompletionXMLParser handler)
+			throws IOException {
+
+		CompletionEvents.LoadXml event = CompletionEvents.loadXml();
+		event.begin();
+		long start = System.nanoTime();
+		parseXML(openResource(resource), handler);
+		List<Completion> completions = handler.getCompletions();
+		Collections.sort(completions);
+		Duration parseTime = Duration.ofNanos(System.nanoTime() - start);
+
+		if (event.shouldCommit()) {
+			// The files share strings, so there's no way to tell how many
+			// bytes were saved by each one
+			event.commit(getClass(), completions.size(), 0);
+		}
+		return new XMLLoadResult(resource, completions.size(), parseTime);
+
+	}
 
+
+	/**
+	 * Toggles whether the descriptions of completions loaded from XML are
+	 * loaded lazily.  If enabled, descriptions are kept in a temporary file
+	 * rather than in memory, and only read back when they're displayed.
+	 * This greatly reduces the memory used by completions for APIs with lots
+	 * of documentation.  This only affects completions loaded after it is
+	 * called; descriptions already loaded lazily are kept in the temporary
+	 * file until {@link #clear()} is called.  It is disabled by default.
+	 *
+	 * @param enabled Whether to load descriptions lazily.
+	 * @see #isLazyDescriptionsEnabled()
+	 * @see CompletionXMLParser#setLazyDescriptionsEnabled(boolean)
+	 */
+	public void setLazyDescriptionsEnabled(boolean enabled) {
+		lazyDescriptions = enabled;
+	}
+
+
+	/**
+	 * Toggles whether parameters with the same type, name and description
+	 * are shared by all the completions loaded from XML that use them.  This
+	 * greatly reduces the memory used by completions for APIs that repeat
+	 * the same parameters many times.  However, changing a shared
+	 * parameter's description changes it for every completion using it.
+	 * This only affects completions loaded after it is called.  It is
+	 * disabled by default.
+	 *
+	 * @param enabled Whether to share parameters.
+	 * @see #isSharedParametersEnabled()
+	 * @see CompletionXMLParser#setSharedParametersEnabled(boolean)
+	 */
+	public void setSharedParametersEnabled(boolean enabled) {
+		sharedParameters = enabled;
+	}
+
+
+	/**
+	 * Sets the parameterized completion parameters defined in an XML file,
+	 * if it defined any.
+	 *
+	 * @param handler The parser that parsed the file.
+	 */
+	private void setParameterizedCompletionParams(CompletionXMLParser handler) {
+		char startChar = handler.getParamStartChar();
+		if (startChar != 0) {
+			char endChar = handler.getParamEndChar();
+			String sep = handler.getParamSeparator();
+			// Sanity check.  Note endChar can be null
+			if (sep != null && sep.length() > 0) {
+				setParameterizedCompletionParams(startChar, sep, endChar);
+			}
+		}
 	}
 
 
@@ -5,6 +5,9 @@
 package org.fife.ui.autocomplete;
 
 import java.awt.Component;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 import javax.swing.DefaultListCellRenderer;
 import javax.swing.JComponent;
 import javax.swing.JList;
@@ -28,6 +31,43 @@ class DelegatingCellRenderer extends DefaultListCellRenderer {
 	 */
 	private ListCellRenderer<Object> fallback;
 
+	/**
+	 * Where to report how long renderers take to prepare.
+	 */
+	private CompletionMetrics metrics;
+
+	/**
+	 * The renderers with row caches that have been delegated to since
+	 * {@link #clearRowCaches()} was last called.
+	 */
+	private final Set<CompletionCellRenderer> cachingRenderers =
+			Collections.newSetFromMap(new IdentityHashMap<>());
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param metrics Where to report how long renderers take to prepare.
+	 */
+	DelegatingCellRenderer(CompletionMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+
+	/**
+	 * Clears the row caches of the renderers delegated to since this was
+	 * last called, so the completions they rendered can be garbage
+	 * collected.
+	 *
+	 * @see CompletionCellRenderer#clearRowCache()
+	 */
+	void clearRowCaches() {
+		for (CompletionCellRenderer renderer : cachingRenderers) {
+			renderer.clearRowCache();
+		}
+		cachingRenderers.clear();
+	}
+
 
 	/**
 	 * Returns the fallback cell renderer.
@@ -43,19 +83,35 @@ class DelegatingCellRenderer extends DefaultListCellRenderer {
 	@Override
 	public Component getListCellRendererComponent(JList<?> list, Object value,
 						int index, boolean selected, boolean hasFocus) {
+		if (!metrics.isEnabled()) {
+			return getRendererComponent(list, value, index, selected, hasFocus);
+		}
+		long start = System.nanoTime();
+		Component c = getRendererComponent(list, value, index, selected,
+				hasFocus);
+		metrics.phaseCompleted(CompletionMetricsListener.Phase.RENDERER,
+				((Completion)value).getProvider(), System.nanoTime() - start, 1);
+		return c;
+	}
+
+
+	private Component getRendererComponent(JList<?> list, Object value,
+						int index, boolean selected, boolean hasFocus) {
 		Completion c = (Completion)value;
 		CompletionProvider p = c.getProvider();
 		ListCellRenderer<Object> r = p.getListCellRenderer();
-		if (r!=null) {
-			return r.getListCellRendererComponent(list, value, index, selected,
-													hasFocus);
+		if (r==null) {
+			r = fallback;
 		}
-		if (fallback==null) {
+		if (r==null) {
 			return super.getListCellRendererComponent(list, value, index,
 												selected, hasFocus);
 		}
-		return fallback.getListCellRendererComponent(list, value, index,
-													selected, hasFocus);
+		if (r instanceof CompletionCellRenderer) {
+			cachingRenderers.add((CompletionCellRenderer)r);
+		}
+		return r.getListCellRendererComponent(list, value, index, selected,
+												hasFocus);
 	}
 
 
@@ -0,0 +1,269 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Keeps the descriptions of completions loaded from XML in a temporary file
+ * rather than on the heap.  Users only ever look at a few descriptions, so
+ * for documentation-heavy XML files, this saves most of the memory the
+ * loaded completions would otherwise use.  Each description is read from
+ * the file the first time it is needed, and the most recently used ones are
+ * cached.<p>
+ *
+ * Descriptions are buffered in memory while an XML file is parsed, and
+ * written to the file by {@link #flush()} once parsing completes.  Several
+ * files may be parsed into the same store at once.  Descriptions that are
+ * short are kept in memory, and descriptions repeated within a file are only
+ * stored once.<p>
+ *
+ * The file is kept open until {@link #dispose()} is called, which deletes
+ * it.  Descriptions are read from it without holding this store's lock, so
+ * displaying a description doesn't wait for a parser adding others.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see CompletionXMLParser#setLazyDescriptionsEnabled(boolean)
+ */
+final class DescriptionStore {
+
+	private final Path file;
+
+	/**
+	 * The channel used to read and write the file, or <code>null</code> once
+	 * this store has been disposed.
+	 */
+	private FileChannel channel;
+
+	/**
+	 * The number of bytes written to the file.
+	 */
+	private long fileLength;
+
+	/**
+	 * Descriptions added since the last flush.  This and
+	 * {@link #pendingEntries} are replaced rather than cleared when flushed,
+	 * so they don't hold on to their capacity.
+	 */
+	private ByteArrayOutputStream pending;
+
+	/**
+	 * The descriptions added since the last flush, so a description
+	 * repeated in an XML file is only stored once.
+	 */
+	private Map<String, Entry> pendingEntries;
+
+	/**
+	 * The most recently read descriptions.
+	 */
+	private final Map<Entry, String> cache;
+
+	/**
+	 * Descriptions shorter than this are kept in memory, since a reference
+	 * to them in the file would take about as much memory.
+	 */
+	static final int MIN_LENGTH = 32;
+
+	/**
+	 * The maximum number of descriptions cached in memory.
+	 */
+	private static final int MAX_CACHED = 128;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @throws IOException If the temporary file can't be created.
+	 */
+	DescriptionStore() throws IOException {
+		file = Files.createTempFile("completions", ".desc");
+		file.toFile().deleteOnExit(); // In case dispose() is never called
+		channel = FileChannel.open(file, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		pending = new ByteArrayOutputStream();
+		pendingEntries = new HashMap<>();
+		cache = new LinkedHashMap<Entry, String>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Entry, String> eldest) {
+				return size()>MAX_CACHED;
+			}
+		};
+	}
+
+
+	/**
+	 * Adds a description.
+	 *
+	 * @param text The description.
+	 * @return The text, if it's short enough to be kept in memory;
+	 *         otherwise, a reference to it that reads it from the file
+	 *         when necessary.
+	 */
+	synchronized CharSequence add(String text) {
+
+		if (text.length()<MIN_LENGTH) {
+			return text;
+		}
+
+		Entry entry = pendingEntries.get(text);
+		if (entry==null) {
+			byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+			entry = new Entry(this, fileLength + pending.size(), bytes.length);
+			pending.write(bytes, 0, bytes.length);
+			pendingEntries.put(text, entry);
+		}
+		return entry;
+
+	}
+
+
+	/**
+	 * Closes and deletes the file.  Descriptions that haven't been read
+	 * before this is called can no longer be read; they will be empty.
+	 * This should be called once the completions using this store are no
+	 * longer needed.
+	 */
+	synchronized void dispose() {
+		if (channel==null) {
+			return;
+		}
+		try {
+			channel.close();
+			Files.deleteIfExists(file);
+		} catch (IOException ioe) {
+			ioe.printStackTrace();
+		}
+		channel = null;
+		pending = new ByteArrayOutputStream();
+		pendingEntries = new HashMap<>();
+		cache.clear();
+	}
+
+
+	/**
+	 * Writes the descriptions added since the last flush to the file.
+	 *
+	 * @throws IOException If an IO error occurs, or this store has been
+	 *         disposed.
+	 */
+	synchronized void flush() throws IOException {
+		if (channel==null) {
+			throw new IOException("Description store has been disposed");
+		}
+		if (pending.size()>0) {
+			ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+			while (buffer.hasRemaining()) {
+				channel.write(buffer, fileLength + buffer.position());
+			}
+			fileLength += pending.size();
+		}
+		pending = new ByteArrayOutputStream();
+		pendingEntries = new HashMap<>();
+	}
+
+
+	/**
+	 * Returns a description, reading it from the file if it isn't cached.
+	 *
+	 * @param entry The description's location in the file.
+	 * @return The description, or <code>null</code> if it couldn't be read.
+	 */
+	private String read(Entry entry) {
+
+		FileChannel channel;
+		synchronized (this) {
+			String text = cache.get(entry);
+			if (text!=null) {
+				return text;
+			}
+			if (this.channel==null || entry.offset + entry.length>fileLength) {
+				return null; // Disposed, or never flushed
+			}
+			channel = this.channel;
+		}
+
+		// Positional reads don't change the channel's state, so they can
+		// run concurrently with each other and with flush().
+		ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+		try {
+			while (buffer.hasRemaining()) {
+				int count = channel.read(buffer, entry.offset + buffer.position());
+				if (count<0) {
+					return null;
+				}
+			}
+		} catch (ClosedChannelException cce) {
+			return null; // Disposed while reading
+		} catch (IOException ioe) {
+			ioe.printStackTrace();
+			return null;
+		}
+
+		String text = new String(buffer.array(), StandardCharsets.UTF_8);
+		synchronized (this) {
+			if (this.channel!=null) {
+				cache.put(entry, text);
+			}
+		}
+		return text;
+
+	}
+
+
+	/**
+	 * A description in the file.  This is a {@code CharSequence} so it can
+	 * be stored wherever a description's text would be; its text is only
+	 * read when {@link #toString()} is called.
+	 */
+	static final class Entry implements CharSequence {
+
+		private final DescriptionStore store;
+		private final long offset;
+		private final int length;
+
+		private Entry(DescriptionStore store, long offset, int length) {
+			this.store = store;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return toString().charAt(index);
+		}
+
+		@Override
+		public int length() {
+			return toString().length();
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return toString().substring(start, end);
+		}
+
+		@Override
+		public String toString() {
+			String text = store.read(this);
+			return text!=null ? text : "";
+		}
+
+	}
+
+
+}
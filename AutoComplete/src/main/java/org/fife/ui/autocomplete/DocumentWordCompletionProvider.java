@@ -0,0 +1,529 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.JTextComponent;
+import javax.swing.text.Segment;
+
+
+/**
+ * A completion provider that offers the words already in the document being
+ * edited.  This is useful for files with no language support, such as log
+ * and configuration files.<p>
+ *
+ * The document's words are indexed once, when the provider is first used
+ * with it (or when {@link #setDocument(Document)} is called), and the index
+ * is then kept up to date as the document is edited, by re-reading only the
+ * lines each edit touches.  Completions are looked up by prefix in the
+ * index, so they are found almost immediately even in documents several
+ * megabytes in size.  Words that appear more often in the document are
+ * offered first.<p>
+ *
+ * Note that indexing the whole document is done on the calling thread.  If
+ * the provider is left to index its document when completions are first
+ * requested, that is usually the EDT, which can be noticeably slow for a
+ * large document.  To avoid this, call {@link #setDocument(Document)} on a
+ * background thread before then; it is safe to do so, since the document
+ * is read under its read lock.<p>
+ *
+ * Completions can also be added to this provider as with any
+ * {@link DefaultCompletionProvider}; they are offered alongside the
+ * document's words.  What is considered a word is determined by
+ * {@link #isValidChar(char)}, though words starting with a digit are never
+ * offered.<p>
+ *
+ * The index may be updated from whatever thread modifies the document, and
+ * queried from a background thread if asynchronous completion is enabled, so
+ * access to it is synchronized.<p>
+ *
+ * To offer the words in many open documents in each of them, create the
+ * providers with a {@link SharedWordIndex}.  The index then decides which
+ * words are indexed, using its own minimum word length and word characters,
+ * so {@link #setMinimumWordLength(int)} can't be called on such a provider.
+ * {@link #isValidChar(char)} still decides what text at the caret is
+ * completed, so if it is overridden, the index should be created with the
+ * same notion of a word character.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+public class DocumentWordCompletionProvider extends DefaultCompletionProvider {
+
+	/**
+	 * The document being indexed, or <code>null</code> if none has been
+	 * indexed yet.
+	 */
+	private Document document;
+
+	/**
+	 * The document's words, ordered case-insensitively so the words
+	 * starting with a prefix are adjacent.
+	 */
+	private final NavigableMap<String, Word> words;
+
+	/**
+	 * The words on each line of the document, in the order they appear.
+	 * When an edit changes lines, their old words are removed from the
+	 * index using this list.
+	 */
+	private final List<String[]> lineWords;
+
+	private final Listener listener;
+
+	/**
+	 * The index the document is registered with, or <code>null</code> if
+	 * this provider indexes it itself.
+	 */
+	private final SharedWordIndex sharedIndex;
+
+	/**
+	 * Whether the document has been indexed since it was set.  Edits made
+	 * before then are picked up by the indexing itself.
+	 */
+	private boolean indexed;
+
+	private int minimumWordLength;
+
+	/**
+	 * Orders words ignoring case, then by case, so that words differing
+	 * only in case are kept separately.
+	 */
+	private static final Comparator<String> WORD_COMPARATOR =
+		String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+
+	private static final String[] NO_WORDS = {};
+
+	/**
+	 * The default minimum length of words that are offered.
+	 */
+	public static final int DEFAULT_MINIMUM_WORD_LENGTH = 3;
+
+
+	/**
+	 * Constructor.  The document is indexed the first time completions are
+	 * requested, unless {@link #setDocument(Document)} is called first.
+	 */
+	public DocumentWordCompletionProvider() {
+		this(null);
+	}
+
+
+	/**
+	 * Constructor.  This provider offers the words in all documents
+	 * registered with a shared index, rather than indexing its document
+	 * itself.  Its document is registered with the index the first time
+	 * completions are requested, unless {@link #setDocument(Document)} is
+	 * called first; call <code>setDocument(null)</code> to unregister it
+	 * when it is closed.
+	 *
+	 * @param sharedIndex The shared index.  If this is <code>null</code>,
+	 *        this provider indexes its document itself.
+	 */
+	public DocumentWordCompletionProvider(SharedWordIndex sharedIndex) {
+		this.sharedIndex = sharedIndex;
+		words = new TreeMap<>(WORD_COMPARATOR);
+		lineWords = new ArrayList<>();
+		listener = new Listener();
+		minimumWordLength = DEFAULT_MINIMUM_WORD_LENGTH;
+	}
+
+
+	/**
+	 * Adds the words of a line to the index.
+	 *
+	 * @param line The words on the line.
+	 */
+	private void addWords(String[] line) {
+		for (int i=0; i<line.length; i++) {
+			Word word = words.get(line[i]);
+			if (word==null) {
+				word = new Word(line[i]);
+				words.put(word.text, word);
+			}
+			// Share one String instance per distinct word
+			line[i] = word.text;
+			word.add(1);
+		}
+	}
+
+
+	/**
+	 * Creates the completion for a word.  A new completion is created each
+	 * time, so its relevance is a snapshot of the word's count that later
+	 * edits don't change, even while it is being sorted or displayed.
+	 *
+	 * @param word The word.
+	 * @param count How many times the word occurs.
+	 * @return The completion, ranked by how often the word occurs.
+	 */
+	private Completion createCompletion(String word, int count) {
+		BasicCompletion completion = new BasicCompletion(this, word);
+		completion.setRelevance(count);
+		return completion;
+	}
+
+
+	/**
+	 * Re-indexes the lines changed by an edit.
+	 *
+	 * @param e The edit.
+	 */
+	private synchronized void documentChanged(DocumentEvent e) {
+
+		if (!indexed || e.getDocument()!=document) {
+			return;
+		}
+
+		Element root = document.getDefaultRootElement();
+		int first = root.getElementIndex(e.getOffset());
+		int oldCount = lineWords.size();
+		int newCount = root.getElementCount();
+
+		// One line was replaced by several, or several by one.  Either way,
+		// the words on all of them are read again.
+		int oldEnd = first + 1 + Math.max(0, oldCount - newCount);
+		int newEnd = first + 1 + Math.max(0, newCount - oldCount);
+
+		List<String[]> changed = lineWords.subList(first, oldEnd);
+		for (String[] line : changed) {
+			removeWords(line);
+		}
+		changed.clear();
+
+		Segment s = new Segment();
+		List<String[]> added = new ArrayList<>(newEnd - first);
+		for (int i=first; i<newEnd; i++) {
+			String[] line = readLine(root.getElement(i), s);
+			addWords(line);
+			added.add(line);
+		}
+		lineWords.addAll(first, added);
+
+	}
+
+
+	@Override
+	protected List<Completion> getCompletionsImpl(JTextComponent comp) {
+
+		List<Completion> completions = super.getCompletionsImpl(comp);
+		String text = getAlreadyEnteredText(comp);
+		if (text==null || text.isEmpty()) {
+			return completions;
+		}
+
+		// Indexes the whole document on this thread, usually the EDT, unless
+		// setDocument() was called beforehand.
+		Document doc = comp.getDocument();
+		if (doc!=getDocument()) {
+			setDocument(doc);
+		}
+
+		if (sharedIndex!=null) {
+			sharedIndex.forEachMatch(text, (word, count) -> {
+				if (count>1 || !word.equals(text)) {
+					completions.add(createCompletion(word, count));
+				}
+			});
+			return completions;
+		}
+
+		synchronized (this) {
+
+			// Only case variants of the prefix itself sort before it
+			String start = text;
+			String prev;
+			while ((prev=words.lowerKey(start))!=null &&
+					Util.startsWithIgnoreCase(prev, text)) {
+				start = prev;
+			}
+
+			for (Word word : words.tailMap(start, true).values()) {
+				if (!Util.startsWithIgnoreCase(word.text, text)) {
+					break;
+				}
+				// Don't offer the word being typed unless it's used elsewhere
+				if (word.count>1 || !word.text.equals(text)) {
+					completions.add(createCompletion(word.text, word.count));
+				}
+			}
+
+		}
+
+		return completions;
+
+	}
+
+
+	/**
+	 * Returns the document whose words are offered.
+	 *
+	 * @return The document, or <code>null</code> if none has been indexed
+	 *         yet.
+	 * @see #setDocument(Document)
+	 */
+	public synchronized Document getDocument() {
+		return document;
+	}
+
+
+	/**
+	 * Returns the minimum length of words that are offered.
+	 *
+	 * @return The minimum length.
+	 * @see #setMinimumWordLength(int)
+	 */
+	public synchronized int getMinimumWordLength() {
+		return sharedIndex!=null ? sharedIndex.getMinimumWordLength() :
+				minimumWordLength;
+	}
+
+
+	/**
+	 * Returns the number of times a word occurs in the document, or in all
+	 * documents registered with the shared index if there is one.
+	 *
+	 * @param word The word.  This is case-sensitive.
+	 * @return The number of occurrences.  This is <code>0</code> if the word
+	 *         is shorter than the minimum word length.
+	 */
+	public synchronized int getOccurrenceCount(String word) {
+		if (sharedIndex!=null) {
+			return sharedIndex.getOccurrenceCount(word);
+		}
+		Word w = words.get(word);
+		return w==null ? 0 : w.count;
+	}
+
+
+	/**
+	 * Returns the number of distinct words in the document, or in all
+	 * documents registered with the shared index if there is one.
+	 *
+	 * @return The number of distinct words.
+	 */
+	public synchronized int getWordCount() {
+		return sharedIndex!=null ? sharedIndex.getWordCount() : words.size();
+	}
+
+
+	/**
+	 * Reads the words on a line.
+	 *
+	 * @param line The line.
+	 * @param s A buffer to read the line into.
+	 * @return The words on the line.
+	 */
+	private String[] readLine(Element line, Segment s) {
+
+		int start = line.getStartOffset();
+		int end = Math.min(line.getEndOffset(), document.getLength());
+		try {
+			document.getText(start, end - start, s);
+		} catch (BadLocationException ble) { // Never happens
+			ble.printStackTrace();
+			return NO_WORDS;
+		}
+
+		return Util.getWords(s, minimumWordLength, ch -> isValidChar((char)ch));
+
+	}
+
+
+	/**
+	 * Rebuilds the index from scratch, if a document is still being indexed.
+	 *
+	 * @param doc The document to index.
+	 */
+	private void reindex(Document doc) {
+		// Reading the document under its lock ensures no edit is missed
+		// while indexing.  The document's lock is always taken before this
+		// provider's, as when the listener is notified of an edit.
+		doc.render(() -> {
+			synchronized (this) {
+				if (doc==document) {
+					reindexImpl();
+				}
+			}
+		});
+	}
+
+
+	/**
+	 * Rebuilds the index from scratch.  The caller must hold both the
+	 * document's lock and this provider's.
+	 */
+	private void reindexImpl() {
+
+		words.clear();
+		lineWords.clear();
+
+		Element root = document.getDefaultRootElement();
+		int lineCount = root.getElementCount();
+		Segment s = new Segment();
+		for (int i=0; i<lineCount; i++) {
+			String[] line = readLine(root.getElement(i), s);
+			addWords(line);
+			lineWords.add(line);
+		}
+		indexed = true;
+
+	}
+
+
+	/**
+	 * Removes the words of a line from the index.
+	 *
+	 * @param line The words on the line.
+	 */
+	private void removeWords(String[] line) {
+		for (String text : line) {
+			Word word = words.get(text);
+			if (word!=null && word.add(-1)==0) {
+				words.remove(text);
+			}
+		}
+	}
+
+
+	/**
+	 * Sets the document whose words are offered, and indexes it, or
+	 * registers it with the shared index if there is one.  This doesn't
+	 * need to be called, since the document is indexed the first time
+	 * completions are requested for it, but it allows a large document to
+	 * be indexed before then.  The document is indexed on the calling
+	 * thread, which may be a background thread.
+	 *
+	 * @param doc The document.  This may be <code>null</code> to stop
+	 *        indexing the current document, or to unregister it from the
+	 *        shared index.
+	 * @see #getDocument()
+	 */
+	public void setDocument(Document doc) {
+
+		Document old;
+		synchronized (this) {
+			if (doc==document) {
+				return;
+			}
+			old = document;
+			document = doc;
+			indexed = false;
+			words.clear();
+			lineWords.clear();
+		}
+
+		if (sharedIndex!=null) {
+			if (old!=null) {
+				sharedIndex.unregister(old);
+			}
+			if (doc!=null) {
+				sharedIndex.register(doc);
+			}
+			return;
+		}
+
+		if (old!=null) {
+			old.removeDocumentListener(listener);
+		}
+		if (doc!=null) {
+			doc.addDocumentListener(listener);
+			reindex(doc);
+		}
+
+	}
+
+
+	/**
+	 * Sets the minimum length of words that are offered.  Changing this
+	 * re-indexes the document.
+	 *
+	 * @param length The minimum length.  This must be at least
+	 *        <code>1</code>.
+	 * @throws IllegalArgumentException If <code>length</code> is less than
+	 *         <code>1</code>.
+	 * @throws IllegalStateException If this provider uses a shared index,
+	 *         whose own minimum length is always used.
+	 * @see #getMinimumWordLength()
+	 * @see SharedWordIndex#SharedWordIndex(int)
+	 */
+	public void setMinimumWordLength(int length) {
+		if (sharedIndex!=null) {
+			throw new IllegalStateException(
+					"The shared index's minimum word length is used");
+		}
+		if (length<1) {
+			throw new IllegalArgumentException("length must be at least 1");
+		}
+		Document doc;
+		synchronized (this) {
+			minimumWordLength = length;
+			doc = document;
+		}
+		if (doc!=null) {
+			reindex(doc);
+		}
+	}
+
+
+	/**
+	 * Keeps the index up to date as the document is edited.
+	 */
+	private final class Listener implements DocumentListener {
+
+		@Override
+		public void changedUpdate(DocumentEvent e) {
+			// Attribute changes don't affect the words
+		}
+
+		@Override
+		public void insertUpdate(DocumentEvent e) {
+			documentChanged(e);
+		}
+
+		@Override
+		public void removeUpdate(DocumentEvent e) {
+			documentChanged(e);
+		}
+
+	}
+
+
+	/**
+	 * A distinct word in the document, and how often it occurs.
+	 */
+	private static final class Word {
+
+		private final String text;
+		private int count;
+
+		Word(String text) {
+			this.text = text;
+		}
+
+		/**
+		 * Changes the number of occurrences of this word.
+		 *
+		 * @param delta The amount to change the count by.
+		 * @return The new count.
+		 */
+		int add(int delta) {
+			count += delta;
+			return count;
+		}
+
+	}
+
+
+}
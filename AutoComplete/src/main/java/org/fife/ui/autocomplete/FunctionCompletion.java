@@ -31,9 +31,10 @@ public class FunctionCompletion extends VariableCompletion
 	private List<Parameter> params;
 
 	/**
-	 * A description of the return value of this function.
+	 * The description of the return value.  This is usually a string, but
+	 * may be read lazily if this completion was loaded from XML.
 	 */
-	private String returnValDesc;
+	private CharSequence returnValDesc;
 
 	/**
 	 * Used to improve performance of sorting FunctionCompletions.
@@ -90,6 +91,7 @@ public class FunctionCompletion extends VariableCompletion
 			sb.append("</td></tr></table></center><br><br>");
 		}
 
+		String returnValDesc = getReturnValueDescription();
 		if (returnValDesc!=null) {
 			sb.append("<b>Returns:</b><br><center><table width='90%'><tr><td>");
 			sb.append(returnValDesc);
@@ -129,14 +131,17 @@ public class FunctionCompletion extends VariableCompletion
 
 
 	/**
-	 * Overridden to match the behavior of {@code compareTo(Completion)}.
+	 * Overridden to match the behavior of {@code compareTo(Completion)} for
+	 * other function completions.  Completions of any other type are never
+	 * equal to this one, so this stays symmetric.
 	 *
 	 * @param other Another object.
 	 * @return Whether these two objects are equal.
 	 */
 	@Override
 	public boolean equals(Object other) {
-		return other instanceof Completion && compareTo((Completion)other) == 0;
+		return other instanceof FunctionCompletion &&
+				compareTo((Completion)other) == 0;
 	}
 
 	/**
@@ -346,7 +351,7 @@ public class FunctionCompletion extends VariableCompletion
 	 * @see #setReturnValueDescription(String)
 	 */
 	public String getReturnValueDescription() {
-		return returnValDesc;
+		return returnValDesc==null ? null : returnValDesc.toString();
 	}
 
 
@@ -374,19 +379,15 @@ public class FunctionCompletion extends VariableCompletion
 		return text;
 	}
 
+	/**
+	 * Overridden to match the behavior of {@code equals(Object)}, so equal
+	 * functions can be found in hash-based collections.
+	 *
+	 * @return The hash code.
+	 */
 	@Override
 	public int hashCode() {
-
-		int hashCode = super.hashCode();
-
-		for (int i = 0; i < getParamCount(); i++) {
-			hashCode ^= getParam(i).hashCode();
-		}
-
-		hashCode ^= returnValDesc != null ? returnValDesc.hashCode() : 0;
-		hashCode ^= compareString != null ? compareString.hashCode() : 0;
-
-		return hashCode;
+		return getCompareString().hashCode();
 	}
 
 
@@ -402,6 +403,7 @@ public class FunctionCompletion extends VariableCompletion
 		if (params!=null) {
 			// Deep copy so parsing can re-use its array.
 			this.params = new ArrayList<>(params);
+			compareString = null;
 		}
 	}
 
@@ -417,4 +419,16 @@ public class FunctionCompletion extends VariableCompletion
 	}
 
 
+	/**
+	 * Sets the description of the return value of this function to text
+	 * that is only computed when it's needed.
+	 *
+	 * @param desc The description.
+	 * @see DescriptionStore
+	 */
+	void setLazyReturnValueDescription(CharSequence desc) {
+		this.returnValDesc = desc;
+	}
+
+
 }
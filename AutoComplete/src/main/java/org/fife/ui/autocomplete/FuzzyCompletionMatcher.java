@@ -0,0 +1,317 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+
+/**
+ * A {@link CompletionMatcher} that supports several kinds of "fuzzy"
+ * matching, all ignoring case.  From best to worst, the kinds of matches
+ * are:
+ *
+ * <ol>
+ *    <li><b>Prefix</b> - the input text starts with the typed text.</li>
+ *    <li><b>Camel case</b> - the typed text matches the start of "words" in
+ *        the input text, for example <code>gSI</code> or
+ *        <code>getSelIn</code> for <code>getSelectedIndex</code>, or
+ *        <code>vs</code> for <code>VERTICAL_SCROLLBAR</code>.</li>
+ *    <li><b>Substring</b> - the input text contains the typed text.</li>
+ *    <li><b>Subsequence</b> - the input text contains all characters of the
+ *        typed text, in order.</li>
+ * </ol>
+ *
+ * Every completion matched by a better kind of match is scored higher than
+ * any matched by a worse kind.  All prefix matches get the same score, so
+ * they are still ordered by relevance, then alphabetically, as they are
+ * without a matcher.  Within the other kinds, tighter matches score higher.
+ * Each kind except prefix matching can be disabled.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+public class FuzzyCompletionMatcher implements CompletionMatcher {
+
+	private boolean camelCaseMatching;
+	private boolean substringMatching;
+	private boolean subsequenceMatching;
+
+	private static final int PREFIX_SCORE = 1000;
+	private static final int CAMEL_CASE_SCORE = 800;
+	private static final int SUBSTRING_SCORE = 600;
+	private static final int SUBSEQUENCE_SCORE = 400;
+
+	/**
+	 * The most a score is reduced for a poor match within a kind of match,
+	 * so kinds of matches never overlap.
+	 */
+	private static final int MAX_PENALTY = 99;
+
+
+	/**
+	 * Constructor.  All kinds of matching are enabled.
+	 */
+	public FuzzyCompletionMatcher() {
+		setCamelCaseMatching(true);
+		setSubstringMatching(true);
+		setSubsequenceMatching(true);
+	}
+
+
+	/**
+	 * Returns the score for a camel case match, or {@link #NO_MATCH}.
+	 *
+	 * @param pattern The typed text.
+	 * @param text The input text.
+	 * @return The score.
+	 */
+	private static int camelCaseMatch(String pattern, String text) {
+		int[] memo = new int[(pattern.length() + 1) * (text.length() + 1)];
+		int skipped = matchHumps(pattern, 0, text, 0, memo);
+		if (skipped<0) {
+			return NO_MATCH;
+		}
+		return CAMEL_CASE_SCORE - Math.min(skipped, MAX_PENALTY);
+	}
+
+
+	/**
+	 * Returns whether camel case matching is enabled.
+	 *
+	 * @return Whether camel case matching is enabled.
+	 * @see #setCamelCaseMatching(boolean)
+	 */
+	public boolean getCamelCaseMatching() {
+		return camelCaseMatching;
+	}
+
+
+	/**
+	 * Returns whether subsequence matching is enabled.
+	 *
+	 * @return Whether subsequence matching is enabled.
+	 * @see #setSubsequenceMatching(boolean)
+	 */
+	public boolean getSubsequenceMatching() {
+		return subsequenceMatching;
+	}
+
+
+	/**
+	 * Returns whether substring matching is enabled.
+	 *
+	 * @return Whether substring matching is enabled.
+	 * @see #setSubstringMatching(boolean)
+	 */
+	public boolean getSubstringMatching() {
+		return substringMatching;
+	}
+
+
+	/**
+	 * Returns the index of a string in another, ignoring case.
+	 *
+	 * @param text The text to search in.
+	 * @param str The string to search for.
+	 * @return The index, or <code>-1</code> if it wasn't found.
+	 */
+	private static int indexOfIgnoreCase(String text, String str) {
+		int len = str.length();
+		int max = text.length() - len;
+		for (int i=0; i<=max; i++) {
+			if (text.regionMatches(true, i, str, 0, len)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+
+	/**
+	 * Returns whether a character in some text starts a new "word" for the
+	 * purposes of camel case matching.
+	 *
+	 * @param text The text.
+	 * @param index The index of the character.
+	 * @return Whether the character starts a word.
+	 */
+	private static boolean isHumpStart(String text, int index) {
+		char ch = text.charAt(index);
+		if (index==0) {
+			return true;
+		}
+		char prev = text.charAt(index-1);
+		if (Character.isUpperCase(ch)) {
+			return !Character.isUpperCase(prev);
+		}
+		if (Character.isDigit(ch)) {
+			return !Character.isDigit(prev);
+		}
+		return Character.isLetter(ch) && !Character.isLetterOrDigit(prev);
+	}
+
+
+	@Override
+	public int match(String pattern, String inputText) {
+
+		if (Util.startsWithIgnoreCase(inputText, pattern)) {
+			return PREFIX_SCORE;
+		}
+
+		int score = NO_MATCH;
+		if (camelCaseMatching) {
+			score = camelCaseMatch(pattern, inputText);
+		}
+		if (score==NO_MATCH && substringMatching) {
+			int index = indexOfIgnoreCase(inputText, pattern);
+			if (index>-1) {
+				score = SUBSTRING_SCORE - Math.min(index, MAX_PENALTY);
+			}
+		}
+		if (score==NO_MATCH && subsequenceMatching) {
+			score = subsequenceMatch(pattern, inputText);
+		}
+		return score;
+
+	}
+
+
+	/**
+	 * Matches the rest of a pattern against the rest of some text, camel
+	 * case-style.  Each pattern character must either match the character
+	 * right after the previously matched one, or the start of a later word.
+	 *
+	 * @param pattern The typed text.
+	 * @param patternIndex The index of the next pattern character to match.
+	 * @param text The input text.
+	 * @param textIndex The index just past the previously matched character.
+	 * @param memo Results already computed, offset by <code>2</code> so
+	 *        that <code>0</code> means "not yet computed."  This keeps
+	 *        pathological inputs from taking exponential time.
+	 * @return The number of words skipped over, or <code>-1</code> if the
+	 *         pattern doesn't match.
+	 */
+	private static int matchHumps(String pattern, int patternIndex,
+			String text, int textIndex, int[] memo) {
+
+		if (patternIndex==pattern.length()) {
+			return 0;
+		}
+		int key = patternIndex * (text.length() + 1) + textIndex;
+		if (memo[key]==0) {
+			memo[key] = matchHumpsImpl(pattern, patternIndex, text, textIndex,
+					memo) + 2;
+		}
+		return memo[key] - 2;
+
+	}
+
+
+	/**
+	 * Does the work of {@link #matchHumps(String, int, String, int, int[])}.
+	 *
+	 * @param pattern The typed text.
+	 * @param patternIndex The index of the next pattern character to match.
+	 * @param text The input text.
+	 * @param textIndex The index just past the previously matched character.
+	 * @param memo Results already computed.
+	 * @return The number of words skipped over, or <code>-1</code> if the
+	 *         pattern doesn't match.
+	 */
+	private static int matchHumpsImpl(String pattern, int patternIndex,
+			String text, int textIndex, int[] memo) {
+
+		char ch = Util.foldCase(pattern.charAt(patternIndex));
+
+		// Continue matching within the current word.
+		if (patternIndex>0 && textIndex<text.length() &&
+				Util.foldCase(text.charAt(textIndex))==ch) {
+			int skipped = matchHumps(pattern, patternIndex+1, text, textIndex+1, memo);
+			if (skipped>-1) {
+				return skipped;
+			}
+		}
+
+		// Otherwise, jump to the start of a later word.
+		int skipped = 0;
+		for (int i=textIndex; i<text.length(); i++) {
+			if (isHumpStart(text, i)) {
+				if (Util.foldCase(text.charAt(i))==ch) {
+					int rest = matchHumps(pattern, patternIndex+1, text, i+1, memo);
+					if (rest>-1) {
+						return skipped + rest;
+					}
+				}
+				skipped++;
+			}
+		}
+		return -1;
+
+	}
+
+
+	/**
+	 * Toggles whether camel case matching is enabled.
+	 *
+	 * @param enabled Whether camel case matching is enabled.
+	 * @see #getCamelCaseMatching()
+	 */
+	public void setCamelCaseMatching(boolean enabled) {
+		camelCaseMatching = enabled;
+	}
+
+
+	/**
+	 * Toggles whether subsequence matching is enabled.
+	 *
+	 * @param enabled Whether subsequence matching is enabled.
+	 * @see #getSubsequenceMatching()
+	 */
+	public void setSubsequenceMatching(boolean enabled) {
+		subsequenceMatching = enabled;
+	}
+
+
+	/**
+	 * Toggles whether substring matching is enabled.
+	 *
+	 * @param enabled Whether substring matching is enabled.
+	 * @see #getSubstringMatching()
+	 */
+	public void setSubstringMatching(boolean enabled) {
+		substringMatching = enabled;
+	}
+
+
+	/**
+	 * Returns the score for a subsequence match, or {@link #NO_MATCH}.
+	 *
+	 * @param pattern The typed text.
+	 * @param text The input text.
+	 * @return The score.
+	 */
+	private static int subsequenceMatch(String pattern, String text) {
+
+		int patternLen = pattern.length();
+		int textLen = text.length();
+		int first = -1;
+		int p = 0;
+
+		for (int i=0; i<textLen && p<patternLen; i++) {
+			if (Util.foldCase(text.charAt(i))==Util.foldCase(pattern.charAt(p))) {
+				if (first==-1) {
+					first = i;
+				}
+				if (++p==patternLen) {
+					int gaps = i - first + 1 - patternLen;
+					return SUBSEQUENCE_SCORE - Math.min(gaps, MAX_PENALTY);
+				}
+			}
+		}
+
+		return NO_MATCH;
+
+	}
+
+
+}
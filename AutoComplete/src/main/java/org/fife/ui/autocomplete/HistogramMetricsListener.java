@@ -0,0 +1,191 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * A {@link CompletionMetricsListener} that keeps a {@link LatencyHistogram}
+ * of the timings of each phase, along with how many completions each phase
+ * handled and the hit rate of each cache.  Provider lookups are also
+ * recorded per provider class, so the slow provider in a chain stands out.
+ * For example:
+ *
+ * <pre>
+ * HistogramMetricsListener metrics = new HistogramMetricsListener();
+ * autoCompletion.addCompletionMetricsListener(metrics);
+ * ...
+ * metrics.dump(System.out);
+ * </pre>
+ *
+ * This class is thread-safe.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+public class HistogramMetricsListener implements CompletionMetricsListener {
+
+	private final Map<Phase, LatencyHistogram> phases;
+	private final Map<Phase, AtomicLong> completionCounts;
+	private final ConcurrentMap<String, LatencyHistogram> providers;
+	private final Map<Cache, AtomicLong> hits;
+	private final Map<Cache, AtomicLong> misses;
+
+
+	/**
+	 * Constructor.
+	 */
+	public HistogramMetricsListener() {
+
+		// Never modified after construction, so safe to read from any thread
+		phases = new EnumMap<>(Phase.class);
+		completionCounts = new EnumMap<>(Phase.class);
+		for (Phase phase : Phase.values()) {
+			phases.put(phase, new LatencyHistogram());
+			completionCounts.put(phase, new AtomicLong());
+		}
+
+		hits = new EnumMap<>(Cache.class);
+		misses = new EnumMap<>(Cache.class);
+		for (Cache cache : Cache.values()) {
+			hits.put(cache, new AtomicLong());
+			misses.put(cache, new AtomicLong());
+		}
+
+		providers = new ConcurrentHashMap<>();
+
+	}
+
+
+	@Override
+	public void cacheAccessed(Cache cache, boolean hit) {
+		(hit ? hits : misses).get(cache).incrementAndGet();
+	}
+
+
+	/**
+	 * Prints a summary of everything recorded.
+	 *
+	 * @param out The stream to print to.
+	 */
+	public void dump(PrintStream out) {
+
+		out.println("Phase timings:");
+		for (Phase phase : Phase.values()) {
+			LatencyHistogram histogram = getHistogram(phase);
+			if (histogram.getCount()>0) {
+				out.printf("  %-13s %s avgCompletions=%.1f%n", phase, histogram,
+						getAverageCompletionCount(phase));
+			}
+		}
+
+		if (!providers.isEmpty()) {
+			out.println("Provider lookups:");
+			for (Map.Entry<String, LatencyHistogram> entry : providers.entrySet()) {
+				out.printf("  %s %s%n", entry.getKey(), entry.getValue());
+			}
+		}
+
+		out.println("Cache hit rates:");
+		for (Cache cache : Cache.values()) {
+			long total = hits.get(cache).get() + misses.get(cache).get();
+			if (total>0) {
+				out.printf("  %-13s %.1f%% of %d%n", cache,
+						getCacheHitRate(cache)*100, total);
+			}
+		}
+
+	}
+
+
+	/**
+	 * Returns the average number of completions handled by a phase.
+	 *
+	 * @param phase The phase.
+	 * @return The average number of completions, or <code>0</code> if the
+	 *         phase hasn't been timed or doesn't involve completions.
+	 */
+	public double getAverageCompletionCount(Phase phase) {
+		long count = getHistogram(phase).getCount();
+		return count==0 ? 0 : completionCounts.get(phase).get() / (double)count;
+	}
+
+
+	/**
+	 * Returns the fraction of lookups in a cache that were hits.
+	 *
+	 * @param cache The cache.
+	 * @return The hit rate, between <code>0</code> and <code>1</code>, or
+	 *         <code>0</code> if the cache hasn't been used.
+	 */
+	public double getCacheHitRate(Cache cache) {
+		long hitCount = hits.get(cache).get();
+		long total = hitCount + misses.get(cache).get();
+		return total==0 ? 0 : hitCount / (double)total;
+	}
+
+
+	/**
+	 * Returns the timings of a phase.
+	 *
+	 * @param phase The phase.
+	 * @return The timings.
+	 */
+	public LatencyHistogram getHistogram(Phase phase) {
+		return phases.get(phase);
+	}
+
+
+	/**
+	 * Returns the timings of the lookups of a provider class, not including
+	 * its parent's lookups.
+	 *
+	 * @param providerClass The provider class.
+	 * @return The timings, or <code>null</code> if no provider of that class
+	 *         has been timed.
+	 */
+	public LatencyHistogram getProviderHistogram(
+			Class<? extends CompletionProvider> providerClass) {
+		return providers.get(providerClass.getName());
+	}
+
+
+	@Override
+	public void phaseCompleted(Phase phase, CompletionProvider provider,
+			long nanos, int count) {
+		phases.get(phase).record(nanos);
+		if (count>0) {
+			completionCounts.get(phase).addAndGet(count);
+		}
+		if (phase==Phase.PROVIDER && provider!=null) {
+			providers.computeIfAbsent(provider.getClass().getName(),
+					k -> new LatencyHistogram()).record(nanos);
+		}
+	}
+
+
+	/**
+	 * Discards everything recorded.
+	 */
+	public void reset() {
+		for (Phase phase : Phase.values()) {
+			phases.get(phase).reset();
+			completionCounts.get(phase).set(0);
+		}
+		providers.clear();
+		for (Cache cache : Cache.values()) {
+			hits.get(cache).set(0);
+			misses.get(cache).set(0);
+		}
+	}
+
+
+}
@@ -0,0 +1,241 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * De-duplicates the strings and parameters of completions loaded from XML.
+ * Completion XML files for large APIs repeat the same few hundred types and
+ * parameter names thousands of times; sharing one instance of each keeps
+ * loaded completions from using several times the memory they need.<p>
+ *
+ * Strings are always shared, since they can't be modified.  Parameters are
+ * only shared when asked for, since changing a shared parameter's
+ * description changes it for every completion using it.  This class is
+ * thread-safe, so several XML files can be parsed into the same table at
+ * once.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see CompletionXMLParser
+ */
+final class InternTable {
+
+	private final Map<String, String> strings;
+	private final Map<ParameterKey, ParameterizedCompletion.Parameter> params;
+
+	/**
+	 * An estimate of the memory saved so far, in bytes.
+	 */
+	private final LongAdder bytesSaved;
+
+	/**
+	 * The approximate size of a <code>String</code> object, not including
+	 * its character data, assuming compressed object pointers.
+	 */
+	private static final int STRING_OVERHEAD = 24 + 16;
+
+	/**
+	 * The approximate size of a <code>Parameter</code> object.
+	 */
+	private static final int PARAMETER_SIZE = 32;
+
+
+	/**
+	 * Constructor.
+	 */
+	InternTable() {
+		strings = new ConcurrentHashMap<>();
+		params = new ConcurrentHashMap<>();
+		bytesSaved = new LongAdder();
+	}
+
+
+	/**
+	 * Returns an estimate of the memory saved by sharing strings and
+	 * parameters so far.
+	 *
+	 * @return The estimated number of bytes saved.
+	 */
+	long getBytesSaved() {
+		return bytesSaved.sum();
+	}
+
+
+	/**
+	 * Returns a parameter, which is shared with other completions if
+	 * requested.
+	 *
+	 * @param type The type of the parameter.  This may be <code>null</code>.
+	 * @param name The name of the parameter.  This may be <code>null</code>.
+	 * @param endParam Whether this is an "ending parameter."
+	 * @param desc The description of the parameter.  This may be
+	 *        <code>null</code>.
+	 * @param store If not <code>null</code>, a new parameter's description
+	 *        is kept here rather than in memory.
+	 * @param share Whether to return the same parameter for every request
+	 *        with the same values.  Otherwise, a new parameter is returned,
+	 *        though its strings are still shared.
+	 * @return The parameter.
+	 */
+	ParameterizedCompletion.Parameter getParameter(String type, String name,
+			boolean endParam, String desc, DescriptionStore store,
+			boolean share) {
+
+		type = intern(type);
+		name = intern(name);
+
+		// The store returns the same reference for a description repeated
+		// in a file, so the description itself needn't be kept in the key
+		CharSequence text = desc;
+		if (desc!=null && store!=null) {
+			text = store.add(desc);
+		}
+
+		if (!share) {
+			return new XMLParameter(type, name, endParam, text);
+		}
+
+		ParameterKey key = new ParameterKey(type, name, endParam, text);
+		ParameterizedCompletion.Parameter param = params.get(key);
+		if (param==null) {
+			param = new XMLParameter(type, name, endParam, text);
+			ParameterizedCompletion.Parameter prev = params.putIfAbsent(key, param);
+			if (prev==null) {
+				return param;
+			}
+			param = prev;
+		}
+
+		bytesSaved.add(PARAMETER_SIZE + getSize(desc));
+		return param;
+
+	}
+
+
+	/**
+	 * Returns the approximate size of a string.
+	 *
+	 * @param str The string.  This may be <code>null</code>.
+	 * @return The approximate size, in bytes.
+	 */
+	private static int getSize(String str) {
+		if (str==null) {
+			return 0;
+		}
+		// Strings of only Latin-1 characters use one byte per character
+		int bytesPerChar = 1;
+		for (int i=0; i<str.length(); i++) {
+			if (str.charAt(i)>0xff) {
+				bytesPerChar = 2;
+				break;
+			}
+		}
+		int size = STRING_OVERHEAD + str.length()*bytesPerChar;
+		return (size + 7) & ~7;
+	}
+
+
+	/**
+	 * Returns the shared instance of a string.
+	 *
+	 * @param str The string.  This may be <code>null</code>.
+	 * @return The shared instance, or <code>null</code> if
+	 *         <code>str</code> is <code>null</code>.
+	 */
+	String intern(String str) {
+		if (str==null) {
+			return null;
+		}
+		String prev = strings.putIfAbsent(str, str);
+		if (prev!=null) {
+			bytesSaved.add(getSize(str));
+			return prev;
+		}
+		return str;
+	}
+
+
+	/**
+	 * Returns the number of distinct strings in this table.
+	 *
+	 * @return The number of distinct strings.
+	 */
+	int size() {
+		return strings.size();
+	}
+
+
+	/**
+	 * Identifies a distinct parameter.
+	 */
+	private static final class ParameterKey {
+
+		private final String type;
+		private final String name;
+		private final boolean endParam;
+		private final CharSequence desc;
+
+		ParameterKey(String type, String name, boolean endParam,
+					CharSequence desc) {
+			this.type = type;
+			this.name = name;
+			this.endParam = endParam;
+			this.desc = desc;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof ParameterKey)) {
+				return false;
+			}
+			ParameterKey other = (ParameterKey)o;
+			return endParam==other.endParam && Objects.equals(type, other.type) &&
+					Objects.equals(name, other.name) &&
+					Objects.equals(desc, other.desc);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(type, name, endParam, desc);
+		}
+
+	}
+
+
+	/**
+	 * A parameter loaded from XML, whose description may be loaded lazily.
+	 */
+	private static final class XMLParameter
+			extends ParameterizedCompletion.Parameter {
+
+		private volatile CharSequence desc;
+
+		XMLParameter(String type, String name, boolean endParam,
+					CharSequence desc) {
+			super(type, name, endParam);
+			this.desc = desc;
+		}
+
+		@Override
+		public String getDescription() {
+			CharSequence desc = this.desc;
+			return desc==null ? null : desc.toString();
+		}
+
+		@Override
+		public void setDescription(String desc) {
+			this.desc = desc;
+		}
+
+	}
+
+
+}
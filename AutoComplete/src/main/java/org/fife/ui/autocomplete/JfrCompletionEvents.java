@@ -0,0 +1,214 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * The JDK Flight Recorder implementations of {@link CompletionEvents}.
+ * This is the only class referring to <code>jdk.jfr</code>, and it should
+ * only be used if that module is present.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class JfrCompletionEvents {
+
+	private static final String CATEGORY = "AutoComplete";
+
+	private static final String PREFIX = "org.fife.ui.autocomplete.";
+
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private JfrCompletionEvents() {
+	}
+
+
+	static CompletionEvents.DescriptionDisplay descriptionDisplay() {
+		return new DescriptionDisplay();
+	}
+
+
+	static CompletionEvents.LoadXml loadXml() {
+		return new LoadXml();
+	}
+
+
+	static CompletionEvents.ParameterAssistance parameterAssistance() {
+		return new ParameterAssistance();
+	}
+
+
+	static CompletionEvents.ProviderQuery providerQuery() {
+		return new ProviderQuery();
+	}
+
+
+	static CompletionEvents.Refresh refresh() {
+		return new Refresh();
+	}
+
+
+	/**
+	 * Displaying a completion's description.
+	 */
+	@Name(PREFIX + "Description")
+	@Label("Completion Description")
+	@Category(CATEGORY)
+	@Description("Computing, parsing and displaying a completion's description")
+	private static final class DescriptionDisplay extends Event
+			implements CompletionEvents.DescriptionDisplay {
+
+		@Label("Provider Class")
+		Class<?> providerClass;
+
+		@Label("Cached")
+		@Description("Whether the description had already been parsed")
+		boolean cached;
+
+		@Override
+		public void commit(Class<?> providerClass, boolean cached) {
+			this.providerClass = providerClass;
+			this.cached = cached;
+			commit();
+		}
+
+	}
+
+
+	/**
+	 * Loading completions from XML.
+	 */
+	@Name(PREFIX + "LoadXml")
+	@Label("Load Completions From XML")
+	@Category(CATEGORY)
+	private static final class LoadXml extends Event
+			implements CompletionEvents.LoadXml {
+
+		@Label("Provider Class")
+		Class<?> providerClass;
+
+		@Label("Result Count")
+		@Description("The number of completions loaded")
+		int resultCount;
+
+		@Label("Deduplicated Bytes")
+		@Description("An estimate of the memory saved by sharing repeated "
+				+ "strings and parameters")
+		@DataAmount
+		long deduplicatedBytes;
+
+		@Override
+		public void commit(Class<?> providerClass, int resultCount,
+				long deduplicatedBytes) {
+			this.providerClass = providerClass;
+			this.resultCount = resultCount;
+			this.deduplicatedBytes = deduplicatedBytes;
+			commit();
+		}
+
+	}
+
+
+	/**
+	 * Starting parameter assistance for a parameterized completion.
+	 */
+	@Name(PREFIX + "ParameterAssistance")
+	@Label("Parameter Assistance")
+	@Category(CATEGORY)
+	@Description("Showing the parameter tool tip and choices window")
+	private static final class ParameterAssistance extends Event
+			implements CompletionEvents.ParameterAssistance {
+
+		@Label("Provider Class")
+		Class<?> providerClass;
+
+		@Label("Parameter Count")
+		int parameterCount;
+
+		@Override
+		public void commit(Class<?> providerClass, int parameterCount) {
+			this.providerClass = providerClass;
+			this.parameterCount = parameterCount;
+			commit();
+		}
+
+	}
+
+
+	/**
+	 * Looking up the completions of a single provider in the parent chain,
+	 * including its parent's.
+	 */
+	@Name(PREFIX + "ProviderQuery")
+	@Label("Provider Query")
+	@Category(CATEGORY)
+	private static final class ProviderQuery extends Event
+			implements CompletionEvents.ProviderQuery {
+
+		@Label("Provider Class")
+		Class<?> providerClass;
+
+		@Label("Prefix Length")
+		@Description("The length of the text being completed, or -1 if there is none")
+		int prefixLength;
+
+		@Label("Result Count")
+		int resultCount;
+
+		@Override
+		public void commit(Class<?> providerClass, int prefixLength,
+				int resultCount) {
+			this.providerClass = providerClass;
+			this.prefixLength = prefixLength;
+			this.resultCount = resultCount;
+			commit();
+		}
+
+	}
+
+
+	/**
+	 * Refreshing the completion popup after the text or caret changed.
+	 */
+	@Name(PREFIX + "Refresh")
+	@Label("Completion Refresh")
+	@Category(CATEGORY)
+	@Description("Looking up completions and updating the popup window")
+	private static final class Refresh extends Event
+			implements CompletionEvents.Refresh {
+
+		@Label("Provider Class")
+		Class<?> providerClass;
+
+		@Label("Prefix Length")
+		int prefixLength;
+
+		@Label("Result Count")
+		@Description("The number of completions found, or -1 if they're being "
+				+ "looked up in the background")
+		int resultCount;
+
+		@Override
+		public void commit(Class<?> providerClass, int prefixLength,
+				int resultCount) {
+			this.providerClass = providerClass;
+			this.prefixLength = prefixLength;
+			this.resultCount = resultCount;
+			commit();
+		}
+
+	}
+
+
+}
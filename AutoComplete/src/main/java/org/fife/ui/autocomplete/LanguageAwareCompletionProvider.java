@@ -6,14 +6,14 @@ package org.fife.ui.autocomplete;
 
 import java.awt.Point;
 import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import javax.swing.text.JTextComponent;
 
-import org.fife.ui.rsyntaxtextarea.RSyntaxDocument;
 import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
-import org.fife.ui.rsyntaxtextarea.RSyntaxUtilities;
 import org.fife.ui.rsyntaxtextarea.Token;
 import org.fife.ui.rtextarea.RTextArea;
 import org.fife.ui.rtextarea.ToolTipSupplier;
@@ -69,6 +69,47 @@ public class LanguageAwareCompletionProvider extends CompletionProviderBase
 	 */
 	private CompletionProvider docCommentCompletionProvider;
 
+	private static final byte NO_PROVIDER = 0;
+	private static final byte DEFAULT_PROVIDER = 1;
+	private static final byte STRING_PROVIDER = 2;
+	private static final byte COMMENT_PROVIDER = 3;
+	private static final byte DOC_COMMENT_PROVIDER = 4;
+
+	/**
+	 * The provider to use for each token type, when the caret is in the
+	 * middle of a token.  Types not in this table get no provider.
+	 */
+	private static final byte[] IN_TOKEN_PROVIDERS =
+			new byte[Token.DEFAULT_NUM_TOKEN_TYPES];
+
+	/**
+	 * The provider to use for the type of the last token on a line, when the
+	 * caret is at the end of the line.  Types not in this table get the
+	 * default provider.
+	 */
+	private static final byte[] END_OF_LINE_PROVIDERS =
+			new byte[Token.DEFAULT_NUM_TOKEN_TYPES];
+
+	static {
+		int[] defaultTypes = { Token.NULL, Token.WHITESPACE, Token.IDENTIFIER,
+				Token.VARIABLE, Token.PREPROCESSOR, Token.DATA_TYPE,
+				Token.FUNCTION, Token.OPERATOR };
+		for (int type : defaultTypes) {
+			IN_TOKEN_PROVIDERS[type] = DEFAULT_PROVIDER;
+		}
+		IN_TOKEN_PROVIDERS[Token.LITERAL_STRING_DOUBLE_QUOTE] = STRING_PROVIDER;
+		IN_TOKEN_PROVIDERS[Token.ERROR_STRING_DOUBLE] = STRING_PROVIDER;
+		IN_TOKEN_PROVIDERS[Token.COMMENT_EOL] = COMMENT_PROVIDER;
+		IN_TOKEN_PROVIDERS[Token.COMMENT_MULTILINE] = COMMENT_PROVIDER;
+		IN_TOKEN_PROVIDERS[Token.COMMENT_DOCUMENTATION] = DOC_COMMENT_PROVIDER;
+
+		Arrays.fill(END_OF_LINE_PROVIDERS, DEFAULT_PROVIDER);
+		END_OF_LINE_PROVIDERS[Token.ERROR_STRING_DOUBLE] = STRING_PROVIDER;
+		END_OF_LINE_PROVIDERS[Token.COMMENT_EOL] = COMMENT_PROVIDER;
+		END_OF_LINE_PROVIDERS[Token.COMMENT_MULTILINE] = COMMENT_PROVIDER;
+		END_OF_LINE_PROVIDERS[Token.COMMENT_DOCUMENTATION] = DOC_COMMENT_PROVIDER;
+	}
+
 
 	/**
 	 * Constructor subclasses can use when they don't have their default
@@ -112,7 +153,11 @@ public class LanguageAwareCompletionProvider extends CompletionProviderBase
 		if (!(comp instanceof RSyntaxTextArea)) {
 			return EMPTY_STRING;
 		}
-		CompletionProvider provider = getProviderFor(comp);
+		CompletionContext context = getContext(comp);
+		CompletionProvider provider = getProviderFor(context);
+		if (provider instanceof CompletionProviderBase) {
+			return ((CompletionProviderBase)provider).getAlreadyEnteredText(context);
+		}
 		return provider!=null ? provider.getAlreadyEnteredText(comp) : null;
 	}
 
@@ -128,6 +173,24 @@ public class LanguageAwareCompletionProvider extends CompletionProviderBase
 	}
 
 
+	/**
+	 * {@inheritDoc}  This also clears the caches of the providers this
+	 * provider delegates to.
+	 */
+	@Override
+	public void clearRefinementCache() {
+		super.clearRefinementCache();
+		CompletionProvider[] delegates = { defaultProvider,
+				stringCompletionProvider, commentCompletionProvider,
+				docCommentCompletionProvider };
+		for (CompletionProvider delegate : delegates) {
+			if (delegate instanceof CompletionProviderBase) {
+				((CompletionProviderBase)delegate).clearRefinementCache();
+			}
+		}
+	}
+
+
 	@Override
 	public List<Completion> getCompletionsAt(JTextComponent tc, Point p) {
 		return defaultProvider==null ? null :
@@ -145,15 +208,34 @@ public class LanguageAwareCompletionProvider extends CompletionProviderBase
 	@Override
 	protected List<Completion> getCompletionsImpl(JTextComponent comp) {
 		if (comp instanceof RSyntaxTextArea) {
-			CompletionProvider provider = getProviderFor(comp);
+			CompletionContext context = getContext(comp);
+			CompletionProvider provider = getProviderFor(context);
 			if (provider!=null) {
-				return provider.getCompletions(comp);
+				List<Completion> completions = provider.getCompletions(context);
+				// Lazily sorted lists are read-only, and we sort the
+				// completions ourselves anyway.
+				return completions instanceof LazySortedList ?
+						new ArrayList<>(LazySortedList.inAnyOrder(completions)) :
+						completions;
 			}
 		}
 		return Collections.emptyList();
 	}
 
 
+	/**
+	 * Returns the snapshot of a text component's state that completions are
+	 * being computed for, or a new one if there is none.
+	 *
+	 * @param comp The text component.
+	 * @return The snapshot.
+	 */
+	private CompletionContext getContext(JTextComponent comp) {
+		CompletionContext context = getCompletionContext(comp);
+		return context!=null ? context : new CompletionContext(comp);
+	}
+
+
 	/**
 	 * Returns the completion provider used when one isn't defined for a
 	 * particular token type.
@@ -183,7 +265,7 @@ public class LanguageAwareCompletionProvider extends CompletionProviderBase
 		// Parameterized completions can only come from the "code" completion
 		// provider.  We do not do function/method completions while editing
 		// strings or comments.
-		CompletionProvider provider = getProviderFor(tc);
+		CompletionProvider provider = getProviderFor(getContext(tc));
 		return provider==defaultProvider ?
 				provider.getParameterizedCompletions(tc) : null;
 	}
@@ -208,86 +290,41 @@ public class LanguageAwareCompletionProvider extends CompletionProviderBase
 
 
 	/**
-	 * Returns the completion provider to use at the current caret position in
-	 * a text component.
+	 * Returns the completion provider to use at the caret position in a
+	 * snapshot of a text component's state.
 	 *
-	 * @param comp The text component to check.
+	 * @param context The snapshot.
 	 * @return The completion provider to use.
 	 */
-	private CompletionProvider getProviderFor(JTextComponent comp) {
-
-		RSyntaxTextArea rsta = (RSyntaxTextArea)comp;
-		RSyntaxDocument doc = (RSyntaxDocument)rsta.getDocument();
-		int line = rsta.getCaretLineNumber();
-		Token t = doc.getTokenListForLine(line);
-		if (t==null) {
-			return getDefaultCompletionProvider();
-		}
-
-		int dot = rsta.getCaretPosition();
-		Token curToken = RSyntaxUtilities.getTokenAtOffset(t, dot);
-
-		if (curToken==null) { // At end of the line
-
-			int type = doc.getLastTokenTypeOnLine(line);
-			if (type==Token.NULL) {
-				Token temp = t.getLastPaintableToken();
-				if (temp==null) {
-					return getDefaultCompletionProvider();
-				}
-				type = temp.getType();
-			}
-
-			// TokenMakers can use types < 0 for "internal types."  This
-			// gives them a chance to map their internal types back to "real"
-			// types to get completion providers.
-			else if (type<0) {
-				type = doc.getClosestStandardTokenTypeForInternalType(type);
-			}
-
-			switch (type) {
-				case Token.ERROR_STRING_DOUBLE:
-					return getStringCompletionProvider();
-				case Token.COMMENT_EOL:
-				case Token.COMMENT_MULTILINE:
-					return getCommentCompletionProvider();
-				case Token.COMMENT_DOCUMENTATION:
-					return getDocCommentCompletionProvider();
-				default:
-					return getDefaultCompletionProvider();
-			}
+	private CompletionProvider getProviderFor(CompletionContext context) {
 
+		int type = context.getTokenType();
+		byte provider;
+		if (context.isCaretAtEndOfLine()) {
+			provider = type>=0 && type<END_OF_LINE_PROVIDERS.length ?
+					END_OF_LINE_PROVIDERS[type] : DEFAULT_PROVIDER;
 		}
-
-		// FIXME: This isn't always a safe assumption.
-		if (dot==curToken.getOffset()) { // At the very beginning of a new token
-			// Need to check previous token for its type before deciding.
-			// Previous token may also be on previous line!
-			return getDefaultCompletionProvider();
+		// FIXME: At the very beginning of a new token, the token type is
+		// Token.NULL.  We should check the previous token's type before
+		// deciding, and that token may also be on the previous line!
+		else {
+			provider = type>=0 && type<IN_TOKEN_PROVIDERS.length ?
+					IN_TOKEN_PROVIDERS[type] : NO_PROVIDER;
 		}
 
-		switch (curToken.getType()) {
-			case Token.LITERAL_STRING_DOUBLE_QUOTE:
-			case Token.ERROR_STRING_DOUBLE:
+		switch (provider) {
+			case DEFAULT_PROVIDER:
+				return getDefaultCompletionProvider();
+			case STRING_PROVIDER:
 				return getStringCompletionProvider();
-			case Token.COMMENT_EOL:
-			case Token.COMMENT_MULTILINE:
+			case COMMENT_PROVIDER:
 				return getCommentCompletionProvider();
-			case Token.COMMENT_DOCUMENTATION:
+			case DOC_COMMENT_PROVIDER:
 				return getDocCommentCompletionProvider();
-			case Token.NULL:
-			case Token.WHITESPACE:
-			case Token.IDENTIFIER:
-			case Token.VARIABLE:
-			case Token.PREPROCESSOR:
-			case Token.DATA_TYPE:
-			case Token.FUNCTION:
-			case Token.OPERATOR:
-				return getDefaultCompletionProvider();
+			default:
+				return null; // In a token type we can't auto-complete from.
 		}
 
-		return null; // In a token type we can't auto-complete from.
-
 	}
 
 
@@ -302,9 +339,34 @@ public class LanguageAwareCompletionProvider extends CompletionProviderBase
 	}
 
 
+	/**
+	 * Returns how many times the token at the caret was found without
+	 * lexing the caret's line again, across all documents.  Along with
+	 * {@link #getTokenCacheMissCount()}, this shows how well the token
+	 * cache is working.
+	 *
+	 * @return The number of cache hits.
+	 */
+	public static long getTokenCacheHitCount() {
+		return TokenTypeCache.getHitCount();
+	}
+
+
+	/**
+	 * Returns how many times the caret's line had to be lexed to find the
+	 * token at the caret, across all documents.
+	 *
+	 * @return The number of cache misses.
+	 * @see #getTokenCacheHitCount()
+	 */
+	public static long getTokenCacheMissCount() {
+		return TokenTypeCache.getMissCount();
+	}
+
+
 	@Override
 	public boolean isAutoActivateOkay(JTextComponent tc) {
-		CompletionProvider provider = getProviderFor(tc);
+		CompletionProvider provider = getProviderFor(getContext(tc));
 		return provider != null && provider.isAutoActivateOkay(tc);
 	}
 
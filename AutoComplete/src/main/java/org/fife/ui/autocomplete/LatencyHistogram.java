@@ -0,0 +1,215 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * A histogram of durations, cheap enough to record to on every keystroke.
+ * Durations are counted in buckets whose width grows with their value: each
+ * power of two is split into eight buckets, so percentiles are accurate to
+ * within 12.5%.  Recording a duration is a few arithmetic operations and
+ * atomic increments, with no allocation or locking, so it can be done from
+ * any thread.<p>
+ *
+ * The count, total and maximum are exact.  Since they are updated
+ * separately, a snapshot taken while durations are being recorded may be
+ * slightly inconsistent.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see HistogramMetricsListener
+ */
+public final class LatencyHistogram {
+
+	private final AtomicLongArray counts;
+	private final AtomicLong count;
+	private final AtomicLong total;
+	private final AtomicLong max;
+
+	/**
+	 * The number of buckets each power of two is split into, as a power of
+	 * two.
+	 */
+	private static final int SUB_BUCKET_BITS = 3;
+
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * Enough buckets for any non-negative <code>long</code>.
+	 */
+	private static final int BUCKET_COUNT =
+			(63 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+
+	/**
+	 * Constructor.
+	 */
+	public LatencyHistogram() {
+		counts = new AtomicLongArray(BUCKET_COUNT);
+		count = new AtomicLong();
+		total = new AtomicLong();
+		max = new AtomicLong();
+	}
+
+
+	/**
+	 * Returns the index of the bucket a value is counted in.
+	 *
+	 * @param value The value, which must be non-negative.
+	 * @return The bucket index.
+	 */
+	private static int getBucket(long value) {
+		if (value<SUB_BUCKET_COUNT) {
+			return (int)value;
+		}
+		int exp = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int)(value>>>(exp - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+		return (exp - SUB_BUCKET_BITS + 1)*SUB_BUCKET_COUNT + sub;
+	}
+
+
+	/**
+	 * Returns the largest value counted in a bucket.
+	 *
+	 * @param bucket The bucket index.
+	 * @return The largest value.
+	 */
+	private static long getBucketMax(int bucket) {
+		if (bucket<SUB_BUCKET_COUNT) {
+			return bucket;
+		}
+		int exp = bucket/SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+		long sub = bucket%SUB_BUCKET_COUNT;
+		long width = 1L << (exp - SUB_BUCKET_BITS);
+		return (SUB_BUCKET_COUNT + sub)*width + width - 1;
+	}
+
+
+	/**
+	 * Returns the number of durations recorded.
+	 *
+	 * @return The number of durations.
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+
+	/**
+	 * Returns the longest duration recorded.
+	 *
+	 * @return The longest duration, in nanoseconds, or <code>0</code> if
+	 *         none have been recorded.
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+
+	/**
+	 * Returns the average duration recorded.
+	 *
+	 * @return The average duration, in nanoseconds, or <code>0</code> if
+	 *         none have been recorded.
+	 */
+	public double getMean() {
+		long count = this.count.get();
+		return count==0 ? 0 : total.get() / (double)count;
+	}
+
+
+	/**
+	 * Returns the duration that a percentage of the recorded durations are
+	 * shorter than or equal to.
+	 *
+	 * @param percentile The percentage, between <code>0</code> and
+	 *        <code>100</code>.
+	 * @return The duration, in nanoseconds.  This may be up to 12.5% higher
+	 *         than the actual value, but is never higher than
+	 *         {@link #getMax()}.
+	 */
+	public long getPercentile(double percentile) {
+
+		long count = this.count.get();
+		if (count==0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long)Math.ceil(count*percentile/100));
+		long seen = 0;
+		for (int i=0; i<BUCKET_COUNT; i++) {
+			seen += counts.get(i);
+			if (seen>=rank) {
+				return Math.min(getBucketMax(i), getMax());
+			}
+		}
+		return getMax();
+
+	}
+
+
+	/**
+	 * Returns the total of all durations recorded.
+	 *
+	 * @return The total, in nanoseconds.
+	 */
+	public long getTotal() {
+		return total.get();
+	}
+
+
+	/**
+	 * Records a duration.
+	 *
+	 * @param nanos The duration, in nanoseconds.  Negative values are
+	 *        treated as <code>0</code>.
+	 */
+	public void record(long nanos) {
+		nanos = Math.max(0, nanos);
+		counts.incrementAndGet(getBucket(nanos));
+		count.incrementAndGet();
+		total.addAndGet(nanos);
+		max.accumulateAndGet(nanos, Math::max);
+	}
+
+
+	/**
+	 * Discards all recorded durations.
+	 */
+	public void reset() {
+		for (int i=0; i<BUCKET_COUNT; i++) {
+			counts.set(i, 0);
+		}
+		count.set(0);
+		total.set(0);
+		max.set(0);
+	}
+
+
+	/**
+	 * Returns a one-line summary of this histogram, with durations in
+	 * microseconds.
+	 *
+	 * @return A summary of this histogram.
+	 */
+	@Override
+	public String toString() {
+		return String.format("count=%d mean=%.1fus p50=%dus p90=%dus p99=%dus max=%dus",
+				getCount(), getMean()/TimeUnit.MICROSECONDS.toNanos(1),
+				toMicros(getPercentile(50)), toMicros(getPercentile(90)),
+				toMicros(getPercentile(99)), toMicros(getMax()));
+	}
+
+
+	private static long toMicros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+
+
+}
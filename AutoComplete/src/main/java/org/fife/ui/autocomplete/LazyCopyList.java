@@ -0,0 +1,132 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+
+
+/**
+ * A modifiable list that starts out as a view of another list, and only
+ * copies it the first time it is modified.  Providers return these from
+ * {@link CompletionProviderBase#getCompletionsImpl(javax.swing.text.JTextComponent)
+ * getCompletionsImpl()} when their completions are a view of an index, so
+ * that subclasses can still add to them, but a list that is only read, for
+ * example by {@link LazySortedList}, is never copied.
+ *
+ * @param <E> The type of element in the list.
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class LazyCopyList<E> extends AbstractList<E> implements RandomAccess {
+
+	/**
+	 * The list being viewed, until this list is modified.
+	 */
+	private List<E> source;
+
+	/**
+	 * The copy of {@link #source}, or <code>null</code> if this list hasn't
+	 * been modified.
+	 */
+	private List<E> copy;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param source The list to view.  This should not be modified while
+	 *        this list is in use.
+	 */
+	LazyCopyList(List<E> source) {
+		this.source = source;
+	}
+
+
+	@Override
+	public void add(int index, E element) {
+		modifiableList().add(index, element);
+		modCount++;
+	}
+
+
+	@Override
+	public boolean addAll(Collection<? extends E> c) {
+		modCount++;
+		return modifiableList().addAll(c);
+	}
+
+
+	@Override
+	public E get(int index) {
+		return list().get(index);
+	}
+
+
+	/**
+	 * Returns whether this list has been copied.
+	 *
+	 * @return Whether this list has been modified, and so copied.
+	 */
+	boolean isCopied() {
+		return copy!=null;
+	}
+
+
+	/**
+	 * Returns the list currently holding this list's elements.
+	 *
+	 * @return The list.
+	 */
+	private List<E> list() {
+		return copy!=null ? copy : source;
+	}
+
+
+	/**
+	 * Returns the copy of the source list, creating it if necessary.
+	 *
+	 * @return The copy.
+	 */
+	private List<E> modifiableList() {
+		if (copy==null) {
+			copy = new ArrayList<>(source);
+			source = null;
+		}
+		return copy;
+	}
+
+
+	@Override
+	public E remove(int index) {
+		modCount++;
+		return modifiableList().remove(index);
+	}
+
+
+	@Override
+	public E set(int index, E element) {
+		return modifiableList().set(index, element);
+	}
+
+
+	@Override
+	public int size() {
+		return list().size();
+	}
+
+
+	@Override
+	public void sort(Comparator<? super E> c) {
+		modifiableList().sort(c);
+		modCount++;
+	}
+
+
+}
@@ -0,0 +1,168 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+
+
+/**
+ * A read-only list that sorts its elements lazily.  The elements are put
+ * into a binary heap when the list is created, which takes linear time, and
+ * are only taken out of the heap in sorted order as far as they are
+ * accessed.  Getting the first <code>k</code> elements of a list of
+ * <code>n</code> elements costs <code>O(n + k log n)</code> rather than the
+ * <code>O(n log n)</code> a full sort would.  This matters for completion
+ * lists, since only about a screenful of completions is looked at unless
+ * the user scrolls.<p>
+ *
+ * Elements the comparator considers equal stay in their original order,
+ * just like with a stable sort.  Methods that visit every element, such as
+ * {@link #iterator()} or {@link #toArray()}, sort the entire list.
+ *
+ * @param <E> The type of element in the list.
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class LazySortedList<E> extends AbstractList<E> implements RandomAccess {
+
+	/**
+	 * The elements, in their original order.
+	 */
+	private final E[] elements;
+
+	private final Comparator<? super E> comparator;
+
+	/**
+	 * A binary min-heap of indices into {@link #elements} that haven't been
+	 * sorted yet.
+	 */
+	private final int[] heap;
+	private int heapSize;
+
+	/**
+	 * The first {@link #sortedCount} elements, in sorted order.
+	 */
+	private final E[] sorted;
+	private int sortedCount;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param elements The elements to sort.  These are copied.
+	 * @param comparator The comparator defining the sort order.
+	 */
+	@SuppressWarnings("unchecked")
+	LazySortedList(Collection<? extends E> elements,
+			Comparator<? super E> comparator) {
+
+		this.elements = (E[])elements.toArray();
+		this.comparator = comparator;
+		int count = this.elements.length;
+		sorted = (E[])new Object[count];
+
+		heap = new int[count];
+		for (int i=0; i<count; i++) {
+			heap[i] = i;
+		}
+		heapSize = count;
+		for (int i=count/2-1; i>=0; i--) {
+			siftDown(i);
+		}
+
+	}
+
+
+	/**
+	 * Compares two elements, breaking ties by their original order.
+	 *
+	 * @param index1 The index of the first element.
+	 * @param index2 The index of the second element.
+	 * @return The comparison result.
+	 */
+	private int compare(int index1, int index2) {
+		int diff = comparator.compare(elements[index1], elements[index2]);
+		return diff!=0 ? diff : Integer.compare(index1, index2);
+	}
+
+
+	@Override
+	public E get(int index) {
+		if (index<0 || index>=elements.length) {
+			throw new IndexOutOfBoundsException("Index: " + index +
+					", Size: " + elements.length);
+		}
+		while (sortedCount<=index) {
+			sorted[sortedCount++] = elements[heap[0]];
+			heap[0] = heap[--heapSize];
+			siftDown(0);
+		}
+		return sorted[index];
+	}
+
+
+	/**
+	 * Returns the number of elements that have been sorted so far.
+	 *
+	 * @return The number of sorted elements.
+	 */
+	int getSortedCount() {
+		return sortedCount;
+	}
+
+
+	/**
+	 * Returns the elements of a list in no particular order, avoiding
+	 * sorting the list if it is a <code>LazySortedList</code>.
+	 *
+	 * @param list The list.
+	 * @return The elements of the list.
+	 */
+	static <T> List<T> inAnyOrder(List<T> list) {
+		if (list instanceof LazySortedList) {
+			return Collections.unmodifiableList(
+					Arrays.asList(((LazySortedList<T>)list).elements));
+		}
+		return list;
+	}
+
+
+	/**
+	 * Moves an element of the heap down until the heap property is restored.
+	 *
+	 * @param pos The position in the heap of the element to move.
+	 */
+	private void siftDown(int pos) {
+		int index = heap[pos];
+		int half = heapSize >>> 1;
+		while (pos<half) {
+			int child = 2*pos + 1;
+			int right = child + 1;
+			if (right<heapSize && compare(heap[right], heap[child])<0) {
+				child = right;
+			}
+			if (compare(index, heap[child])<=0) {
+				break;
+			}
+			heap[pos] = heap[child];
+			pos = child;
+		}
+		heap[pos] = index;
+	}
+
+
+	@Override
+	public int size() {
+		return elements.length;
+	}
+
+
+}
@@ -19,7 +19,12 @@ import org.fife.ui.autocomplete.ParameterizedCompletion.Parameter;
 public class MarkupTagCompletion extends AbstractCompletion {
 
 	private String name;
-	private String desc;
+
+	/**
+	 * The description.  This is usually a string, but may be read lazily if
+	 * this completion was loaded from XML.
+	 */
+	private CharSequence desc;
 	private String definedIn;
 
 	/**
@@ -136,7 +141,7 @@ public class MarkupTagCompletion extends AbstractCompletion {
 	 * @see #setDescription(String)
 	 */
 	public String getDescription() {
-		return desc;
+		return desc==null ? null : desc.toString();
 	}
 
 
@@ -188,6 +193,7 @@ public class MarkupTagCompletion extends AbstractCompletion {
 	 * @param sb The buffer to append to.
 	 */
 	protected void possiblyAddDescription(StringBuilder sb) {
+		String desc = getDescription();
 		if (desc!=null) {
 			sb.append("<hr><br>");
 			sb.append(desc);
@@ -220,6 +226,18 @@ public class MarkupTagCompletion extends AbstractCompletion {
 	}
 
 
+	/**
+	 * Sets the description of this tag to text that is only computed when
+	 * it's needed.
+	 *
+	 * @param desc The description.
+	 * @see DescriptionStore
+	 */
+	void setLazyDescription(CharSequence desc) {
+		this.desc = desc;
+	}
+
+
 	/**
 	 * Sets the attributes of this tag.
 	 *
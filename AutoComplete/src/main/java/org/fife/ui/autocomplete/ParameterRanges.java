@@ -0,0 +1,240 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.Arrays;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Position;
+
+
+/**
+ * The ranges of the parameters inserted by a parameterized completion.  The
+ * ranges are tracked with {@code Position}s, so they stay correct as the
+ * user edits the parameters, and are kept sorted by offset so the parameter
+ * at an offset can be found with a binary search.  This way
+ * {@link ParameterizedCompletionContext} never has to look through all of a
+ * text component's highlights, of which there may be thousands, to find its
+ * own.<p>
+ *
+ * Parameters are identified by the index they were added at, which may not
+ * be their order in the document (for example, the "cursor" parameter of a
+ * template is always last).  Ranges may touch or overlap by a character, but
+ * a range never starts before or ends after one that comes later in the
+ * document.  Since positions keep their relative order as text is inserted
+ * and removed, the ranges only need to be sorted as they are added.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class ParameterRanges {
+
+	private Position[] starts;
+	private Position[] ends;
+	private int count;
+
+	/**
+	 * The indexes of the parameters, in document order.
+	 */
+	private int[] order;
+
+
+	/**
+	 * Constructor.
+	 */
+	ParameterRanges() {
+		starts = new Position[4];
+		ends = new Position[4];
+		order = new int[4];
+	}
+
+
+	/**
+	 * Adds a parameter range.  Its index is the number of ranges added
+	 * before it.
+	 *
+	 * @param doc The document containing the parameter.
+	 * @param start The start offset of the range.
+	 * @param end The end offset of the range.
+	 * @throws BadLocationException If the range is not in the document.
+	 */
+	void add(Document doc, int start, int end) throws BadLocationException {
+
+		if (count==starts.length) {
+			starts = Arrays.copyOf(starts, count*2);
+			ends = Arrays.copyOf(ends, count*2);
+			order = Arrays.copyOf(order, count*2);
+		}
+		starts[count] = doc.createPosition(start);
+		ends[count] = doc.createPosition(end);
+
+		// Parameters are almost always added in document order
+		int pos = count;
+		while (pos>0 && getStartOffset(order[pos-1])>start) {
+			order[pos] = order[pos-1];
+			pos--;
+		}
+		order[pos] = count++;
+
+	}
+
+
+	/**
+	 * Removes all parameter ranges.
+	 */
+	void clear() {
+		Arrays.fill(starts, 0, count, null);
+		Arrays.fill(ends, 0, count, null);
+		count = 0;
+	}
+
+
+	/**
+	 * Returns the end offset of a parameter's range.
+	 *
+	 * @param index The index of the parameter.
+	 * @return The end offset.
+	 * @see #getStartOffset(int)
+	 */
+	int getEndOffset(int index) {
+		return ends[index].getOffset();
+	}
+
+
+	/**
+	 * Returns the index of the parameter that comes first in the document.
+	 *
+	 * @return The parameter's index, or <code>-1</code> if there are no
+	 *         parameters.
+	 * @see #getLast()
+	 */
+	int getFirst() {
+		return count==0 ? -1 : order[0];
+	}
+
+
+	/**
+	 * Returns the index of the parameter that comes last in the document.
+	 *
+	 * @return The parameter's index, or <code>-1</code> if there are no
+	 *         parameters.
+	 * @see #getFirst()
+	 */
+	int getLast() {
+		return count==0 ? -1 : order[count-1];
+	}
+
+
+	/**
+	 * Returns the first parameter, in document order, that starts after an
+	 * offset.
+	 *
+	 * @param offs The offset.
+	 * @param inclusive Whether a parameter starting at <code>offs</code>
+	 *        counts.
+	 * @return The parameter's index, or <code>-1</code> if none start after
+	 *         the offset.
+	 * @see #getPrevious(int)
+	 */
+	int getNext(int offs, boolean inclusive) {
+		int low = 0;
+		int high = count;
+		while (low<high) {
+			int mid = (low + high) >>> 1;
+			int start = getStartOffset(order[mid]);
+			if (start<offs || (start==offs && !inclusive)) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low<count ? order[low] : -1;
+	}
+
+
+	/**
+	 * Returns the last parameter, in document order, that starts before an
+	 * offset.
+	 *
+	 * @param offs The offset.
+	 * @return The parameter's index, or <code>-1</code> if none start before
+	 *         the offset.
+	 * @see #getNext(int, boolean)
+	 */
+	int getPrevious(int offs) {
+		int low = 0;
+		int high = count;
+		while (low<high) {
+			int mid = (low + high) >>> 1;
+			if (getStartOffset(order[mid])<offs) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low>0 ? order[low-1] : -1;
+	}
+
+
+	/**
+	 * Returns the start offset of a parameter's range.
+	 *
+	 * @param index The index of the parameter.
+	 * @return The start offset.
+	 * @see #getEndOffset(int)
+	 */
+	int getStartOffset(int index) {
+		return starts[index].getOffset();
+	}
+
+
+	/**
+	 * Returns the parameter whose range contains an offset.  If more than
+	 * one does, the one that comes first in the document is returned.
+	 *
+	 * @param offs The offset.
+	 * @param includeEnd Whether a range's end offset is considered part of
+	 *        it.
+	 * @return The parameter's index, or <code>-1</code> if no range contains
+	 *         the offset.
+	 */
+	int indexOf(int offs, boolean includeEnd) {
+
+		// Since ranges are ordered by end offset as well, the first one
+		// ending after the offset is the only one that can contain it.
+		int low = 0;
+		int high = count;
+		while (low<high) {
+			int mid = (low + high) >>> 1;
+			int end = getEndOffset(order[mid]);
+			if (end<offs || (end==offs && !includeEnd)) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+
+		if (low<count && getStartOffset(order[low])<=offs) {
+			return order[low];
+		}
+		return -1;
+
+	}
+
+
+	/**
+	 * Returns the number of parameter ranges.
+	 *
+	 * @return The number of ranges.
+	 */
+	int size() {
+		return count;
+	}
+
+
+}
@@ -95,6 +95,12 @@ class ParameterizedCompletionContext {
 	 */
 	private List<Object> tags;
 
+	/**
+	 * The ranges of the highlights around parameters, in the same order as
+	 * {@link #tags}.
+	 */
+	private ParameterRanges paramRanges;
+
 	private List<ParamCopyInfo> paramCopyInfos;
 
 	private transient boolean ignoringDocumentEvents;
@@ -176,6 +182,7 @@ class ParameterizedCompletionContext {
 				sc.getParameterizedCompletionCursorPositionColor());
 		paramCopyP = new ChangeableHighlightPainter(sc.getParameterCopyColor());
 		tags = new ArrayList<>(1); // Usually small
+		paramRanges = new ParameterRanges();
 		paramCopyInfos = new ArrayList<>(1);
 
 	}
@@ -192,6 +199,9 @@ class ParameterizedCompletionContext {
 			return;
 		}
 
+		CompletionEvents.ParameterAssistance event =
+				CompletionEvents.parameterAssistance();
+		event.begin();
 		active = true;
 		JTextComponent tc = ac.getTextComponent();
 		lastSelectedParam = -1;
@@ -223,6 +233,11 @@ class ParameterizedCompletionContext {
 		prepareParamChoicesWindow();
 		paramChoicesWindow.setVisible(true);
 
+		if (event.shouldCommit()) {
+			event.commit(CompletionEvents.classOf(pc.getProvider()),
+					pc.getParamCount());
+		}
+
 	}
 
 
@@ -270,56 +285,31 @@ class ParameterizedCompletionContext {
 	 *         <code>null</code> if the offset is not in a parameter.
 	 */
 	public String getArgumentText(int offs) {
-		List<Highlight> paramHighlights = getParameterHighlights();
-		if (paramHighlights==null || paramHighlights.isEmpty()) {
+		int index = paramRanges.indexOf(offs, true);
+		if (index==-1) {
 			return null;
 		}
-		for (Highlight h : paramHighlights) {
-			if (offs>=h.getStartOffset() && offs<=h.getEndOffset()) {
-				int start = h.getStartOffset() + 1;
-				int len = h.getEndOffset() - start;
-				JTextComponent tc = ac.getTextComponent();
-				Document doc = tc.getDocument();
-				try {
-					return doc.getText(start, len);
-				} catch (BadLocationException ble) {
-					UIManager.getLookAndFeel().provideErrorFeedback(tc);
-					ble.printStackTrace();
-					return null;
-				}
-			}
+		int start = paramRanges.getStartOffset(index) + 1;
+		int len = paramRanges.getEndOffset(index) - start;
+		JTextComponent tc = ac.getTextComponent();
+		Document doc = tc.getDocument();
+		try {
+			return doc.getText(start, len);
+		} catch (BadLocationException ble) {
+			UIManager.getLookAndFeel().provideErrorFeedback(tc);
+			ble.printStackTrace();
+			return null;
 		}
-		return null;
 	}
 
 
 	/**
-	 * Returns the highlight of the current parameter.
+	 * Returns the index of the parameter containing the caret.
 	 *
-	 * @return The current parameter's highlight, or <code>null</code> if
-	 *         the caret is not in a parameter's bounds.
+	 * @return The index of the current parameter, or <code>-1</code> if the
+	 *         caret is not in a parameter's bounds.
 	 * @see #getCurrentParameterStartOffset()
 	 */
-	private Highlight getCurrentParameterHighlight() {
-
-		JTextComponent tc = ac.getTextComponent();
-		int dot = tc.getCaretPosition();
-		if (dot>0) {
-			dot--; // Workaround for Java Highlight issues
-		}
-
-		List<Highlight> paramHighlights = getParameterHighlights();
-		for (Highlight h : paramHighlights) {
-			if (dot>=h.getStartOffset() && dot<h.getEndOffset()) {
-				return h;
-			}
-		}
-
-		return null;
-
-	}
-
-
 	private int getCurrentParameterIndex() {
 
 		JTextComponent tc = ac.getTextComponent();
@@ -328,15 +318,7 @@ class ParameterizedCompletionContext {
 			dot--; // Workaround for Java Highlight issues
 		}
 
-		List<Highlight> paramHighlights = getParameterHighlights();
-		for (int i=0; i<paramHighlights.size(); i++) {
-			Highlight h = paramHighlights.get(i);
-			if (dot>=h.getStartOffset() && dot<h.getEndOffset()) {
-				return i;
-			}
-		}
-
-		return -1;
+		return paramRanges.indexOf(dot, false);
 
 	}
 
@@ -346,70 +328,24 @@ class ParameterizedCompletionContext {
 	 *
 	 * @return The current parameter's starting offset, or <code>-1</code> if
 	 *         the caret is not in a parameter's bounds.
-	 * @see #getCurrentParameterHighlight()
+	 * @see #getCurrentParameterIndex()
 	 */
 	private int getCurrentParameterStartOffset() {
-		Highlight h = getCurrentParameterHighlight();
-		return h!=null ? h.getStartOffset()+1 : -1;
-	}
-
-
-	/**
-	 * Returns the highlight from a list that comes "first" in a list.  Even
-	 * though most parameter highlights are ordered, sometimes they aren't
-	 * (e.g. the "cursor" parameter in a template completion is always last,
-	 * even though it can be anywhere in the template).
-	 *
-	 * @param highlights The list of highlights.  Assumed to be non-empty.
-	 * @return The highlight that comes first in the document.
-	 * @see #getLastHighlight(List)
-	 */
-	private static int getFirstHighlight(List<Highlight> highlights) {
-		int first = -1;
-		Highlight firstH = null;
-		for (int i=0; i<highlights.size(); i++) {
-			Highlight h = highlights.get(i);
-			if (firstH==null || h.getStartOffset()<firstH.getStartOffset()) {
-				firstH = h;
-				first = i;
-			}
-		}
-		return first;
+		int index = getCurrentParameterIndex();
+		return index>-1 ? paramRanges.getStartOffset(index)+1 : -1;
 	}
 
 
 	/**
-	 * Returns the highlight from a list that comes "last" in that list.  Even
-	 * though most parameter highlights are ordered, sometimes they aren't
-	 * (e.g. the "cursor" parameter in a template completion is always last,
-	 * even though it can be anywhere in the template).
+	 * Returns the highlights around the parameters, in parameter order.
 	 *
-	 * @param highlights The list of highlights.  Assumed to be non-empty.
-	 * @return The highlight that comes last in the document.
-	 * @see #getFirstHighlight(List)
+	 * @return The highlights.
 	 */
-	private static int getLastHighlight(List<Highlight> highlights) {
-		int last = -1;
-		Highlight lastH = null;
-		for (int i=highlights.size()-1; i>=0; i--) {
-			Highlight h = highlights.get(i);
-			if (lastH==null || h.getStartOffset()>lastH.getStartOffset()) {
-				lastH = h;
-				last = i;
-			}
-		}
-		return last;
-	}
-
-
 	public List<Highlight> getParameterHighlights() {
-		List<Highlight> paramHighlights = new ArrayList<>(2);
-		JTextComponent tc = ac.getTextComponent();
-		Highlight[] highlights = tc.getHighlighter().getHighlights();
-		for (Highlight highlight : highlights) {
-			HighlightPainter painter = highlight.getPainter();
-			if (painter == p || painter == endingP) {
-				paramHighlights.add(highlight);
+		List<Highlight> paramHighlights = new ArrayList<>(tags.size());
+		for (Object tag : tags) {
+			if (tag instanceof Highlight) {
+				paramHighlights.add((Highlight)tag);
 			}
 		}
 		return paramHighlights;
@@ -427,11 +363,11 @@ class ParameterizedCompletionContext {
 			String choice = paramChoicesWindow.getSelectedChoice();
 			if (choice!=null) {
 				JTextComponent tc = ac.getTextComponent();
-				Highlight h = getCurrentParameterHighlight();
-				if (h!=null) {
+				int index = getCurrentParameterIndex();
+				if (index>-1) {
 					// "+1" is a workaround for Java Highlight issues.
-					tc.setSelectionStart(h.getStartOffset()+1);
-					tc.setSelectionEnd(h.getEndOffset());
+					tc.setSelectionStart(paramRanges.getStartOffset(index)+1);
+					tc.setSelectionEnd(paramRanges.getEndOffset(index));
 					tc.replaceSelection(choice);
 					moveToNextParam();
 				}
@@ -517,38 +453,28 @@ class ParameterizedCompletionContext {
 
 		JTextComponent tc = ac.getTextComponent();
 		int dot = tc.getCaretPosition();
-		int tagCount = tags.size();
-		if (tagCount==0) {
+		if (paramRanges.size()==0) {
 			tc.setCaretPosition(maxPos.getOffset());
 			deactivate();
+			return;
 		}
 
-		Highlight currentNext = null;
-		int pos = -1;
-		List<Highlight> highlights = getParameterHighlights();
-		for (int i=0; i<highlights.size(); i++) {
-			Highlight hl = highlights.get(i);
-			// Check "< dot", not "<= dot" as OutlineHighlightPainter paints
-			// starting at one char AFTER the highlight starts, to work around
-			// Java issue.  Thanks to Matthew Adereth!
-			if (currentNext==null || currentNext.getStartOffset()</*=*/dot ||
-					(hl.getStartOffset()>dot &&
-					hl.getStartOffset()<=currentNext.getStartOffset())) {
-				currentNext = hl;
-				pos = i;
-			}
+		// Check "< dot", not "<= dot" as OutlineHighlightPainter paints
+		// starting at one char AFTER the highlight starts, to work around
+		// Java issue.  Thanks to Matthew Adereth!
+		int pos = paramRanges.getNext(dot, false);
+		if (pos==-1) {
+			pos = paramRanges.getNext(dot, true);
 		}
 
 		// No params after caret - go to first one
-		if (currentNext.getStartOffset()+1<=dot) {
-			int nextIndex = getFirstHighlight(highlights);
-			currentNext = highlights.get(nextIndex);
-			pos = 0;
+		if (pos==-1) {
+			pos = paramRanges.getFirst();
 		}
 
 		// "+1" is a workaround for Java Highlight issues.
-		tc.setSelectionStart(currentNext.getStartOffset()+1);
-		tc.setSelectionEnd(currentNext.getEndOffset());
+		tc.setSelectionStart(paramRanges.getStartOffset(pos)+1);
+		tc.setSelectionEnd(paramRanges.getEndOffset(pos));
 		updateToolTipText(pos);
 
 	}
@@ -563,44 +489,32 @@ class ParameterizedCompletionContext {
 
 		JTextComponent tc = ac.getTextComponent();
 
-		int tagCount = tags.size();
-		if (tagCount==0) { // Should never happen
+		if (paramRanges.size()==0) { // Should never happen
 			tc.setCaretPosition(maxPos.getOffset());
 			deactivate();
+			return;
 		}
 
 		int dot = tc.getCaretPosition();
 		int selStart = tc.getSelectionStart()-1; // Workaround for Java Highlight issues.
-		Highlight currentPrev = null;
-		int pos = 0;
-		List<Highlight> highlights = getParameterHighlights();
-
-		for (int i=0; i<highlights.size(); i++) {
-			Highlight h = highlights.get(i);
-			if (currentPrev==null || currentPrev.getStartOffset()>=dot ||
-					(h.getStartOffset()<selStart &&
-					(h.getStartOffset()>currentPrev.getStartOffset() ||
-							pos==lastSelectedParam))) {
-				currentPrev = h;
-				pos = i;
-			}
+		int pos = paramRanges.getPrevious(selStart);
+		int firstIndex = paramRanges.getFirst();
+		if (pos==-1) {
+			pos = firstIndex;
 		}
 
 		// Loop back from param 0 to last param.
-		int firstIndex = getFirstHighlight(highlights);
-		//if (pos==0 && lastSelectedParam==0 && highlights.size()>1) {
-		if (pos==firstIndex && lastSelectedParam==firstIndex && highlights.size()>1) {
-			pos = getLastHighlight(highlights);
-			currentPrev = highlights.get(pos);
+		if (pos==firstIndex && lastSelectedParam==firstIndex && paramRanges.size()>1) {
+			pos = paramRanges.getLast();
 			// "+1" is a workaround for Java Highlight issues.
-			tc.setSelectionStart(currentPrev.getStartOffset()+1);
-			tc.setSelectionEnd(currentPrev.getEndOffset());
+			tc.setSelectionStart(paramRanges.getStartOffset(pos)+1);
+			tc.setSelectionEnd(paramRanges.getEndOffset(pos));
 			updateToolTipText(pos);
 		}
-		else if (currentPrev!=null && dot>currentPrev.getStartOffset()) {
+		else if (dot>paramRanges.getStartOffset(pos)) {
 			// "+1" is a workaround for Java Highlight issues.
-			tc.setSelectionStart(currentPrev.getStartOffset()+1);
-			tc.setSelectionEnd(currentPrev.getEndOffset());
+			tc.setSelectionStart(paramRanges.getStartOffset(pos)+1);
+			tc.setSelectionEnd(paramRanges.getEndOffset(pos));
 			updateToolTipText(pos);
 		}
 		else {
@@ -625,10 +539,9 @@ class ParameterizedCompletionContext {
 			}
 
 			// Get the current value of the current parameter.
-			List<Highlight> paramHighlights = getParameterHighlights();
-			Highlight h = paramHighlights.get(index);
-			int start = h.getStartOffset() + 1; // param offsets are offset (!) by 1
-			int len = h.getEndOffset() - start;
+			// param offsets are offset (!) by 1
+			int start = paramRanges.getStartOffset(index) + 1;
+			int len = paramRanges.getEndOffset(index) - start;
 			String replacement = null;
 			try {
 				replacement = doc.getText(start, len);
@@ -697,6 +610,7 @@ class ParameterizedCompletionContext {
 			h.removeHighlight(tag);
 		}
 		tags.clear();
+		paramRanges.clear();
 		for (ParamCopyInfo pci : paramCopyInfos) {
 			h.removeHighlight(pci.h);
 		}
@@ -805,28 +719,26 @@ class ParameterizedCompletionContext {
 		JTextComponent tc = ac.getTextComponent();
 		int dot = tc.getSelectionStart();
 		int mark = tc.getSelectionEnd();
-		int index = -1;
 		String paramPrefix = null;
 
-		List<Highlight> paramHighlights = getParameterHighlights();
-		for (int i=0; i<paramHighlights.size(); i++) {
-			Highlight h = paramHighlights.get(i);
-			// "+1" because of param hack - see OutlineHighlightPainter
-			int start = h.getStartOffset()+1;
-			if (dot>=start && dot<=h.getEndOffset()) {
-				try {
-					// All text selected => offer all suggestions, otherwise
-					// use prefix before selection
-					if (dot!=start || mark!=h.getEndOffset()) {
-						paramPrefix = tc.getText(start, dot-start);
-					}
-				} catch (BadLocationException ble) {
-					ble.printStackTrace();
+		int index = paramRanges.indexOf(dot, true);
+		// "+1" because of param hack - see OutlineHighlightPainter
+		int start = index>-1 ? paramRanges.getStartOffset(index)+1 : -1;
+		if (index>-1 && dot>=start) {
+			int end = paramRanges.getEndOffset(index);
+			try {
+				// All text selected => offer all suggestions, otherwise
+				// use prefix before selection
+				if (dot!=start || mark!=end) {
+					paramPrefix = tc.getText(start, dot-start);
 				}
-				index = i;
-				break;
+			} catch (BadLocationException ble) {
+				ble.printStackTrace();
 			}
 		}
+		else {
+			index = -1;
+		}
 
 		updateToolTipText(index);
 		return paramPrefix;
@@ -1092,6 +1004,8 @@ class ParameterizedCompletionContext {
 					// "-1" is a workaround for Java Highlight issues.
 					tags.add(h.addHighlight(
 							dr.getStartOffset()-1, dr.getEndOffset(), painter));
+					paramRanges.add(tc.getDocument(),
+							dr.getStartOffset()-1, dr.getEndOffset());
 				}
 				for (int i=0; i<info.getReplacementCopyCount(); i++) {
 					ReplacementCopy rc = info.getReplacementCopy(i);
@@ -0,0 +1,73 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.awt.Window;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.WindowEvent;
+import java.awt.event.WindowFocusListener;
+
+
+/**
+ * Listens for events in the parent window of the text component with
+ * auto-completion enabled.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class ParentWindowListener extends ComponentAdapter implements WindowFocusListener {
+
+	private AutoCompletion ac;
+
+
+	ParentWindowListener(AutoCompletion ac) {
+		this.ac = ac;
+	}
+
+
+	public void addTo(Window w) {
+		w.addComponentListener(this);
+		w.addWindowFocusListener(this);
+	}
+
+
+	@Override
+	public void componentHidden(ComponentEvent e) {
+		ac.hideChildWindows();
+	}
+
+
+	@Override
+	public void componentMoved(ComponentEvent e) {
+		ac.hideChildWindows();
+	}
+
+
+	@Override
+	public void componentResized(ComponentEvent e) {
+		ac.hideChildWindows();
+	}
+
+
+	public void removeFrom(Window w) {
+		ac.hideChildWindows();
+		w.removeComponentListener(this);
+		w.removeWindowFocusListener(this);
+	}
+
+
+	@Override
+	public void windowGainedFocus(WindowEvent e) {
+	}
+
+
+	@Override
+	public void windowLostFocus(WindowEvent e) {
+		ac.hideChildWindows();
+	}
+
+
+}
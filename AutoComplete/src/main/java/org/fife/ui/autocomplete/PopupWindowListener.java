@@ -0,0 +1,52 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+
+
+/**
+ * Listens for events from the popup window, and notifies the
+ * {@link AutoCompletionListener}s.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class PopupWindowListener extends ComponentAdapter {
+
+	private final AutoCompletion ac;
+
+
+	PopupWindowListener(AutoCompletion ac) {
+		this.ac = ac;
+	}
+
+
+	@Override
+	public void componentHidden(ComponentEvent e) {
+		ac.fireAutoCompletionEvent(AutoCompletionEvent.Type.POPUP_HIDDEN);
+	}
+
+
+	@Override
+	public void componentShown(ComponentEvent e) {
+		ac.fireAutoCompletionEvent(AutoCompletionEvent.Type.POPUP_SHOWN);
+	}
+
+
+	public void install(AutoCompletePopupWindow popupWindow) {
+		popupWindow.addComponentListener(this);
+	}
+
+
+	public void uninstall(AutoCompletePopupWindow popupWindow) {
+		if (popupWindow!=null) {
+			popupWindow.removeComponentListener(this);
+		}
+	}
+
+
+}
@@ -0,0 +1,311 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+
+/**
+ * A {@link CompletionIndex} backed by a case-folded, compact prefix tree
+ * (a radix tree).  Completions are kept in a single array sorted by their
+ * case-folded input text, and each node in the tree knows the range of that
+ * array whose input text starts with the node's prefix.  Finding all matches
+ * for a prefix therefore costs time proportional to the length of the prefix,
+ * not the number of completions or matches, and the result is simply a view
+ * of a range of the array.<p>
+ *
+ * This index is optimized for large, mostly-static sets of completions, such
+ * as API catalogs.  Modifications are cheap, but the tree is rebuilt lazily
+ * on the next lookup after any modification.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+public class PrefixTreeCompletionIndex implements CompletionIndex {
+
+	/**
+	 * All completions, sorted by {@link #ORDER} when {@link #root} is
+	 * non-<code>null</code>.
+	 */
+	private final List<Completion> entries;
+
+	/**
+	 * The root of the prefix tree, or <code>null</code> if it needs to be
+	 * rebuilt.
+	 */
+	private Node root;
+
+	/**
+	 * Sorts completions by their case-folded input text.  Note that
+	 * {@code String.CASE_INSENSITIVE_ORDER} compares strings char-by-char
+	 * using the same folding as {@link Util#foldCase(char)}, so all completions
+	 * sharing a folded prefix are contiguous in this order.
+	 */
+	private static final Comparator<Completion> ORDER = (c1, c2) -> {
+		int diff = String.CASE_INSENSITIVE_ORDER.compare(c1.getInputText(),
+				c2.getInputText());
+		return diff!=0 ? diff : c1.compareTo(c2);
+	};
+
+	private static final char[] NO_LABELS = new char[0];
+	private static final Node[] NO_CHILDREN = new Node[0];
+
+
+	/**
+	 * Constructor.
+	 */
+	public PrefixTreeCompletionIndex() {
+		entries = new ArrayList<>();
+	}
+
+
+	@Override
+	public void add(Completion c) {
+		entries.add(c);
+		root = null;
+	}
+
+
+	@Override
+	public void addAll(Collection<? extends Completion> completions) {
+		entries.addAll(completions);
+		root = null;
+	}
+
+
+	/**
+	 * Creates the tree node for a range of {@link #entries}.
+	 *
+	 * @param start The start of the range, inclusive.
+	 * @param end The end of the range, exclusive.  This must be greater than
+	 *        {@code start}.
+	 * @return The node.
+	 */
+	private Node createNode(int start, int end) {
+
+		// Since entries are sorted, the common prefix of the whole range is
+		// the common prefix of its first and last entries.
+		String first = entries.get(start).getInputText();
+		int depth = commonPrefixLength(first, entries.get(end-1).getInputText());
+		Node node = new Node(start, end, depth);
+
+		// Entries whose input text is exactly this node's prefix sort first
+		// and don't belong to any child.
+		int i = start;
+		while (i<end && entries.get(i).getInputText().length()==depth) {
+			i++;
+		}
+		if (i==end) {
+			return node;
+		}
+
+		List<Node> children = new ArrayList<>(2);
+		StringBuilder labels = new StringBuilder(2);
+		while (i<end) {
+			char label = Util.foldCase(entries.get(i).getInputText().charAt(depth));
+			int runEnd = i + 1;
+			while (runEnd<end &&
+					Util.foldCase(entries.get(runEnd).getInputText().charAt(depth))==label) {
+				runEnd++;
+			}
+			labels.append(label);
+			children.add(createNode(i, runEnd));
+			i = runEnd;
+		}
+
+		node.labels = labels.toString().toCharArray();
+		node.children = children.toArray(NO_CHILDREN);
+		return node;
+
+	}
+
+
+	@Override
+	public void clear() {
+		entries.clear();
+		root = null;
+	}
+
+
+	/**
+	 * Returns the length of the longest case-folded common prefix of two
+	 * strings.
+	 *
+	 * @param s1 The first string.
+	 * @param s2 The second string.
+	 * @return The length of the common prefix.
+	 */
+	private static int commonPrefixLength(String s1, String s2) {
+		int max = Math.min(s1.length(), s2.length());
+		int i = 0;
+		while (i<max && Util.foldCase(s1.charAt(i))==Util.foldCase(s2.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+
+	/**
+	 * Sorts the entries and rebuilds the prefix tree, if necessary.
+	 */
+	private void ensureTreeBuilt() {
+		if (root==null) {
+			entries.sort(ORDER);
+			root = entries.isEmpty() ? new Node(0, 0, 0) :
+					createNode(0, entries.size());
+		}
+	}
+
+
+	/**
+	 * Returns the deepest node whose range contains exactly the entries
+	 * starting with a prefix.
+	 *
+	 * @param prefix The prefix.
+	 * @return The node, or <code>null</code> if no entries start with the
+	 *         prefix.
+	 */
+	private Node findNode(String prefix) {
+
+		ensureTreeBuilt();
+		Node node = root;
+		int pos = 0;
+		int prefixLen = prefix.length();
+
+		while (node.start<node.end) {
+
+			// The chars between the parent's depth and this node's depth
+			// aren't stored in the tree, so compare against any entry.
+			String key = entries.get(node.start).getInputText();
+			int max = Math.min(prefixLen, node.depth);
+			for (; pos<max; pos++) {
+				if (Util.foldCase(prefix.charAt(pos))!=Util.foldCase(key.charAt(pos))) {
+					return null;
+				}
+			}
+			if (prefixLen<=node.depth) {
+				return node;
+			}
+
+			int child = Arrays.binarySearch(node.labels,
+					Util.foldCase(prefix.charAt(node.depth)));
+			if (child<0) {
+				return null;
+			}
+			node = node.children[child];
+
+		}
+
+		return null;
+
+	}
+
+
+	@Override
+	public List<Completion> getByInputText(String inputText) {
+		Node node = findNode(inputText);
+		if (node==null || node.depth!=inputText.length()) {
+			return Collections.emptyList();
+		}
+		int end = node.start;
+		while (end<node.end &&
+				entries.get(end).getInputText().length()==node.depth) {
+			end++;
+		}
+		return view(node.start, end);
+	}
+
+
+	@Override
+	public List<Completion> getByPrefix(String prefix) {
+		Node node = findNode(prefix);
+		return node==null ? Collections.emptyList() :
+				view(node.start, node.end);
+	}
+
+
+	@Override
+	public boolean remove(Completion c) {
+		ensureTreeBuilt();
+		int index = Collections.binarySearch(entries, c, ORDER);
+		if (index<0) {
+			return false;
+		}
+		entries.remove(index);
+		root = null;
+		return true;
+	}
+
+
+	@Override
+	public int size() {
+		return entries.size();
+	}
+
+
+	/**
+	 * Returns a read-only view of a range of the sorted entries.
+	 *
+	 * @param start The start of the range, inclusive.
+	 * @param end The end of the range, exclusive.
+	 * @return The view.
+	 */
+	private List<Completion> view(int start, int end) {
+		return start==end ? Collections.emptyList() :
+				Collections.unmodifiableList(entries.subList(start, end));
+	}
+
+
+	/**
+	 * A node in the prefix tree.  Chains of nodes with a single child are
+	 * collapsed into one node, so there are at most about twice as many
+	 * nodes as completions.
+	 */
+	private static final class Node {
+
+		/**
+		 * The start of this node's range in {@link #entries}, inclusive.
+		 */
+		private final int start;
+
+		/**
+		 * The end of this node's range in {@link #entries}, exclusive.
+		 */
+		private final int end;
+
+		/**
+		 * The length of the prefix shared by all entries in this node's
+		 * range.
+		 */
+		private final int depth;
+
+		/**
+		 * The sorted, folded character following this node's prefix for each
+		 * child.
+		 */
+		private char[] labels;
+
+		/**
+		 * The child nodes, in the same order as {@link #labels}.
+		 */
+		private Node[] children;
+
+		Node(int start, int end, int depth) {
+			this.start = start;
+			this.end = end;
+			this.depth = depth;
+			labels = NO_LABELS;
+			children = NO_CHILDREN;
+		}
+
+	}
+
+
+}
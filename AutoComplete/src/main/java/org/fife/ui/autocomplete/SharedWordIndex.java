@@ -0,0 +1,553 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+import java.util.function.ObjIntConsumer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+
+
+/**
+ * An index of the words in several documents, shared by the
+ * {@link DocumentWordCompletionProvider}s of many text components.  This
+ * lets the words in any open editor be completed in all of them, while each
+ * word is only stored once no matter how many documents contain it.  For
+ * example:
+ *
+ * <pre>
+ * SharedWordIndex index = new SharedWordIndex();
+ * ...
+ * // For each editor
+ * DocumentWordCompletionProvider provider =
+ *       new DocumentWordCompletionProvider(index);
+ * provider.setDocument(textArea.getDocument());
+ * new AutoCompletion(provider).install(textArea);
+ * ...
+ * // When the editor is closed
+ * provider.setDocument(null);
+ * </pre>
+ *
+ * Documents are reference counted, so a document shared by several text
+ * components stays indexed until all of them unregister it.  The index keeps
+ * track of how often each document contains each word, so unregistering a
+ * document only takes time proportional to the number of words in it.<p>
+ *
+ * When a document is edited, only the lines the edit touches are read, on
+ * the thread making the edit; finding their words and updating the index
+ * is done on a background thread.  So the index may briefly lag behind the
+ * documents.  This class is thread-safe.<p>
+ *
+ * What counts as a word, and the minimum length of the words indexed, are
+ * properties of the index, given when it is created.  The providers using
+ * it can't change them.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see DocumentWordCompletionProvider#DocumentWordCompletionProvider(SharedWordIndex)
+ */
+public class SharedWordIndex {
+
+	/**
+	 * The words in all registered documents, ordered case-insensitively so
+	 * the words starting with a prefix are adjacent.  This is also the lock
+	 * guarding the words' counts.
+	 */
+	private final NavigableMap<String, Word> words;
+
+	/**
+	 * The registered documents.  Only accessed while synchronized on this
+	 * index.
+	 */
+	private final Map<Document, DocumentEntry> documents;
+
+	/**
+	 * Updates the index.  Since it has a single thread, updates are applied
+	 * in the order they're made.
+	 */
+	private final ExecutorService updater;
+
+	private final int minimumWordLength;
+
+	/**
+	 * Returns whether a character is part of a word.
+	 */
+	private final IntPredicate isWordChar;
+
+	/**
+	 * How many lines of a newly registered document are indexed at a time.
+	 * Queries aren't blocked for longer than this takes.
+	 */
+	private static final int LINES_PER_BATCH = 256;
+
+
+	/**
+	 * Constructor.  Words shorter than
+	 * {@link DocumentWordCompletionProvider#DEFAULT_MINIMUM_WORD_LENGTH} are
+	 * not indexed.
+	 */
+	public SharedWordIndex() {
+		this(DocumentWordCompletionProvider.DEFAULT_MINIMUM_WORD_LENGTH);
+	}
+
+
+	/**
+	 * Constructor.  Words are runs of letters, digits and underscores, as
+	 * with {@link DefaultCompletionProvider#isValidChar(char)}.
+	 *
+	 * @param minimumWordLength The minimum length of words to index.  This
+	 *        must be at least <code>1</code>.
+	 * @throws IllegalArgumentException If <code>minimumWordLength</code> is
+	 *         less than <code>1</code>.
+	 */
+	public SharedWordIndex(int minimumWordLength) {
+		this(minimumWordLength, Util::isWordChar);
+	}
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param minimumWordLength The minimum length of words to index.  This
+	 *        must be at least <code>1</code>.
+	 * @param isWordChar Returns whether a character is part of a word.  The
+	 *        providers using this index should consider the same characters
+	 *        valid in their {@code isValidChar()} method.  This is called on
+	 *        a background thread.
+	 * @throws IllegalArgumentException If <code>minimumWordLength</code> is
+	 *         less than <code>1</code>, or <code>isWordChar</code> is
+	 *         <code>null</code>.
+	 */
+	public SharedWordIndex(int minimumWordLength, IntPredicate isWordChar) {
+
+		if (minimumWordLength<1) {
+			throw new IllegalArgumentException(
+					"minimumWordLength must be at least 1");
+		}
+		if (isWordChar==null) {
+			throw new IllegalArgumentException("isWordChar cannot be null");
+		}
+		this.minimumWordLength = minimumWordLength;
+		this.isWordChar = isWordChar;
+		words = new TreeMap<>(String.CASE_INSENSITIVE_ORDER.thenComparing(
+				String::compareTo));
+		documents = new IdentityHashMap<>();
+
+		// The thread goes away when there's nothing to do
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1,
+				5, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+					Thread t = new Thread(r, "AutoCompletion-WordIndexer");
+					t.setDaemon(true);
+					t.setPriority(Thread.MIN_PRIORITY);
+					return t;
+				});
+		executor.allowCoreThreadTimeOut(true);
+		updater = executor;
+
+	}
+
+
+	/**
+	 * Calls a function for each indexed word starting with a prefix,
+	 * ignoring case.
+	 *
+	 * @param prefix The prefix.
+	 * @param action Called with each word, and how many times it occurs in
+	 *        all registered documents.  This is called while the index is
+	 *        locked, so it should be fast.
+	 */
+	void forEachMatch(String prefix, ObjIntConsumer<String> action) {
+
+		synchronized (words) {
+
+			// Only case variants of the prefix itself sort before it
+			String start = prefix;
+			String prev;
+			while ((prev=words.lowerKey(start))!=null &&
+					Util.startsWithIgnoreCase(prev, prefix)) {
+				start = prev;
+			}
+
+			for (Word word : words.tailMap(start, true).values()) {
+				if (!Util.startsWithIgnoreCase(word.text, prefix)) {
+					break;
+				}
+				action.accept(word.text, word.count);
+			}
+
+		}
+
+	}
+
+
+	/**
+	 * Returns the number of documents registered with this index.
+	 *
+	 * @return The number of documents.
+	 */
+	public synchronized int getDocumentCount() {
+		return documents.size();
+	}
+
+
+	/**
+	 * Returns the minimum length of words that are indexed.
+	 *
+	 * @return The minimum length.
+	 */
+	public int getMinimumWordLength() {
+		return minimumWordLength;
+	}
+
+
+	/**
+	 * Returns the number of times a word occurs in all registered
+	 * documents.
+	 *
+	 * @param word The word.  This is case-sensitive.
+	 * @return The number of occurrences.
+	 */
+	public int getOccurrenceCount(String word) {
+		synchronized (words) {
+			Word w = words.get(word);
+			return w==null ? 0 : w.count;
+		}
+	}
+
+
+	/**
+	 * Returns the number of distinct words in all registered documents.
+	 *
+	 * @return The number of distinct words.
+	 */
+	public int getWordCount() {
+		synchronized (words) {
+			return words.size();
+		}
+	}
+
+
+	/**
+	 * Reads the text of some lines of a document.  The caller must hold the
+	 * document's lock.
+	 *
+	 * @param doc The document.
+	 * @param first The index of the first line.
+	 * @param end The index after the last line.
+	 * @return The text of the lines.
+	 */
+	private static String[] readLines(Document doc, int first, int end) {
+
+		Element root = doc.getDefaultRootElement();
+		String[] lines = new String[end - first];
+		for (int i=first; i<end; i++) {
+			Element line = root.getElement(i);
+			int start = line.getStartOffset();
+			int lineEnd = Math.min(line.getEndOffset(), doc.getLength());
+			try {
+				lines[i - first] = doc.getText(start, lineEnd - start);
+			} catch (BadLocationException ble) { // Never happens
+				ble.printStackTrace();
+				lines[i - first] = "";
+			}
+		}
+		return lines;
+
+	}
+
+
+	/**
+	 * Registers a document, so its words are indexed.  If the document is
+	 * already registered, this increments its reference count instead.
+	 *
+	 * @param doc The document.
+	 * @see #unregister(Document)
+	 */
+	public void register(Document doc) {
+
+		DocumentEntry entry;
+		synchronized (this) {
+			entry = documents.get(doc);
+			if (entry!=null) {
+				entry.refCount++;
+				return;
+			}
+			entry = new DocumentEntry(doc);
+			documents.put(doc, entry);
+		}
+
+		// Reading the document and adding the listener under its lock
+		// ensures the listener's updates come after the initial indexing.
+		DocumentEntry newEntry = entry;
+		doc.render(() -> {
+			doc.addDocumentListener(newEntry);
+			if (newEntry.disposed) { // Unregistered in the meantime
+				doc.removeDocumentListener(newEntry);
+				return;
+			}
+			int lineCount = doc.getDefaultRootElement().getElementCount();
+			newEntry.lineCount = lineCount;
+			String[] lines = readLines(doc, 0, lineCount);
+			updater.execute(() -> newEntry.addLines(lines));
+		});
+
+	}
+
+
+	/**
+	 * Decrements the reference count of a document, and removes its words
+	 * from the index if it is no longer referenced.
+	 *
+	 * @param doc The document.  If this isn't registered, nothing happens.
+	 * @see #register(Document)
+	 */
+	public void unregister(Document doc) {
+
+		DocumentEntry entry;
+		synchronized (this) {
+			entry = documents.get(doc);
+			if (entry==null || --entry.refCount>0) {
+				return;
+			}
+			documents.remove(doc);
+		}
+
+		entry.disposed = true;
+		doc.removeDocumentListener(entry);
+		updater.execute(entry::removeAll);
+
+	}
+
+
+	/**
+	 * Waits until all pending updates have been applied to the index.  This
+	 * is useful for testing.
+	 *
+	 * @throws InterruptedException If the thread is interrupted while
+	 *         waiting.
+	 */
+	void waitForUpdates() throws InterruptedException {
+		try {
+			updater.submit(() -> { }).get();
+		} catch (ExecutionException e) { // Never happens
+			throw new IllegalStateException(e);
+		}
+	}
+
+
+	/**
+	 * A registered document.  Other than the reference count and line
+	 * count, this is only accessed on the updater thread.
+	 */
+	private final class DocumentEntry implements DocumentListener {
+
+		private final Document doc;
+
+		/**
+		 * How many times the document has been registered.  Only accessed
+		 * while synchronized on the index.
+		 */
+		private int refCount;
+
+		/**
+		 * The number of lines in the document, as of the last edit seen.
+		 * Only accessed under the document's lock.
+		 */
+		private int lineCount;
+
+		/**
+		 * Set once the document is unregistered, so updates still queued
+		 * for it are skipped.
+		 */
+		private volatile boolean disposed;
+
+		/**
+		 * The words on each line of the document.
+		 */
+		private final List<String[]> lineWords;
+
+		/**
+		 * How many times the document contains each word.
+		 */
+		private final Map<Word, Integer> contributions;
+
+		DocumentEntry(Document doc) {
+			this.doc = doc;
+			refCount = 1;
+			lineWords = new ArrayList<>();
+			contributions = new HashMap<>();
+		}
+
+		/**
+		 * Indexes a newly registered document.
+		 *
+		 * @param lines The text of the document's lines.
+		 */
+		private void addLines(String[] lines) {
+			for (int i=0; i<lines.length && !disposed; i+=LINES_PER_BATCH) {
+				int end = Math.min(i + LINES_PER_BATCH, lines.length);
+				synchronized (words) {
+					for (int j=i; j<end; j++) {
+						lineWords.add(addWords(lines[j]));
+						lines[j] = null;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Adds the words on a line to the index.
+		 *
+		 * @param line The text of the line.
+		 * @return The line's words.
+		 */
+		private String[] addWords(String line) {
+			String[] found = Util.getWords(line, minimumWordLength,
+					isWordChar);
+			for (int i=0; i<found.length; i++) {
+				Word word = words.get(found[i]);
+				if (word==null) {
+					word = new Word(found[i]);
+					words.put(word.text, word);
+				}
+				// Share one String instance per distinct word
+				found[i] = word.text;
+				word.count++;
+				contributions.merge(word, 1, Integer::sum);
+			}
+			return found;
+		}
+
+		@Override
+		public void changedUpdate(DocumentEvent e) {
+			// Attribute changes don't affect the words
+		}
+
+		/**
+		 * Reads the lines changed by an edit, and queues them to be
+		 * re-indexed.  This is called under the document's lock.
+		 *
+		 * @param e The edit.
+		 */
+		private void documentChanged(DocumentEvent e) {
+
+			if (disposed) {
+				return;
+			}
+
+			Element root = doc.getDefaultRootElement();
+			int first = root.getElementIndex(e.getOffset());
+			int newCount = root.getElementCount();
+
+			// One line was replaced by several, or several by one.  Either
+			// way, the words on all of them are read again.
+			int oldEnd = first + 1 + Math.max(0, lineCount - newCount);
+			int newEnd = first + 1 + Math.max(0, newCount - lineCount);
+			lineCount = newCount;
+
+			String[] lines = readLines(doc, first, newEnd);
+			updater.execute(() -> replaceLines(first, oldEnd, lines));
+
+		}
+
+		@Override
+		public void insertUpdate(DocumentEvent e) {
+			documentChanged(e);
+		}
+
+		/**
+		 * Removes all of the document's words from the index.
+		 */
+		private void removeAll() {
+			synchronized (words) {
+				for (Map.Entry<Word, Integer> entry : contributions.entrySet()) {
+					Word word = entry.getKey();
+					word.count -= entry.getValue();
+					if (word.count==0) {
+						words.remove(word.text);
+					}
+				}
+			}
+			contributions.clear();
+			lineWords.clear();
+		}
+
+		@Override
+		public void removeUpdate(DocumentEvent e) {
+			documentChanged(e);
+		}
+
+		/**
+		 * Re-indexes lines changed by an edit.
+		 *
+		 * @param first The index of the first changed line.
+		 * @param oldEnd The index after the last changed line, before the
+		 *        edit.
+		 * @param lines The text of the changed lines after the edit.
+		 */
+		private void replaceLines(int first, int oldEnd, String[] lines) {
+
+			if (disposed) {
+				return;
+			}
+
+			List<String[]> changed = lineWords.subList(first, oldEnd);
+			List<String[]> added = new ArrayList<>(lines.length);
+			synchronized (words) {
+				for (String[] line : changed) {
+					for (String text : line) {
+						Word word = words.get(text);
+						word.count--;
+						if (word.count==0) {
+							words.remove(text);
+						}
+						contributions.computeIfPresent(word,
+								(w, n) -> n==1 ? null : n - 1);
+					}
+				}
+				for (String line : lines) {
+					added.add(addWords(line));
+				}
+			}
+			changed.clear();
+			lineWords.addAll(first, added);
+
+		}
+
+	}
+
+
+	/**
+	 * A distinct word in the registered documents, and how often it occurs
+	 * in all of them.  Its count is guarded by the index's lock.
+	 */
+	private static final class Word {
+
+		private final String text;
+		private int count;
+
+		Word(String text) {
+			this.text = text;
+		}
+
+	}
+
+
+}
@@ -0,0 +1,245 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+
+/**
+ * Utility methods for working with already-sorted lists ("runs") of
+ * completions.  Merging sorted runs is linear in their total length, so
+ * code that receives completions in sorted batches can avoid re-sorting
+ * everything it has seen each time a new batch arrives.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class SortedRuns {
+
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private SortedRuns() {
+		// Do nothing
+	}
+
+
+	/**
+	 * Returns whether a list is sorted.
+	 *
+	 * @param list The list to check.
+	 * @param comparator The comparator defining the sort order, or
+	 *        <code>null</code> for the elements' natural ordering.
+	 * @return Whether the list is sorted.
+	 */
+	static <T extends Comparable<? super T>> boolean isSorted(List<T> list,
+			Comparator<? super T> comparator) {
+		int count = list.size();
+		if (count<2) {
+			return true;
+		}
+		T prev = list.get(0);
+		for (int i=1; i<count; i++) {
+			T cur = list.get(i);
+			int diff = comparator==null ? prev.compareTo(cur) :
+					comparator.compare(prev, cur);
+			if (diff>0) {
+				return false;
+			}
+			prev = cur;
+		}
+		return true;
+	}
+
+
+	/**
+	 * Merges two sorted lists into a new sorted list.  The merge is stable:
+	 * equal elements from <code>first</code> come before those from
+	 * <code>second</code>, which is the same result as appending
+	 * <code>second</code> to <code>first</code> and stable-sorting them.
+	 *
+	 * @param first The first sorted list.
+	 * @param second The second sorted list.
+	 * @param comparator The comparator defining the sort order, or
+	 *        <code>null</code> for the elements' natural ordering.
+	 * @return The merged list.
+	 */
+	static <T extends Comparable<? super T>> List<T> merge(List<T> first,
+			List<T> second, Comparator<? super T> comparator) {
+
+		int count1 = first.size();
+		int count2 = second.size();
+		List<T> merged = new ArrayList<>(count1 + count2);
+		int i = 0;
+		int j = 0;
+
+		while (i<count1 && j<count2) {
+			T t1 = first.get(i);
+			T t2 = second.get(j);
+			int diff = comparator==null ? t1.compareTo(t2) :
+					comparator.compare(t1, t2);
+			if (diff<=0) {
+				merged.add(t1);
+				i++;
+			}
+			else {
+				merged.add(t2);
+				j++;
+			}
+		}
+
+		merged.addAll(first.subList(i, count1));
+		merged.addAll(second.subList(j, count2));
+		return merged;
+
+	}
+
+
+	/**
+	 * Merges any number of sorted lists into a new sorted list.  The merge
+	 * is stable: equal elements are ordered by the list they come from, then
+	 * by their position in it, which is the same result as appending the
+	 * lists in order and stable-sorting them.  This takes
+	 * <code>O(n log k)</code> time for <code>n</code> elements in
+	 * <code>k</code> lists.
+	 *
+	 * @param runs The sorted lists.
+	 * @param comparator The comparator defining the sort order.
+	 * @return The merged list.
+	 * @see #mergeDistinct(List, Comparator)
+	 */
+	static <T> List<T> mergeAll(List<? extends List<? extends T>> runs,
+			Comparator<? super T> comparator) {
+		return mergeRuns(runs, comparator, false);
+	}
+
+
+	/**
+	 * Merges any number of sorted lists into a new sorted list, dropping
+	 * duplicates.  Only the first of any elements that are
+	 * <code>equals()</code> is kept.  The merge is stable: equal elements
+	 * are ordered by the list they come from, then by their position in it.
+	 * This takes <code>O(n log k)</code> time for <code>n</code> elements in
+	 * <code>k</code> lists.
+	 *
+	 * @param runs The sorted lists.
+	 * @param comparator The comparator defining the sort order.
+	 * @return The merged list.
+	 * @see #mergeAll(List, Comparator)
+	 */
+	static <T> List<T> mergeDistinct(List<? extends List<? extends T>> runs,
+			Comparator<? super T> comparator) {
+		return mergeRuns(runs, comparator, true);
+	}
+
+
+	/**
+	 * Does a k-way merge of sorted lists.
+	 *
+	 * @param runs The sorted lists.
+	 * @param comparator The comparator defining the sort order.
+	 * @param distinct Whether to drop duplicate elements.
+	 * @return The merged list.
+	 */
+	private static <T> List<T> mergeRuns(List<? extends List<? extends T>> runs,
+			Comparator<? super T> comparator, boolean distinct) {
+
+		int total = 0;
+		PriorityQueue<RunCursor<T>> heads = new PriorityQueue<>(
+				Math.max(1, runs.size()), (c1, c2) -> {
+					int diff = comparator.compare(c1.head, c2.head);
+					return diff!=0 ? diff : Integer.compare(c1.run, c2.run);
+				});
+		for (int i=0; i<runs.size(); i++) {
+			List<? extends T> run = runs.get(i);
+			total += run.size();
+			if (!run.isEmpty()) {
+				heads.add(new RunCursor<>(run, i));
+			}
+		}
+
+		List<T> merged = new ArrayList<>(total);
+		Set<T> seen = distinct ? new HashSet<>() : null;
+		while (!heads.isEmpty()) {
+			RunCursor<T> cursor = heads.poll();
+			if (seen==null || seen.add(cursor.head)) {
+				merged.add(cursor.head);
+			}
+			if (cursor.advance()) {
+				heads.add(cursor);
+			}
+		}
+		return merged;
+
+	}
+
+
+	/**
+	 * Returns the index at which an element should be inserted into a
+	 * sorted list so that the list remains sorted, and so that the element
+	 * comes after any equal elements already in the list.
+	 *
+	 * @param list The sorted list.
+	 * @param element The element to insert.
+	 * @return The insertion index.
+	 */
+	static <T extends Comparable<? super T>> int upperBound(List<T> list,
+			T element) {
+		int low = 0;
+		int high = list.size();
+		while (low<high) {
+			int mid = (low + high) >>> 1;
+			if (list.get(mid).compareTo(element)<=0) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+
+	/**
+	 * The position of a k-way merge in one of the lists being merged.
+	 *
+	 * @param <T> The type of element in the list.
+	 */
+	private static final class RunCursor<T> {
+
+		private final List<? extends T> list;
+		private final int run;
+		private int pos;
+		private T head;
+
+		RunCursor(List<? extends T> list, int run) {
+			this.list = list;
+			this.run = run;
+			head = list.get(0);
+		}
+
+		/**
+		 * Moves to the next element of the list.
+		 *
+		 * @return Whether there was a next element.
+		 */
+		boolean advance() {
+			if (++pos<list.size()) {
+				head = list.get(pos);
+				return true;
+			}
+			return false;
+		}
+
+	}
+
+
+}
@@ -0,0 +1,38 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import javax.swing.text.JTextComponent;
+
+
+/**
+ * A completion provider that can return its completions lazily, via a
+ * {@link CompletionCursor}.  {@link AutoCompletion} prefers
+ * {@link #getCompletionCursor(JTextComponent)} over
+ * {@link #getCompletions(JTextComponent)} for providers implementing this
+ * interface, and only reads as many completions from the cursor as the
+ * completion popup displays.  This lets the popup open in constant time
+ * and memory even for huge numbers of matching completions.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see CompletionCursor
+ */
+public interface StreamingCompletionProvider extends CompletionProvider {
+
+
+	/**
+	 * Returns a cursor over the possible completions for the text component
+	 * at the current caret position, in the order they should be displayed.
+	 * This is called on the EDT.
+	 *
+	 * @param comp The text component.
+	 * @return The cursor, or <code>null</code> to have
+	 *         {@link #getCompletions(JTextComponent)} called instead.
+	 */
+	CompletionCursor getCompletionCursor(JTextComponent comp);
+
+
+}
@@ -0,0 +1,240 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import javax.swing.SwingUtilities;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.html.HTMLDocument;
+import javax.swing.text.html.HTMLEditorKit;
+import javax.swing.text.html.StyleSheet;
+
+
+/**
+ * Computes the summaries displayed in the description window, and caches
+ * the HTML documents parsed from them.  Displaying a cached summary is just
+ * a matter of swapping its document into the description window's editor
+ * pane; nothing is built or parsed again.<p>
+ *
+ * Summaries can also be computed ahead of time on a background thread, for
+ * example for the completions next to the selected one, so they are ready
+ * when the selection moves.  Only the summary text is computed in the
+ * background; it is always parsed on the EDT, since parsing can add rules
+ * to the style sheet that all the documents share.  The number of
+ * summaries cached is bounded; the least recently used ones are evicted
+ * first.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class SummaryCache {
+
+	private final HTMLEditorKit kit;
+	private final StyleSheet styleSheet;
+	private final String noDescText;
+	private final Map<CompletionKey, CompletableFuture<HTMLDocument>> summaries;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param kit The editor kit to parse summaries with.
+	 * @param styleSheet The style sheet the parsed documents should share.
+	 * @param noDescText The HTML to display for completions without a
+	 *        summary.
+	 * @param maxSize The maximum number of summaries to cache.
+	 */
+	SummaryCache(HTMLEditorKit kit, StyleSheet styleSheet, String noDescText,
+			int maxSize) {
+		this.kit = kit;
+		this.styleSheet = styleSheet;
+		this.noDescText = noDescText;
+		summaries = new LinkedHashMap<CompletionKey, CompletableFuture<HTMLDocument>>(
+				16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<CompletionKey, CompletableFuture<HTMLDocument>> eldest) {
+				return size()>maxSize;
+			}
+		};
+	}
+
+
+	/**
+	 * Removes all cached summaries.  Summaries being computed in the
+	 * background when this is called are discarded when they complete.
+	 */
+	synchronized void clear() {
+		summaries.clear();
+	}
+
+
+	/**
+	 * Returns the summary of a completion, computing it on the calling
+	 * thread if it isn't cached or ready yet.
+	 *
+	 * @param completion The completion.  This may be <code>null</code>.
+	 * @return The parsed summary.
+	 */
+	HTMLDocument get(Completion completion) {
+
+		if (completion==null) {
+			return load(null);
+		}
+
+		CompletableFuture<HTMLDocument> future = getFuture(completion);
+		if (!future.isDone()) {
+			// Don't wait for a background thread that may not have even
+			// started on it yet.
+			future.complete(load(completion));
+		}
+		try {
+			return future.join();
+		} catch (CompletionException ce) { // getSummary() threw an exception
+			ce.printStackTrace();
+			return load(null);
+		}
+
+	}
+
+
+	/**
+	 * Returns the future result for a completion's summary, adding one to
+	 * the cache if necessary.
+	 *
+	 * @param completion The completion.
+	 * @return The future result.
+	 */
+	private synchronized CompletableFuture<HTMLDocument> getFuture(
+			Completion completion) {
+		return summaries.computeIfAbsent(new CompletionKey(completion),
+				k -> new CompletableFuture<>());
+	}
+
+
+	/**
+	 * Returns the summary of a completion if it has already been computed.
+	 *
+	 * @param completion The completion.
+	 * @return The parsed summary, or <code>null</code> if it isn't ready.
+	 */
+	synchronized HTMLDocument getIfReady(Completion completion) {
+		CompletableFuture<HTMLDocument> future =
+				summaries.get(new CompletionKey(completion));
+		return future!=null && future.isDone() &&
+				!future.isCompletedExceptionally() ? future.join() : null;
+	}
+
+
+	/**
+	 * Computes a summary and parses it.  This must be called on the EDT.
+	 *
+	 * @param completion The completion, or <code>null</code> for the
+	 *        "no description" summary.
+	 * @return The parsed summary.
+	 */
+	private HTMLDocument load(Completion completion) {
+		return parse(completion==null ? null : completion.getSummary());
+	}
+
+
+	/**
+	 * Parses a summary.  This must be called on the EDT.
+	 *
+	 * @param html The summary, or <code>null</code> for the "no description"
+	 *        summary.
+	 * @return The parsed summary.
+	 */
+	private HTMLDocument parse(String html) {
+
+		if (html==null) {
+			html = noDescText;
+		}
+
+		HTMLDocument doc = new HTMLDocument(styleSheet);
+		try {
+			kit.read(new StringReader(html), doc, 0);
+		} catch (IOException | BadLocationException e) {
+			e.printStackTrace(); // Never happens
+		}
+		return doc;
+
+	}
+
+
+	/**
+	 * Starts computing a completion's summary on a background thread, unless
+	 * it is already cached or being computed.  The summary is then parsed on
+	 * the EDT.
+	 *
+	 * @param completion The completion.
+	 * @param executor The executor to compute the summary with.
+	 */
+	void prefetch(Completion completion, Executor executor) {
+
+		CompletableFuture<HTMLDocument> future;
+		synchronized (this) {
+			CompletionKey key = new CompletionKey(completion);
+			if (summaries.containsKey(key)) {
+				return;
+			}
+			future = new CompletableFuture<>();
+			summaries.put(key, future);
+		}
+
+		executor.execute(() -> {
+			if (future.isDone()) {
+				return;
+			}
+			String html;
+			try {
+				html = completion.getSummary();
+			} catch (RuntimeException re) {
+				future.completeExceptionally(re);
+				return;
+			}
+			SwingUtilities.invokeLater(() -> {
+				if (!future.isDone()) {
+					future.complete(parse(html));
+				}
+			});
+		});
+
+	}
+
+
+	/**
+	 * Identifies a completion in the cache.  Completions are compared by
+	 * identity, since equal completions may still have different summaries.
+	 */
+	private static final class CompletionKey {
+
+		private final Completion completion;
+
+		CompletionKey(Completion completion) {
+			this.completion = completion;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof CompletionKey &&
+					((CompletionKey)obj).completion==completion;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(completion);
+		}
+
+	}
+
+
+}
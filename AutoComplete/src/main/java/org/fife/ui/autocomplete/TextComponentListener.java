@@ -0,0 +1,107 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.awt.Window;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import javax.swing.SwingUtilities;
+import javax.swing.text.JTextComponent;
+
+
+/**
+ * Listens for events from the text component with auto-completion enabled,
+ * and keeps track of the window it is in.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class TextComponentListener extends FocusAdapter implements HierarchyListener {
+
+	private final AutoCompletion ac;
+
+	/**
+	 * Listens for events in the parent window that affect the visibility of
+	 * the popup windows.
+	 */
+	private final ParentWindowListener parentWindowListener;
+
+	/**
+	 * The parent window of the text component.
+	 */
+	private Window parentWindow;
+
+
+	TextComponentListener(AutoCompletion ac) {
+		this.ac = ac;
+		parentWindowListener = new ParentWindowListener(ac);
+	}
+
+
+	void addTo(JTextComponent tc) {
+		tc.addFocusListener(this);
+		tc.addHierarchyListener(this);
+	}
+
+
+	/**
+	 * Hide the auto-completion windows when the text component loses focus.
+	 */
+	@Override
+	public void focusLost(FocusEvent e) {
+		ac.hideChildWindows();
+	}
+
+
+	/**
+	 * Returns the parent window of the text component.
+	 *
+	 * @return The parent window, or <code>null</code> if it isn't in one.
+	 */
+	Window getParentWindow() {
+		return parentWindow;
+	}
+
+
+	/**
+	 * Called when the component hierarchy for our text component changes.
+	 * When the text component is added to a new {@link Window}, this method
+	 * registers listeners on that <code>Window</code>.
+	 *
+	 * @param e The event.
+	 */
+	@Override
+	public void hierarchyChanged(HierarchyEvent e) {
+
+		// NOTE: e many be null as we call this method at other times.
+		// System.out.println("Hierarchy changed! " + e);
+
+		Window oldParentWindow = parentWindow;
+		parentWindow = SwingUtilities.getWindowAncestor(ac.getTextComponent());
+		if (parentWindow != oldParentWindow) {
+			if (oldParentWindow != null) {
+				parentWindowListener.removeFrom(oldParentWindow);
+			}
+			if (parentWindow != null) {
+				parentWindowListener.addTo(parentWindow);
+			}
+		}
+
+	}
+
+
+	void removeFrom(JTextComponent tc) {
+		tc.removeFocusListener(this);
+		tc.removeHierarchyListener(this);
+		if (parentWindow != null) {
+			parentWindowListener.removeFrom(parentWindow);
+			parentWindow = null;
+		}
+	}
+
+
+}
@@ -0,0 +1,230 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+import org.fife.ui.rsyntaxtextarea.RSyntaxDocument;
+import org.fife.ui.rsyntaxtextarea.Token;
+
+
+/**
+ * Remembers the tokens of the line the caret was last on in an
+ * {@code RSyntaxDocument}.  Completion providers ask for the token type at
+ * the caret several times per keystroke, and while the caret stays on the
+ * same line of an unchanged document, the line doesn't need to be lexed
+ * again.<p>
+ *
+ * Any change to the document invalidates the cache, since changing one
+ * line can change how the lines after it are lexed (for example, by
+ * starting a multi-line comment).  So does changing the document's syntax
+ * style or {@code TokenMaker}, which the document announces with a
+ * {@code changedUpdate()} rather than a change to its text.  Only the
+ * offsets and types of the tokens are kept, since the token list a document
+ * returns is reused the next time it is asked for one.<p>
+ *
+ * This class should only be used on the EDT.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class TokenTypeCache implements DocumentListener {
+
+	private static final AtomicLong HIT_COUNT = new AtomicLong();
+	private static final AtomicLong MISS_COUNT = new AtomicLong();
+
+	private long version;
+	private int line;
+	private int tokenCount;
+	private int[] tokenStarts;
+	private int[] tokenTypes;
+	private int lineEnd;
+	private int lastTokenType;
+
+
+	/**
+	 * Private constructor; use {@link #get(RSyntaxDocument)}.
+	 */
+	private TokenTypeCache() {
+		line = -1;
+		tokenStarts = new int[16];
+		tokenTypes = new int[16];
+	}
+
+
+	/**
+	 * Called when the document's syntax highlighting changes, e.g. when its
+	 * syntax style is changed.  The cached line is forgotten, since its
+	 * tokens may now be different.
+	 *
+	 * @param e The event.
+	 */
+	@Override
+	public void changedUpdate(DocumentEvent e) {
+		line = -1;
+	}
+
+
+	/**
+	 * Returns the cache for a document, creating it if necessary.
+	 *
+	 * @param doc The document.
+	 * @return The cache.
+	 */
+	static TokenTypeCache get(RSyntaxDocument doc) {
+		Object cache = doc.getProperty(TokenTypeCache.class);
+		if (!(cache instanceof TokenTypeCache)) {
+			cache = new TokenTypeCache();
+			doc.addDocumentListener((TokenTypeCache)cache);
+			doc.putProperty(TokenTypeCache.class, cache);
+		}
+		return (TokenTypeCache)cache;
+	}
+
+
+	/**
+	 * Returns how many lookups were answered from a cached line, across all
+	 * documents.
+	 *
+	 * @return The number of cache hits.
+	 * @see #getMissCount()
+	 */
+	static long getHitCount() {
+		return HIT_COUNT.get();
+	}
+
+
+	/**
+	 * Returns how many lookups had to lex a line, across all documents.
+	 *
+	 * @return The number of cache misses.
+	 * @see #getHitCount()
+	 */
+	static long getMissCount() {
+		return MISS_COUNT.get();
+	}
+
+
+	/**
+	 * Returns the type of the token at a position in a document.
+	 *
+	 * @param doc The document this cache is for.
+	 * @param line The line containing the position.
+	 * @param dot The position.
+	 * @return The token type, as described by
+	 *         {@link CompletionContext#getTokenType()}.
+	 */
+	int getTokenType(RSyntaxDocument doc, int line, int dot) {
+
+		long version = CompletionContext.getDocumentVersion(doc);
+		if (line==this.line && version==this.version) {
+			HIT_COUNT.incrementAndGet();
+		}
+		else {
+			MISS_COUNT.incrementAndGet();
+			load(doc, line);
+			this.version = version;
+		}
+
+		int index = tokenCount==0 || dot<tokenStarts[0] || dot>=lineEnd ? -1 :
+				upperBound(dot) - 1;
+
+		if (index==-1) { // At end of the line
+			return lastTokenType;
+		}
+
+		// At the very beginning of a new token, we can't tell what's being
+		// typed from the token itself.
+		return dot==tokenStarts[index] ? Token.NULL : tokenTypes[index];
+
+	}
+
+
+	@Override
+	public void insertUpdate(DocumentEvent e) {
+		// The document version changes, which invalidates the cache
+	}
+
+
+	/**
+	 * Lexes a line and remembers its tokens.
+	 *
+	 * @param doc The document.
+	 * @param line The line to lex.
+	 */
+	private void load(RSyntaxDocument doc, int line) {
+
+		this.line = line;
+		tokenCount = 0;
+		lineEnd = -1;
+		lastTokenType = Token.NULL;
+
+		Token t = doc.getTokenListForLine(line);
+		if (t==null) {
+			return;
+		}
+
+		Token lastPaintable = null;
+		for (Token token=t; token!=null && token.isPaintable();
+				token=token.getNextToken()) {
+			if (tokenCount==tokenStarts.length) {
+				tokenStarts = Arrays.copyOf(tokenStarts, tokenCount*2);
+				tokenTypes = Arrays.copyOf(tokenTypes, tokenCount*2);
+			}
+			tokenStarts[tokenCount] = token.getOffset();
+			tokenTypes[tokenCount] = token.getType();
+			tokenCount++;
+			lineEnd = token.getEndOffset();
+			lastPaintable = token;
+		}
+
+		int type = doc.getLastTokenTypeOnLine(line);
+		if (type==Token.NULL) {
+			lastTokenType = lastPaintable==null ? Token.NULL :
+					lastPaintable.getType();
+		}
+		// TokenMakers can use types < 0 for "internal types."  This
+		// gives them a chance to map their internal types back to "real"
+		// types to get completion providers.
+		else {
+			lastTokenType = type<0 ?
+					doc.getClosestStandardTokenTypeForInternalType(type) : type;
+		}
+
+	}
+
+
+	@Override
+	public void removeUpdate(DocumentEvent e) {
+		// The document version changes, which invalidates the cache
+	}
+
+
+	/**
+	 * Returns the number of cached tokens starting at or before an offset.
+	 *
+	 * @param offs The offset.
+	 * @return The number of tokens.
+	 */
+	private int upperBound(int offs) {
+		int low = 0;
+		int high = tokenCount;
+		while (low<high) {
+			int mid = (low + high) >>> 1;
+			if (tokenStarts[mid]<=offs) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+
+}
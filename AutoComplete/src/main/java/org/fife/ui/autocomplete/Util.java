@@ -7,6 +7,8 @@ package org.fife.ui.autocomplete;
 import java.awt.*;
 import java.net.URI;
 import java.security.AccessControlException;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
 import java.util.regex.Pattern;
 
 import javax.swing.*;
@@ -59,6 +61,8 @@ public final class Util {
 	private static Desktop desktop;
 	private static final Object LOCK_DESKTOP_CREATION = new Object();
 
+	private static final String[] NO_WORDS = {};
+
 
 	private Util() {
 	}
@@ -93,6 +97,20 @@ public final class Util {
 	}
 
 
+	/**
+	 * Folds a character for case-insensitive comparison.  This is the same
+	 * folding {@code String.regionMatches(true, ...)} and
+	 * {@code String.CASE_INSENSITIVE_ORDER} use, so it is consistent with
+	 * {@link #startsWithIgnoreCase(String, String)}.
+	 *
+	 * @param ch The character.
+	 * @return The folded character.
+	 */
+	static char foldCase(char ch) {
+		return Character.toLowerCase(Character.toUpperCase(ch));
+	}
+
+
 	/**
 	 * Returns the singleton <code>java.awt.Desktop</code> instance, or
 	 * <code>null</code> if it is unsupported on this platform.
@@ -196,6 +214,45 @@ public final class Util {
 	}
 
 
+	/**
+	 * Returns the words in some text.  A word is a run of word characters
+	 * at least a minimum length long; words starting with a digit are
+	 * skipped.
+	 *
+	 * @param text The text.
+	 * @param minLength The minimum length of the words to return.
+	 * @param isWordChar Returns whether a character is a word character.
+	 * @return The words, in the order they appear.
+	 */
+	static String[] getWords(CharSequence text, int minLength,
+							IntPredicate isWordChar) {
+
+		String[] words = NO_WORDS;
+		int count = 0;
+		int end = text.length();
+		int i = 0;
+		while (i<end) {
+			if (!isWordChar.test(text.charAt(i))) {
+				i++;
+				continue;
+			}
+			int start = i;
+			while (i<end && isWordChar.test(text.charAt(i))) {
+				i++;
+			}
+			if (i - start>=minLength && !Character.isDigit(text.charAt(start))) {
+				if (count==words.length) {
+					words = Arrays.copyOf(words, Math.max(4, count*2));
+				}
+				words[count++] = text.subSequence(start, i).toString();
+			}
+		}
+
+		return count==words.length ? words : Arrays.copyOf(words, count);
+
+	}
+
+
 	/**
 	 * Returns whether the specified color is "light" to use as a foreground.
 	 * Colors that return <code>true</code> indicate that the current Look and
@@ -209,6 +266,19 @@ public final class Util {
 	}
 
 
+	/**
+	 * Returns whether a character is part of a word by default, i.e. whether
+	 * it is a letter, a digit or an underscore.
+	 *
+	 * @param ch The character.
+	 * @return Whether the character is a word character.
+	 * @see DefaultCompletionProvider#isValidChar(char)
+	 */
+	static boolean isWordChar(int ch) {
+		return Character.isLetterOrDigit(ch) || ch=='_';
+	}
+
+
 	/**
 	 * Returns whether a string starts with a specified prefix, ignoring case.
 	 * This method does not support characters outside the BMP.
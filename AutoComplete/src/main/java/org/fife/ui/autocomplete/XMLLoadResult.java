@@ -0,0 +1,77 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.time.Duration;
+
+
+/**
+ * Statistics about one of several XML files loaded by
+ * {@link DefaultCompletionProvider#loadFromXML(java.util.List)}.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see DefaultCompletionProvider#loadFromXML(java.util.List)
+ */
+public final class XMLLoadResult {
+
+	private final String resource;
+	private final int completionCount;
+	private final Duration parseTime;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param resource The resource or file loaded.
+	 * @param completionCount The number of completions loaded.
+	 * @param parseTime How long parsing took.
+	 */
+	XMLLoadResult(String resource, int completionCount, Duration parseTime) {
+		this.resource = resource;
+		this.completionCount = completionCount;
+		this.parseTime = parseTime;
+	}
+
+
+	/**
+	 * Returns the number of completions loaded from the XML.
+	 *
+	 * @return The number of completions.
+	 */
+	public int getCompletionCount() {
+		return completionCount;
+	}
+
+
+	/**
+	 * Returns how long it took to parse the XML.  This includes reading
+	 * it and sorting its completions, but not adding them to the provider.
+	 *
+	 * @return The parse time.
+	 */
+	public Duration getParseTime() {
+		return parseTime;
+	}
+
+
+	/**
+	 * Returns the resource or file the completions were loaded from.
+	 *
+	 * @return The resource, as passed to {@code loadFromXML()}.
+	 */
+	public String getResource() {
+		return resource;
+	}
+
+
+	@Override
+	public String toString() {
+		return resource + ": " + completionCount + " completions in " +
+				parseTime.toMillis() + " ms";
+	}
+
+
+}
@@ -5,7 +5,10 @@
 package org.fife.ui.autocomplete;
 
 import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
+import javax.swing.text.JTextComponent;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -43,4 +46,268 @@ class AbstractCompletionProviderTest {
 	}
 
 
+	@Test
+	void batchUpdate_completionsVisibleAndSortedOnlyAfterCommit() {
+
+		DefaultCompletionProvider provider = new DefaultCompletionProvider(
+				new String[] { "alpha", "delta" });
+
+		provider.beginBatchUpdate();
+		provider.addCompletion(new BasicCompletion(provider, "echo"));
+		provider.beginBatchUpdate();
+		provider.addCompletions(List.of(new BasicCompletion(provider, "charlie"),
+				new BasicCompletion(provider, "Bravo")));
+		provider.commitBatchUpdate();
+		Assertions.assertTrue(provider.isBatchUpdating());
+		Assertions.assertEquals(0, provider.getCompletionsByPrefix("e").size());
+		provider.commitBatchUpdate();
+
+		Assertions.assertFalse(provider.isBatchUpdating());
+		Assertions.assertEquals(5, provider.completions.size());
+		String[] expected = { "alpha", "Bravo", "charlie", "delta", "echo" };
+		for (int i=0; i<expected.length; i++) {
+			Assertions.assertEquals(expected[i], provider.completions.get(i).getInputText());
+		}
+
+		Assertions.assertThrows(IllegalStateException.class, provider::commitBatchUpdate);
+
+	}
+
+
+	@Test
+	void addCompletion_keepsCompletionsSorted() {
+
+		DefaultCompletionProvider provider = new DefaultCompletionProvider();
+		provider.addCompletion(new BasicCompletion(provider, "b"));
+		provider.addCompletion(new BasicCompletion(provider, "c"));
+		provider.addCompletion(new BasicCompletion(provider, "a"));
+
+		Assertions.assertEquals("a", provider.completions.get(0).getInputText());
+		Assertions.assertEquals("b", provider.completions.get(1).getInputText());
+		Assertions.assertEquals("c", provider.completions.get(2).getInputText());
+
+	}
+
+
+	@Test
+	void getCompletions_incrementalRefinement_filtersPreviousResults() throws Exception {
+
+		// Refinement is only done on the EDT
+		SwingUtilities.invokeAndWait(() -> {
+			DefaultCompletionProvider provider = new DefaultCompletionProvider(
+					new String[] { "print", "println", "printf", "private", "puts" });
+			provider.setIncrementalRefinementEnabled(true);
+			JTextArea textArea = new JTextArea("pri");
+			textArea.setCaretPosition(3);
+			Assertions.assertEquals(4, provider.getCompletions(textArea).size());
+
+			textArea.insert("n", 3);
+			textArea.setCaretPosition(4);
+			List<Completion> completions = provider.getCompletions(textArea);
+			Assertions.assertEquals(3, completions.size());
+
+			// Adding a completion invalidates the previous results
+			provider.addCompletion(new BasicCompletion(provider, "printAll"));
+			Assertions.assertEquals(4, provider.getCompletions(textArea).size());
+
+			// Shrinking the prefix does a full query
+			textArea.setText("p");
+			textArea.setCaretPosition(1);
+			Assertions.assertEquals(6, provider.getCompletions(textArea).size());
+		});
+
+	}
+
+
+	@Test
+	void getCompletions_incrementalRefinement_onlyOnEdt() throws Exception {
+
+		AtomicInteger refinementChecks = new AtomicInteger();
+		DefaultCompletionProvider provider = new DefaultCompletionProvider(
+				new String[] { "print", "println", "private" }) {
+			@Override
+			protected boolean isRefinementMatch(Completion c, String text) {
+				refinementChecks.incrementAndGet();
+				return super.isRefinementMatch(c, text);
+			}
+		};
+		provider.setIncrementalRefinementEnabled(true);
+		JTextArea textArea = new JTextArea("prin");
+
+		textArea.setCaretPosition(3);
+		provider.getCompletions(textArea);
+		textArea.setCaretPosition(4);
+		Assertions.assertEquals(2, provider.getCompletions(textArea).size());
+		Assertions.assertEquals(0, refinementChecks.get());
+
+		SwingUtilities.invokeAndWait(() -> {
+			textArea.setCaretPosition(3);
+			provider.getCompletions(textArea);
+			textArea.setCaretPosition(4);
+			Assertions.assertEquals(2, provider.getCompletions(textArea).size());
+		});
+		Assertions.assertEquals(3, refinementChecks.get());
+
+	}
+
+
+	@Test
+	void getCompletionsImpl_prefixMatches_copiedOnlyWhenModified() {
+
+		DefaultCompletionProvider provider = new DefaultCompletionProvider(
+				new String[] { "print", "println", "puts" });
+		JTextArea textArea = new JTextArea("pri");
+		textArea.setCaretPosition(3);
+
+		List<Completion> completions = provider.getCompletionsImpl(textArea);
+		Assertions.assertFalse(((LazyCopyList<Completion>)completions).isCopied());
+		Assertions.assertEquals(2, completions.size());
+
+		completions.add(new BasicCompletion(provider, "printf"));
+		Assertions.assertTrue(((LazyCopyList<Completion>)completions).isCopied());
+		Assertions.assertEquals(3, completions.size());
+		Assertions.assertEquals(2, provider.getCompletionsByPrefix("pri").size());
+
+	}
+
+
+	@Test
+	void getCompletions_lazySorting_sameOrderAsFullSort() {
+
+		DefaultCompletionProvider provider = new DefaultCompletionProvider();
+		for (int i=0; i<500; i++) {
+			BasicCompletion c = new BasicCompletion(provider, "item" + (i * 7919 % 500));
+			c.setRelevance(i % 3);
+			provider.addCompletion(c);
+		}
+		JTextArea textArea = new JTextArea("item");
+		textArea.setCaretPosition(4);
+
+		List<Completion> expected = provider.getCompletions(textArea);
+		provider.setLazySortingThreshold(100);
+		List<Completion> actual = provider.getCompletions(textArea);
+
+		Assertions.assertTrue(actual instanceof LazySortedList);
+		Assertions.assertEquals(expected.get(0), actual.get(0));
+		Assertions.assertTrue(((LazySortedList<Completion>)actual).getSortedCount() < 500);
+		Assertions.assertEquals(expected, actual);
+
+	}
+
+
+	@Test
+	void getCompletions_parentChain_mergedInOrderWithoutDuplicates() {
+
+		DefaultCompletionProvider grandparent = new DefaultCompletionProvider(
+			new String[] { "print", "printf" });
+		grandparent.addCompletion(new FunctionCompletion(grandparent, "puts", "int"));
+		DefaultCompletionProvider parent = new DefaultCompletionProvider(
+			new String[] { "parse", "println" });
+		BasicCompletion relevant = new BasicCompletion(parent, "pack");
+		relevant.setRelevance(5);
+		parent.addCompletion(relevant);
+		parent.setParent(grandparent);
+		DefaultCompletionProvider provider = new DefaultCompletionProvider(
+			new String[] { "pop", "push" });
+		// Equal to the grandparent's, so only returned once
+		provider.addCompletion(new FunctionCompletion(provider, "puts", "int"));
+		provider.setParent(parent);
+
+		JTextArea textArea = new JTextArea("p");
+		textArea.setCaretPosition(1);
+		List<Completion> completions = provider.getCompletions(textArea);
+
+		String[] expected = { "pack", "parse", "pop", "print", "printf", "println", "push", "puts" };
+		Assertions.assertEquals(expected.length, completions.size());
+		for (int i=0; i<expected.length; i++) {
+			Assertions.assertEquals(expected[i], completions.get(i).getInputText());
+		}
+
+	}
+
+
+	@Test
+	void getCompletions_parentWithOtherCompletionType_notDroppedAsDuplicate() {
+
+		DefaultCompletionProvider parent = new DefaultCompletionProvider();
+		BasicCompletion basic = new BasicCompletion(parent, "puts");
+		parent.addCompletion(basic);
+		DefaultCompletionProvider provider = new DefaultCompletionProvider();
+		FunctionCompletion function = new FunctionCompletion(provider, "puts", "int");
+		provider.addCompletion(function);
+		provider.setParent(parent);
+		Assertions.assertNotEquals(function, basic);
+		Assertions.assertNotEquals(basic, function);
+
+		JTextArea textArea = new JTextArea("pu");
+		textArea.setCaretPosition(2);
+		Assertions.assertEquals(2, provider.getCompletions(textArea).size());
+
+	}
+
+
+	@Test
+	void getCompletions_sharedContext_eachProviderUsesItsOwnEnteredText() {
+
+		DefaultCompletionProvider parent = new DefaultCompletionProvider(
+			new String[] { "java.util", "list" }) {
+			@Override
+			protected boolean isValidChar(char ch) {
+				return ch=='.' || super.isValidChar(ch);
+			}
+		};
+		DefaultCompletionProvider provider = new DefaultCompletionProvider(
+			new String[] { "util", "utility" });
+		provider.setParent(parent);
+
+		JTextArea textArea = new JTextArea("x = java.ut");
+		textArea.setCaretPosition(textArea.getText().length());
+		CompletionContext context = new CompletionContext(textArea, provider);
+		Assertions.assertEquals("x = java.ut", context.getTextBeforeCaret());
+		Assertions.assertEquals("ut", context.getAlreadyEnteredText());
+		Assertions.assertTrue(context.isCaretAtEndOfLine());
+
+		List<Completion> completions = provider.getCompletions(context);
+		Assertions.assertEquals(3, completions.size());
+		Assertions.assertEquals("java.util", completions.get(0).getInputText());
+		Assertions.assertEquals("util", completions.get(1).getInputText());
+
+		// Same length and caret position, but no longer current
+		textArea.replaceRange("b", 0, 1);
+		textArea.setCaretPosition(textArea.getText().length());
+		Assertions.assertFalse(context.isCurrent(textArea));
+
+	}
+
+
+	@Test
+	void getCompletionContext_otherThread_doesNotSeeContext() {
+
+		JTextArea textArea = new JTextArea("ut");
+		textArea.setCaretPosition(2);
+		CompletionContext[] seen = new CompletionContext[2];
+		DefaultCompletionProvider provider = new DefaultCompletionProvider(
+			new String[] { "util" }) {
+			@Override
+			protected List<Completion> getCompletionsImpl(JTextComponent comp) {
+				seen[0] = getCompletionContext(comp);
+				Thread t = new Thread(() -> seen[1] = getCompletionContext(comp));
+				t.start();
+				try {
+					t.join();
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+				}
+				return super.getCompletionsImpl(comp);
+			}
+		};
+
+		Assertions.assertEquals(1, provider.getCompletions(textArea).size());
+		Assertions.assertNotNull(seen[0]);
+		Assertions.assertNull(seen[1]);
+		Assertions.assertNull(provider.getCompletionContext(textArea));
+
+	}
+
+
 }
@@ -0,0 +1,61 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class AdaptiveActivationDelayTest {
+
+
+	private static void type(AdaptiveActivationDelay delay, int count,
+			long gapMillis) {
+		long time = 1;
+		for (int i=0; i<count; i++) {
+			delay.keyTyped(time);
+			time += TimeUnit.MILLISECONDS.toNanos(gapMillis);
+		}
+	}
+
+
+	@Test
+	void getDelay_nothingMeasured_usesDefaultDelay() {
+		AdaptiveActivationDelay delay = new AdaptiveActivationDelay(50, 800);
+		Assertions.assertEquals(200, delay.getDelay(200));
+		Assertions.assertEquals(800, delay.getDelay(2000));
+	}
+
+
+	@Test
+	void getDelay_fastProvider_doesNotWaitForPause() {
+		AdaptiveActivationDelay delay = new AdaptiveActivationDelay(50, 800);
+		type(delay, 10, 200);
+		delay.completionsComputed(TimeUnit.MILLISECONDS.toNanos(40));
+		Assertions.assertEquals(80, delay.getDelay(200));
+		delay.completionsComputed(TimeUnit.MILLISECONDS.toNanos(40));
+		delay.completionsComputed(TimeUnit.MILLISECONDS.toNanos(1));
+		Assertions.assertTrue(delay.getDelay(200) < 80);
+	}
+
+
+	@Test
+	void getDelay_slowProvider_waitsForPauseInTyping() {
+		AdaptiveActivationDelay delay = new AdaptiveActivationDelay(50, 800);
+		type(delay, 10, 120);
+		delay.completionsComputed(TimeUnit.MILLISECONDS.toNanos(500));
+		Assertions.assertEquals(180, delay.getDelay(200));
+
+		delay.setBounds(300, 800);
+		Assertions.assertEquals(300, delay.getDelay(200));
+
+		delay.reset();
+		Assertions.assertEquals(400, delay.getDelay(400));
+	}
+
+
+}
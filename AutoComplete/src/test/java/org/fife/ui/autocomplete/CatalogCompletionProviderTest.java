@@ -0,0 +1,140 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import javax.swing.JTextArea;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class CatalogCompletionProviderTest {
+
+	private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n" +
+		"<!DOCTYPE api SYSTEM \"CompletionXml.dtd\">\n" +
+		"<api language=\"C\">\n" +
+		"<environment paramStartChar=\"(\" paramEndChar=\")\" paramSeparator=\", \" terminal=\";\"/>\n" +
+		"<keywords>\n" +
+		"<keyword name=\"printf\" type=\"function\" returnType=\"int\" definedIn=\"stdio.h\">\n" +
+		"  <params><param type=\"const char *\" name=\"format\"><desc>The format.</desc></param></params>\n" +
+		"  <desc>Prints formatted output.</desc>\n" +
+		"  <returnValDesc>The number of characters printed.</returnValDesc>\n" +
+		"</keyword>\n" +
+		"<keyword name=\"EOF\" type=\"constant\" returnType=\"int\" definedIn=\"stdio.h\"/>\n" +
+		"<keyword name=\"puts\" type=\"function\" returnType=\"int\" definedIn=\"stdio.h\"/>\n" +
+		"<keyword name=\"perror\" type=\"function\" returnType=\"void\" definedIn=\"stdio.h\"/>\n" +
+		"<keyword name=\"abs\" type=\"function\" returnType=\"int\" definedIn=\"stdlib.h\"/>\n" +
+		"</keywords>\n" +
+		"</api>\n";
+
+
+	private static CatalogCompletionProvider createProvider() throws IOException {
+		File file = File.createTempFile("completions", ".catalog");
+		file.deleteOnExit();
+		try (OutputStream out = Files.newOutputStream(file.toPath())) {
+			CompletionCatalogCompiler.compile(new ByteArrayInputStream(
+				XML.getBytes(StandardCharsets.UTF_8)), out);
+		}
+		return new CatalogCompletionProvider(file);
+	}
+
+
+	@Test
+	void compile_completionsRoundTrip() throws IOException {
+
+		CatalogCompletionProvider provider = createProvider();
+		Assertions.assertEquals(5, provider.getCatalogSize());
+		Assertions.assertEquals('(', provider.getParameterListStart());
+		Assertions.assertEquals(", ", provider.getParameterListSeparator());
+
+		List<Completion> matches = provider.getCompletionByInputText("PRINTF");
+		Assertions.assertEquals(1, matches.size());
+		FunctionCompletion fc = (FunctionCompletion)matches.get(0);
+		Assertions.assertEquals("int", fc.getType());
+		Assertions.assertEquals("stdio.h", fc.getDefinedIn());
+		Assertions.assertEquals("Prints formatted output.", fc.getShortDescription());
+		Assertions.assertEquals("The number of characters printed.", fc.getReturnValueDescription());
+		Assertions.assertEquals(1, fc.getParamCount());
+		Assertions.assertEquals("format", fc.getParam(0).getName());
+		Assertions.assertEquals("const char *", fc.getParam(0).getType());
+		Assertions.assertEquals("The format.", fc.getParam(0).getDescription());
+
+		Assertions.assertTrue(provider.getCompletionByInputText("EOF").get(0) instanceof VariableCompletion);
+		Assertions.assertNull(provider.getCompletionByInputText("print"));
+	}
+
+
+	@Test
+	void getCompletionsByPrefix_includesAddedCompletions() throws IOException {
+
+		CatalogCompletionProvider provider = createProvider();
+		List<Completion> matches = provider.getCompletionsByPrefix("p");
+		Assertions.assertEquals(3, matches.size());
+		Assertions.assertEquals("perror", matches.get(0).getInputText());
+		Assertions.assertSame(matches.get(0), provider.getCompletionsByPrefix("pe").get(0));
+
+		provider.addCompletion(new BasicCompletion(provider, "pow"));
+		matches = provider.getCompletionsByPrefix("p");
+		Assertions.assertEquals(4, matches.size());
+		Assertions.assertEquals("pow", matches.get(1).getInputText());
+	}
+
+
+	@Test
+	void getCompletionsByPrefix_mergedWithAdded_sameInstances() throws IOException {
+
+		CatalogCompletionProvider provider = createProvider();
+		Completion perror = provider.getCompletionByInputText("perror").get(0);
+		Completion pow = new BasicCompletion(provider, "pow");
+		provider.addCompletion(pow);
+
+		List<Completion> matches = provider.getCompletionsByPrefix("p");
+		Assertions.assertSame(perror, matches.get(0));
+		Assertions.assertSame(pow, matches.get(1));
+		Assertions.assertSame(matches.get(2), provider.getCompletionByInputText("printf").get(0));
+		Assertions.assertSame(pow, provider.getCompletionByInputText("POW").get(0));
+	}
+
+
+	@Test
+	void getCompletionCursor_streamsCatalogRange() throws IOException {
+
+		CatalogCompletionProvider provider = createProvider();
+		JTextArea textArea = new JTextArea("pu");
+		textArea.setCaretPosition(2);
+
+		CompletionCursor cursor = provider.getCompletionCursor(textArea);
+		Assertions.assertEquals(1, cursor.getEstimatedSize());
+		Assertions.assertEquals("puts", cursor.next().getInputText());
+		Assertions.assertFalse(cursor.hasNext());
+
+		provider.addCompletion(new BasicCompletion(provider, "putc"));
+		Assertions.assertNull(provider.getCompletionCursor(textArea));
+		Assertions.assertEquals(2, provider.getCompletions(textArea).size());
+	}
+
+
+	@Test
+	void getCompletions_withMatcher_findsCatalogMatches() throws IOException {
+
+		CatalogCompletionProvider provider = createProvider();
+		provider.setCompletionMatcher(new FuzzyCompletionMatcher());
+		JTextArea textArea = new JTextArea("rr");
+		textArea.setCaretPosition(2);
+
+		List<Completion> matches = provider.getCompletions(textArea);
+		Assertions.assertEquals(1, matches.size());
+		Assertions.assertEquals("perror", matches.get(0).getInputText());
+	}
+
+
+}
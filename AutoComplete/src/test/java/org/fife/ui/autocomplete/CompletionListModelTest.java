@@ -0,0 +1,89 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class CompletionListModelTest {
+
+	private static CompletionCursor createCursor(int count, int estimate) {
+
+		DefaultCompletionProvider provider = new DefaultCompletionProvider();
+		return new CompletionCursor() {
+
+			private int next;
+
+			@Override
+			public int getEstimatedSize() {
+				return estimate;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return next < count;
+			}
+
+			@Override
+			public Completion next() {
+				return new BasicCompletion(provider, "item" + next++);
+			}
+		};
+	}
+
+
+	@Test
+	void setContents_cursor_readsOnlyFirstPage() {
+
+		CursorCompletionList list = new CursorCompletionList(createCursor(100000, 100000));
+		CompletionListModel model = new CompletionListModel();
+		model.setContents(list);
+
+		Assertions.assertEquals(CompletionListModel.CURSOR_PAGE_SIZE, model.getSize());
+		Assertions.assertEquals("item9", model.getElementAt(9).getInputText());
+		Assertions.assertEquals(CompletionListModel.CURSOR_PAGE_SIZE, list.getMaterializedCount());
+
+	}
+
+
+	@Test
+	void getElementAt_cursor_lastRowReadsNextPage() throws Exception {
+
+		CursorCompletionList list = new CursorCompletionList(createCursor(70, 100000));
+		CompletionListModel model = new CompletionListModel();
+		model.setContents(list);
+		int size = model.getSize();
+
+		model.getElementAt(size - 1);
+		SwingUtilities.invokeAndWait(() -> { });
+		Assertions.assertEquals(70, model.getSize());
+		Assertions.assertEquals("item69", model.getElementAt(69).getInputText());
+
+	}
+
+
+	@Test
+	void setContents_cursor_sizeExactWhenEstimateTooHigh() {
+
+		CursorCompletionList list = new CursorCompletionList(createCursor(5, 50));
+		CompletionListModel model = new CompletionListModel();
+		model.setContents(list);
+		Assertions.assertEquals(5, model.getSize());
+
+	}
+
+
+	@Test
+	void cursorCompletionList_zeroOrOneCompletionsAreExact() {
+		Assertions.assertEquals(0, new CursorCompletionList(createCursor(0, 10)).size());
+		Assertions.assertEquals(1, new CursorCompletionList(createCursor(1, 10)).size());
+		Assertions.assertTrue(new CursorCompletionList(createCursor(2, 0)).size() > 1);
+	}
+
+
+}
@@ -0,0 +1,212 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class CompletionXMLParserTest {
+
+	private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n" +
+		"<!DOCTYPE api SYSTEM \"CompletionXml.dtd\">\n" +
+		"<api language=\"C\">\n" +
+		"<environment paramStartChar=\"(\" paramEndChar=\")\" paramSeparator=\", \" terminal=\";\"/>\n" +
+		"<keywords>\n" +
+		"<keyword name=\"fclose\" type=\"function\" returnType=\"int\" definedIn=\"stdio.h\">\n" +
+		"  <params><param type=\"FILE *\" name=\"stream\"/></params>\n" +
+		"</keyword>\n" +
+		"<keyword name=\"fflush\" type=\"function\" returnType=\"int\" definedIn=\"stdio.h\">\n" +
+		"  <params><param type=\"FILE *\" name=\"stream\"/></params>\n" +
+		"</keyword>\n" +
+		"<keyword name=\"fputs\" type=\"function\" returnType=\"int\" definedIn=\"stdio.h\">\n" +
+		"  <params><param type=\"const char *\" name=\"s\"/>" +
+		"<param type=\"FILE *\" name=\"stream\"><desc>The stream.</desc></param></params>\n" +
+		"  <desc>Writes a string to a stream, without its terminating null character.</desc>\n" +
+		"  <returnValDesc>A non-negative number on success, or EOF on error.</returnValDesc>\n" +
+		"</keyword>\n" +
+		"</keywords>\n" +
+		"</api>\n";
+
+
+	private static String createXml(String... functions) {
+		StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n" +
+			"<!DOCTYPE api SYSTEM \"CompletionXml.dtd\">\n" +
+			"<api language=\"C\">\n<keywords>\n");
+		for (String function : functions) {
+			sb.append("<keyword name=\"").append(function).
+				append("\" type=\"function\" returnType=\"int\"/>\n");
+		}
+		return sb.append("</keywords>\n</api>\n").toString();
+	}
+
+
+	private static String createXmlFile(String xml) throws IOException {
+		File file = File.createTempFile("completions", ".xml");
+		file.deleteOnExit();
+		Files.write(file.toPath(), xml.getBytes(StandardCharsets.UTF_8));
+		return file.getAbsolutePath();
+	}
+
+
+	private static FunctionCompletion getFunction(List<Completion> completions,
+			String name) {
+		for (Completion c : completions) {
+			if (name.equals(c.getInputText())) {
+				return (FunctionCompletion)c;
+			}
+		}
+		throw new AssertionError("No such function: " + name);
+	}
+
+
+	@Test
+	void loadFromXML_repeatedValuesShared() throws IOException {
+
+		DefaultCompletionProvider provider = new DefaultCompletionProvider();
+		provider.setSharedParametersEnabled(true);
+		provider.loadFromXML(new ByteArrayInputStream(XML.getBytes(StandardCharsets.UTF_8)));
+		List<Completion> completions = provider.getCompletionsByPrefix("f");
+
+		FunctionCompletion fclose = getFunction(completions, "fclose");
+		FunctionCompletion fflush = getFunction(completions, "fflush");
+		FunctionCompletion fputs = getFunction(completions, "fputs");
+		Assertions.assertSame(fclose.getType(), fflush.getType());
+		Assertions.assertSame(fclose.getDefinedIn(), fputs.getDefinedIn());
+		Assertions.assertSame(fclose.getParam(0), fflush.getParam(0));
+
+		// Parameters with different descriptions aren't shared
+		ParameterizedCompletion.Parameter param = fputs.getParam(1);
+		Assertions.assertNotSame(fclose.getParam(0), param);
+		Assertions.assertSame(fclose.getParam(0).getName(), param.getName());
+		Assertions.assertEquals("The stream.", param.getDescription());
+
+	}
+
+
+	@Test
+	void loadFromXML_parametersNotSharedByDefault() throws IOException {
+
+		DefaultCompletionProvider provider = new DefaultCompletionProvider();
+		provider.loadFromXML(new ByteArrayInputStream(XML.getBytes(StandardCharsets.UTF_8)));
+		List<Completion> completions = provider.getCompletionsByPrefix("f");
+
+		FunctionCompletion fclose = getFunction(completions, "fclose");
+		FunctionCompletion fflush = getFunction(completions, "fflush");
+		Assertions.assertNotSame(fclose.getParam(0), fflush.getParam(0));
+		Assertions.assertSame(fclose.getParam(0).getName(), fflush.getParam(0).getName());
+
+		fclose.getParam(0).setDescription("Changed.");
+		Assertions.assertEquals("Changed.", fclose.getParam(0).getDescription());
+		Assertions.assertNotEquals("Changed.", fflush.getParam(0).getDescription());
+
+	}
+
+
+	@Test
+	void getDeduplicatedBytes_countsSharedValues() throws Exception {
+
+		DefaultCompletionProvider provider = new DefaultCompletionProvider();
+		CompletionXMLParser parser = new CompletionXMLParser(provider);
+		Assertions.assertEquals(0, parser.getDeduplicatedBytes());
+
+		SAXParserFactory factory = SAXParserFactory.newInstance();
+		factory.setValidating(true);
+		factory.newSAXParser().parse(new ByteArrayInputStream(
+			XML.getBytes(StandardCharsets.UTF_8)), parser);
+
+		Assertions.assertEquals(3, parser.getCompletions().size());
+		Assertions.assertTrue(parser.getDeduplicatedBytes()>0);
+
+	}
+
+
+
+	@Test
+	void loadFromXML_lazyDescriptionsMatchEager() throws IOException {
+
+		DefaultCompletionProvider eager = new DefaultCompletionProvider();
+		eager.loadFromXML(new ByteArrayInputStream(XML.getBytes(StandardCharsets.UTF_8)));
+		DefaultCompletionProvider lazy = new DefaultCompletionProvider();
+		lazy.setLazyDescriptionsEnabled(true);
+		lazy.loadFromXML(new ByteArrayInputStream(XML.getBytes(StandardCharsets.UTF_8)));
+
+		FunctionCompletion expected = getFunction(eager.getCompletionsByPrefix("f"), "fputs");
+		FunctionCompletion actual = getFunction(lazy.getCompletionsByPrefix("f"), "fputs");
+		Assertions.assertNotNull(expected.getShortDescription());
+		Assertions.assertEquals(expected.getShortDescription(), actual.getShortDescription());
+		Assertions.assertEquals(expected.getReturnValueDescription(),
+			actual.getReturnValueDescription());
+		Assertions.assertEquals(expected.getSummary(), actual.getSummary());
+
+	}
+
+
+	@Test
+	void descriptionStore_dispose_laterReadsEmpty() throws IOException {
+
+		DescriptionStore store = new DescriptionStore();
+		String text = "A description long enough to be kept in the file.";
+		CharSequence read = store.add(text);
+		CharSequence unread = store.add(text + "  Never read.");
+		store.flush();
+		Assertions.assertEquals(text, read.toString());
+
+		store.dispose();
+		Assertions.assertEquals("", read.toString());
+		Assertions.assertEquals("", unread.toString());
+		Assertions.assertThrows(IOException.class, store::flush);
+
+	}
+
+
+	@Test
+	void loadFromXML_multipleFilesMatchLoadingEachInTurn() throws IOException {
+
+		List<String> files = Arrays.asList(createXmlFile(XML),
+			createXmlFile(createXml("free", "fputs", "abs")));
+
+		DefaultCompletionProvider expected = new DefaultCompletionProvider();
+		for (String file : files) {
+			expected.loadFromXML(file);
+		}
+		DefaultCompletionProvider actual = new DefaultCompletionProvider();
+		List<XMLLoadResult> results = actual.loadFromXML(files);
+
+		Assertions.assertEquals(2, results.size());
+		Assertions.assertEquals(files.get(0), results.get(0).getResource());
+		Assertions.assertEquals(3, results.get(0).getCompletionCount());
+		Assertions.assertEquals(3, results.get(1).getCompletionCount());
+		Assertions.assertFalse(results.get(1).getParseTime().isNegative());
+
+		Assertions.assertEquals(expected.completions, actual.completions);
+		Assertions.assertEquals(", ", actual.getParameterListSeparator());
+
+	}
+
+
+	@Test
+	void loadFromXML_multipleFilesAddNothingOnError() throws IOException {
+
+		List<String> files = Arrays.asList(createXmlFile(XML),
+			createXmlFile(XML.replace("</api>", "")));
+
+		DefaultCompletionProvider provider = new DefaultCompletionProvider();
+		Assertions.assertThrows(IOException.class, () -> provider.loadFromXML(files));
+		Assertions.assertTrue(provider.completions.isEmpty());
+
+	}
+
+
+}
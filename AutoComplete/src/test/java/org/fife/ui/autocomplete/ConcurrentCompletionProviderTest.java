@@ -0,0 +1,110 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.JTextArea;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class ConcurrentCompletionProviderTest {
+
+
+	@Test
+	void addCompletion_fromManyThreads_allVisibleAndSorted() throws Exception {
+
+		ConcurrentCompletionProvider provider = new ConcurrentCompletionProvider();
+		List<Thread> threads = new ArrayList<>();
+		for (int t=0; t<4; t++) {
+			String prefix = "word" + t + "_";
+			Thread thread = new Thread(() -> {
+				for (int i=0; i<250; i++) {
+					provider.addCompletion(new BasicCompletion(provider, prefix + i));
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		List<Completion> all = provider.getSnapshot();
+		Assertions.assertEquals(1000, all.size());
+		Assertions.assertTrue(SortedRuns.isSorted(all, null));
+		Assertions.assertEquals(250, provider.getCompletionsByPrefix("word2_").size());
+		Assertions.assertEquals(1, provider.getCompletionByInputText("WORD3_17").size());
+		Assertions.assertNull(provider.getCompletionByInputText("word3_"));
+	}
+
+
+	@Test
+	void getCompletionsByPrefix_unaffectedByLaterUpdates() {
+
+		ConcurrentCompletionProvider provider = new ConcurrentCompletionProvider(
+			new String[] { "apple", "apricot", "banana" });
+		List<Completion> matches = provider.getCompletionsByPrefix("ap");
+		Assertions.assertEquals(2, matches.size());
+
+		provider.addCompletion(new BasicCompletion(provider, "apex"));
+		Assertions.assertTrue(provider.removeCompletion(matches.get(0)));
+		Assertions.assertEquals(2, matches.size());
+		Assertions.assertEquals("apple", matches.get(0).getInputText());
+
+		Assertions.assertEquals(2, provider.getCompletionsByPrefix("ap").size());
+		provider.clear();
+		Assertions.assertEquals(0, provider.getSnapshot().size());
+	}
+
+
+	@Test
+	void setIncrementalRefinementEnabled_true_ignored() {
+		ConcurrentCompletionProvider provider = new ConcurrentCompletionProvider();
+		provider.setIncrementalRefinementEnabled(true);
+		provider.setCompletionIndex(new PrefixTreeCompletionIndex());
+		Assertions.assertFalse(provider.isIncrementalRefinementEnabled());
+		Assertions.assertNull(provider.getCompletionIndex());
+	}
+
+
+	@Test
+	void beginBatchUpdate_completionsVisibleImmediately() {
+		ConcurrentCompletionProvider provider = new ConcurrentCompletionProvider();
+		provider.beginBatchUpdate();
+		provider.addCompletion(new BasicCompletion(provider, "apple"));
+		Assertions.assertFalse(provider.isBatchUpdating());
+		Assertions.assertEquals(1, provider.getCompletionsByPrefix("ap").size());
+		provider.commitBatchUpdate();
+		provider.commitBatchUpdate();
+		Assertions.assertEquals(1, provider.getSnapshot().size());
+	}
+
+
+	@Test
+	void getCompletions_offEdt_includesParentCompletions() throws Exception {
+
+		DefaultCompletionProvider parent = new DefaultCompletionProvider(
+			new String[] { "apricot" });
+		ConcurrentCompletionProvider provider = new ConcurrentCompletionProvider(
+			new String[] { "apple" });
+		provider.setParent(parent);
+
+		JTextArea textArea = new JTextArea("ap");
+		textArea.setCaretPosition(2);
+		CompletionContext context = new CompletionContext(textArea, provider);
+		List<Completion> completions = new ArrayList<>();
+		Thread thread = new Thread(() -> completions.addAll(provider.getCompletions(context)));
+		thread.start();
+		thread.join();
+
+		Assertions.assertEquals(2, completions.size());
+
+	}
+
+
+}
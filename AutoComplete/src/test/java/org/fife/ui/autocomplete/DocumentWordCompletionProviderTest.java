@@ -0,0 +1,107 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.JTextArea;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class DocumentWordCompletionProviderTest {
+
+
+	private static List<String> getInputTexts(List<Completion> completions) {
+		List<String> texts = new ArrayList<>();
+		for (Completion c : completions) {
+			texts.add(c.getInputText());
+		}
+		return texts;
+	}
+
+
+	@Test
+	void getCompletions_ranksByOccurrenceCount() {
+
+		JTextArea textArea = new JTextArea(
+			"request received\nrequest failed\nrequest retried\nresponse sent\nre");
+		textArea.setCaretPosition(textArea.getDocument().getLength());
+		DocumentWordCompletionProvider provider = new DocumentWordCompletionProvider();
+
+		List<String> texts = getInputTexts(provider.getCompletions(textArea));
+		Assertions.assertEquals("request", texts.get(0));
+		Assertions.assertTrue(texts.contains("received"));
+		Assertions.assertTrue(texts.contains("response"));
+		Assertions.assertFalse(texts.contains("re")); // Too short
+		Assertions.assertFalse(texts.contains("sent"));
+
+	}
+
+
+	@Test
+	void getCompletions_wordBeingTypedNotOffered() {
+
+		JTextArea textArea = new JTextArea("timeout\ntimeo");
+		textArea.setCaretPosition(textArea.getDocument().getLength());
+		DocumentWordCompletionProvider provider = new DocumentWordCompletionProvider();
+
+		List<String> texts = getInputTexts(provider.getCompletions(textArea));
+		Assertions.assertEquals(List.of("timeout"), texts);
+
+	}
+
+
+	@Test
+	void getCompletions_laterEditsDontChangeReturnedRelevance() throws BadLocationException {
+
+		JTextArea textArea = new JTextArea("timeout timeout\nti");
+		textArea.setCaretPosition(textArea.getDocument().getLength());
+		DocumentWordCompletionProvider provider = new DocumentWordCompletionProvider();
+
+		Completion completion = provider.getCompletions(textArea).get(0);
+		Assertions.assertEquals(2, completion.getRelevance());
+		textArea.getDocument().insertString(0, "timeout ", null);
+		Assertions.assertEquals(2, completion.getRelevance());
+
+	}
+
+
+	@Test
+	void edits_indexMatchesFullReindex() throws BadLocationException {
+
+		JTextArea textArea = new JTextArea("alpha beta\ngamma alpha\ndelta");
+		Document doc = textArea.getDocument();
+		DocumentWordCompletionProvider provider = new DocumentWordCompletionProvider();
+		provider.setDocument(doc);
+		Assertions.assertEquals(2, provider.getOccurrenceCount("alpha"));
+
+		doc.insertString(6, "alphabet\nepsilon ", null); // Splits a line
+		doc.remove(0, 6); // Removes a word
+		doc.remove(doc.getText(0, doc.getLength()).indexOf("gamma") - 1, 1); // Joins lines
+		doc.insertString(doc.getLength(), "\nBETA beta", null);
+
+		Assertions.assertEquals(1, provider.getOccurrenceCount("alpha"));
+		Assertions.assertEquals(1, provider.getOccurrenceCount("alphabet"));
+		Assertions.assertEquals(1, provider.getOccurrenceCount("betagamma"));
+		Assertions.assertEquals(1, provider.getOccurrenceCount("beta"));
+		Assertions.assertEquals(1, provider.getOccurrenceCount("BETA"));
+
+		DocumentWordCompletionProvider fresh = new DocumentWordCompletionProvider();
+		fresh.setDocument(doc);
+		Assertions.assertEquals(fresh.getWordCount(), provider.getWordCount());
+		for (String word : new String[] { "alpha", "alphabet", "beta", "BETA", "betagamma",
+				"epsilon", "gamma", "delta" }) {
+			Assertions.assertEquals(fresh.getOccurrenceCount(word),
+				provider.getOccurrenceCount(word), word);
+		}
+
+	}
+
+
+}
@@ -0,0 +1,60 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.List;
+import javax.swing.JTextArea;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class FuzzyCompletionMatcherTest {
+
+	@Test
+	void match_camelCase() {
+		FuzzyCompletionMatcher matcher = new FuzzyCompletionMatcher();
+		Assertions.assertNotEquals(CompletionMatcher.NO_MATCH, matcher.match("gSI", "getSelectedIndex"));
+		Assertions.assertNotEquals(CompletionMatcher.NO_MATCH, matcher.match("getSelIn", "getSelectedIndex"));
+		Assertions.assertNotEquals(CompletionMatcher.NO_MATCH, matcher.match("vs", "VERTICAL_SCROLLBAR"));
+		matcher.setSubsequenceMatching(false);
+		Assertions.assertEquals(CompletionMatcher.NO_MATCH, matcher.match("gXI", "getSelectedIndex"));
+	}
+
+
+	@Test
+	void match_betterKindsOfMatchesScoreHigher() {
+		FuzzyCompletionMatcher matcher = new FuzzyCompletionMatcher();
+		int prefix = matcher.match("set", "setText");
+		int camelCase = matcher.match("sT", "setText");
+		int substring = matcher.match("ext", "setText");
+		int subsequence = matcher.match("stx", "setText");
+		Assertions.assertTrue(prefix > camelCase);
+		Assertions.assertTrue(camelCase > substring);
+		Assertions.assertTrue(substring > subsequence);
+		Assertions.assertTrue(subsequence >= 0);
+		Assertions.assertEquals(CompletionMatcher.NO_MATCH, matcher.match("xts", "setText"));
+	}
+
+
+	@Test
+	void usedByProvider_ranksByScore() {
+
+		DefaultCompletionProvider provider = new DefaultCompletionProvider(
+				new String[] { "getSelectedIndex", "gsiHelper", "setText", "isGoodSize" });
+		provider.setCompletionMatcher(new FuzzyCompletionMatcher());
+		JTextArea textArea = new JTextArea("gsi");
+		textArea.setCaretPosition(3);
+
+		List<Completion> completions = provider.getCompletions(textArea);
+		Assertions.assertEquals(3, completions.size());
+		Assertions.assertEquals("gsiHelper", completions.get(0).getInputText());
+		Assertions.assertEquals("getSelectedIndex", completions.get(1).getInputText());
+		Assertions.assertEquals("isGoodSize", completions.get(2).getInputText());
+
+	}
+
+
+}
@@ -0,0 +1,66 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class LatencyHistogramTest {
+
+
+	@Test
+	void getPercentile_empty_returnsZero() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		Assertions.assertEquals(0, histogram.getCount());
+		Assertions.assertEquals(0, histogram.getPercentile(50));
+		Assertions.assertEquals(0.0, histogram.getMean());
+	}
+
+
+	@Test
+	void getPercentile_withinBucketPrecision() {
+
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i=1; i<=1000; i++) {
+			histogram.record(i * 1000L);
+		}
+
+		Assertions.assertEquals(1000, histogram.getCount());
+		Assertions.assertEquals(500_500.0, histogram.getMean());
+		Assertions.assertEquals(1_000_000, histogram.getMax());
+
+		long p50 = histogram.getPercentile(50);
+		Assertions.assertTrue(p50>=500_000 && p50<=500_000*1.125, "p50: " + p50);
+		long p99 = histogram.getPercentile(99);
+		Assertions.assertTrue(p99>=990_000 && p99<=1_000_000, "p99: " + p99);
+		Assertions.assertEquals(1_000_000, histogram.getPercentile(100));
+		Assertions.assertTrue(histogram.getPercentile(0)<=1000 * 1.125);
+
+		histogram.reset();
+		Assertions.assertEquals(0, histogram.getCount());
+		Assertions.assertEquals(0, histogram.getPercentile(99));
+	}
+
+
+	@Test
+	void record_smallValues_areExact() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(3);
+		histogram.record(-5);
+		Assertions.assertEquals(0, histogram.getPercentile(50));
+		Assertions.assertEquals(3, histogram.getPercentile(100));
+		Assertions.assertEquals(Long.MAX_VALUE, recordAndGetMax(Long.MAX_VALUE));
+	}
+
+
+	private static long recordAndGetMax(long value) {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(value);
+		return histogram.getPercentile(100);
+	}
+
+
+}
@@ -0,0 +1,90 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.PlainDocument;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class ParameterRangesTest {
+
+	private static ParameterRanges createRanges(Document doc)
+			throws BadLocationException {
+		// "foo(one, two) ", with the trailing space as the "cursor" parameter
+		doc.insertString(0, "foo(one, two) ", null);
+		ParameterRanges ranges = new ParameterRanges();
+		ranges.add(doc, 3, 7);
+		ranges.add(doc, 8, 12);
+		ranges.add(doc, 13, 13);
+		return ranges;
+	}
+
+
+	@Test
+	void indexOf_findsContainingParameter() throws BadLocationException {
+
+		ParameterRanges ranges = createRanges(new PlainDocument());
+
+		Assertions.assertEquals(-1, ranges.indexOf(2, false));
+		Assertions.assertEquals(0, ranges.indexOf(3, false));
+		Assertions.assertEquals(0, ranges.indexOf(6, false));
+		Assertions.assertEquals(-1, ranges.indexOf(7, false));
+		Assertions.assertEquals(0, ranges.indexOf(7, true));
+		Assertions.assertEquals(1, ranges.indexOf(8, false));
+		Assertions.assertEquals(2, ranges.indexOf(13, true));
+
+		Assertions.assertEquals(1, ranges.getNext(3, false));
+		Assertions.assertEquals(0, ranges.getNext(3, true));
+		Assertions.assertEquals(-1, ranges.getNext(13, false));
+		Assertions.assertEquals(0, ranges.getPrevious(8));
+		Assertions.assertEquals(-1, ranges.getPrevious(3));
+	}
+
+
+	@Test
+	void indexOf_afterEdits_tracksDocumentChanges() throws BadLocationException {
+
+		Document doc = new PlainDocument();
+		ParameterRanges ranges = createRanges(doc);
+
+		doc.insertString(5, "xyz", null); // "foo(onxyze, two) "
+		Assertions.assertEquals(10, ranges.getEndOffset(0));
+		Assertions.assertEquals(11, ranges.getStartOffset(1));
+		Assertions.assertEquals(0, ranges.indexOf(9, false));
+		Assertions.assertEquals(1, ranges.indexOf(12, false));
+
+		doc.remove(0, 4);
+		Assertions.assertEquals(0, ranges.getStartOffset(0));
+		Assertions.assertEquals(0, ranges.getFirst());
+		Assertions.assertEquals(2, ranges.getLast());
+	}
+
+
+	@Test
+	void getFirst_parametersAddedOutOfOrder_returnsFirstInDocument() throws BadLocationException {
+
+		Document doc = new PlainDocument();
+		doc.insertString(0, "for (i) { }", null);
+		ParameterRanges ranges = new ParameterRanges();
+		ranges.add(doc, 4, 6);
+		ranges.add(doc, 9, 9);
+		ranges.add(doc, 0, 0);
+
+		Assertions.assertEquals(2, ranges.getFirst());
+		Assertions.assertEquals(1, ranges.getLast());
+		Assertions.assertEquals(0, ranges.getNext(1, true));
+		Assertions.assertEquals(2, ranges.indexOf(0, true));
+
+		ranges.clear();
+		Assertions.assertEquals(0, ranges.size());
+		Assertions.assertEquals(-1, ranges.getFirst());
+	}
+
+
+}
@@ -0,0 +1,108 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.List;
+import javax.swing.JTextArea;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class PrefixTreeCompletionIndexTest {
+
+	private static PrefixTreeCompletionIndex createIndex(CompletionProvider provider,
+			String... words) {
+		PrefixTreeCompletionIndex index = new PrefixTreeCompletionIndex();
+		for (String word : words) {
+			index.add(new BasicCompletion(provider, word));
+		}
+		return index;
+	}
+
+
+	@Test
+	void getByPrefix_happyPath() {
+
+		DefaultCompletionProvider provider = new DefaultCompletionProvider();
+		PrefixTreeCompletionIndex index = createIndex(provider,
+				"setText", "getText", "getSelectedIndex", "get", "getSize", "size");
+
+		List<Completion> matches = index.getByPrefix("get");
+		Assertions.assertEquals(4, matches.size());
+		Assertions.assertEquals("get", matches.get(0).getInputText());
+
+		Assertions.assertEquals(2, index.getByPrefix("getS").size());
+		Assertions.assertEquals(1, index.getByPrefix("getSi").size());
+		Assertions.assertEquals(0, index.getByPrefix("getX").size());
+		Assertions.assertEquals(0, index.getByPrefix("getSizeTooLong").size());
+		Assertions.assertEquals(6, index.getByPrefix("").size());
+
+	}
+
+
+	@Test
+	void getByPrefix_ignoresCase() {
+
+		DefaultCompletionProvider provider = new DefaultCompletionProvider();
+		PrefixTreeCompletionIndex index = createIndex(provider,
+				"GetText", "getTEXT", "gettext", "getter");
+
+		Assertions.assertEquals(4, index.getByPrefix("GET").size());
+		Assertions.assertEquals(3, index.getByPrefix("gEtTeXt").size());
+		Assertions.assertEquals(3, index.getByInputText("GETTEXT").size());
+		Assertions.assertEquals(0, index.getByInputText("gett").size());
+
+	}
+
+
+	@Test
+	void getByInputText_allOverloadsReturned() {
+
+		DefaultCompletionProvider provider = new DefaultCompletionProvider();
+		PrefixTreeCompletionIndex index = createIndex(provider,
+				"get", "get", "get", "getAll");
+
+		Assertions.assertEquals(3, index.getByInputText("get").size());
+		Assertions.assertEquals(4, index.getByPrefix("get").size());
+
+	}
+
+
+	@Test
+	void remove_happyPath() {
+
+		DefaultCompletionProvider provider = new DefaultCompletionProvider();
+		PrefixTreeCompletionIndex index = createIndex(provider, "foo", "food");
+		Completion bar = new BasicCompletion(provider, "bar");
+		index.add(bar);
+
+		Assertions.assertTrue(index.remove(bar));
+		Assertions.assertFalse(index.remove(bar));
+		Assertions.assertEquals(2, index.size());
+		Assertions.assertEquals(0, index.getByPrefix("b").size());
+
+	}
+
+
+	@Test
+	void usedByProvider_returnsSameCompletionsAsSortedList() {
+
+		DefaultCompletionProvider provider = new DefaultCompletionProvider(
+				new String[] { "println", "printf", "print", "puts", "Print" });
+		JTextArea textArea = new JTextArea("pri");
+		textArea.setCaretPosition(textArea.getText().length());
+
+		List<Completion> expected = provider.getCompletions(textArea);
+		provider.setCompletionIndex(new PrefixTreeCompletionIndex());
+		List<Completion> actual = provider.getCompletions(textArea);
+
+		Assertions.assertEquals(4, expected.size());
+		Assertions.assertEquals(expected, actual);
+
+	}
+
+
+}
@@ -0,0 +1,127 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.List;
+import javax.swing.JTextArea;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.PlainDocument;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class SharedWordIndexTest {
+
+
+	private static Document createDocument(String text) throws BadLocationException {
+		Document doc = new PlainDocument();
+		doc.insertString(0, text, null);
+		return doc;
+	}
+
+
+	@Test
+	void register_wordsCountedAcrossDocuments() throws Exception {
+
+		SharedWordIndex index = new SharedWordIndex();
+		Document doc1 = createDocument("connect timeout\nretry");
+		Document doc2 = createDocument("timeout exceeded");
+		index.register(doc1);
+		index.register(doc2);
+		index.waitForUpdates();
+
+		Assertions.assertEquals(2, index.getDocumentCount());
+		Assertions.assertEquals(2, index.getOccurrenceCount("timeout"));
+		Assertions.assertEquals(4, index.getWordCount());
+
+	}
+
+
+	@Test
+	void edits_updateIndex() throws Exception {
+
+		SharedWordIndex index = new SharedWordIndex();
+		Document doc = createDocument("alpha beta\ngamma");
+		index.register(doc);
+
+		doc.insertString(5, " delta\nalpha", null);
+		doc.remove(0, 6);
+		index.waitForUpdates();
+
+		Assertions.assertEquals(1, index.getOccurrenceCount("alpha"));
+		Assertions.assertEquals(1, index.getOccurrenceCount("delta"));
+		Assertions.assertEquals(1, index.getOccurrenceCount("beta"));
+		Assertions.assertEquals(4, index.getWordCount());
+
+	}
+
+
+	@Test
+	void unregister_removesOnlyThatDocumentsWords() throws Exception {
+
+		SharedWordIndex index = new SharedWordIndex();
+		Document doc1 = createDocument("shared only1");
+		Document doc2 = createDocument("shared shared only2");
+		index.register(doc1);
+		index.register(doc1);
+		index.register(doc2);
+
+		index.unregister(doc1);
+		index.waitForUpdates();
+		Assertions.assertEquals(1, index.getOccurrenceCount("only1")); // Still referenced
+
+		index.unregister(doc1);
+		index.waitForUpdates();
+		Assertions.assertEquals(0, index.getOccurrenceCount("only1"));
+		Assertions.assertEquals(2, index.getOccurrenceCount("shared"));
+		Assertions.assertEquals(1, index.getDocumentCount());
+
+		doc1.insertString(0, "ignored ", null);
+		index.waitForUpdates();
+		Assertions.assertEquals(0, index.getOccurrenceCount("ignored"));
+
+	}
+
+
+	@Test
+	void register_customWordChars_usedForIndexing() throws Exception {
+
+		SharedWordIndex index = new SharedWordIndex(3, ch -> ch=='-' || Util.isWordChar(ch));
+		index.register(createDocument("max-width min_height"));
+		index.waitForUpdates();
+
+		Assertions.assertEquals(1, index.getOccurrenceCount("max-width"));
+		Assertions.assertEquals(1, index.getOccurrenceCount("min_height"));
+		Assertions.assertEquals(0, index.getOccurrenceCount("width"));
+
+		DocumentWordCompletionProvider provider = new DocumentWordCompletionProvider(index);
+		Assertions.assertThrows(IllegalStateException.class, () -> provider.setMinimumWordLength(5));
+
+	}
+
+
+	@Test
+	void provider_offersWordsFromOtherDocuments() throws Exception {
+
+		SharedWordIndex index = new SharedWordIndex();
+		DocumentWordCompletionProvider other = new DocumentWordCompletionProvider(index);
+		other.setDocument(createDocument("configuration"));
+
+		JTextArea textArea = new JTextArea("conf");
+		textArea.setCaretPosition(4);
+		DocumentWordCompletionProvider provider = new DocumentWordCompletionProvider(index);
+		provider.setDocument(textArea.getDocument());
+		index.waitForUpdates();
+
+		List<Completion> completions = provider.getCompletions(textArea);
+		Assertions.assertEquals(1, completions.size());
+		Assertions.assertEquals("configuration", completions.get(0).getInputText());
+
+	}
+
+
+}
@@ -0,0 +1,138 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.swing.JTextArea;
+
+
+/**
+ * Creates the data shared by several benchmarks.  Everything is generated
+ * from fixed seeds, so runs are comparable.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+final class BenchmarkData {
+
+	private static final Pattern KEYWORD_NAME = Pattern.compile("<keyword name=\"([^\"]*)\"");
+
+
+	private BenchmarkData() {
+	}
+
+
+	/**
+	 * Returns completions for the C standard library, as used by the demo.
+	 *
+	 * @param provider The provider of the completions.
+	 * @return The completions, sorted.
+	 * @throws IOException If an IO error occurs.
+	 */
+	static List<Completion> createCApiCompletions(DefaultCompletionProvider provider)
+			throws IOException {
+		provider.loadFromXML(new ByteArrayInputStream(createScaledCApi(1)));
+		return new ArrayList<>(provider.getCompletionsByPrefix(""));
+	}
+
+
+	/**
+	 * Returns a provider offering some words as completions.
+	 *
+	 * @param words The words.
+	 * @return The provider.
+	 */
+	static DefaultCompletionProvider createProvider(List<String> words) {
+		DefaultCompletionProvider provider = new DefaultCompletionProvider();
+		List<Completion> completions = new ArrayList<>(words.size());
+		for (String word : words) {
+			completions.add(new BasicCompletion(provider, word));
+		}
+		provider.addCompletions(completions);
+		return provider;
+	}
+
+
+	/**
+	 * Returns the demo's C API XML, with its keywords repeated.  Each copy's
+	 * keywords get a unique suffix, so the result has <code>scale</code>
+	 * times as many distinct completions.
+	 *
+	 * @param scale The number of copies of the keywords.
+	 * @return The XML, in UTF-8.
+	 * @throws IOException If an IO error occurs.
+	 */
+	static byte[] createScaledCApi(int scale) throws IOException {
+
+		String xml;
+		try (InputStream in = BenchmarkData.class.getResourceAsStream("/c.xml")) {
+			if (in==null) {
+				throw new IOException("c.xml not found");
+			}
+			xml = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+
+		int start = xml.indexOf("<keywords>") + "<keywords>".length();
+		int end = xml.indexOf("</keywords>");
+		String keywords = xml.substring(start, end);
+
+		StringBuilder sb = new StringBuilder(xml.length() * scale);
+		sb.append(xml, 0, start);
+		for (int i=0; i<scale; i++) {
+			Matcher m = KEYWORD_NAME.matcher(keywords);
+			sb.append(i==0 ? keywords : m.replaceAll("<keyword name=\"$1_" + i + "\""));
+		}
+		sb.append(xml.substring(end));
+		return sb.toString().getBytes(StandardCharsets.UTF_8);
+
+	}
+
+
+	/**
+	 * Returns a text area containing some text, with the caret at the end.
+	 *
+	 * @param text The text.
+	 * @return The text area.
+	 */
+	static JTextArea createTextArea(String text) {
+		JTextArea textArea = new JTextArea(text);
+		textArea.setCaretPosition(text.length());
+		return textArea;
+	}
+
+
+	/**
+	 * Returns random identifiers of 4 to 12 letters, in mixed case.
+	 *
+	 * @param count The number of identifiers.
+	 * @param seed The random seed.
+	 * @return The identifiers.
+	 */
+	static List<String> createWords(int count, long seed) {
+		Random random = new Random(seed);
+		List<String> words = new ArrayList<>(count);
+		StringBuilder sb = new StringBuilder();
+		for (int i=0; i<count; i++) {
+			sb.setLength(0);
+			int len = 4 + random.nextInt(9);
+			for (int j=0; j<len; j++) {
+				char ch = (char)('a' + random.nextInt(26));
+				sb.append(j>0 && random.nextInt(5)==0 ? Character.toUpperCase(ch) : ch);
+			}
+			words.add(sb.toString());
+		}
+		return words;
+	}
+
+
+}
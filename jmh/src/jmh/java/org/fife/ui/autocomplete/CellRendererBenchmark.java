@@ -0,0 +1,108 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * Benchmarks rendering rows of the completion list, cycling through the
+ * completions for the C standard library, which include functions with
+ * parameters, constants, and other kinds of completions.  Rows are rendered
+ * as HTML, either with the renderer's row cache or with it cleared before
+ * every row, or as styled text without HTML.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class CellRendererBenchmark {
+
+	@Param({ "false", "true" })
+	public boolean showTypes;
+
+	@Param({ "html", "htmlUncached", "styled" })
+	public String mode;
+
+	private JList<Completion> list;
+	private CompletionCellRenderer renderer;
+	private List<Completion> completions;
+	private int index;
+	private boolean uncached;
+	private BufferedImage image;
+	private Graphics2D g;
+
+
+	@Setup
+	public void setUp() throws IOException {
+		completions = BenchmarkData.createCApiCompletions(
+				new DefaultCompletionProvider());
+		list = new JList<>(completions.toArray(new Completion[0]));
+		renderer = new CompletionCellRenderer();
+		renderer.setShowTypes(showTypes);
+		renderer.setHtmlRenderingEnabled(!"styled".equals(mode));
+		uncached = "htmlUncached".equals(mode);
+		image = new BufferedImage(600, 20, BufferedImage.TYPE_INT_RGB);
+		g = image.createGraphics();
+	}
+
+
+	@Benchmark
+	public Component getListCellRendererComponent() {
+		if (uncached) {
+			renderer.clearRowCache();
+		}
+		Completion c = completions.get(index);
+		Component comp = renderer.getListCellRendererComponent(list, c,
+				index, (index&7)==0, false);
+		index = (index + 1) % completions.size();
+		return comp;
+	}
+
+
+	/**
+	 * Renders a row and gets its preferred size, as the list does when
+	 * laying out its rows.
+	 *
+	 * @return The preferred height of the row.
+	 */
+	@Benchmark
+	public int getListCellRendererComponentAndSize() {
+		return getListCellRendererComponent().getPreferredSize().height;
+	}
+
+
+	/**
+	 * Renders a row and paints it, as the list does when it is scrolled.
+	 *
+	 * @return The painted image.
+	 */
+	@Benchmark
+	public BufferedImage getListCellRendererComponentAndPaint() {
+		Component comp = getListCellRendererComponent();
+		comp.setSize(image.getWidth(), image.getHeight());
+		comp.paint(g);
+		return image;
+	}
+
+
+}
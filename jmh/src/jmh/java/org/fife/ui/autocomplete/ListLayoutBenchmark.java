@@ -0,0 +1,75 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JList;
+import javax.swing.JScrollPane;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * Benchmarks {@link FastListUI#updateLayoutState()}, which computes the size
+ * of the rows in the completion list whenever its contents change, for
+ * lists below and above the size at which row sizes are estimated.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class ListLayoutBenchmark {
+
+	@Param({ "100", "1000", "100000" })
+	public int listSize;
+
+	private FastListUI ui;
+
+
+	@Setup
+	public void setUp() throws IOException {
+
+		List<Completion> cApi = BenchmarkData.createCApiCompletions(
+				new DefaultCompletionProvider());
+		List<Completion> completions = new ArrayList<>(listSize);
+		for (int i=0; i<listSize; i++) {
+			completions.add(cApi.get(i % cApi.size()));
+		}
+
+		CompletionListModel model = new CompletionListModel();
+		model.setContents(completions);
+		JList<Completion> list = new JList<>(model);
+		list.setCellRenderer(new CompletionCellRenderer());
+		ui = new FastListUI();
+		list.setUI(ui);
+
+		// The completion list is always in a scroll pane, whose width the
+		// estimate is based on.
+		JScrollPane scrollPane = new JScrollPane(list);
+		scrollPane.setSize(300, 200);
+		scrollPane.doLayout();
+
+	}
+
+
+	@Benchmark
+	public void updateLayoutState() {
+		ui.updateLayoutState();
+	}
+
+
+}
@@ -0,0 +1,94 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JTextArea;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * Benchmarks {@code CompletionProviderBase.getCompletions()} for a provider
+ * with a chain of parent providers, each of which adds its completions to
+ * those returned.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ParentChainBenchmark {
+
+	private static final int PROVIDER_SIZE = 10000;
+
+	@Param({ "0", "1", "3" })
+	public int parentCount;
+
+	@Param({ "1", "2" })
+	public int prefixLength;
+
+	@Param({ "false", "true" })
+	public boolean lazySorting;
+
+	private DefaultCompletionProvider provider;
+	private JTextArea textArea;
+
+
+	@Setup
+	public void setUp() {
+
+		List<String> words = BenchmarkData.createWords(PROVIDER_SIZE, 1);
+		provider = BenchmarkData.createProvider(words);
+
+		CompletionProviderBase child = provider;
+		for (int i=0; i<parentCount; i++) {
+			DefaultCompletionProvider parent = BenchmarkData.createProvider(
+					BenchmarkData.createWords(PROVIDER_SIZE, i + 2));
+			child.setParent(parent);
+			child = parent;
+		}
+		provider.setLazySortingThreshold(lazySorting ? 1 : 0);
+
+		String prefix = words.get(PROVIDER_SIZE / 2).substring(0, prefixLength);
+		textArea = BenchmarkData.createTextArea(prefix);
+
+	}
+
+
+	@Benchmark
+	public List<Completion> getCompletions() {
+		return provider.getCompletions(textArea);
+	}
+
+
+	/**
+	 * Gets completions, then the first screenful of them, as the completion
+	 * popup does.  With lazy sorting, the rest are never sorted.
+	 *
+	 * @return The last completion displayed.
+	 */
+	@Benchmark
+	public Completion getCompletionsFirstPage() {
+		List<Completion> completions = provider.getCompletions(textArea);
+		Completion last = null;
+		int count = Math.min(20, completions.size());
+		for (int i=0; i<count; i++) {
+			last = completions.get(i);
+		}
+		return last;
+	}
+
+
+}
@@ -0,0 +1,65 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JTextArea;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * Benchmarks looking up completions in a {@link DefaultCompletionProvider},
+ * for varying numbers of completions and lengths of entered text.  Shorter
+ * prefixes match more completions.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ProviderBenchmark {
+
+	@Param({ "1000", "10000", "100000" })
+	public int catalogSize;
+
+	@Param({ "1", "2", "4" })
+	public int prefixLength;
+
+	private DefaultCompletionProvider provider;
+	private JTextArea textArea;
+
+
+	@Setup
+	public void setUp() {
+		List<String> words = BenchmarkData.createWords(catalogSize, 1);
+		provider = BenchmarkData.createProvider(words);
+		String prefix = words.get(catalogSize / 2).substring(0, prefixLength);
+		textArea = BenchmarkData.createTextArea(prefix);
+	}
+
+
+	@Benchmark
+	public List<Completion> getCompletions() {
+		return provider.getCompletions(textArea);
+	}
+
+
+	@Benchmark
+	public List<Completion> getCompletionsImpl() {
+		return provider.getCompletionsImpl(textArea);
+	}
+
+
+}
@@ -0,0 +1,83 @@
+/*
+ * This library is distributed under a modified BSD license.  See the included
+ * LICENSE.md file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+
+/**
+ * Benchmarks loading the demo's C API, repeated to simulate larger APIs,
+ * from XML and from a compiled catalog.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class XmlLoadingBenchmark {
+
+	@Param({ "1", "10", "100" })
+	public int scale;
+
+	private byte[] xml;
+	private File catalog;
+
+
+	@Setup
+	public void setUp() throws IOException {
+		xml = BenchmarkData.createScaledCApi(scale);
+		catalog = File.createTempFile("benchmark", ".catalog");
+		try (OutputStream out = Files.newOutputStream(catalog.toPath())) {
+			CompletionCatalogCompiler.compile(new ByteArrayInputStream(xml), out);
+		}
+	}
+
+
+	@TearDown
+	public void tearDown() {
+		catalog.delete();
+	}
+
+
+	@Benchmark
+	public DefaultCompletionProvider loadFromXML() throws IOException {
+		DefaultCompletionProvider provider = new DefaultCompletionProvider();
+		provider.loadFromXML(new ByteArrayInputStream(xml));
+		return provider;
+	}
+
+
+	/**
+	 * Opens the catalog and looks up completions, since nothing is read
+	 * from a catalog until completions are looked up.
+	 *
+	 * @return The completions found.
+	 * @throws IOException If an IO error occurs.
+	 */
+	@Benchmark
+	public List<Completion> openCatalog() throws IOException {
+		CatalogCompletionProvider provider = new CatalogCompletionProvider(catalog);
+		return provider.getCompletionByInputText("printf");
+	}
+
+
+}